@@ -0,0 +1,117 @@
+package datadog.trace.bootstrap.instrumentation.jdbc;
+
+/**
+ * Normalizes SQL statements into resource names: string and numeric literals are replaced with
+ * {@code ?} and runs of whitespace are collapsed into a single space.
+ *
+ * <p>Quoted identifiers and comments are kept as they are, so literals are only recognized where
+ * they can appear in the statement. This is a single pass over the statement, not a parser, and is
+ * meant to be computed once per distinct statement.
+ */
+public final class SQLNormalizer {
+
+  private SQLNormalizer() {}
+
+  public static String normalize(final String sql) {
+    final int length = sql.length();
+    final StringBuilder normalized = new StringBuilder(length);
+    boolean pendingSpace = false;
+    int i = 0;
+    while (i < length) {
+      final char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        pendingSpace =
+            normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != '\n';
+        ++i;
+        continue;
+      }
+      if (pendingSpace) {
+        normalized.append(' ');
+        pendingSpace = false;
+      }
+      final char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+      if (c == '\'') {
+        i = skipStringLiteral(sql, i + 1);
+        normalized.append('?');
+      } else if (c == '"' || c == '`') {
+        final int end = sql.indexOf(c, i + 1);
+        i = copy(sql, i, end < 0 ? length : end + 1, normalized);
+      } else if (c == '-' && next == '-') {
+        // keep the line break ending the comment so it does not swallow the rest of the statement
+        final int end = sql.indexOf('\n', i);
+        i = copy(sql, i, end < 0 ? length : end + 1, normalized);
+      } else if (c == '/' && next == '*') {
+        final int end = sql.indexOf("*/", i + 2);
+        i = copy(sql, i, end < 0 ? length : end + 2, normalized);
+      } else if ((isDigit(c) || (c == '.' && isDigit(next))) && !followsIdentifier(normalized)) {
+        i = skipNumericLiteral(sql, i + 1);
+        normalized.append('?');
+      } else {
+        normalized.append(c);
+        ++i;
+      }
+    }
+    return normalized.length() == length && sql.contentEquals(normalized)
+        ? sql
+        : normalized.toString();
+  }
+
+  /** @return the index following the closing quote of the string literal starting at i */
+  private static int skipStringLiteral(final String sql, int i) {
+    final int length = sql.length();
+    while (i < length) {
+      final char c = sql.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (c == '\'') {
+        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+          i += 2;
+        } else {
+          return i + 1;
+        }
+      } else {
+        ++i;
+      }
+    }
+    return length;
+  }
+
+  /** @return the index following the numeric literal, including hex digits and exponents */
+  private static int skipNumericLiteral(final String sql, int i) {
+    final int length = sql.length();
+    while (i < length) {
+      final char c = sql.charAt(i);
+      if (c == 'e' || c == 'E') {
+        final char sign = i + 1 < length ? sql.charAt(i + 1) : 0;
+        i += sign == '+' || sign == '-' ? 2 : 1;
+      } else if (Character.isLetterOrDigit(c) || c == '.' || c == '_') {
+        ++i;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private static int copy(
+      final String sql, final int start, final int end, final StringBuilder normalized) {
+    normalized.append(sql, start, end);
+    return end;
+  }
+
+  private static boolean followsIdentifier(final StringBuilder normalized) {
+    if (normalized.length() == 0) {
+      return false;
+    }
+    final char previous = normalized.charAt(normalized.length() - 1);
+    return Character.isLetterOrDigit(previous)
+        || previous == '_'
+        || previous == '$'
+        || previous == '@'
+        || previous == '#';
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+}
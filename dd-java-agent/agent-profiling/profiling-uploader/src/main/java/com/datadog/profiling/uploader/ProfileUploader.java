@@ -23,10 +23,16 @@ import com.datadog.profiling.util.ProfilingThreadFactory;
 import com.google.common.annotations.VisibleForTesting;
 import datadog.common.container.ContainerInfo;
 import datadog.trace.api.Config;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Collections;
@@ -35,6 +41,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -88,6 +95,9 @@ public final class ProfileUploader {
 
   static final int TERMINATION_TIMEOUT = 5;
 
+  static final String SPOOL_FILE_PREFIX = "dd-profiler-upload-";
+  static final String SPOOL_FILE_SUFFIX = ".tmp";
+
   private static final Headers DATA_HEADERS =
       Headers.of(
           "Content-Disposition", "form-data; name=\"" + DATA_PARAM + "\"; filename=\"profile\"");
@@ -126,6 +136,8 @@ public final class ProfileUploader {
   static final double REQUEST_SIZE_COEFFICIENT = 1.2;
 
   private final ExecutorService okHttpExecutorService;
+  private final ExecutorService compressionExecutorService;
+  private final int compressionThreads;
   private final OkHttpClient client;
   private final String apiKey;
   private final String url;
@@ -221,6 +233,12 @@ public final class ProfileUploader {
     // We are mainly talking to the same(ish) host so we need to raise this limit
     client.dispatcher().setMaxRequestsPerHost(MAX_RUNNING_REQUESTS);
 
+    compressionThreads = config.getProfilingUploadCompressionThreads();
+    compressionExecutorService =
+        compressionThreads > 1
+            ? Executors.newFixedThreadPool(
+                compressionThreads, new ProfilingThreadFactory("dd-profiler-compression"))
+            : null;
     compression = getCompression(CompressionType.of(config.getProfilingUploadCompression()));
 
     requestSizeHistory = new ArrayDeque<>(REQUEST_SIZE_HISTORY_SIZE);
@@ -247,6 +265,9 @@ public final class ProfileUploader {
   }
 
   public void shutdown() {
+    if (compressionExecutorService != null) {
+      compressionExecutorService.shutdownNow();
+    }
     okHttpExecutorService.shutdownNow();
     try {
       okHttpExecutorService.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS);
@@ -267,31 +288,33 @@ public final class ProfileUploader {
   @FunctionalInterface
   private interface Compression {
 
-    RequestBody compress(InputStream is, int expectedSize) throws IOException;
+    void compress(InputStream is, OutputStream os) throws IOException;
   }
 
   private Compression getCompression(final CompressionType type) {
-    final StreamUtils.BytesConsumer<RequestBody> consumer =
-        (bytes, offset, length) -> RequestBody.create(OCTET_STREAM, bytes, offset, length);
     final Compression compression;
     // currently only gzip and off are supported
     // this needs to be updated once more compression types are added
     switch (type) {
       case GZIP:
         {
-          compression = (is, expectedSize) -> StreamUtils.gzipStream(is, expectedSize, consumer);
+          compression =
+              (is, os) ->
+                  StreamUtils.gzipStream(is, os, compressionExecutorService, compressionThreads);
           break;
         }
       case OFF:
         {
-          compression = (is, expectedSize) -> StreamUtils.readStream(is, expectedSize, consumer);
+          compression = StreamUtils::writeStream;
           break;
         }
       case ON:
       case LZ4:
       default:
         {
-          compression = (is, expectedSize) -> StreamUtils.lz4Stream(is, expectedSize, consumer);
+          compression =
+              (is, os) ->
+                  StreamUtils.lz4Stream(is, os, compressionExecutorService, compressionThreads);
           break;
         }
     }
@@ -300,24 +323,65 @@ public final class ProfileUploader {
 
   private void makeUploadRequest(final RecordingType type, final RecordingData data)
       throws IOException {
-    final int expectedRequestSize = getExpectedRequestSize();
-    // TODO: it would be really nice to avoid copy here, but:
-    // * if JFR doesn't write file to disk we seem to not be able to get size of the recording
-    // without reading whole stream
-    // * OkHTTP doesn't provide direct way to send uploads from streams - and workarounds would
-    // require stream that allows 'repeatable reads' because we may need to resend that data.
-    final RequestBody body = compression.compress(data.getStream(), expectedRequestSize);
-    if (log.isDebugEnabled()) {
-      log.debug(
-          "Uploading profile {} [{}] (Size={}/{} bytes)",
-          data.getName(),
+    final InputStream recording = data.getStream();
+    // The compressed recording is spooled to a file, and streamed from it, so that large recordings
+    // do not need to be held in memory. OkHttp may need to resend the body, so it must be
+    // repeatable, which the recording stream is not.
+    final File spoolFile = createSpoolFile();
+    if (spoolFile == null) {
+      enqueue(type, data, compressInMemory(recording), RESPONSE_CALLBACK);
+      return;
+    }
+    try {
+      try (final OutputStream os = new BufferedOutputStream(new FileOutputStream(spoolFile))) {
+        compression.compress(recording, os);
+      }
+      enqueue(
           type,
-          body.contentLength(),
-          expectedRequestSize);
+          data,
+          RequestBody.create(OCTET_STREAM, spoolFile),
+          new SpoolFileCleanup(spoolFile));
+    } catch (final IOException | RuntimeException e) {
+      deleteSpoolFile(spoolFile);
+      throw e;
     }
+  }
 
+  private File createSpoolFile() {
+    try {
+      return Files.createTempFile(SPOOL_FILE_PREFIX, SPOOL_FILE_SUFFIX).toFile();
+    } catch (final IOException | SecurityException e) {
+      log.debug("Cannot create profile spool file, compressing in memory", e);
+      return null;
+    }
+  }
+
+  private static void deleteSpoolFile(final File spoolFile) {
+    if (!spoolFile.delete() && spoolFile.exists()) {
+      log.debug("Cannot delete profile spool file {}", spoolFile);
+      spoolFile.deleteOnExit();
+    }
+  }
+
+  private RequestBody compressInMemory(final InputStream recording) throws IOException {
+    final int expectedRequestSize = getExpectedRequestSize();
+    final RequestBodyBuffer buffer = new RequestBodyBuffer(expectedRequestSize);
+    compression.compress(recording, buffer);
     // The body data is stored in byte array so we naturally get size limit that will fit into int
-    updateUploadSizesHistory((int) body.contentLength());
+    updateUploadSizesHistory(buffer.size());
+    return buffer.toRequestBody();
+  }
+
+  private void enqueue(
+      final RecordingType type,
+      final RecordingData data,
+      final RequestBody body,
+      final Callback callback)
+      throws IOException {
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "Uploading profile {} [{}] (Size={} bytes)", data.getName(), type, body.contentLength());
+    }
 
     final MultipartBody.Builder bodyBuilder =
         new MultipartBody.Builder()
@@ -346,7 +410,7 @@ public final class ProfileUploader {
     if (containerId != null) {
       requestBuilder.addHeader(HEADER_DD_CONTAINER_ID, containerId);
     }
-    client.newCall(requestBuilder.build()).enqueue(RESPONSE_CALLBACK);
+    client.newCall(requestBuilder.build()).enqueue(callback);
   }
 
   private int getExpectedRequestSize() {
@@ -375,6 +439,45 @@ public final class ProfileUploader {
     return client.dispatcher().queuedCallsCount() < MAX_ENQUEUED_REQUESTS;
   }
 
+  /** Deletes the spool file of a request once the request is done with it. */
+  private static final class SpoolFileCleanup implements Callback {
+    private final File spoolFile;
+
+    private SpoolFileCleanup(final File spoolFile) {
+      this.spoolFile = spoolFile;
+    }
+
+    @Override
+    public void onFailure(final Call call, final IOException e) {
+      try {
+        RESPONSE_CALLBACK.onFailure(call, e);
+      } finally {
+        deleteSpoolFile(spoolFile);
+      }
+    }
+
+    @Override
+    public void onResponse(final Call call, final Response response) throws IOException {
+      try {
+        RESPONSE_CALLBACK.onResponse(call, response);
+      } finally {
+        deleteSpoolFile(spoolFile);
+      }
+    }
+  }
+
+  // Helper ByteArrayOutputStream that avoids copying the data into the request body
+  private static final class RequestBodyBuffer extends ByteArrayOutputStream {
+
+    private RequestBodyBuffer(final int size) {
+      super(size);
+    }
+
+    private RequestBody toRequestBody() {
+      return RequestBody.create(OCTET_STREAM, buf, 0, count);
+    }
+  }
+
   private List<String> tagsToList(final Map<String, String> tags) {
     return tags.entrySet().stream()
         .filter(e -> e.getValue() != null && !e.getValue().isEmpty())
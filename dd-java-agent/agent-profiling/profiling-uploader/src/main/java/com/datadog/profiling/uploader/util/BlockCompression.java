@@ -0,0 +1,206 @@
+package com.datadog.profiling.uploader.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.xxhash.XXHashFactory;
+
+/**
+ * Compresses a stream in independent blocks on an executor, writing the compressed blocks in order
+ * as soon as they are ready.
+ *
+ * <p>At most {@code parallelism} blocks are being compressed at any time, so the memory used is
+ * bounded by the block size whatever the size of the stream. Blocks are kept below the size of
+ * humongous objects of G1 with 1MB regions.
+ */
+final class BlockCompression {
+  // https://github.com/lz4/lz4/blob/dev/doc/lz4_Frame_format.md#general-structure-of-lz4-frame-format
+  private static final int LZ4_BLOCK_SIZE = 64 * 1024;
+  // version 01, independent blocks, no checksums, no content size
+  private static final byte LZ4_FLG = 0x60;
+  // 64KB maximum block size
+  private static final byte LZ4_BD = 0x40;
+  private static final int LZ4_UNCOMPRESSED_BLOCK = 0x80000000;
+
+  // blocks are compressed into separate gzip members, so they are larger to limit the loss of ratio
+  private static final int GZIP_BLOCK_SIZE = 256 * 1024;
+
+  private interface BlockCompressor {
+    /** @return the compressed block, as written to the output */
+    Block compress(byte[] block, int length) throws IOException;
+  }
+
+  private static final class Block {
+    private final byte[] bytes;
+    private final int length;
+
+    private Block(final byte[] bytes, final int length) {
+      this.bytes = bytes;
+      this.length = length;
+    }
+  }
+
+  private BlockCompression() {}
+
+  static void lz4(
+      final InputStream is,
+      final OutputStream os,
+      final ExecutorService executor,
+      final int parallelism)
+      throws IOException {
+    final byte[] header = new byte[7];
+    writeIntLE(header, 0, 0x184D2204);
+    header[4] = LZ4_FLG;
+    header[5] = LZ4_BD;
+    header[6] =
+        (byte) (XXHashFactory.fastestInstance().hash32().hash(header, 4, 2, 0) >> 8 & 0xFF);
+    os.write(header);
+    final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    compress(
+        is,
+        os,
+        LZ4_BLOCK_SIZE,
+        executor,
+        parallelism,
+        (block, length) -> {
+          final byte[] compressed = new byte[4 + compressor.maxCompressedLength(length)];
+          final int compressedLength =
+              compressor.compress(block, 0, length, compressed, 4, compressed.length - 4);
+          if (compressedLength >= length) {
+            // incompressible data is stored as is
+            final byte[] stored = new byte[4 + length];
+            writeIntLE(stored, 0, length | LZ4_UNCOMPRESSED_BLOCK);
+            System.arraycopy(block, 0, stored, 4, length);
+            return new Block(stored, stored.length);
+          }
+          writeIntLE(compressed, 0, compressedLength);
+          return new Block(compressed, 4 + compressedLength);
+        });
+    // end mark
+    os.write(new byte[4]);
+  }
+
+  static void gzip(
+      final InputStream is,
+      final OutputStream os,
+      final ExecutorService executor,
+      final int parallelism)
+      throws IOException {
+    final int blocks =
+        compress(
+            is,
+            os,
+            GZIP_BLOCK_SIZE,
+            executor,
+            parallelism,
+            (block, length) -> {
+              // concatenated gzip members decompress into the concatenation of their contents
+              final ExposedByteArrayOutputStream compressed =
+                  new ExposedByteArrayOutputStream(length / 2);
+              try (final GZIPOutputStream zipped = new GZIPOutputStream(compressed)) {
+                zipped.write(block, 0, length);
+              }
+              return compressed.toBlock();
+            });
+    if (blocks == 0) {
+      // a gzip stream needs at least one member, even when empty
+      new GZIPOutputStream(os).finish();
+    }
+  }
+
+  /** @return the number of blocks compressed */
+  private static int compress(
+      final InputStream is,
+      final OutputStream os,
+      final int blockSize,
+      final ExecutorService executor,
+      final int parallelism,
+      final BlockCompressor compressor)
+      throws IOException {
+    final Deque<Future<Block>> pending = new ArrayDeque<>(parallelism);
+    int blocks = 0;
+    try {
+      int length;
+      do {
+        final byte[] block = new byte[blockSize];
+        length = readBlock(is, block);
+        if (length > 0) {
+          if (pending.size() >= parallelism) {
+            write(os, pending.poll());
+          }
+          final int blockLength = length;
+          pending.add(executor.submit(() -> compressor.compress(block, blockLength)));
+          ++blocks;
+        }
+      } while (length == blockSize);
+      while (!pending.isEmpty()) {
+        write(os, pending.poll());
+      }
+      return blocks;
+    } catch (final RejectedExecutionException e) {
+      throw new IOException("Compression executor is shut down", e);
+    } finally {
+      for (final Future<Block> future : pending) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private static void write(final OutputStream os, final Future<Block> future) throws IOException {
+    final Block block;
+    try {
+      block = future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while compressing");
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to compress block", cause);
+    }
+    os.write(block.bytes, 0, block.length);
+  }
+
+  /** @return the number of bytes read into the block, less than its size at the end of stream */
+  private static int readBlock(final InputStream is, final byte[] block) throws IOException {
+    int length = 0;
+    while (length < block.length) {
+      final int read = is.read(block, length, block.length - length);
+      if (read < 0) {
+        break;
+      }
+      length += read;
+    }
+    return length;
+  }
+
+  private static void writeIntLE(final byte[] bytes, final int offset, final int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) (value >>> 16);
+    bytes[offset + 3] = (byte) (value >>> 24);
+  }
+
+  private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+    private ExposedByteArrayOutputStream(final int size) {
+      super(size);
+    }
+
+    private Block toBlock() {
+      return new Block(buf, count);
+    }
+  }
+}
@@ -1,12 +1,10 @@
 package com.datadog.profiling.uploader.util;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.GZIPOutputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.openjdk.jmc.common.io.IOToolkit;
@@ -20,160 +18,85 @@ public final class StreamUtils {
   // JMC's IOToolkit hides this from us...
   static final int ZIP_MAGIC[] = new int[] {80, 75, 3, 4};
   static final int GZ_MAGIC[] = new int[] {31, 139};
-  /**
-   * Consumes array or bytes along with offset and length and turns it into something usable.
-   *
-   * <p>Main idea here is that we may end up having array with valuable data siting somehere in the
-   * middle and we can avoid additional copies by allowing user to deal with this directly and
-   * convert it into whatever format it needs in most efficient way.
-   *
-   * @param <T> result type
-   */
-  @FunctionalInterface
-  public interface BytesConsumer<T> {
-    T consume(byte[] bytes, int offset, int length);
-  }
 
   /**
-   * Read a stream into a consumer gzip-compressing content. If the stream is already compressed
-   * (gzip, zip, lz4) the original data will be returned.
+   * Write a stream into an output stream gzip-compressing content. If the stream is already
+   * compressed (gzip, zip, lz4) the original data will be written.
+   *
+   * <p>When given an executor and a parallelism above 1, the content is split into blocks which are
+   * compressed concurrently, each into its own gzip member. Either way, only a bounded amount of
+   * the content is held in memory.
    *
    * @param is the input stream
-   * @return gzipped contents of the input stream or the the original content if the stream is
-   *     already compressed
+   * @param os the output stream, which may be closed once the content has been written
+   * @param executor compressing blocks, or null to compress sequentially
+   * @param parallelism maximum number of blocks compressed concurrently
    * @throws IOException
    */
-  public static <T> T gzipStream(
-      InputStream is, final int expectedSize, final BytesConsumer<T> consumer) throws IOException {
+  public static void gzipStream(
+      InputStream is,
+      final OutputStream os,
+      final ExecutorService executor,
+      final int parallelism)
+      throws IOException {
     is = ensureMarkSupported(is);
     if (isCompressed(is)) {
-      return readStream(is, expectedSize, consumer);
+      copy(is, os);
+    } else if (null != executor && parallelism > 1) {
+      BlockCompression.gzip(is, os, executor, parallelism);
     } else {
-      final FastByteArrayOutputStream baos = new FastByteArrayOutputStream(expectedSize);
-      try (final OutputStream zipped = new GZIPOutputStream(baos)) {
+      try (final OutputStream zipped = new GZIPOutputStream(os)) {
         copy(is, zipped);
       }
-      return baos.consume(consumer);
     }
   }
 
   /**
-   * Read a stream into a consumer lz4-compressing content. If the stream is already compressed
-   * (gzip, zip, lz4) the original data will be returned.
+   * Write a stream into an output stream lz4-compressing content. If the stream is already
+   * compressed (gzip, zip, lz4) the original data will be written.
+   *
+   * <p>When given an executor and a parallelism above 1, the independent blocks of the lz4 frame
+   * are compressed concurrently. Either way, only a bounded amount of the content is held in
+   * memory.
    *
    * @param is the input stream
-   * @return lz4ed contents of the input stream or the the original content if the stream is already
-   *     compressed
+   * @param os the output stream, which may be closed once the content has been written
+   * @param executor compressing blocks, or null to compress sequentially
+   * @param parallelism maximum number of blocks compressed concurrently
    * @throws IOException
    */
-  public static <T> T lz4Stream(
-      InputStream is, final int expectedSize, final BytesConsumer<T> consumer) throws IOException {
+  public static void lz4Stream(
+      InputStream is,
+      final OutputStream os,
+      final ExecutorService executor,
+      final int parallelism)
+      throws IOException {
     is = ensureMarkSupported(is);
     if (isCompressed(is)) {
-      return readStream(is, expectedSize, consumer);
+      copy(is, os);
+    } else if (null != executor && parallelism > 1) {
+      BlockCompression.lz4(is, os, executor, parallelism);
     } else {
-      final FastByteArrayOutputStream baos = new FastByteArrayOutputStream(expectedSize);
       try (final OutputStream zipped =
           new LZ4FrameOutputStream(
-              baos,
+              os,
               LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB,
               // copy of the default flag(s) used by LZ4FrameOutputStream
               LZ4FrameOutputStream.FLG.Bits.BLOCK_INDEPENDENCE)) {
         copy(is, zipped);
       }
-      return baos.consume(consumer);
     }
   }
 
   /**
-   * Read a stream into a consumer.
-   *
-   * <p>Note: the idea here comes from Guava's {@link com.google.common.io.ByteStreams}, but we
-   * cannot use that directly because it is not public and is not flexible enough.
+   * Write a stream into an output stream.
    *
    * @param is the input stream
-   * @param expectedSize expected result size to preallocate buffers
-   * @param consumer consumer to convert byte array to result
-   * @return the stream data
+   * @param os the output stream
    * @throws IOException
    */
-  public static <T> T readStream(
-      final InputStream is, final int expectedSize, final BytesConsumer<T> consumer)
-      throws IOException {
-    final byte[] bytes = new byte[expectedSize];
-    int remaining = expectedSize;
-
-    while (remaining > 0) {
-      final int offset = expectedSize - remaining;
-      final int read = is.read(bytes, offset, remaining);
-      if (read == -1) {
-        // end of stream before reading expectedSize bytes just return the bytes read so far
-        // 'offset' here is offset in 'bytes' buffer - which essentially represents length of data
-        // read so far.
-        return consumer.consume(bytes, 0, offset);
-      }
-      remaining -= read;
-    }
-
-    // the stream was longer, so read the rest manually
-    final List<BufferChunk> additionalChunks = new ArrayList<>();
-    int additionalChunksLength = 0;
-
-    while (true) {
-      final BufferChunk chunk = new BufferChunk(Math.max(32, is.available()));
-      final int readLength = chunk.readFrom(is);
-      if (readLength < 0) {
-        break;
-      } else {
-        additionalChunks.add(chunk);
-        additionalChunksLength += readLength;
-      }
-    }
-
-    // now assemble resulting array
-    final byte[] result = new byte[bytes.length + additionalChunksLength];
-    System.arraycopy(bytes, 0, result, 0, bytes.length);
-    int offset = bytes.length;
-    for (final BufferChunk chunk : additionalChunks) {
-      offset += chunk.appendToArray(result, offset);
-    }
-    return consumer.consume(result, 0, result.length);
-  }
-
-  private static class BufferChunk {
-
-    private int size = 0;
-    private final byte[] buf;
-
-    public BufferChunk(final int initialSize) {
-      buf = new byte[initialSize];
-    }
-
-    public int readFrom(final InputStream is) throws IOException {
-      size = is.read(buf, 0, buf.length);
-      return size;
-    }
-
-    public int appendToArray(final byte[] array, final int offset) {
-      System.arraycopy(buf, 0, array, offset, size);
-      return size;
-    }
-  }
-
-  // Helper ByteArrayOutputStream that avoids some data copies
-  private static final class FastByteArrayOutputStream extends ByteArrayOutputStream {
-
-    public FastByteArrayOutputStream(final int size) {
-      super(size);
-    }
-
-    /**
-     * ByteArrayOutputStream's API doesn't allow us to get data without a copy. We add this method
-     * to support this.
-     */
-    <T> T consume(final BytesConsumer<T> consumer) {
-      return consumer.consume(buf, 0, count);
-    }
+  public static void writeStream(final InputStream is, final OutputStream os) throws IOException {
+    copy(is, os);
   }
 
   /**
@@ -40,14 +40,17 @@ import com.google.common.io.ByteStreams;
 import datadog.trace.api.Config;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 import net.jpountz.lz4.LZ4FrameInputStream;
@@ -194,6 +197,37 @@ public class ProfileUploaderTest {
     assertArrayEquals(expectedBytes, uploadedBytes);
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {"lz4", "gzip"})
+  public void testRequestWithParallelCompression(final String compression)
+      throws IOException, InterruptedException {
+    when(config.getProfilingUploadCompression()).thenReturn(compression);
+    when(config.getProfilingUploadCompressionThreads()).thenReturn(4);
+    uploader = new ProfileUploader(config);
+
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    final RecordingData recording = mockRecordingData(RECORDING_RESOURCE);
+    uploader.upload(RECORDING_TYPE, recording);
+
+    final RecordedRequest recordedRequest = server.takeRequest(5, TimeUnit.SECONDS);
+    final Multimap<String, Object> parameters =
+        ProfilingTestUtils.parseProfilingRequestParameters(recordedRequest);
+
+    final byte[] expectedBytes =
+        ByteStreams.toByteArray(
+            Thread.currentThread().getContextClassLoader().getResourceAsStream(RECORDING_RESOURCE));
+
+    final byte[] uploadedBytes =
+        (byte[]) Iterables.getFirst(parameters.get(ProfileUploader.DATA_PARAM), new byte[] {});
+    assertArrayEquals(
+        expectedBytes,
+        compression.equals("gzip") ? unGzip(uploadedBytes) : unLz4(uploadedBytes));
+
+    verify(recording.getStream()).close();
+    verify(recording).release();
+  }
+
   @Test
   public void testRequestWithContainerId() throws IOException, InterruptedException {
     uploader = new ProfileUploader(config, "container-id");
@@ -354,6 +388,29 @@ public class ProfileUploaderTest {
     verify(recording).release();
   }
 
+  @ParameterizedTest
+  @ValueSource(ints = {200, 500})
+  public void testSpoolFileDeletedAfterResponse(final int responseCode)
+      throws IOException, InterruptedException {
+    final Set<String> spoolFiles = spoolFiles();
+    server.enqueue(new MockResponse().setResponseCode(responseCode));
+
+    uploader.upload(RECORDING_TYPE, mockRecordingData(RECORDING_RESOURCE));
+
+    assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+    awaitSpoolFiles(spoolFiles);
+  }
+
+  @Test
+  public void testSpoolFileDeletedAfterFailure() throws IOException, InterruptedException {
+    final Set<String> spoolFiles = spoolFiles();
+    server.shutdown();
+
+    uploader.upload(RECORDING_TYPE, mockRecordingData(RECORDING_RESOURCE));
+
+    awaitSpoolFiles(spoolFiles);
+  }
+
   @Test
   public void testConnectionRefused() throws IOException, InterruptedException {
     server.shutdown();
@@ -520,4 +577,26 @@ public class ProfileUploaderTest {
     ByteStreams.copy(stream, result);
     return result.toByteArray();
   }
+
+  private static Set<String> spoolFiles() {
+    final Set<String> names = new HashSet<>();
+    final File[] files =
+        new File(System.getProperty("java.io.tmpdir"))
+            .listFiles((dir, name) -> name.startsWith(ProfileUploader.SPOOL_FILE_PREFIX));
+    if (files != null) {
+      for (final File file : files) {
+        names.add(file.getName());
+      }
+    }
+    return names;
+  }
+
+  /** Spool files are deleted by the response callback, which may run after the request is seen */
+  private static void awaitSpoolFiles(final Set<String> expected) throws InterruptedException {
+    final Instant deadline = Instant.now().plusSeconds(5);
+    while (!expected.equals(spoolFiles()) && Instant.now().isBefore(deadline)) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, spoolFiles());
+  }
 }
@@ -9,26 +9,29 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import net.jpountz.lz4.LZ4FrameInputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class StreamUtilsTest {
 
-  private final int DEFAULT_EXPECTED_SIZE = 100;
-  private final StreamUtils.BytesConsumer<byte[]> CONSUME_TO_BYTES =
-      (bytes, offset, length) -> Arrays.copyOfRange(bytes, offset, offset + length);
-
   private static byte[] testRecordingBytes;
   private static byte[] testRecordingGzippedBytes;
   private static byte[] testRecordingZippedBytes;
   private static byte[] testRecordingLz4edBytes;
 
+  private static ExecutorService executor;
+
   @BeforeAll
   public static void setupClass() throws IOException {
     testRecordingBytes = ByteStreams.toByteArray(testRecordingStream());
@@ -44,124 +47,111 @@ class StreamUtilsTest {
     final ByteArrayOutputStream zl4edStream = new ByteArrayOutputStream();
     ByteStreams.copy(testRecordingStream(), new LZ4FrameOutputStream(zl4edStream));
     testRecordingLz4edBytes = zl4edStream.toByteArray();
+
+    executor = Executors.newFixedThreadPool(4);
   }
 
-  @Test
-  public void readStreamNoCompression() throws IOException {
-    final int expectedSize = 1; // Try very small value to test 'undershoot' logic
-    final byte[] bytes =
-        StreamUtils.readStream(testRecordingStream(), expectedSize, CONSUME_TO_BYTES);
-    assertArrayEquals(testRecordingBytes, bytes);
+  @AfterAll
+  public static void tearDownClass() {
+    executor.shutdownNow();
   }
 
   @Test
-  public void readStreamNoCompressionLargeExpectedSize() throws IOException {
-    final int expectedSize = testRecordingBytes.length * 2; // overshoot the size
-    final byte[] bytes =
-        StreamUtils.readStream(testRecordingStream(), expectedSize, CONSUME_TO_BYTES);
-    assertArrayEquals(testRecordingBytes, bytes);
+  public void writeStreamNoCompression() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    StreamUtils.writeStream(testRecordingStream(), outputStream);
+
+    assertArrayEquals(testRecordingBytes, outputStream.toByteArray());
   }
 
   @Test
-  public void gzipStream() throws IOException {
-    final int expectedSize = 1; // Try very small value to test 'undershoot' logic
-    final byte[] gzippedBytes =
-        StreamUtils.gzipStream(testRecordingStream(), expectedSize, CONSUME_TO_BYTES);
+  public void gzipAlreadyGzippedStream() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    StreamUtils.gzipStream(new ByteArrayInputStream(testRecordingGzippedBytes), outputStream, executor, 4);
 
-    assertArrayEquals(testRecordingBytes, uncompressGzip(gzippedBytes));
+    assertArrayEquals(testRecordingGzippedBytes, outputStream.toByteArray());
   }
 
   @Test
-  public void gzipStreamLargeExpectedSize() throws IOException {
-    final int expectedSize = testRecordingBytes.length * 2; // overshoot the size
-    final byte[] gzippedBytes =
-        StreamUtils.gzipStream(testRecordingStream(), expectedSize, CONSUME_TO_BYTES);
+  public void gzipAlreadyZippedStream() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    StreamUtils.gzipStream(new ByteArrayInputStream(testRecordingZippedBytes), outputStream, executor, 4);
 
-    assertArrayEquals(testRecordingBytes, uncompressGzip(gzippedBytes));
+    assertArrayEquals(testRecordingZippedBytes, outputStream.toByteArray());
   }
 
   @Test
-  public void gzipAlreadyGzippedStream() throws IOException {
-    final byte[] bytes =
-        StreamUtils.gzipStream(
-            new ByteArrayInputStream(testRecordingGzippedBytes),
-            DEFAULT_EXPECTED_SIZE,
-            CONSUME_TO_BYTES);
+  public void gzipAlreadyLz4edStream() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    StreamUtils.gzipStream(new ByteArrayInputStream(testRecordingLz4edBytes), outputStream, executor, 4);
 
-    assertArrayEquals(testRecordingGzippedBytes, bytes);
+    assertArrayEquals(testRecordingLz4edBytes, outputStream.toByteArray());
   }
 
   @Test
-  public void gzipAlreadyZippedStream() throws IOException {
-    final byte[] bytes =
-        StreamUtils.gzipStream(
-            new ByteArrayInputStream(testRecordingZippedBytes),
-            DEFAULT_EXPECTED_SIZE,
-            CONSUME_TO_BYTES);
+  public void lz4AlreadyGzippedStream() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    StreamUtils.lz4Stream(new ByteArrayInputStream(testRecordingGzippedBytes), outputStream, executor, 4);
 
-    assertArrayEquals(testRecordingZippedBytes, bytes);
+    assertArrayEquals(testRecordingGzippedBytes, outputStream.toByteArray());
   }
 
   @Test
-  public void gzipAlreadyLz4edStream() throws IOException {
-    final byte[] bytes =
-        StreamUtils.gzipStream(
-            new ByteArrayInputStream(testRecordingLz4edBytes),
-            DEFAULT_EXPECTED_SIZE,
-            CONSUME_TO_BYTES);
+  public void lz4AlreadyZippedStream() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    StreamUtils.lz4Stream(new ByteArrayInputStream(testRecordingZippedBytes), outputStream, executor, 4);
 
-    assertArrayEquals(testRecordingLz4edBytes, bytes);
+    assertArrayEquals(testRecordingZippedBytes, outputStream.toByteArray());
   }
 
   @Test
-  public void lz4Stream() throws IOException {
-    final int expectedSize = 1; // Try very small value to test 'undershoot' logic
-    final byte[] gzippedBytes =
-        StreamUtils.lz4Stream(testRecordingStream(), expectedSize, CONSUME_TO_BYTES);
+  public void lz4AlreadyLz4edStream() throws IOException {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    StreamUtils.lz4Stream(new ByteArrayInputStream(testRecordingLz4edBytes), outputStream, executor, 4);
 
-    assertArrayEquals(testRecordingBytes, uncompressLz4(gzippedBytes));
+    assertArrayEquals(testRecordingLz4edBytes, outputStream.toByteArray());
   }
 
-  @Test
-  public void lz4StreamLargeExpectedSize() throws IOException {
-    final int expectedSize = testRecordingBytes.length * 2; // overshoot the size
-    final byte[] gzippedBytes =
-        StreamUtils.lz4Stream(testRecordingStream(), expectedSize, CONSUME_TO_BYTES);
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 4})
+  public void gzipStreamToOutputStream(final int parallelism) throws IOException {
+    final ByteArrayOutputStream gzippedStream = new ByteArrayOutputStream();
+    StreamUtils.gzipStream(testRecordingStream(), gzippedStream, executor, parallelism);
 
-    assertArrayEquals(testRecordingBytes, uncompressLz4(gzippedBytes));
+    assertArrayEquals(testRecordingBytes, uncompressGzip(gzippedStream.toByteArray()));
   }
 
-  @Test
-  public void lz4AlreadyGzippedStream() throws IOException {
-    final byte[] bytes =
-        StreamUtils.lz4Stream(
-            new ByteArrayInputStream(testRecordingGzippedBytes),
-            DEFAULT_EXPECTED_SIZE,
-            CONSUME_TO_BYTES);
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 4})
+  public void lz4StreamToOutputStream(final int parallelism) throws IOException {
+    final ByteArrayOutputStream lz4edStream = new ByteArrayOutputStream();
+    StreamUtils.lz4Stream(testRecordingStream(), lz4edStream, executor, parallelism);
 
-    assertArrayEquals(testRecordingGzippedBytes, bytes);
+    assertArrayEquals(testRecordingBytes, uncompressLz4(lz4edStream.toByteArray()));
   }
 
-  @Test
-  public void lz4AlreadyZippedStream() throws IOException {
-    final byte[] bytes =
-        StreamUtils.lz4Stream(
-            new ByteArrayInputStream(testRecordingZippedBytes),
-            DEFAULT_EXPECTED_SIZE,
-            CONSUME_TO_BYTES);
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4})
+  public void lz4StreamIncompressibleToOutputStream(final int parallelism) throws IOException {
+    // lz4ed data without its magic is not recognized as compressed, and hardly compresses again
+    final byte[] incompressible =
+        Arrays.copyOfRange(testRecordingLz4edBytes, 4, testRecordingLz4edBytes.length);
+    final ByteArrayOutputStream lz4edStream = new ByteArrayOutputStream();
+    StreamUtils.lz4Stream(
+        new ByteArrayInputStream(incompressible), lz4edStream, executor, parallelism);
 
-    assertArrayEquals(testRecordingZippedBytes, bytes);
+    assertArrayEquals(incompressible, uncompressLz4(lz4edStream.toByteArray()));
   }
 
   @Test
-  public void lz4AlreadyLz4edStream() throws IOException {
-    final byte[] bytes =
-        StreamUtils.lz4Stream(
-            new ByteArrayInputStream(testRecordingLz4edBytes),
-            DEFAULT_EXPECTED_SIZE,
-            CONSUME_TO_BYTES);
+  public void emptyStreamToOutputStream() throws IOException {
+    final ByteArrayOutputStream gzippedStream = new ByteArrayOutputStream();
+    StreamUtils.gzipStream(new ByteArrayInputStream(new byte[0]), gzippedStream, executor, 4);
+    assertArrayEquals(new byte[0], uncompressGzip(gzippedStream.toByteArray()));
 
-    assertArrayEquals(testRecordingLz4edBytes, bytes);
+    final ByteArrayOutputStream lz4edStream = new ByteArrayOutputStream();
+    StreamUtils.lz4Stream(new ByteArrayInputStream(new byte[0]), lz4edStream, executor, 4);
+    assertArrayEquals(new byte[0], uncompressLz4(lz4edStream.toByteArray()));
   }
 
   private static InputStream testRecordingStream() {
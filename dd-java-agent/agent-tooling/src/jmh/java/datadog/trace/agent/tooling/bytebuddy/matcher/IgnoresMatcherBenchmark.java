@@ -0,0 +1,95 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher;
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.GlobalIgnoresMatcher.globalIgnoresMatcher;
+import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
+import static net.bytebuddy.matcher.ElementMatchers.none;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Ignore matching of a mix of class names, as done on every class load, with and without a long
+ * list of configured excludes.
+ */
+@State(Scope.Benchmark)
+public class IgnoresMatcherBenchmark {
+
+  private static final String[] NAMES = {
+    "java.lang.String",
+    "java.util.concurrent.ThreadPoolExecutor$Worker",
+    "java.util.logging.Logger",
+    "sun.reflect.GeneratedMethodAccessor12",
+    "jdk.internal.misc.Unsafe",
+    "org.springframework.web.servlet.DispatcherServlet",
+    "org.springframework.beans.factory.support.DefaultListableBeanFactory",
+    "org.springframework.boot.autoconfigure.BackgroundPreinitializer$1",
+    "org.apache.catalina.core.StandardContext",
+    "org.apache.xerces.parsers.SAXParser",
+    "com.fasterxml.jackson.databind.ObjectMapper",
+    "com.google.common.collect.ImmutableList",
+    "com.example.orders.OrderController",
+    "com.example.orders.OrderRepository$$EnhancerBySpringCGLIB$$1a2b3c",
+    "com.example.billing.InvoiceService$fn__1234",
+    "io.netty.channel.nio.NioEventLoop",
+    "kotlin.collections.CollectionsKt",
+    "ch.qos.logback.classic.Logger",
+    "org.h2.jdbc.JdbcConnection",
+    "net.example.Main",
+  };
+
+  private static final int NUM_NAMES = NAMES.length;
+
+  @Param({"0", "50"})
+  int excludes;
+
+  TypeDescription[] types;
+  ElementMatcher<TypeDescription> globalIgnores;
+  ElementMatcher<TypeDescription> prefixExcludes;
+
+  @Setup
+  public void setup() {
+    types = new TypeDescription[NAMES.length];
+    for (int i = 0; i < NAMES.length; ++i) {
+      types[i] =
+          new TypeDescription.Latent(
+              NAMES[i], Visibility.PUBLIC.getMask(), TypeDescription.Generic.OBJECT);
+    }
+    final List<String> excludedClasses = new ArrayList<>();
+    for (int i = 0; i < excludes; ++i) {
+      excludedClasses.add("com.example.generated" + i + ".*");
+    }
+    globalIgnores = globalIgnoresMatcher(false, excludedClasses);
+    // how configured excludes used to be matched, one prefix matcher per excluded package
+    ElementMatcher.Junction<TypeDescription> matcher = none();
+    for (final String excludedClass : excludedClasses) {
+      matcher = matcher.or(nameStartsWith(excludedClass.substring(0, excludedClass.length() - 1)));
+    }
+    prefixExcludes = matcher;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_NAMES)
+  public void globalIgnores(final Blackhole blackhole) {
+    for (final TypeDescription type : types) {
+      blackhole.consume(globalIgnores.matches(type));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NUM_NAMES)
+  public void prefixMatcherExcludes(final Blackhole blackhole) {
+    for (final TypeDescription type : types) {
+      blackhole.consume(prefixExcludes.matches(type));
+    }
+  }
+}
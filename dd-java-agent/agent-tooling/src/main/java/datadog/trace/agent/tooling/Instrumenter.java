@@ -8,9 +8,11 @@ import static net.bytebuddy.matcher.ElementMatchers.not;
 
 import datadog.trace.agent.tooling.bytebuddy.DDTransformers;
 import datadog.trace.agent.tooling.bytebuddy.ExceptionHandlers;
+import datadog.trace.agent.tooling.bytebuddy.matcher.CombinedTypeMatcher;
 import datadog.trace.agent.tooling.context.FieldBackedProvider;
 import datadog.trace.agent.tooling.context.InstrumentationContextProvider;
 import datadog.trace.agent.tooling.context.NoopContextProvider;
+import datadog.trace.agent.tooling.muzzle.MuzzleCache;
 import datadog.trace.agent.tooling.muzzle.Reference;
 import datadog.trace.agent.tooling.muzzle.ReferenceMatcher;
 import datadog.trace.api.Config;
@@ -77,21 +79,43 @@ public interface Instrumenter {
 
     @Override
     public final AgentBuilder instrument(final AgentBuilder parentAgentBuilder) {
-      if (!enabled) {
+      return instrument(parentAgentBuilder, null);
+    }
+
+    /**
+     * Add this instrumentation to an AgentBuilder, registering its type matcher in the shared index
+     * so it is only evaluated for the types it may match.
+     *
+     * @param typeIndex index shared by all instrumentations, or null to always evaluate the type
+     *     matcher
+     */
+    public final AgentBuilder instrument(
+        final AgentBuilder parentAgentBuilder, final CombinedTypeMatcher typeIndex) {
+      if (!isEnabled()) {
         log.debug("Instrumentation {} is disabled", this);
         return parentAgentBuilder;
       }
 
+      final ElementMatcher<? super TypeDescription> typeMatcher =
+          failSafe(
+              typeMatcher(),
+              "Instrumentation type matcher unexpected exception: " + getClass().getName());
+      final ElementMatcher<? super ClassLoader> classLoaderMatcher =
+          failSafe(
+              classLoaderMatcher(),
+              "Instrumentation class loader matcher unexpected exception: " + getClass().getName());
+
+      final AgentBuilder.Identified.Narrowable narrowable;
+      if (null != typeIndex) {
+        // the index evaluates the type matchers of all instrumentations at once
+        narrowable =
+            parentAgentBuilder.type(any(), classLoaderMatcher).and(typeIndex.add(typeMatcher));
+      } else {
+        narrowable = parentAgentBuilder.type(typeMatcher, classLoaderMatcher);
+      }
+
       AgentBuilder.Identified.Extendable agentBuilder =
-          parentAgentBuilder
-              .type(
-                  failSafe(
-                      typeMatcher(),
-                      "Instrumentation type matcher unexpected exception: " + getClass().getName()),
-                  failSafe(
-                      classLoaderMatcher(),
-                      "Instrumentation class loader matcher unexpected exception: "
-                          + getClass().getName()))
+          narrowable
               .and(NOT_DECORATOR_MATCHER)
               .and(new MuzzleMatcher())
               .and(new PostMatchHook())
@@ -142,7 +166,7 @@ public interface Instrumenter {
          */
         final ReferenceMatcher muzzle = getInstrumentationMuzzle();
         if (null != muzzle) {
-          final boolean isMatch = muzzle.matches(classLoader);
+          final boolean isMatch = muzzleMatches(muzzle, classLoader);
           if (!isMatch) {
             if (log.isDebugEnabled()) {
               final List<Reference.Mismatch> mismatches =
@@ -173,6 +197,19 @@ public interface Instrumenter {
       }
     }
 
+    /** Checks the muzzle references, or reuses the verdict of a previous run when it is known. */
+    private boolean muzzleMatches(final ReferenceMatcher muzzle, final ClassLoader classLoader) {
+      final String instrumentation = getClass().getName();
+      final MuzzleCache cache = MuzzleCache.get();
+      final Boolean cached = cache.verdict(instrumentation, classLoader);
+      if (null != cached) {
+        return cached;
+      }
+      final boolean isMatch = muzzle.matches(classLoader);
+      cache.record(instrumentation, classLoader, isMatch);
+      return isMatch;
+    }
+
     private class PostMatchHook implements AgentBuilder.RawMatcher {
       @Override
       public boolean matches(
@@ -243,5 +280,13 @@ public interface Instrumenter {
     protected boolean defaultEnabled() {
       return Config.get().isIntegrationsEnabled();
     }
+
+    /**
+     * @return whether the instrumentation is applied, by default whether its integration is
+     *     enabled
+     */
+    protected boolean isEnabled() {
+      return enabled;
+    }
   }
 }
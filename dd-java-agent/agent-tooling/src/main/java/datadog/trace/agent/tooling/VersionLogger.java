@@ -17,10 +17,7 @@ public class VersionLogger {
     log.info(
         "dd-trace-api - version: {}",
         getVersionString(Utils.getAgentClassLoader().getResourceAsStream("dd-trace-api.version")));
-    log.info(
-        "dd-java-agent - version: {}",
-        getVersionString(
-            ClassLoader.getSystemClassLoader().getResourceAsStream("dd-java-agent.version")));
+    log.info("dd-java-agent - version: {}", getAgentVersion());
     if (log.isDebugEnabled()) {
       log.debug(
           "Running on Java {}. JVM {} - {} - {}",
@@ -31,6 +28,12 @@ public class VersionLogger {
     }
   }
 
+  /** @return the version of dd-java-agent */
+  public static String getAgentVersion() {
+    return getVersionString(
+        ClassLoader.getSystemClassLoader().getResourceAsStream("dd-java-agent.version"));
+  }
+
   private static String getVersionString(final InputStream stream) {
     String v;
     try {
@@ -0,0 +1,256 @@
+package datadog.trace.agent.tooling;
+
+import datadog.common.exec.DaemonThreadFactory;
+import datadog.trace.bootstrap.WeakMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Expunges the collected keys of all the weak maps from a single thread.
+ *
+ * <p>The keys of every map are registered with one shared {@link ReferenceQueue}, and the cleaner
+ * thread blocks on it: it only wakes up when the GC actually collected keys, instead of scanning
+ * each map periodically. Each key knows the map it belongs to, so removing it does not need to
+ * look through the other maps.
+ *
+ * <p>Each map counts its live entries when they are added and expunged, and the entries it
+ * expunged, so reporting them does not need to walk the entries.
+ *
+ * <p>Keys are compared by identity, like {@link
+ * com.blogspot.mydailyjava.weaklockfree.WeakConcurrentMap}.
+ */
+@Slf4j
+final class WeakMapCleaner implements Runnable {
+  private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+  private static final ThreadLocal<LookupKey> LOOKUP_KEYS =
+      new ThreadLocal<LookupKey>() {
+        @Override
+        protected LookupKey initialValue() {
+          return new LookupKey();
+        }
+      };
+
+  /** maps still in use, only for reporting metrics */
+  private static final Set<CleanedWeakMap<?, ?>> MAPS =
+      Collections.newSetFromMap(new WeakHashMap<CleanedWeakMap<?, ?>, Boolean>());
+
+  static {
+    new DaemonThreadFactory("dd-weak-map-cleaner").newThread(new WeakMapCleaner()).start();
+  }
+
+  private WeakMapCleaner() {}
+
+  static <K, V> WeakMap<K, V> newWeakMap() {
+    final CleanedWeakMap<K, V> map = new CleanedWeakMap<>();
+    synchronized (MAPS) {
+      MAPS.add(map);
+    }
+    return map;
+  }
+
+  /** @return the number of maps still in use */
+  static int mapCount() {
+    synchronized (MAPS) {
+      return MAPS.size();
+    }
+  }
+
+  /** @return the number of entries added to the maps still in use and not expunged yet */
+  static long liveEntryCount() {
+    long liveEntries = 0;
+    synchronized (MAPS) {
+      for (final CleanedWeakMap<?, ?> map : MAPS) {
+        liveEntries += map.liveEntryCount();
+      }
+    }
+    return liveEntries;
+  }
+
+  @Override
+  public void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        Reference<?> reference = QUEUE.remove();
+        int expunged = 0;
+        do {
+          if (((WeakKey<?>) reference).expunge()) {
+            ++expunged;
+          }
+        } while (null != (reference = QUEUE.poll()));
+        log.debug("Expunged {} collected weak map keys", expunged);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (final Throwable e) {
+        log.debug("Failed to expunge collected weak map keys", e);
+      }
+    }
+  }
+
+  private static final class WeakKey<K> extends WeakReference<K> {
+    private final int hashCode;
+    private final CleanedWeakMap<?, ?> owner;
+
+    private WeakKey(final K key, final CleanedWeakMap<?, ?> owner) {
+      super(key, QUEUE);
+      if (null == key) {
+        throw new NullPointerException();
+      }
+      this.hashCode = System.identityHashCode(key);
+      this.owner = owner;
+    }
+
+    /** @return whether the entry was still in its map */
+    private boolean expunge() {
+      return owner.expunge(this);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) {
+        return true;
+      }
+      final Object key = get();
+      if (null == key) {
+        // collected keys are only equal to themselves, so they can still be removed
+        return false;
+      }
+      if (other instanceof WeakKey) {
+        return ((WeakKey<?>) other).get() == key;
+      }
+      return other instanceof LookupKey && ((LookupKey) other).key == key;
+    }
+  }
+
+  /**
+   * Compares equal to the weak key of the same object, without registering a reference. Each thread
+   * reuses its own lookup key, which must not hold on to the object once the lookup is done.
+   */
+  private static final class LookupKey {
+    private Object key;
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(key);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (other instanceof WeakKey) {
+        return ((WeakKey<?>) other).get() == key;
+      }
+      return other instanceof LookupKey && ((LookupKey) other).key == key;
+    }
+  }
+
+  static final class CleanedWeakMap<K, V> implements WeakMap<K, V> {
+    private final Object[] locks = new Object[16];
+    private final ConcurrentMap<Object, V> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger liveEntries = new AtomicInteger();
+    private final AtomicLong expunged = new AtomicLong();
+
+    private CleanedWeakMap() {
+      for (int i = 0; i < locks.length; ++i) {
+        locks[i] = new Object();
+      }
+    }
+
+    @Override
+    public int size() {
+      return entries.size();
+    }
+
+    /** @return the number of entries added and not expunged yet */
+    int liveEntryCount() {
+      return liveEntries.get();
+    }
+
+    /** @return the number of entries removed because their key was collected */
+    long expungedCount() {
+      return expunged.get();
+    }
+
+    private boolean expunge(final WeakKey<?> key) {
+      if (null == entries.remove(key)) {
+        return false;
+      }
+      liveEntries.decrementAndGet();
+      expunged.incrementAndGet();
+      return true;
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+      final LookupKey lookupKey = LOOKUP_KEYS.get();
+      lookupKey.key = key;
+      try {
+        return entries.containsKey(lookupKey);
+      } finally {
+        lookupKey.key = null;
+      }
+    }
+
+    @Override
+    public V get(final K key) {
+      final LookupKey lookupKey = LOOKUP_KEYS.get();
+      lookupKey.key = key;
+      try {
+        return entries.get(lookupKey);
+      } finally {
+        lookupKey.key = null;
+      }
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+      final WeakKey<K> weakKey = new WeakKey<>(key, this);
+      if (null == entries.put(weakKey, value)) {
+        liveEntries.incrementAndGet();
+      } else {
+        // the map kept the existing key, the new one must not be enqueued
+        weakKey.clear();
+      }
+    }
+
+    @Override
+    public void putIfAbsent(final K key, final V value) {
+      if (!containsKey(key)) {
+        final WeakKey<K> weakKey = new WeakKey<>(key, this);
+        if (null == entries.putIfAbsent(weakKey, value)) {
+          liveEntries.incrementAndGet();
+        } else {
+          weakKey.clear();
+        }
+      }
+    }
+
+    @Override
+    public V computeIfAbsent(final K key, final ValueSupplier<? super K, ? extends V> supplier) {
+      V value = get(key);
+      if (null == value) {
+        synchronized (locks[System.identityHashCode(key) & (locks.length - 1)]) {
+          value = get(key);
+          if (null == value) {
+            value = supplier.get(key);
+            put(key, value);
+          }
+        }
+      }
+      return value;
+    }
+  }
+}
@@ -1,12 +1,8 @@
 package datadog.trace.agent.tooling;
 
 import com.blogspot.mydailyjava.weaklockfree.WeakConcurrentMap;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.MapMaker;
-import datadog.common.exec.CommonTaskExecutor;
-import datadog.common.exec.CommonTaskExecutor.Task;
 import datadog.trace.bootstrap.WeakMap;
-import java.util.concurrent.TimeUnit;
 
 class WeakMapSuppliers {
   // Comparison with using WeakConcurrentMap vs Guava's implementation:
@@ -26,36 +22,14 @@ class WeakMapSuppliers {
   //            backed by big company with many-many users
 
   /**
-   * Provides instances of {@link WeakConcurrentMap} and retains weak reference to them to allow a
-   * single thread to clean void weak references out for all instances. Cleaning is done every
-   * second.
+   * Provides weak maps whose collected keys are all expunged by the single {@link WeakMapCleaner}
+   * thread, which only wakes up when keys were actually collected.
    */
   static class WeakConcurrent implements WeakMap.Implementation {
 
-    @VisibleForTesting static final long CLEAN_FREQUENCY_SECONDS = 1;
-
     @Override
     public <K, V> WeakMap<K, V> get() {
-      final WeakConcurrentMap<K, V> map = new WeakConcurrentMap<>(false, true);
-      CommonTaskExecutor.INSTANCE.scheduleAtFixedRate(
-          MapCleaningTask.INSTANCE,
-          map,
-          CLEAN_FREQUENCY_SECONDS,
-          CLEAN_FREQUENCY_SECONDS,
-          TimeUnit.SECONDS,
-          "cleaner for " + map);
-      return new Adapter<>(map);
-    }
-
-    // Important to use explicit class to avoid implicit hard references to target
-    private static class MapCleaningTask implements Task<WeakConcurrentMap> {
-
-      static final MapCleaningTask INSTANCE = new MapCleaningTask();
-
-      @Override
-      public void run(final WeakConcurrentMap target) {
-        target.expungeStaleEntries();
-      }
+      return WeakMapCleaner.newWeakMap();
     }
 
     private static class Adapter<K, V> implements WeakMap<K, V> {
@@ -0,0 +1,181 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix tree of class name patterns, answering which patterns match a class name in a
+ * single pass over the name.
+ *
+ * <p>Patterns ending with {@code *} match the names starting with the rest of the pattern, other
+ * patterns only match the exact name. Each pattern is registered in a lane with a value between 1
+ * and 3, and a lookup returns, for every lane, the value of the most specific pattern matching the
+ * name in that lane: the longest prefix, or the exact name over a prefix. Lanes let independent
+ * sets of rules share the same tree while still being resolved separately.
+ *
+ * <p>The tree is stored in flat arrays, walking it does not allocate.
+ */
+public final class ClassNameTrie {
+  public static final int MAX_LANES = 16;
+
+  /** lane values of the patterns matching names starting with the path to the node */
+  private final int[] prefixValues;
+  /** lane values of the patterns matching exactly the path to the node */
+  private final int[] exactValues;
+  /** edges of node n are at indices {@code firstEdge[n]} to {@code firstEdge[n + 1]} excluded */
+  private final int[] firstEdge;
+  /** sorted label of each edge */
+  private final char[] edgeChars;
+  /** node reached by each edge */
+  private final int[] edgeTargets;
+
+  private ClassNameTrie(
+      final int[] prefixValues,
+      final int[] exactValues,
+      final int[] firstEdge,
+      final char[] edgeChars,
+      final int[] edgeTargets) {
+    this.prefixValues = prefixValues;
+    this.exactValues = exactValues;
+    this.firstEdge = firstEdge;
+    this.edgeChars = edgeChars;
+    this.edgeTargets = edgeTargets;
+  }
+
+  /**
+   * @return the values of the most specific pattern matching the name in each lane, to be read
+   *     with {@link #lane(int, int)}
+   */
+  public int apply(final String name) {
+    int node = 0;
+    int values = prefixValues[0];
+    for (int i = 0, length = name.length(); i < length; ++i) {
+      node = child(node, name.charAt(i));
+      if (node < 0) {
+        return values;
+      }
+      values = override(values, prefixValues[node]);
+    }
+    return override(values, exactValues[node]);
+  }
+
+  /** @return the value of the lane in the values returned by {@link #apply(String)}, 0 if none */
+  public static int lane(final int values, final int lane) {
+    return (values >>> (lane << 1)) & 3;
+  }
+
+  private int child(final int node, final char c) {
+    int low = firstEdge[node];
+    int high = firstEdge[node + 1] - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final char midChar = edgeChars[mid];
+      if (midChar < c) {
+        low = mid + 1;
+      } else if (midChar > c) {
+        high = mid - 1;
+      } else {
+        return edgeTargets[mid];
+      }
+    }
+    return -1;
+  }
+
+  /** replaces the lanes of {@code values} which are set in {@code overrides} */
+  private static int override(final int values, final int overrides) {
+    if (overrides == 0) {
+      return values;
+    }
+    int mask = (overrides | (overrides >>> 1)) & 0x55555555;
+    mask |= mask << 1;
+    return (values & ~mask) | overrides;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+    private final Node root = new Node();
+
+    private Builder() {}
+
+    /** Registers the pattern in the lane, replacing any value the same pattern had in the lane. */
+    public Builder put(final String pattern, final int lane, final int value) {
+      if (lane < 0 || lane >= MAX_LANES) {
+        throw new IllegalArgumentException("Invalid lane: " + lane);
+      }
+      if (value < 1 || value > 3) {
+        throw new IllegalArgumentException("Invalid value: " + value);
+      }
+      final boolean prefix = pattern.endsWith("*");
+      final int length = prefix ? pattern.length() - 1 : pattern.length();
+      Node node = root;
+      for (int i = 0; i < length; ++i) {
+        final char c = pattern.charAt(i);
+        Node child = node.children.get(c);
+        if (null == child) {
+          child = new Node();
+          node.children.put(c, child);
+        }
+        node = child;
+      }
+      final int shift = lane << 1;
+      if (prefix) {
+        node.prefixValues = (node.prefixValues & ~(3 << shift)) | (value << shift);
+      } else {
+        node.exactValues = (node.exactValues & ~(3 << shift)) | (value << shift);
+      }
+      return this;
+    }
+
+    /** Registers all the patterns in the lane with the same value. */
+    public Builder putAll(final Iterable<String> patterns, final int lane, final int value) {
+      for (final String pattern : patterns) {
+        put(pattern, lane, value);
+      }
+      return this;
+    }
+
+    public ClassNameTrie build() {
+      // number the nodes breadth first so the edges of each node are contiguous
+      final List<Node> nodes = new ArrayList<>();
+      nodes.add(root);
+      int edgeCount = 0;
+      for (int i = 0; i < nodes.size(); ++i) {
+        final Node node = nodes.get(i);
+        edgeCount += node.children.size();
+        nodes.addAll(node.children.values());
+      }
+      final int[] prefixValues = new int[nodes.size()];
+      final int[] exactValues = new int[nodes.size()];
+      final int[] firstEdge = new int[nodes.size() + 1];
+      final char[] edgeChars = new char[edgeCount];
+      final int[] edgeTargets = new int[edgeCount];
+      int edge = 0;
+      int nextChild = 1;
+      for (int i = 0; i < nodes.size(); ++i) {
+        final Node node = nodes.get(i);
+        prefixValues[i] = node.prefixValues;
+        exactValues[i] = node.exactValues;
+        firstEdge[i] = edge;
+        // children were appended in the same (sorted) order
+        for (final Character c : node.children.keySet()) {
+          edgeChars[edge] = c;
+          edgeTargets[edge] = nextChild++;
+          ++edge;
+        }
+      }
+      firstEdge[nodes.size()] = edge;
+      return new ClassNameTrie(prefixValues, exactValues, firstEdge, edgeChars, edgeTargets);
+    }
+  }
+
+  private static final class Node {
+    private final Map<Character, Node> children = new TreeMap<>();
+    private int prefixValues;
+    private int exactValues;
+  }
+}
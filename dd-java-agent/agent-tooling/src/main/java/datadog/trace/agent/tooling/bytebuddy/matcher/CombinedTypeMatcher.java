@@ -0,0 +1,248 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher;
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.SafeErasureMatcher.safeAsErasure;
+import static datadog.trace.agent.tooling.bytebuddy.matcher.SafeHasSuperTypeMatcher.safeGetSuperClass;
+
+import java.lang.ref.WeakReference;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.utility.JavaModule;
+
+/**
+ * Index over the type matchers of all instrumentations, which evaluates only the type matchers
+ * which can match a type.
+ *
+ * <p>Type matchers are recognized when they are {@link NameMatchers} matching exact names ({@code
+ * named}, {@code namedOneOf}) or name prefixes ({@code nameStartsWith}), or super type matchers of
+ * exact names ({@code extendsClass}, {@code implementsInterface}, {@code safeHasSuperType} or
+ * {@code hasInterface} of {@code named} or {@code namedOneOf}). The candidates for a type are then
+ * found with a lookup by name, a scan of the prefixes and a single walk of the type's hierarchy,
+ * instead of evaluating every type matcher and walking the hierarchy once per instrumentation.
+ * Type matchers which are not recognized are always candidates.
+ *
+ * <p>The type matchers of the candidates are evaluated together the first time a type is matched,
+ * the {@link AgentBuilder.RawMatcher raw matcher} of each instrumentation then only looks up its
+ * own result.
+ *
+ * <p>All type matchers must be {@link #add added} before types are matched.
+ */
+@Slf4j
+public final class CombinedTypeMatcher {
+
+  private final Map<String, BitSet> byName = new HashMap<>();
+  private final List<String> prefixes = new ArrayList<>();
+  private final List<Integer> prefixIds = new ArrayList<>();
+  private final Map<String, BitSet> bySuperTypeName = new HashMap<>();
+  private final BitSet unindexed = new BitSet();
+  private final List<ElementMatcher<? super TypeDescription>> typeMatchers = new ArrayList<>();
+
+  private final ThreadLocal<Matches> lastMatches = new ThreadLocal<>();
+
+  /**
+   * Adds a type matcher to the index.
+   *
+   * @param typeMatcher the type matcher, which must not throw, see {@link
+   *     DDElementMatchers#failSafe}
+   * @return a matcher equivalent to the type matcher
+   */
+  public AgentBuilder.RawMatcher add(final ElementMatcher<? super TypeDescription> typeMatcher) {
+    final int id = typeMatchers.size();
+    typeMatchers.add(typeMatcher);
+    if (!index(id, typeMatcher)) {
+      log.debug("Type matcher evaluated for every type, it cannot be indexed: {}", typeMatcher);
+      unindexed.set(id);
+    }
+    return new Matched(id);
+  }
+
+  private boolean index(final int id, ElementMatcher<?> typeMatcher) {
+    if (typeMatcher instanceof LoggingFailSafeMatcher) {
+      typeMatcher = ((LoggingFailSafeMatcher<?>) typeMatcher).delegate();
+    }
+    final Set<String> names = matchedNames(typeMatcher);
+    if (null != names) {
+      addAll(byName, names, id);
+      return true;
+    }
+    final String prefix = matchedPrefix(typeMatcher);
+    if (null != prefix) {
+      prefixes.add(prefix);
+      prefixIds.add(id);
+      return true;
+    }
+    final Set<String> superTypeNames = matchedSuperTypeNames(typeMatcher);
+    if (null != superTypeNames) {
+      addAll(bySuperTypeName, superTypeNames, id);
+      return true;
+    }
+    return false;
+  }
+
+  private static void addAll(
+      final Map<String, BitSet> index, final Collection<String> names, final int id) {
+    for (final String name : names) {
+      BitSet ids = index.get(name);
+      if (null == ids) {
+        ids = new BitSet();
+        index.put(name, ids);
+      }
+      ids.set(id);
+    }
+  }
+
+  /** @return the exact names matched by the matcher, or null if it matches anything else */
+  static Set<String> matchedNames(final ElementMatcher<?> matcher) {
+    if (matcher instanceof NameMatchers.Named) {
+      return Collections.singleton(((NameMatchers.Named<?>) matcher).name());
+    }
+    if (matcher instanceof NameMatchers.SetMatcher) {
+      return ((NameMatchers.SetMatcher<?>) matcher).matchedNames();
+    }
+    return null;
+  }
+
+  /** @return the prefix of the names matched by the matcher, or null if it matches anything else */
+  static String matchedPrefix(final ElementMatcher<?> matcher) {
+    if (matcher instanceof NameMatchers.StartsWith) {
+      return ((NameMatchers.StartsWith<?>) matcher).prefix();
+    }
+    return null;
+  }
+
+  /** @return the names of the super types the matcher looks for, or null if it is not known */
+  static Set<String> matchedSuperTypeNames(ElementMatcher<?> matcher) {
+    if (matcher instanceof NotInterfaceMatcher) {
+      matcher = ((NotInterfaceMatcher<?>) matcher).delegate();
+    }
+    ElementMatcher<?> superTypeMatcher = null;
+    if (matcher instanceof SafeHasSuperTypeMatcher) {
+      superTypeMatcher = ((SafeHasSuperTypeMatcher<?>) matcher).superTypeMatcher();
+    } else if (matcher instanceof SafeExtendsClassMatcher) {
+      superTypeMatcher = ((SafeExtendsClassMatcher<?>) matcher).superClassMatcher();
+    }
+    if (superTypeMatcher instanceof SafeErasureMatcher) {
+      return matchedNames(((SafeErasureMatcher<?>) superTypeMatcher).erasureMatcher());
+    }
+    return null;
+  }
+
+  private BitSet matching(final TypeDescription type) {
+    // the same type description is matched against every instrumentation in a row
+    final Matches last = lastMatches.get();
+    if (null != last && last.type.get() == type) {
+      return last.ids;
+    }
+    final BitSet ids = computeMatches(type);
+    lastMatches.set(new Matches(type, ids));
+    return ids;
+  }
+
+  /** @return the ids of the type matchers which match the type */
+  BitSet computeMatches(final TypeDescription type) {
+    final BitSet ids = computeCandidates(type);
+    for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+      if (!typeMatchers.get(id).matches(type)) {
+        ids.clear(id);
+      }
+    }
+    return ids;
+  }
+
+  BitSet computeCandidates(final TypeDescription type) {
+    final BitSet ids = (BitSet) unindexed.clone();
+    final String name = type.getActualName();
+    final BitSet named = byName.get(name);
+    if (null != named) {
+      ids.or(named);
+    }
+    for (int i = 0; i < prefixes.size(); ++i) {
+      if (name.startsWith(prefixes.get(i))) {
+        ids.set(prefixIds.get(i));
+      }
+    }
+    if (!bySuperTypeName.isEmpty()) {
+      for (final String superTypeName : superTypeNames(type)) {
+        final BitSet matching = bySuperTypeName.get(superTypeName);
+        if (null != matching) {
+          ids.or(matching);
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * @return the names of the type, its super classes and all the interfaces they implement,
+   *     skipping the parts of the hierarchy which cannot be resolved like the super type matchers do
+   */
+  static Set<String> superTypeNames(final TypeDescription type) {
+    final Set<String> names = new HashSet<>();
+    TypeDefinition typeDefinition = type;
+    while (null != typeDefinition) {
+      final TypeDescription erasure = safeAsErasure(typeDefinition);
+      if (null == erasure || !names.add(erasure.getActualName())) {
+        break;
+      }
+      addInterfaceNames(typeDefinition, names);
+      typeDefinition = safeGetSuperClass(typeDefinition);
+    }
+    return names;
+  }
+
+  private static void addInterfaceNames(
+      final TypeDefinition typeDefinition, final Set<String> names) {
+    for (final TypeDefinition interfaceType :
+        new SafeHasSuperTypeMatcher.SafeInterfaceIterator(typeDefinition)) {
+      final TypeDescription erasure = safeAsErasure(interfaceType);
+      if (null != erasure && names.add(erasure.getActualName())) {
+        addInterfaceNames(interfaceType, names);
+      }
+    }
+  }
+
+  private final class Matched implements AgentBuilder.RawMatcher {
+    private final int id;
+
+    private Matched(final int id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean matches(
+        final TypeDescription typeDescription,
+        final ClassLoader classLoader,
+        final JavaModule module,
+        final Class<?> classBeingRedefined,
+        final ProtectionDomain protectionDomain) {
+      return matching(typeDescription).get(id);
+    }
+
+    @Override
+    public String toString() {
+      return "indexed(" + typeMatchers.get(id) + ")";
+    }
+  }
+
+  private static final class Matches {
+    private final WeakReference<TypeDescription> type;
+    private final BitSet ids;
+
+    private Matches(final TypeDescription type, final BitSet ids) {
+      this.type = new WeakReference<>(type);
+      this.ids = ids;
+    }
+  }
+}
@@ -1,8 +1,5 @@
 package datadog.trace.agent.tooling.bytebuddy.matcher;
 
-import static net.bytebuddy.matcher.ElementMatchers.isInterface;
-import static net.bytebuddy.matcher.ElementMatchers.not;
-
 import lombok.extern.slf4j.Slf4j;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.type.TypeDefinition;
@@ -17,13 +14,14 @@ public class DDElementMatchers {
 
   public static <T extends TypeDescription> ElementMatcher.Junction<T> extendsClass(
       final ElementMatcher<? super TypeDescription> matcher) {
-    return not(isInterface()).and(new SafeExtendsClassMatcher<>(new SafeErasureMatcher<>(matcher)));
+    return new NotInterfaceMatcher<>(
+        new SafeExtendsClassMatcher<>(new SafeErasureMatcher<>(matcher)));
   }
 
   public static <T extends TypeDescription> ElementMatcher.Junction<T> implementsInterface(
       final ElementMatcher<? super TypeDescription> matcher) {
-    return not(isInterface())
-        .and(new SafeHasSuperTypeMatcher<>(new SafeErasureMatcher<>(matcher), true));
+    return new NotInterfaceMatcher<>(
+        new SafeHasSuperTypeMatcher<>(new SafeErasureMatcher<>(matcher), true));
   }
 
   public static <T extends TypeDescription> ElementMatcher.Junction<T> hasInterface(
@@ -33,8 +31,8 @@ public class DDElementMatchers {
 
   public static <T extends TypeDescription> ElementMatcher.Junction<T> safeHasSuperType(
       final ElementMatcher<? super TypeDescription> matcher) {
-    return not(isInterface())
-        .and(new SafeHasSuperTypeMatcher<>(new SafeErasureMatcher<>(matcher), false));
+    return new NotInterfaceMatcher<>(
+        new SafeHasSuperTypeMatcher<>(new SafeErasureMatcher<>(matcher), false));
   }
 
   // TODO: add javadoc
@@ -1,5 +1,9 @@
 package datadog.trace.agent.tooling.bytebuddy.matcher;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Pattern;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
@@ -19,6 +23,9 @@ import net.bytebuddy.matcher.ElementMatcher;
  *   Uses {@link AdditionalLibraryIgnoresMatcher} to also ignore additional classes to minimize
  *   number of classes we apply expensive matchers to.
  * </ul>
+ *
+ * <p>The name rules of both matchers and the classes excluded by configuration are compiled into a
+ * single {@link ClassNameTrie}, so a class name is only walked once.
  */
 public class GlobalIgnoresMatcher<T extends TypeDescription>
     extends ElementMatcher.Junction.AbstractBase<T> {
@@ -26,17 +33,114 @@ public class GlobalIgnoresMatcher<T extends TypeDescription>
   private static final Pattern COM_MCHANGE_PROXY =
       Pattern.compile("^com\\.mchange\\.v2\\.c3p0\\..*Proxy$");
 
+  /** Lanes of the rules, see {@link ClassNameTrie} */
+  static final int GLOBAL = 0;
+
+  static final int LIBRARY = 1;
+  static final int EXCLUDED = 2;
+
+  /** Values of the rules */
+  static final int IGNORE = 1;
+
+  static final int NOT_IGNORE = 2;
+
+  /*
+   * Be very careful about the rules in this section as they are checked on every class load. The
+   * most specific rule matching a class name wins.
+   */
+
+  private static final String[] IGNORED = {
+    "com.p6spy.*",
+    "com.newrelic.*",
+    "com.dynatrace.*",
+    "com.jloadtrace.*",
+    "com.appdynamics.*",
+    "com.singularity.*",
+    "com.jinspired.*",
+    "com.intellij.rt.debugger.*",
+    "com.sun.*",
+    "clojure.*",
+    "datadog.opentracing.*",
+    "datadog.trace.*",
+    "datadog.slf4j.*",
+    "io.micronaut.tracing.*",
+    "jdk.*",
+    "java.*",
+    // Concurrent instrumentation modifies the structure of
+    // Cleaner class incompatibly with java9+ modules.
+    // Working around until a long-term fix for modules can be
+    // put in place.
+    "java.util.logging.LogManager$Cleaner",
+    "net.bytebuddy.*",
+    "org.aspectj.*",
+    "org.jinspired.*",
+    // groovy
+    "org.groovy.*",
+    "org.apache.groovy.*",
+    "org.codehaus.groovy.*",
+    "org.apache.log4j.*",
+    "org.springframework.core.$Proxy*",
+    "sun.*",
+  };
+
+  /** Exceptions to the ignored packages above. */
+  private static final String[] NOT_IGNORED = {
+    "com.sun.messaging.*",
+    "com.sun.jersey.api.client*",
+    // FIXME: We should remove this once
+    // https://github.com/raphw/byte-buddy/issues/558 is fixed
+    "datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper",
+    "datadog.trace.bootstrap.instrumentation.java.concurrent.CallableWrapper",
+    // allow exception profiling instrumentation
+    "java.lang.Throwable",
+    "java.net.URL",
+    "java.net.HttpURLConnection",
+    "java.rmi.*",
+    "java.util.concurrent.*",
+    "java.util.logging.*",
+    // We seem to instrument some classes in runtime
+    "org.codehaus.groovy.runtime.*",
+    "org.apache.log4j.MDC",
+    "sun.net.www.protocol.*",
+    "sun.rmi.server*",
+    "sun.rmi.transport*",
+    "sun.net.www.http.HttpClient",
+  };
+
   public static <T extends TypeDescription> ElementMatcher.Junction<T> globalIgnoresMatcher(
       final boolean skipAdditionalLibraryMatcher) {
-    return new GlobalIgnoresMatcher<>(skipAdditionalLibraryMatcher);
+    return globalIgnoresMatcher(skipAdditionalLibraryMatcher, Collections.<String>emptyList());
+  }
+
+  /**
+   * @param excludedClasses additional names to ignore, names ending with {@code *} are prefixes
+   */
+  public static <T extends TypeDescription> ElementMatcher.Junction<T> globalIgnoresMatcher(
+      final boolean skipAdditionalLibraryMatcher, final List<String> excludedClasses) {
+    return new GlobalIgnoresMatcher<>(skipAdditionalLibraryMatcher, excludedClasses);
   }
 
-  private final ElementMatcher<T> additionalLibraryIgnoreMatcher =
-      AdditionalLibraryIgnoresMatcher.additionalLibraryIgnoresMatcher();
   private final boolean skipAdditionalLibraryMatcher;
+  private final List<String> excludedClasses;
+  private final ClassNameTrie rules;
 
-  private GlobalIgnoresMatcher(final boolean skipAdditionalLibraryMatcher) {
+  private GlobalIgnoresMatcher(
+      final boolean skipAdditionalLibraryMatcher, final List<String> excludedClasses) {
     this.skipAdditionalLibraryMatcher = skipAdditionalLibraryMatcher;
+    this.excludedClasses = new ArrayList<>(excludedClasses.size());
+    for (final String excludedClass : excludedClasses) {
+      this.excludedClasses.add(excludedClass.trim());
+    }
+    // all the sources of ignores share the same tree, so a name is only walked once
+    final ClassNameTrie.Builder builder =
+        ClassNameTrie.builder()
+            .putAll(Arrays.asList(IGNORED), GLOBAL, IGNORE)
+            .putAll(Arrays.asList(NOT_IGNORED), GLOBAL, NOT_IGNORE)
+            .putAll(this.excludedClasses, EXCLUDED, IGNORE);
+    if (!skipAdditionalLibraryMatcher) {
+      AdditionalLibraryIgnoresMatcher.addRules(builder, LIBRARY);
+    }
+    this.rules = builder.build();
   }
 
   /**
@@ -47,135 +151,22 @@ public class GlobalIgnoresMatcher<T extends TypeDescription>
   @Override
   public boolean matches(final T target) {
     final String name = target.getActualName();
-    switch (name.charAt(0) - 'a') {
-        // starting at zero to get a tableswitch from javac, though it looks horrendous
-      case 'a' - 'a':
-        break;
-      case 'b' - 'a':
-        break;
-      case 'c' - 'a':
-        if (name.startsWith("com.")) {
-          if (name.startsWith("com.p6spy.")
-              || name.startsWith("com.newrelic.")
-              || name.startsWith("com.dynatrace.")
-              || name.startsWith("com.jloadtrace.")
-              || name.startsWith("com.appdynamics.")
-              || name.startsWith("com.singularity.")
-              || name.startsWith("com.jinspired.")
-              || name.startsWith("com.intellij.rt.debugger.")) {
-            return true;
-          }
-          if (name.startsWith("com.sun.")) {
-            return !name.startsWith("com.sun.messaging.")
-                && !name.startsWith("com.sun.jersey.api.client");
-          }
-          if (COM_MCHANGE_PROXY.matcher(name).matches()) {
-            return true;
-          }
-        }
-        if (name.startsWith("clojure.")) {
-          return true;
-        }
-        break;
-      case 'd' - 'a':
-        if (name.startsWith("datadog.")) {
-          if (name.startsWith("datadog.opentracing.")
-              || name.startsWith("datadog.trace.core.")
-              || name.startsWith("datadog.slf4j.")) {
-            return true;
-          }
-          if (name.startsWith("datadog.trace.")) {
-            // FIXME: We should remove this once
-            // https://github.com/raphw/byte-buddy/issues/558 is fixed
-            return !name.equals(
-                    "datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper")
-                && !name.equals(
-                    "datadog.trace.bootstrap.instrumentation.java.concurrent.CallableWrapper");
-          }
-        }
-        break;
-      case 'e' - 'a':
-        break;
-      case 'f' - 'a':
-        break;
-      case 'g' - 'a':
-        break;
-      case 'h' - 'a':
-        break;
-      case 'i' - 'a':
-        if (name.startsWith("io.micronaut.tracing.")) {
-          return true;
-        }
-        break;
-      case 'j' - 'a':
-        if (name.startsWith("jdk.")) {
-          return true;
-        }
-        if (name.startsWith("java.")) {
-          // allow exception profiling instrumentation
-          if (name.equals("java.lang.Throwable")) {
-            return false;
-          }
-          if (name.equals("java.net.URL") || name.equals("java.net.HttpURLConnection")) {
-            return false;
-          }
-          if (name.startsWith("java.rmi.") || name.startsWith("java.util.concurrent.")) {
-            return false;
-          }
-          // Concurrent instrumentation modifies the structure of
-          // Cleaner class incompatibly with java9+ modules.
-          // Working around until a long-term fix for modules can be
-          // put in place.
-          return !name.startsWith("java.util.logging.")
-              || name.equals("java.util.logging.LogManager$Cleaner");
-        }
-        break;
-      case 'k' - 'a':
-        break;
-      case 'l' - 'a':
-        break;
-      case 'm' - 'a':
-        break;
-      case 'n' - 'a':
-        if (name.startsWith("net.bytebuddy.")) {
-          return true;
-        }
-        break;
-      case 'o' - 'a':
-        if (name.startsWith("org.")) {
-          if (name.startsWith("org.aspectj.") || name.startsWith("org.jinspired.")) {
-            return true;
-          }
-          // groovy
-          if (name.startsWith("org.groovy.") || name.startsWith("org.apache.groovy.")) {
-            return true;
-          }
-          if (name.startsWith("org.codehaus.groovy.")) {
-            // We seem to instrument some classes in runtime
-            return !name.startsWith("org.codehaus.groovy.runtime.");
-          }
-          if (name.startsWith("org.apache.log4j.")) {
-            return !name.equals("org.apache.log4j.MDC");
-          }
-        }
-        break;
-      case 'p' - 'a':
-        break;
-      case 'q' - 'a':
-        break;
-      case 'r' - 'a':
-        break;
-      case 's' - 'a':
-        if (name.startsWith("sun.")) {
-          return !name.startsWith("sun.net.www.protocol.")
-              && !name.startsWith("sun.rmi.server")
-              && !name.startsWith("sun.rmi.transport")
-              && !name.equals("sun.net.www.http.HttpClient");
-        }
-        break;
+    final int matched = rules.apply(name);
+    if (ClassNameTrie.lane(matched, EXCLUDED) == IGNORE) {
+      return true;
+    }
+    switch (ClassNameTrie.lane(matched, GLOBAL)) {
+      case IGNORE:
+        return true;
+      case NOT_IGNORE:
+        return false;
       default:
     }
 
+    if (name.startsWith("com.mchange.") && COM_MCHANGE_PROXY.matcher(name).matches()) {
+      return true;
+    }
+
     final int firstDollar = name.indexOf('$');
     if (firstDollar > -1) {
       // clojure class patterns
@@ -193,8 +184,7 @@ public class GlobalIgnoresMatcher<T extends TypeDescription>
       if (name.contains("$JaxbAccessor")
           || name.contains("CGLIB$$")
           || name.contains("$__sisu")
-          || name.contains("$$EnhancerByProxool$$")
-          || name.startsWith("org.springframework.core.$Proxy")) {
+          || name.contains("$$EnhancerByProxool$$")) {
         return true;
       }
     }
@@ -202,12 +192,15 @@ public class GlobalIgnoresMatcher<T extends TypeDescription>
       return true;
     }
 
-    return !skipAdditionalLibraryMatcher && additionalLibraryIgnoreMatcher.matches(target);
+    return ClassNameTrie.lane(matched, LIBRARY) == IGNORE;
   }
 
   @Override
   public String toString() {
-    return "globalIgnoresMatcher(" + additionalLibraryIgnoreMatcher.toString() + ")";
+    return "globalIgnoresMatcher("
+        + (skipAdditionalLibraryMatcher ? "" : "additionalLibraryIgnoresMatcher()")
+        + (excludedClasses.isEmpty() ? "" : ", excludes" + excludedClasses)
+        + ")";
   }
 
   @Override
@@ -219,13 +212,14 @@ public class GlobalIgnoresMatcher<T extends TypeDescription>
     } else if (getClass() != other.getClass()) {
       return false;
     } else {
-      return additionalLibraryIgnoreMatcher.equals(
-          ((GlobalIgnoresMatcher) other).additionalLibraryIgnoreMatcher);
+      final GlobalIgnoresMatcher<?> that = (GlobalIgnoresMatcher<?>) other;
+      return skipAdditionalLibraryMatcher == that.skipAdditionalLibraryMatcher
+          && excludedClasses.equals(that.excludedClasses);
     }
   }
 
   @Override
   public int hashCode() {
-    return 17 * 31 + additionalLibraryIgnoreMatcher.hashCode();
+    return (17 * 31 + (skipAdditionalLibraryMatcher ? 1 : 0)) * 31 + excludedClasses.hashCode();
   }
 }
@@ -48,6 +48,10 @@ class LoggingFailSafeMatcher<T> extends ElementMatcher.Junction.AbstractBase<T>
     }
   }
 
+  ElementMatcher<? super T> delegate() {
+    return matcher;
+  }
+
   @Override
   public String toString() {
     return "failSafe(try(" + matcher + ") or " + fallback + ")";
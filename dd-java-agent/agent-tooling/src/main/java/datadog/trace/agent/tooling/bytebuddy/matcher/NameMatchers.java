@@ -6,8 +6,33 @@ import java.util.Set;
 import net.bytebuddy.description.NamedElement;
 import net.bytebuddy.matcher.ElementMatcher;
 
+/**
+ * Name matchers which expose the names they match, so {@link CombinedTypeMatcher} can index them.
+ */
 public final class NameMatchers {
 
+  /**
+   * Matches a {@link NamedElement} for its exact name.
+   *
+   * @param name The expected name.
+   * @param <T> The type of the matched object.
+   * @return An element matcher checking if an element's exact name equals the expected name.
+   */
+  public static <T extends NamedElement> ElementMatcher.Junction<T> named(String name) {
+    return new Named<>(name);
+  }
+
+  /**
+   * Matches a {@link NamedElement} for its name's prefix.
+   *
+   * @param prefix The expected name's prefix.
+   * @param <T> The type of the matched object.
+   * @return An element matcher checking if an element's exact name starts with the prefix.
+   */
+  public static <T extends NamedElement> ElementMatcher.Junction<T> nameStartsWith(String prefix) {
+    return new StartsWith<>(prefix);
+  }
+
   /**
    * Matches a {@link NamedElement} for its exact name's membership of a set.
    *
@@ -42,7 +67,7 @@ public final class NameMatchers {
     return new SetMatcher<>(false, names);
   }
 
-  private static class SetMatcher<T extends NamedElement>
+  static class SetMatcher<T extends NamedElement>
       extends ElementMatcher.Junction.AbstractBase<T> {
 
     private final boolean include;
@@ -68,5 +93,56 @@ public final class NameMatchers {
       boolean contained = values.contains(target.getActualName());
       return (include && contained) || (!include && !contained);
     }
+
+    /** @return the names matched by this matcher, or null if it matches names absent from a set */
+    Set<String> matchedNames() {
+      return include ? values : null;
+    }
+  }
+
+  static class Named<T extends NamedElement> extends ElementMatcher.Junction.AbstractBase<T> {
+
+    private final String name;
+
+    private Named(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean matches(T target) {
+      return name.equals(target.getActualName());
+    }
+
+    String name() {
+      return name;
+    }
+
+    @Override
+    public String toString() {
+      return "name(equals(" + name + "))";
+    }
+  }
+
+  static class StartsWith<T extends NamedElement> extends ElementMatcher.Junction.AbstractBase<T> {
+
+    private final String prefix;
+
+    private StartsWith(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public boolean matches(T target) {
+      return target.getActualName().startsWith(prefix);
+    }
+
+    String prefix() {
+      return prefix;
+    }
+
+    @Override
+    public String toString() {
+      return "name(startsWith(" + prefix + "))";
+    }
   }
 }
@@ -0,0 +1,53 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+/**
+ * Matches types which are not interfaces and match the given matcher. Equivalent to {@code
+ * not(isInterface()).and(matcher)}, but keeps the delegate accessible to {@link
+ * CombinedTypeMatcher}.
+ *
+ * @param <T> The type of the matched entity.
+ */
+class NotInterfaceMatcher<T extends TypeDescription>
+    extends ElementMatcher.Junction.AbstractBase<T> {
+
+  private final ElementMatcher<? super T> matcher;
+
+  NotInterfaceMatcher(final ElementMatcher<? super T> matcher) {
+    this.matcher = matcher;
+  }
+
+  @Override
+  public boolean matches(final T target) {
+    return !target.isInterface() && matcher.matches(target);
+  }
+
+  ElementMatcher<? super T> delegate() {
+    return matcher;
+  }
+
+  @Override
+  public String toString() {
+    return "(not(isInterface()) and " + matcher + ")";
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    } else if (other == null) {
+      return false;
+    } else if (getClass() != other.getClass()) {
+      return false;
+    } else {
+      return matcher.equals(((NotInterfaceMatcher) other).matcher);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return 17 * 31 + matcher.hashCode();
+  }
+}
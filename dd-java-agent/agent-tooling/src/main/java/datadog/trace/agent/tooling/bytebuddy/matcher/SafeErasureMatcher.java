@@ -58,6 +58,10 @@ class SafeErasureMatcher<T extends TypeDefinition> extends ElementMatcher.Juncti
     }
   }
 
+  ElementMatcher<? super TypeDescription> erasureMatcher() {
+    return matcher;
+  }
+
   @Override
   public String toString() {
     return "safeErasure(" + matcher + ")";
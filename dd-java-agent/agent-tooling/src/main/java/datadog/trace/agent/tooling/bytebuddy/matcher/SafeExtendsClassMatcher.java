@@ -30,6 +30,10 @@ class SafeExtendsClassMatcher<T extends TypeDescription>
     return false;
   }
 
+  ElementMatcher<? super TypeDescription.Generic> superClassMatcher() {
+    return matcher;
+  }
+
   @Override
   public String toString() {
     return "safeExtendsClass(" + matcher + ")";
@@ -106,6 +106,10 @@ class SafeHasSuperTypeMatcher<T extends TypeDescription>
     }
   }
 
+  ElementMatcher<? super TypeDescription.Generic> superTypeMatcher() {
+    return matcher;
+  }
+
   @Override
   public String toString() {
     return "safeHasSuperType(" + matcher + ")";
@@ -137,13 +141,13 @@ class SafeHasSuperTypeMatcher<T extends TypeDescription>
    *
    * <p>This wrapper exists to allow getting interfaces even if the lookup on one fails.
    */
-  private static class SafeInterfaceIterator
+  static class SafeInterfaceIterator
       implements Iterator<TypeDefinition>, Iterable<TypeDefinition> {
     private final TypeDefinition typeDefinition;
     private final Iterator<TypeDescription.Generic> it;
     private TypeDefinition next;
 
-    private SafeInterfaceIterator(TypeDefinition typeDefinition) {
+    SafeInterfaceIterator(TypeDefinition typeDefinition) {
       this.typeDefinition = typeDefinition;
       Iterator<TypeDescription.Generic> it = null;
       try {
@@ -4,8 +4,13 @@ import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeSpan
 
 import datadog.trace.api.Config;
 import datadog.trace.api.CorrelationIdentifier;
+import datadog.trace.api.DDId;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.context.ScopeListener;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collections;
@@ -16,43 +21,107 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * A scope listener that receives the MDC/ThreadContext put and receive methods and update the trace
  * and span reference anytime a new scope is activated or closed.
+ *
+ * <p>The methods are bound once to method handles, and the log context is only written when the
+ * active span of the thread differs from the span last written by this listener, or when the
+ * application cleared the log context since, so re-activating the same span (continuations, nested
+ * scopes of the same span) only costs two lookups. Trace and span id strings are cached by {@link
+ * DDId}.
  */
 @Slf4j
 public class LogContextScopeListener implements ScopeListener {
+  private static final MethodType PUT_TYPE =
+      MethodType.methodType(void.class, String.class, String.class);
+  private static final MethodType REMOVE_TYPE = MethodType.methodType(void.class, String.class);
+  private static final MethodType GET_TYPE = MethodType.methodType(Object.class, String.class);
 
-  /** A reference to the log context method that sets a new attribute in the log context */
-  private final Method putMethod;
+  /** A handle to the log context method that sets a new attribute in the log context */
+  private final MethodHandle putHandle;
 
-  /** A reference to the log context method that removes an attribute from the log context */
-  private final Method removeMethod;
+  /** A handle to the log context method that removes an attribute from the log context */
+  private final MethodHandle removeHandle;
 
-  public LogContextScopeListener(final Method putMethod, final Method removeMethod) {
-    this.putMethod = putMethod;
-    this.removeMethod = removeMethod;
+  /** A handle to the log context method that reads an attribute of the log context */
+  private final MethodHandle getHandle;
+
+  /** Trace and span ids last written to the log context of each thread, if any */
+  private final ThreadLocal<DDId[]> injectedIds = new ThreadLocal<>();
+
+  public LogContextScopeListener(
+      final Method putMethod, final Method removeMethod, final Method getMethod)
+      throws IllegalAccessException {
+    // adapt to (String,String)V, (String)V and (String)Object so every call site can use
+    // invokeExact, log4j1 put takes an Object value and some remove methods return the previous
+    // value
+    final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    this.putHandle = lookup.unreflect(putMethod).asType(PUT_TYPE);
+    this.removeHandle = lookup.unreflect(removeMethod).asType(REMOVE_TYPE);
+    this.getHandle = lookup.unreflect(getMethod).asType(GET_TYPE);
   }
 
   @Override
   public void afterScopeActivated() {
-    try {
-      putMethod.invoke(
-          null, CorrelationIdentifier.getTraceIdKey(), CorrelationIdentifier.getTraceId());
-      putMethod.invoke(
-          null, CorrelationIdentifier.getSpanIdKey(), CorrelationIdentifier.getSpanId());
-    } catch (final Exception e) {
-      log.debug("Exception setting log context context", e);
+    final AgentSpan span = activeSpan();
+    if (span == null) {
+      clearLogContext();
+    } else {
+      updateLogContext(span.getTraceId(), span.context().getSpanId());
     }
   }
 
   @Override
   public void afterScopeClosed() {
-    if (activeSpan() != null) {
-      afterScopeActivated();
+    afterScopeActivated();
+  }
+
+  private void updateLogContext(final DDId traceId, final DDId spanId) {
+    DDId[] ids = injectedIds.get();
+    if (ids == null) {
+      ids = new DDId[2];
+      injectedIds.set(ids);
+    } else if (ids[0] == traceId && ids[1] == spanId && isInjected(traceId, spanId)) {
       return;
     }
     try {
-      removeMethod.invoke(null, CorrelationIdentifier.getTraceIdKey());
-      removeMethod.invoke(null, CorrelationIdentifier.getSpanIdKey());
-    } catch (final Exception e) {
+      putHandle.invokeExact(CorrelationIdentifier.getTraceIdKey(), traceId.toString());
+      putHandle.invokeExact(CorrelationIdentifier.getSpanIdKey(), spanId.toString());
+      ids[0] = traceId;
+      ids[1] = spanId;
+    } catch (final Throwable e) {
+      log.debug("Exception setting log context context", e);
+    }
+  }
+
+  /** @return whether the ids are still in the log context, the application may have cleared it */
+  private boolean isInjected(final DDId traceId, final DDId spanId) {
+    try {
+      return isInjected(CorrelationIdentifier.getSpanIdKey(), spanId)
+          && isInjected(CorrelationIdentifier.getTraceIdKey(), traceId);
+    } catch (final Throwable e) {
+      log.debug("Exception reading log context context", e);
+      return false;
+    }
+  }
+
+  private boolean isInjected(final String key, final DDId id) throws Throwable {
+    final Object value = (Object) getHandle.invokeExact(key);
+    final String injected = id.toString();
+    return value == injected || injected.equals(value);
+  }
+
+  private void clearLogContext() {
+    final DDId[] ids = injectedIds.get();
+    if (ids != null) {
+      if (ids[0] == null) {
+        // already removed
+        return;
+      }
+      ids[0] = ids[1] = null;
+    }
+    try {
+      removeHandle.invokeExact(CorrelationIdentifier.getTraceIdKey());
+      removeHandle.invokeExact(CorrelationIdentifier.getSpanIdKey());
+    } catch (final Throwable e) {
       log.debug("Exception removing log context context", e);
     }
   }
@@ -0,0 +1,285 @@
+package datadog.trace.agent.tooling.muzzle;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import datadog.trace.agent.tooling.AgentTooling;
+import datadog.trace.agent.tooling.VersionLogger;
+import datadog.trace.api.Config;
+import datadog.trace.bootstrap.WeakCache;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Muzzle verdicts persisted across restarts of the application, enabled by setting {@link
+ * Config#MUZZLE_CACHE_FILE}.
+ *
+ * <p>A verdict is recorded per instrumentation and class loader classpath. The classpath of a class
+ * loader is identified by the jar files of the {@link URLClassLoader}s from it up to the bootstrap
+ * class loader, along with their size and modification time. Since Java 9 the application and
+ * platform class loaders are not {@link URLClassLoader}s: the application class loader is
+ * identified by the jar files of {@code java.class.path}, and the platform class loader only loads
+ * modules of the JDK. Class loaders which do not expose their classpath, or whose classpath holds
+ * directories, missing files or remote urls, are never cached. The whole file is discarded when it
+ * was written by another version of the agent or another JVM.
+ *
+ * <p>Verdicts are loaded once when the first instrumentation is matched, and the file is rewritten
+ * when the JVM shuts down if new verdicts were recorded.
+ */
+@Slf4j
+public final class MuzzleCache {
+  private static final String HEADER = "# dd-java-agent muzzle cache ";
+  private static final String NOT_FINGERPRINTED = "";
+
+  private static final MuzzleCache INSTANCE = create(Config.get().getMuzzleCacheFile());
+
+  /** @return the cache configured for this agent, which does nothing when it is not enabled */
+  public static MuzzleCache get() {
+    return INSTANCE;
+  }
+
+  private final File file;
+  private final String header;
+  private final Map<String, Boolean> verdicts = new ConcurrentHashMap<>();
+  private final WeakCache<ClassLoader, String> fingerprints = AgentTooling.newWeakCache();
+  private volatile boolean dirty;
+
+  MuzzleCache(final File file, final String agentVersion) {
+    this.file = file;
+    this.header =
+        HEADER
+            + agentVersion
+            + ' '
+            + System.getProperty("java.home")
+            + ' '
+            + System.getProperty("java.version");
+    if (null != file) {
+      load();
+    }
+  }
+
+  /**
+   * @return the verdict recorded by a previous run for the instrumentation on the class loader, or
+   *     null if there is none
+   */
+  public Boolean verdict(final String instrumentation, final ClassLoader classLoader) {
+    if (null == file) {
+      return null;
+    }
+    final String fingerprint = fingerprint(classLoader);
+    if (NOT_FINGERPRINTED.equals(fingerprint)) {
+      return null;
+    }
+    return verdicts.get(key(instrumentation, fingerprint));
+  }
+
+  public void record(
+      final String instrumentation, final ClassLoader classLoader, final boolean verdict) {
+    if (null == file) {
+      return;
+    }
+    final String fingerprint = fingerprint(classLoader);
+    if (!NOT_FINGERPRINTED.equals(fingerprint)
+        && null == verdicts.put(key(instrumentation, fingerprint), verdict)) {
+      dirty = true;
+    }
+  }
+
+  int size() {
+    return verdicts.size();
+  }
+
+  void load() {
+    if (!file.isFile()) {
+      return;
+    }
+    try (final BufferedReader reader =
+        new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8))) {
+      if (!header.equals(reader.readLine())) {
+        log.debug("Ignoring muzzle cache {} written by another agent or JVM", file);
+        return;
+      }
+      String line;
+      while (null != (line = reader.readLine())) {
+        final int separator = line.lastIndexOf('\t');
+        if (separator > 0) {
+          verdicts.put(line.substring(0, separator), "1".equals(line.substring(separator + 1)));
+        }
+      }
+      log.debug("Loaded {} muzzle verdicts from {}", verdicts.size(), file);
+    } catch (final IOException e) {
+      log.debug("Unable to load muzzle cache {}", file, e);
+      verdicts.clear();
+    }
+  }
+
+  void save() {
+    if (!dirty) {
+      return;
+    }
+    final File temp = new File(file.getPath() + ".tmp");
+    try {
+      try (final Writer writer =
+          new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), UTF_8))) {
+        writer.write(header);
+        writer.write('\n');
+        for (final Map.Entry<String, Boolean> entry : verdicts.entrySet()) {
+          writer.write(entry.getKey());
+          writer.write(entry.getValue() ? "\t1\n" : "\t0\n");
+        }
+      }
+      // replace the previous file in one step so concurrent readers never see a partial file
+      if (!temp.renameTo(file)) {
+        file.delete();
+        if (!temp.renameTo(file)) {
+          log.debug("Unable to replace muzzle cache {}", file);
+        }
+      }
+      dirty = false;
+    } catch (final IOException e) {
+      log.debug("Unable to save muzzle cache {}", file, e);
+      temp.delete();
+    }
+  }
+
+  private String fingerprint(final ClassLoader classLoader) {
+    if (null == classLoader) {
+      return "bootstrap";
+    }
+    return fingerprints.getIfPresentOrCompute(
+        classLoader,
+        new Callable<String>() {
+          @Override
+          public String call() {
+            return computeFingerprint(classLoader);
+          }
+        });
+  }
+
+  /**
+   * @return a hash of the classpath of the class loader and its parents, or {@link
+   *     #NOT_FINGERPRINTED} if one of them is not backed by jar files which can be checked
+   */
+  static String computeFingerprint(ClassLoader classLoader) {
+    final ClassLoader systemClassLoader = systemClassLoader();
+    final ClassLoader platformClassLoader =
+        null == systemClassLoader ? null : systemClassLoader.getParent();
+    long hash = 1125899906842597L;
+    while (null != classLoader) {
+      hash = hash(hash, classLoader.getClass().getName());
+      if (classLoader instanceof URLClassLoader) {
+        for (final URL url : ((URLClassLoader) classLoader).getURLs()) {
+          final File jar = toJar(url);
+          if (null == jar) {
+            return NOT_FINGERPRINTED;
+          }
+          hash = hash(hash, jar);
+        }
+      } else if (classLoader == systemClassLoader) {
+        // since Java 9 the application class loader is not a URLClassLoader
+        if (null != System.getProperty("jdk.module.path")) {
+          return NOT_FINGERPRINTED;
+        }
+        for (final String entry :
+            System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+          if (!entry.isEmpty()) {
+            final File jar = new File(entry);
+            if (!isReadableFile(jar)) {
+              return NOT_FINGERPRINTED;
+            }
+            hash = hash(hash, jar);
+          }
+        }
+      } else if (classLoader != platformClassLoader) {
+        // the platform class loader only loads modules of the JDK, which is part of the header
+        return NOT_FINGERPRINTED;
+      }
+      classLoader = classLoader.getParent();
+    }
+    return Long.toHexString(hash);
+  }
+
+  /** @return the jar file the url points to, or null if it is not a readable local jar */
+  private static File toJar(final URL url) {
+    if (!"file".equals(url.getProtocol())) {
+      return null;
+    }
+    final File file;
+    try {
+      file = new File(url.toURI());
+    } catch (final URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+    // the content of directories is not checked, so they are never trusted
+    return isReadableFile(file) ? file : null;
+  }
+
+  private static boolean isReadableFile(final File file) {
+    return file.isFile() && file.canRead();
+  }
+
+  private static ClassLoader systemClassLoader() {
+    try {
+      return ClassLoader.getSystemClassLoader();
+    } catch (final SecurityException | IllegalStateException e) {
+      return null;
+    }
+  }
+
+  private static long hash(long hash, final File jar) {
+    hash = hash(hash, jar.getAbsolutePath());
+    hash = 31 * hash + jar.length();
+    return 31 * hash + jar.lastModified();
+  }
+
+  private static long hash(long hash, final String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      hash = 31 * hash + value.charAt(i);
+    }
+    return hash;
+  }
+
+  private static String key(final String instrumentation, final String fingerprint) {
+    return instrumentation + '\t' + fingerprint;
+  }
+
+  private static MuzzleCache create(final String path) {
+    if (null == path || path.isEmpty()) {
+      return new MuzzleCache(null, null);
+    }
+    final MuzzleCache cache = new MuzzleCache(new File(path), VersionLogger.getAgentVersion());
+    try {
+      Runtime.getRuntime().addShutdownHook(new SaveOnShutdown(cache));
+    } catch (final IllegalStateException ex) {
+      // The JVM is already shutting down.
+    }
+    return cache;
+  }
+
+  private static final class SaveOnShutdown extends Thread {
+    private final MuzzleCache cache;
+
+    private SaveOnShutdown(final MuzzleCache cache) {
+      super("dd-muzzle-cache-shutdown-hook");
+      this.cache = cache;
+    }
+
+    @Override
+    public void run() {
+      cache.save();
+    }
+  }
+}
@@ -7,7 +7,6 @@ import spock.lang.Retry
 import spock.lang.Shared
 
 import java.lang.ref.WeakReference
-import java.util.concurrent.TimeUnit
 
 @Retry
 // These tests fail sometimes in CI.
@@ -98,12 +97,11 @@ class WeakConcurrentSupplierTest extends DDSpecification {
     GCUtils.awaitGC(keyRef)
 
     if (name == "WeakConcurrent") {
-      // Sleep enough time for cleanup thread to get scheduled.
-      // But on a very slow box (or high load) scheduling may not be exactly predictable
-      // so we try a few times.
+      // The cleaner thread wakes up as soon as the key is enqueued,
+      // but on a very slow box (or high load) this may take a while so we try a few times.
       int count = 0
-      while (map.size() != 0 && count < 10) {
-        Thread.sleep(TimeUnit.SECONDS.toMillis(WeakMapSuppliers.WeakConcurrent.CLEAN_FREQUENCY_SECONDS))
+      while (map.size() != 0 && count < 100) {
+        Thread.sleep(100)
         count++
       }
     }
@@ -129,4 +127,36 @@ class WeakConcurrentSupplierTest extends DDSpecification {
     // and in order to be able to test it we need to set concurrency to 1
     "Guava"          | guavaSupplier.get(1)
   }
+
+  def "Collected keys of all WeakConcurrent maps are expunged by the shared cleaner"() {
+    setup:
+    List<WeakMapCleaner.CleanedWeakMap> maps = (1..3).collect { weakConcurrentSupplier.get() }
+    def key = new Object()
+    maps.each {
+      it.put(key, "value")
+      // neither of these adds an entry
+      it.put(key, "other value")
+      it.putIfAbsent(key, "ignored value")
+    }
+
+    expect:
+    maps.every { it.size() == 1 && it.get(key) == "other value" }
+    maps.every { it.liveEntryCount() == 1 && it.expungedCount() == 0 }
+    WeakMapCleaner.mapCount() >= 3
+
+    when:
+    def keyRef = new WeakReference(key)
+    key = null
+    GCUtils.awaitGC(keyRef)
+    int count = 0
+    while (maps.any { it.expungedCount() == 0 } && count < 100) {
+      Thread.sleep(100)
+      count++
+    }
+
+    then:
+    maps.every { it.size() == 0 }
+    // only the entries are counted, not the discarded keys
+    maps.every { it.liveEntryCount() == 0 && it.expungedCount() == 1 }
+  }
 }
@@ -0,0 +1,86 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher
+
+import datadog.trace.util.test.DDSpecification
+
+class ClassNameTrieTest extends DDSpecification {
+
+  def "most specific pattern wins in #name"() {
+    setup:
+    def trie = ClassNameTrie.builder()
+      .put("com.*", 0, 1)
+      .put("com.example.*", 0, 2)
+      .put("com.example.Special", 0, 3)
+      .put("com.example.Special*", 0, 1)
+      .put("org.Exact", 0, 2)
+      .build()
+
+    expect:
+    ClassNameTrie.lane(trie.apply(name), 0) == value
+
+    where:
+    name                      | value
+    "com.Foo"                 | 1
+    "com.example.Foo"         | 2
+    "com.example.Special"     | 3
+    "com.example.SpecialCase" | 1
+    "com.exampl"              | 1
+    "co"                      | 0
+    "org.Exact"               | 2
+    "org.ExactNot"            | 0
+    "org.Exac"                | 0
+    ""                        | 0
+  }
+
+  def "lanes are resolved independently"() {
+    setup:
+    def trie = ClassNameTrie.builder()
+      .put("com.*", 0, 1)
+      .put("com.example.*", 1, 2)
+      .put("com.example.sub.*", 0, 3)
+      .put("*", 15, 3)
+      .build()
+
+    when:
+    def values = trie.apply("com.example.sub.Foo")
+
+    then:
+    ClassNameTrie.lane(values, 0) == 3
+    ClassNameTrie.lane(values, 1) == 2
+    ClassNameTrie.lane(values, 2) == 0
+    ClassNameTrie.lane(values, 15) == 3
+
+    when:
+    values = trie.apply("com.example.Foo")
+
+    then:
+    ClassNameTrie.lane(values, 0) == 1
+    ClassNameTrie.lane(values, 1) == 2
+    ClassNameTrie.lane(values, 15) == 3
+  }
+
+  def "later patterns replace earlier ones"() {
+    setup:
+    def trie = ClassNameTrie.builder()
+      .put("com.*", 0, 1)
+      .put("com.*", 0, 2)
+      .build()
+
+    expect:
+    ClassNameTrie.lane(trie.apply("com.Foo"), 0) == 2
+  }
+
+  def "invalid lanes and values are rejected"() {
+    when:
+    ClassNameTrie.builder().put("com.*", lane, value)
+
+    then:
+    thrown(IllegalArgumentException)
+
+    where:
+    lane | value
+    -1   | 1
+    16   | 1
+    0    | 0
+    0    | 4
+  }
+}
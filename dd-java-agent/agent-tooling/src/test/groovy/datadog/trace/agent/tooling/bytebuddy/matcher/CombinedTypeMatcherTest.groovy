@@ -0,0 +1,112 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher
+
+import datadog.trace.agent.tooling.AgentTooling
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.A
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.B
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.C
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.D
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.E
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.F
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.G
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.TracedClass
+import datadog.trace.agent.tooling.bytebuddy.matcher.testclasses.UntracedClass
+import datadog.trace.util.test.DDSpecification
+import net.bytebuddy.matcher.ElementMatchers
+import spock.lang.Shared
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers.extendsClass
+import static datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers.failSafe
+import static datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers.implementsInterface
+import static datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers.safeHasSuperType
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.nameStartsWith
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.namedNoneOf
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.namedOneOf
+import static net.bytebuddy.matcher.ElementMatchers.isAbstract
+import static net.bytebuddy.matcher.ElementMatchers.nameEndsWith
+
+class CombinedTypeMatcherTest extends DDSpecification {
+  @Shared
+  def typePool =
+    AgentTooling.poolStrategy()
+      .typePool(AgentTooling.locationStrategy().classFileLocator(this.class.classLoader, null), this.class.classLoader)
+
+  def "recognizes indexable matchers"() {
+    expect:
+    CombinedTypeMatcher.matchedNames(named("foo")) == ["foo"] as Set
+    CombinedTypeMatcher.matchedNames(namedOneOf("foo", "bar")) == ["foo", "bar"] as Set
+    CombinedTypeMatcher.matchedNames(namedNoneOf("foo")) == null
+    CombinedTypeMatcher.matchedNames(nameEndsWith("foo")) == null
+    CombinedTypeMatcher.matchedNames(ElementMatchers.named("foo")) == null
+    CombinedTypeMatcher.matchedPrefix(nameStartsWith("foo.")) == "foo."
+    CombinedTypeMatcher.matchedPrefix(named("foo")) == null
+    CombinedTypeMatcher.matchedPrefix(ElementMatchers.nameStartsWith("foo.")) == null
+    CombinedTypeMatcher.matchedSuperTypeNames(implementsInterface(named("foo"))) == ["foo"] as Set
+    CombinedTypeMatcher.matchedSuperTypeNames(extendsClass(namedOneOf("foo", "bar"))) == ["foo", "bar"] as Set
+    CombinedTypeMatcher.matchedSuperTypeNames(safeHasSuperType(named("foo"))) == ["foo"] as Set
+    CombinedTypeMatcher.matchedSuperTypeNames(implementsInterface(nameStartsWith("foo"))) == null
+  }
+
+  def "collects the names of the whole hierarchy"() {
+    expect:
+    CombinedTypeMatcher.superTypeNames(typePool.describe(TracedClass.name).resolve()) ==
+      [TracedClass, UntracedClass, G, F, E, D, C, B, A, Object]*.name as Set
+  }
+
+  def "match #matcher -> #type.simpleName"() {
+    setup:
+    def index = new CombinedTypeMatcher()
+    def matched = index.add(matcher)
+    def description = typePool.describe(type.name).resolve()
+
+    expect:
+    matched.matches(description, null, null, null, null) == result
+    matcher.matches(description) == result
+
+    where:
+    matcher                                    | type          | result
+    named(G.name)                              | G             | true
+    named(G.name)                              | F             | false
+    failSafe(named(G.name), "failed")          | G             | true
+    failSafe(named(G.name), "failed")          | F             | false
+    namedOneOf(F.name, G.name)                 | F             | true
+    namedOneOf(F.name, G.name)                 | TracedClass   | false
+    nameStartsWith(A.package.name)             | G             | true
+    nameStartsWith("java.")                    | G             | false
+    implementsInterface(named(A.name))         | TracedClass   | true
+    implementsInterface(named(A.name))         | Object        | false
+    extendsClass(named(G.name))                | UntracedClass | true
+    extendsClass(named(UntracedClass.name))    | G             | false
+    safeHasSuperType(named(E.name))            | G             | true
+    isAbstract()                               | G             | true
+    isAbstract()                               | TracedClass   | false
+  }
+
+  def "matches are computed for all matchers at once"() {
+    setup:
+    def index = new CombinedTypeMatcher()
+    def byName = index.add(named(G.name))
+    def byPrefix = index.add(nameStartsWith("java."))
+    def bySuperType = index.add(implementsInterface(named(A.name)))
+    def unindexed = index.add(isAbstract())
+
+    when:
+    def type = typePool.describe(G.name).resolve()
+    def candidates = index.computeCandidates(type)
+    def matches = index.computeMatches(type)
+
+    then:
+    candidates.get(0)
+    !candidates.get(1)
+    candidates.get(2)
+    candidates.get(3)
+    matches.get(0)
+    !matches.get(1)
+    matches.get(2)
+    matches.get(3)
+    byName.matches(type, null, null, null, null)
+    !byPrefix.matches(type, null, null, null, null)
+    bySuperType.matches(type, null, null, null, null)
+    unindexed.matches(type, null, null, null, null)
+  }
+}
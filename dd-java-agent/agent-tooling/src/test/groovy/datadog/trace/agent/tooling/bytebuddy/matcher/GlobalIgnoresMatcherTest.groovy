@@ -0,0 +1,68 @@
+package datadog.trace.agent.tooling.bytebuddy.matcher
+
+import datadog.trace.util.test.DDSpecification
+import net.bytebuddy.description.type.TypeDescription
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.GlobalIgnoresMatcher.globalIgnoresMatcher
+
+class GlobalIgnoresMatcherTest extends DDSpecification {
+
+  def "#name is ignored: #ignored"() {
+    setup:
+    def type = Mock(TypeDescription)
+    type.getActualName() >> name
+
+    expect:
+    globalIgnoresMatcher(false).matches(type) == ignored
+
+    where:
+    name                                                                      | ignored
+    "java.lang.String"                                                        | true
+    "java.lang.Throwable"                                                     | false
+    "java.util.concurrent.ThreadPoolExecutor"                                 | false
+    "java.util.logging.Logger"                                                | false
+    "java.util.logging.LogManager\$Cleaner"                                   | true
+    "datadog.trace.core.DDSpan"                                               | true
+    "datadog.trace.bootstrap.instrumentation.java.concurrent.RunnableWrapper" | false
+    "com.sun.messaging.jmq.Foo"                                               | false
+    "com.sun.net.httpserver.HttpServer"                                       | true
+    "sun.net.www.protocol.http.HttpURLConnection"                             | false
+    "sun.rmi.transport.Transport"                                             | false
+    "com.mchange.v2.c3p0.impl.NewProxyConnection"                             | false
+    "com.mchange.v2.c3p0.impl.NewPooledConnectionProxy"                       | true
+    "com.example.Foo\$fn__123"                                                | true
+    "com.example.Foo\$\$EnhancerBySpringCGLIB\$\$1"                           | true
+    "org.springframework.web.servlet.Foo\$\$EnhancerBySpringCGLIB\$\$1"       | true
+    "org.springframework.web.servlet.DispatcherServlet"                       | false
+    "org.springframework.beans.factory.BeanFactory"                           | true
+    "org.springframework.core.\$Proxy12"                                      | true
+    "com.example.Foo"                                                         | false
+  }
+
+  def "configured excludes are ignored"() {
+    setup:
+    def type = Mock(TypeDescription)
+    type.getActualName() >> name
+    def matcher = globalIgnoresMatcher(false, ["com.example.excluded.*", " com.example.Exact ", "java.util.concurrent.*"])
+
+    expect:
+    matcher.matches(type) == ignored
+
+    where:
+    name                                      | ignored
+    "com.example.excluded.Foo"                | true
+    "com.example.Exact"                       | true
+    "com.example.ExactNot"                    | false
+    "java.util.concurrent.ThreadPoolExecutor" | true
+    "com.example.Foo"                         | false
+  }
+
+  def "additional library ignores can be skipped"() {
+    setup:
+    def type = Mock(TypeDescription)
+    type.getActualName() >> "org.springframework.beans.factory.BeanFactory"
+
+    expect:
+    globalIgnoresMatcher(true).matches(type) == false
+  }
+}
@@ -3,14 +3,15 @@ package datadog.trace.instrumentation.jdbc;
 import static datadog.trace.agent.tooling.ClassLoaderMatcher.hasClassesNamed;
 import static datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers.hasInterface;
 import static datadog.trace.agent.tooling.bytebuddy.matcher.DDElementMatchers.implementsInterface;
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.nameStartsWith;
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
 import static java.util.Collections.singletonMap;
-import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
-import static net.bytebuddy.matcher.ElementMatchers.named;
 import static net.bytebuddy.matcher.ElementMatchers.returns;
 import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
+import datadog.trace.bootstrap.InstrumentationContext;
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import java.sql.PreparedStatement;
 import java.util.Map;
@@ -39,10 +40,15 @@ public final class ConnectionInstrumentation extends Instrumenter.Default {
   @Override
   public String[] helperClassNames() {
     return new String[] {
-      packageName + ".JDBCMaps",
+      packageName + ".JDBCMaps", packageName + ".JDBCMaps$SqlResourceName",
     };
   }
 
+  @Override
+  public Map<String, String> contextStore() {
+    return singletonMap("java.sql.PreparedStatement", UTF8BytesString.class.getName());
+  }
+
   @Override
   public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
     return singletonMap(
@@ -57,14 +63,10 @@ public final class ConnectionInstrumentation extends Instrumenter.Default {
     @Advice.OnMethodExit(suppress = Throwable.class)
     public static void addDBInfo(
         @Advice.Argument(0) final String sql, @Advice.Return final PreparedStatement statement) {
-      // Sometimes the prepared statement is not reused, but the underlying String is reused, so
-      // check if we have seen this String before
-      UTF8BytesString utf8Sql = JDBCMaps.preparedStatementsSql.get(sql);
-      if (utf8Sql == null) {
-        utf8Sql = UTF8BytesString.create(sql);
-        JDBCMaps.preparedStatementsSql.put(sql, utf8Sql);
-      }
-      JDBCMaps.preparedStatements.putIfAbsent(statement, utf8Sql);
+      // Sometimes the prepared statement is not reused, but the same SQL is prepared again, so the
+      // resource name is looked up by SQL before being attached to the statement
+      InstrumentationContext.get(PreparedStatement.class, UTF8BytesString.class)
+          .putIfAbsent(statement, JDBCMaps.preparedStatementSql(sql));
     }
   }
 }
@@ -2,11 +2,14 @@ package datadog.trace.instrumentation.jdbc;
 
 import static datadog.trace.bootstrap.WeakMap.Provider.newWeakMap;
 
+import datadog.trace.api.Config;
 import datadog.trace.bootstrap.WeakMap;
+import datadog.trace.bootstrap.instrumentation.api.FixedSizeCache;
+import datadog.trace.bootstrap.instrumentation.api.Function;
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import datadog.trace.bootstrap.instrumentation.jdbc.DBInfo;
+import datadog.trace.bootstrap.instrumentation.jdbc.SQLNormalizer;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 
 /**
  * JDBC instrumentation shares a global map of connection info.
@@ -15,6 +18,31 @@ import java.sql.PreparedStatement;
  */
 public class JDBCMaps {
   public static final WeakMap<Connection, DBInfo> connectionInfo = newWeakMap();
-  public static final WeakMap<String, UTF8BytesString> preparedStatementsSql = newWeakMap();
-  public static final WeakMap<PreparedStatement, UTF8BytesString> preparedStatements = newWeakMap();
+
+  /**
+   * Resource names of the recently prepared statements, so a statement prepared again with the same
+   * SQL (often a different but equal String) is neither normalized nor encoded again.
+   */
+  private static final FixedSizeCache<String, UTF8BytesString> PREPARED_STATEMENT_SQL =
+      new FixedSizeCache<>(512);
+
+  private static final Function<String, UTF8BytesString> RESOURCE_NAME =
+      new SqlResourceName(Config.get().isJdbcSqlNormalizationEnabled());
+
+  public static UTF8BytesString preparedStatementSql(final String sql) {
+    return PREPARED_STATEMENT_SQL.computeIfAbsent(sql, RESOURCE_NAME);
+  }
+
+  static final class SqlResourceName implements Function<String, UTF8BytesString> {
+    private final boolean normalize;
+
+    SqlResourceName(final boolean normalize) {
+      this.normalize = normalize;
+    }
+
+    @Override
+    public UTF8BytesString apply(final String sql) {
+      return UTF8BytesString.create(normalize ? SQLNormalizer.normalize(sql) : sql);
+    }
+  }
 }
@@ -0,0 +1,35 @@
+import datadog.trace.util.test.DDSpecification
+
+import static datadog.trace.bootstrap.instrumentation.jdbc.SQLNormalizer.normalize
+
+class SQLNormalizerTest extends DDSpecification {
+
+  def "normalize #sql"() {
+    expect:
+    normalize(sql) == expected
+
+    where:
+    sql                                                       | expected
+    "SELECT 3"                                                | "SELECT ?"
+    "SELECT 3 FROM SYSIBM.SYSDUMMY1"                          | "SELECT ? FROM SYSIBM.SYSDUMMY1"
+    "select *\n  from   t1\twhere id = 42"                    | "select * from t1 where id = ?"
+    "SELECT * FROM t WHERE name = 'it''s' AND x = 'a\\'b'"    | "SELECT * FROM t WHERE name = ? AND x = ?"
+    "SELECT * FROM t WHERE a IN (1, 2.5, -3, 1e-5, 0x1F, .5)" | "SELECT * FROM t WHERE a IN (?, ?, -?, ?, ?, ?)"
+    "UPDATE t SET a=1,b=2"                                    | "UPDATE t SET a=?,b=?"
+    "SELECT 'unterminated"                                    | "SELECT ?"
+    "SELECT \"col 1\", `x y` FROM t2 WHERE c = ?"             | "SELECT \"col 1\", `x y` FROM t2 WHERE c = ?"
+    "SELECT \$1, @v1, t3.c4 FROM s1.t5"                       | "SELECT \$1, @v1, t3.c4 FROM s1.t5"
+    "/* hint 'x' 5 */ SELECT 1"                               | "/* hint 'x' 5 */ SELECT ?"
+    "SELECT a -- it's 5\n  FROM t"                            | "SELECT a -- it's 5\nFROM t"
+    "  SELECT  a  "                                           | "SELECT a"
+    ""                                                        | ""
+  }
+
+  def "statements without literals are returned as is"() {
+    setup:
+    def sql = "SELECT a FROM t WHERE b = ?"
+
+    expect:
+    normalize(sql).is(sql)
+  }
+}
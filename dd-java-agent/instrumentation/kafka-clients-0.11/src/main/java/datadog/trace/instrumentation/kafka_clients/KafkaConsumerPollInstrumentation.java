@@ -0,0 +1,64 @@
+package datadog.trace.instrumentation.kafka_clients;
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
+import static java.util.Collections.singletonMap;
+import static net.bytebuddy.matcher.ElementMatchers.isMethod;
+import static net.bytebuddy.matcher.ElementMatchers.isPublic;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+import com.google.auto.service.AutoService;
+import datadog.trace.agent.tooling.Instrumenter;
+import datadog.trace.api.Config;
+import java.util.Map;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+/**
+ * Finishes the batch span of the previous poll when its records were not iterated to the end, see
+ * {@link TracingBatchIterator}. Only applied when batch spans are enabled.
+ */
+@AutoService(Instrumenter.class)
+public final class KafkaConsumerPollInstrumentation extends Instrumenter.Default {
+
+  public KafkaConsumerPollInstrumentation() {
+    super("kafka");
+  }
+
+  @Override
+  protected boolean isEnabled() {
+    return super.isEnabled() && Config.get().isKafkaClientBatchSpansEnabled();
+  }
+
+  @Override
+  public ElementMatcher<TypeDescription> typeMatcher() {
+    return named("org.apache.kafka.clients.consumer.KafkaConsumer");
+  }
+
+  @Override
+  public String[] helperClassNames() {
+    return new String[] {
+      packageName + ".KafkaDecorator",
+      packageName + ".TextMapExtractAdapter",
+      packageName + ".TracingBatchIterator",
+      packageName + ".TracingBatchIterator$Batch",
+      packageName + ".Base64Decoder"
+    };
+  }
+
+  @Override
+  public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
+    return singletonMap(
+        isMethod().and(isPublic()).and(named("poll")).and(takesArguments(1)),
+        KafkaConsumerPollInstrumentation.class.getName() + "$PollAdvice");
+  }
+
+  public static class PollAdvice {
+
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void finishPendingBatch() {
+      TracingBatchIterator.finishPendingBatch();
+    }
+  }
+}
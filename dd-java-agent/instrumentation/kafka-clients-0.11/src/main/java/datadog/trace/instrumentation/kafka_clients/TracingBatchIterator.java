@@ -0,0 +1,173 @@
+package datadog.trace.instrumentation.kafka_clients;
+
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activateSpan;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.propagate;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.startSpan;
+import static datadog.trace.instrumentation.kafka_clients.TextMapExtractAdapter.GETTER;
+
+import datadog.trace.api.DDId;
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan.Context;
+import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Traces the iteration over a batch of records with a single span, instead of a span per record.
+ *
+ * <p>The span is started when the first record is returned, as a child of the context propagated
+ * in that record's headers, and stays active until the end of the batch is reached. It is tagged
+ * with the topic, partition and offset of the first record, and with the number of records. Only
+ * the headers of the 2nd, 4th, 8th... records are extracted, and the contexts they propagate are
+ * tagged on the span, so the tracing cost grows with the logarithm of the batch size.
+ *
+ * <p>If the iteration stops before the end of the batch (a break, an exception), the span is
+ * finished when the same thread polls again, or starts tracing another batch.
+ */
+@Slf4j
+public class TracingBatchIterator implements Iterator<ConsumerRecord> {
+  /**
+   * the batch of the current thread which is not finished yet, it does not reference the iterator
+   * so the records of the batch are not kept reachable
+   */
+  private static final ThreadLocal<Batch> PENDING_BATCH = new ThreadLocal<>();
+
+  private final Iterator<ConsumerRecord> delegateIterator;
+  private final String operationName;
+  private final KafkaDecorator decorator;
+
+  /**
+   * Note: this may potentially create problems if this iterator is used from different threads. But
+   * at the moment we cannot do much about this.
+   */
+  private Batch batch;
+
+  public TracingBatchIterator(
+      final Iterator<ConsumerRecord> delegateIterator,
+      final String operationName,
+      final KafkaDecorator decorator) {
+    this.delegateIterator = delegateIterator;
+    this.operationName = operationName;
+    this.decorator = decorator;
+  }
+
+  /** Finishes the span of the batch the current thread did not iterate to the end. */
+  public static void finishPendingBatch() {
+    final Batch pending = PENDING_BATCH.get();
+    if (pending != null) {
+      pending.finish();
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    final boolean hasNext = delegateIterator.hasNext();
+    if (!hasNext && batch != null) {
+      batch.finish();
+      batch = null;
+    }
+    return hasNext;
+  }
+
+  @Override
+  public ConsumerRecord next() {
+    final ConsumerRecord next = delegateIterator.next();
+
+    if (batch != null && !batch.isFinished()) {
+      // sample the parents of the other records at exponentially growing intervals
+      if (Integer.bitCount(++batch.recordCount) == 1 && next != null) {
+        batch.recordParent(next);
+      }
+    } else if (next != null) {
+      finishPendingBatch();
+      try {
+        final Context spanContext = propagate().extract(next.headers(), GETTER);
+        final AgentSpan span = startSpan(operationName, spanContext);
+        decorator.afterStart(span);
+        decorator.onConsume(span, next);
+        final AgentScope scope = activateSpan(span);
+        scope.setAsyncPropagation(true);
+        batch = new Batch(scope, decorator, parentId(spanContext));
+        PENDING_BATCH.set(batch);
+      } catch (final Exception e) {
+        log.debug("Error during decoration", e);
+      }
+    }
+    return next;
+  }
+
+  private static String parentId(final Context context) {
+    if (context == null || DDId.ZERO.equals(context.getTraceId())) {
+      return null;
+    }
+    return context.getTraceId() + ":" + context.getSpanId();
+  }
+
+  @Override
+  public void remove() {
+    delegateIterator.remove();
+  }
+
+  /** Scope of a batch span and what it is tagged with when it is finished. */
+  private static final class Batch {
+    private final KafkaDecorator decorator;
+    private final String batchParentId;
+    private AgentScope scope;
+    private int recordCount = 1;
+    private Set<String> recordParentIds;
+
+    private Batch(
+        final AgentScope scope, final KafkaDecorator decorator, final String batchParentId) {
+      this.scope = scope;
+      this.decorator = decorator;
+      this.batchParentId = batchParentId;
+    }
+
+    boolean isFinished() {
+      return scope == null;
+    }
+
+    void recordParent(final ConsumerRecord record) {
+      try {
+        final String parentId = parentId(propagate().extract(record.headers(), GETTER));
+        if (parentId != null && !parentId.equals(batchParentId)) {
+          if (recordParentIds == null) {
+            recordParentIds = new LinkedHashSet<>();
+          }
+          recordParentIds.add(parentId);
+        }
+      } catch (final Exception e) {
+        log.debug("Error during decoration", e);
+      }
+    }
+
+    void finish() {
+      if (scope == null) {
+        return;
+      }
+      if (PENDING_BATCH.get() == this) {
+        PENDING_BATCH.remove();
+      }
+      scope.close();
+      final AgentSpan span = scope.span();
+      span.setTag(InstrumentationTags.RECORD_COUNT, recordCount);
+      if (recordParentIds != null) {
+        final StringBuilder parentIds = new StringBuilder();
+        for (final String parentId : recordParentIds) {
+          if (parentIds.length() > 0) {
+            parentIds.append(',');
+          }
+          parentIds.append(parentId);
+        }
+        span.setTag(InstrumentationTags.RECORD_PARENT_IDS, parentIds.toString());
+      }
+      decorator.finishConsumerSpan(span);
+      scope = null;
+      recordParentIds = null;
+    }
+  }
+}
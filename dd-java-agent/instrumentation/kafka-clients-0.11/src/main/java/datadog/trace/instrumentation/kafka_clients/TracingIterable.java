@@ -1,5 +1,6 @@
 package datadog.trace.instrumentation.kafka_clients;
 
+import datadog.trace.api.Config;
 import java.util.Iterator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
@@ -25,7 +26,10 @@ public class TracingIterable implements Iterable<ConsumerRecord> {
     // However, this is not thread-safe, but usually the first (hopefully only) traversal of
     // ConsumerRecords is performed in the same thread that called poll()
     if (firstIterator) {
-      it = new TracingIterator(delegate.iterator(), operationName, decorator);
+      it =
+          Config.get().isKafkaClientBatchSpansEnabled()
+              ? new TracingBatchIterator(delegate.iterator(), operationName, decorator)
+              : new TracingIterator(delegate.iterator(), operationName, decorator);
       firstIterator = false;
     } else {
       it = delegate.iterator();
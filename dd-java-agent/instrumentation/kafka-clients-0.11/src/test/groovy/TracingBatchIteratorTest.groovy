@@ -0,0 +1,171 @@
+import datadog.trace.agent.test.AgentTestRunner
+import datadog.trace.api.DDId
+import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags
+import datadog.trace.bootstrap.instrumentation.api.Tags
+import datadog.trace.instrumentation.kafka_clients.TracingBatchIterator
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.common.header.internals.RecordHeader
+import org.apache.kafka.common.header.internals.RecordHeaders
+import org.apache.kafka.common.record.TimestampType
+
+import java.nio.charset.StandardCharsets
+
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeSpan
+import static datadog.trace.instrumentation.kafka_clients.KafkaDecorator.CONSUMER_DECORATE
+
+class TracingBatchIteratorTest extends AgentTestRunner {
+
+  def "one span traces the whole batch"() {
+    setup:
+    def records = (0..<recordCount).collect {
+      new ConsumerRecord<String, String>("topic", 1, 10 + it, "key", "value")
+    }
+    def iterator = new TracingBatchIterator(records.iterator(), "kafka.consume", CONSUMER_DECORATE)
+    def activeSpans = []
+
+    when:
+    while (iterator.hasNext()) {
+      iterator.next()
+      activeSpans.add(activeSpan())
+    }
+
+    then:
+    activeSpans.size() == recordCount
+    activeSpans.unique().size() == 1
+    activeSpan() == null
+    assertTraces(1) {
+      trace(0, 1) {
+        span(0) {
+          serviceName "kafka"
+          operationName "kafka.consume"
+          resourceName "Consume Topic topic"
+          spanType "queue"
+          errored false
+          parent()
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "$InstrumentationTags.PARTITION" 1
+            "$InstrumentationTags.OFFSET" 10
+            "$InstrumentationTags.RECORD_COUNT" recordCount
+            defaultTags()
+          }
+        }
+      }
+    }
+
+    where:
+    recordCount << [1, 3, 500]
+  }
+
+  def "empty batch is not traced"() {
+    setup:
+    def iterator = new TracingBatchIterator([].iterator(), "kafka.consume", CONSUMER_DECORATE)
+
+    expect:
+    !iterator.hasNext()
+    TEST_WRITER.size() == 0
+  }
+
+  def "parents of a sample of the other records are tagged"() {
+    setup:
+    def records = (0..<5).collect {
+      record(10 + it, 100 + it, 200 + it)
+    }
+    def iterator = new TracingBatchIterator(records.iterator(), "kafka.consume", CONSUMER_DECORATE)
+
+    when:
+    while (iterator.hasNext()) {
+      iterator.next()
+    }
+
+    then:
+    assertTraces(1) {
+      trace(0, 1) {
+        span(0) {
+          operationName "kafka.consume"
+          traceDDId DDId.from(100)
+          parentDDId DDId.from(200)
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "$InstrumentationTags.PARTITION" 1
+            "$InstrumentationTags.OFFSET" 10
+            "$InstrumentationTags.RECORD_COUNT" 5
+            // only the 2nd and 4th records are sampled
+            "$InstrumentationTags.RECORD_PARENT_IDS" "101:201,103:203"
+            defaultTags(true)
+          }
+        }
+      }
+    }
+  }
+
+  def "batch not iterated to the end is finished by the next poll"() {
+    setup:
+    def records = (0..<3).collect {
+      new ConsumerRecord<String, String>("topic", 1, 10 + it, "key", "value")
+    }
+    def iterator = new TracingBatchIterator(records.iterator(), "kafka.consume", CONSUMER_DECORATE)
+
+    when:
+    iterator.next()
+    iterator.next()
+
+    then:
+    activeSpan() != null
+    TEST_WRITER.size() == 0
+
+    when:
+    TracingBatchIterator.finishPendingBatch()
+
+    then:
+    activeSpan() == null
+    assertTraces(1) {
+      trace(0, 1) {
+        span(0) {
+          operationName "kafka.consume"
+          parent()
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "$InstrumentationTags.PARTITION" 1
+            "$InstrumentationTags.OFFSET" 10
+            "$InstrumentationTags.RECORD_COUNT" 2
+            defaultTags()
+          }
+        }
+      }
+    }
+  }
+
+  def "batch not iterated to the end is finished by the next batch"() {
+    setup:
+    def first = new TracingBatchIterator([
+      new ConsumerRecord<String, String>("topic", 1, 10, "key", "value"),
+      new ConsumerRecord<String, String>("topic", 1, 11, "key", "value")
+    ].iterator(), "kafka.consume", CONSUMER_DECORATE)
+    def second = new TracingBatchIterator([
+      new ConsumerRecord<String, String>("topic", 1, 12, "key", "value")
+    ].iterator(), "kafka.consume", CONSUMER_DECORATE)
+
+    when:
+    first.next()
+    second.next()
+    second.hasNext()
+
+    then:
+    activeSpan() == null
+    TEST_WRITER.waitForTraces(2)
+    TEST_WRITER.collect { it[0].getTag(InstrumentationTags.OFFSET) } as Set == [10L, 12L] as Set
+  }
+
+  def record(long offset, long traceId, long parentId) {
+    def headers = new RecordHeaders()
+    headers.add(new RecordHeader("x-datadog-trace-id", "$traceId".getBytes(StandardCharsets.UTF_8)))
+    headers.add(new RecordHeader("x-datadog-parent-id", "$parentId".getBytes(StandardCharsets.UTF_8)))
+    return new ConsumerRecord<String, String>("topic", 1, offset, ConsumerRecord.NO_TIMESTAMP,
+      TimestampType.NO_TIMESTAMP_TYPE, ConsumerRecord.NULL_CHECKSUM, ConsumerRecord.NULL_SIZE,
+      ConsumerRecord.NULL_SIZE, "key", "value", headers)
+  }
+}
@@ -1,8 +1,8 @@
 package datadog.trace.instrumentation.log4j1;
 
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
 import static java.util.Collections.singletonMap;
 import static net.bytebuddy.matcher.ElementMatchers.isTypeInitializer;
-import static net.bytebuddy.matcher.ElementMatchers.named;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
@@ -52,7 +52,9 @@ public class Log4j1MDCInstrumentation extends Instrumenter.Default {
       try {
         final Method putMethod = mdcClass.getMethod("put", String.class, Object.class);
         final Method removeMethod = mdcClass.getMethod("remove", String.class);
-        GlobalTracer.get().addScopeListener(new LogContextScopeListener(putMethod, removeMethod));
+        final Method getMethod = mdcClass.getMethod("get", String.class);
+        GlobalTracer.get()
+            .addScopeListener(new LogContextScopeListener(putMethod, removeMethod, getMethod));
         // log4j1 uses subclass of InheritableThreadLocal and we don't need to modify private thread
         // local field:
         LogContextScopeListener.addDDTagsToMDC(putMethod);
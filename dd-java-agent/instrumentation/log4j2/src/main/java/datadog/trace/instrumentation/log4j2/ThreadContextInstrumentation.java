@@ -1,8 +1,8 @@
 package datadog.trace.instrumentation.log4j2;
 
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
 import static java.util.Collections.singletonMap;
 import static net.bytebuddy.matcher.ElementMatchers.isTypeInitializer;
-import static net.bytebuddy.matcher.ElementMatchers.named;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
@@ -59,7 +59,9 @@ public class ThreadContextInstrumentation extends Instrumenter.Default {
       try {
         final Method putMethod = threadContextClass.getMethod("put", String.class, String.class);
         final Method removeMethod = threadContextClass.getMethod("remove", String.class);
-        GlobalTracer.get().addScopeListener(new LogContextScopeListener(putMethod, removeMethod));
+        final Method getMethod = threadContextClass.getMethod("get", String.class);
+        GlobalTracer.get()
+            .addScopeListener(new LogContextScopeListener(putMethod, removeMethod, getMethod));
 
         final Field contextMapField = threadContextClass.getDeclaredField("contextMap");
         contextMapField.setAccessible(true);
@@ -18,6 +18,15 @@ import reactor.core.Fuseable;
 import reactor.core.Scannable;
 import reactor.util.context.Context;
 
+/**
+ * Activates the span of the downstream subscriber around the signals it receives, and the span of
+ * the upstream publisher around the requests it receives.
+ *
+ * <p>Most operators of a pipeline are assembled under the same span, and deliver their signals on
+ * the thread of their upstream, so the span is usually active already: it is only activated when
+ * it actually changes, to keep the cost per element close to a thread-local lookup. Operator fusion
+ * is passed through, with the upstream span activated around {@link #poll()}.
+ */
 @Slf4j
 public class TracingSubscriber<T>
     implements Subscription, CoreSubscriber<T>, Fuseable.QueueSubscription<T>, Scannable {
@@ -29,6 +38,8 @@ public class TracingSubscriber<T>
   private final Context context;
   private final AgentSpan downstreamSpan;
   private Subscription subscription;
+  private Fuseable.QueueSubscription<T> queueSubscription;
+  private int fusionMode = Fuseable.NONE;
 
   public TracingSubscriber(final AgentSpan upstreamSpan, final CoreSubscriber<T> delegate) {
     this.delegate = delegate;
@@ -37,14 +48,20 @@ public class TracingSubscriber<T>
         (AgentSpan)
             delegate.currentContext().getOrEmpty(AgentSpan.class).orElseGet(AgentTracer::noopSpan);
 
-    try (final AgentScope scope = activateSpan(downstreamSpan)) {
-      final TraceScope downstreamScope = activeScope();
-      if (downstreamScope != null) {
-        downstreamScope.setAsyncPropagation(true);
-        // create a hard reference to the trace that we don't want reported until we are done
-        continuation.set(activeScope().capture());
-      } else {
-        continuation.set(NoopAgentScope.INSTANCE.capture());
+    final TraceScope activeScope = activeScope();
+    if (isActive(activeScope, downstreamSpan)) {
+      // create a hard reference to the trace that we don't want reported until we are done
+      continuation.set(activeScope.capture());
+    } else {
+      try (final AgentScope scope = activateSpan(downstreamSpan)) {
+        final TraceScope downstreamScope = activeScope();
+        if (downstreamScope != null) {
+          downstreamScope.setAsyncPropagation(true);
+          // create a hard reference to the trace that we don't want reported until we are done
+          continuation.set(activeScope().capture());
+        } else {
+          continuation.set(NoopAgentScope.INSTANCE.capture());
+        }
       }
     }
 
@@ -53,14 +70,29 @@ public class TracingSubscriber<T>
     context = this.delegate.currentContext().put(AgentSpan.class, this.upstreamSpan);
   }
 
+  /** @return whether the span is already active, and propagated across async boundaries */
+  private static boolean isActive(final TraceScope activeScope, final AgentSpan span) {
+    return activeScope instanceof AgentScope
+        && ((AgentScope) activeScope).span() == span
+        && activeScope.isAsyncPropagating();
+  }
+
+  private static boolean isActive(final AgentSpan span) {
+    return isActive(activeScope(), span);
+  }
+
   @Override
   public Context currentContext() {
     return context;
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public void onSubscribe(final Subscription subscription) {
     this.subscription = subscription;
+    if (subscription instanceof Fuseable.QueueSubscription) {
+      queueSubscription = (Fuseable.QueueSubscription<T>) subscription;
+    }
 
     try (final AgentScope scope = activateSpan(downstreamSpan)) {
       scope.setAsyncPropagation(true);
@@ -70,6 +102,10 @@ public class TracingSubscriber<T>
 
   @Override
   public void onNext(final T t) {
+    if (isActive(downstreamSpan)) {
+      delegate.onNext(t);
+      return;
+    }
     try (final AgentScope scope = activateSpan(downstreamSpan)) {
       scope.setAsyncPropagation(true);
       delegate.onNext(t);
@@ -109,6 +145,10 @@ public class TracingSubscriber<T>
 
   @Override
   public void request(final long n) {
+    if (isActive(upstreamSpan)) {
+      subscription.request(n);
+      return;
+    }
     try (final AgentScope scope = activateSpan(upstreamSpan)) {
       scope.setAsyncPropagation(true);
       subscription.request(n);
@@ -148,26 +188,56 @@ public class TracingSubscriber<T>
 
   @Override
   public int requestFusion(final int requestedMode) {
-    return Fuseable.NONE;
+    if (queueSubscription == null) {
+      return Fuseable.NONE;
+    }
+    fusionMode = queueSubscription.requestFusion(requestedMode);
+    return fusionMode;
   }
 
   @Override
   public T poll() {
-    return null;
+    boolean done = true;
+    try {
+      final T next;
+      // in fused mode the upstream operators run when polled rather than when signalling onNext
+      if (isActive(upstreamSpan)) {
+        next = queueSubscription.poll();
+      } else {
+        try (final AgentScope scope = activateSpan(upstreamSpan)) {
+          scope.setAsyncPropagation(true);
+          next = queueSubscription.poll();
+        }
+      }
+      done = next == null;
+      return next;
+    } finally {
+      if (done && fusionMode == Fuseable.SYNC) {
+        // a synchronously fused upstream terminates this way, without onComplete or onError
+        final TraceScope.Continuation current = continuation.getAndSet(null);
+        if (current != null) {
+          current.cancel();
+        }
+      }
+    }
   }
 
   @Override
   public int size() {
-    return 0;
+    return queueSubscription == null ? 0 : queueSubscription.size();
   }
 
   @Override
   public boolean isEmpty() {
-    return false;
+    return queueSubscription == null || queueSubscription.isEmpty();
   }
 
   @Override
-  public void clear() {}
+  public void clear() {
+    if (queueSubscription != null) {
+      queueSubscription.clear();
+    }
+  }
 
   public static class UnifiedScope implements AutoCloseable {
     private final Closeable scope;
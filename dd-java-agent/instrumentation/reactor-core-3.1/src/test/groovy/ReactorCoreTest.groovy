@@ -11,6 +11,7 @@ import org.reactivestreams.Subscriber
 import org.reactivestreams.Subscription
 import reactor.core.publisher.Flux
 import reactor.core.publisher.Mono
+import reactor.core.scheduler.Schedulers
 import spock.lang.Shared
 
 import java.time.Duration
@@ -94,6 +95,10 @@ class ReactorCoreTest extends AgentTestRunner {
     }
 
     "mono from callable"  | 12       | 2         | { -> Mono.fromCallable({ addOneFunc(10) }).map(addOne) }
+    "sync fused flux"     | [2, 3]   | 2         | { -> Flux.range(1, 2).map(addOne) }
+    "async fused flux"    | [3, 4]   | 4         | { ->
+      Flux.range(1, 2).map(addOne).publishOn(Schedulers.parallel()).map(addOne)
+    }
   }
 
   def "Publisher error '#name' test"() {
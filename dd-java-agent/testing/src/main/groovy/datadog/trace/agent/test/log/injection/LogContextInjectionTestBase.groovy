@@ -97,6 +97,53 @@ abstract class LogContextInjectionTestBase extends AgentTestRunner {
     get(Tags.DD_ENV) == TEST_ENV
   }
 
+  def "Log context follows nested scopes of the same span"() {
+    when:
+    AgentSpan rootSpan = startSpan("root")
+    AgentScope outerScope = activateSpan(rootSpan)
+    AgentScope innerScope = activateSpan(rootSpan)
+
+    then:
+    get(CorrelationIdentifier.getTraceIdKey()) == rootSpan.getTraceId().toString()
+    get(CorrelationIdentifier.getSpanIdKey()) == rootSpan.context().getSpanId().toString()
+
+    when:
+    AgentSpan childSpan = startSpan("child")
+    AgentScope childScope = activateSpan(childSpan)
+    childScope.close()
+    childSpan.finish()
+    innerScope.close()
+
+    then:
+    get(CorrelationIdentifier.getTraceIdKey()) == rootSpan.getTraceId().toString()
+    get(CorrelationIdentifier.getSpanIdKey()) == rootSpan.context().getSpanId().toString()
+
+    when:
+    outerScope.close()
+    rootSpan.finish()
+
+    then:
+    get(CorrelationIdentifier.getTraceIdKey()) == null
+    get(CorrelationIdentifier.getSpanIdKey()) == null
+  }
+
+  def "Log context is restored when the same span is activated after the context was cleared"() {
+    when:
+    AgentSpan rootSpan = startSpan("root")
+    AgentScope outerScope = activateSpan(rootSpan)
+    clear()
+    AgentScope innerScope = activateSpan(rootSpan)
+
+    then:
+    get(CorrelationIdentifier.getTraceIdKey()) == rootSpan.getTraceId().toString()
+    get(CorrelationIdentifier.getSpanIdKey()) == rootSpan.context().getSpanId().toString()
+
+    cleanup:
+    innerScope?.close()
+    outerScope?.close()
+    rootSpan?.finish()
+  }
+
   def "Log context is scoped by thread"() {
     AtomicReference<String> thread1TraceId = new AtomicReference<>()
     AtomicReference<String> thread2TraceId = new AtomicReference<>()
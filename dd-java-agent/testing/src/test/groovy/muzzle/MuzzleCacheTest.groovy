@@ -0,0 +1,129 @@
+package muzzle
+
+import datadog.trace.agent.tooling.muzzle.MuzzleCache
+import datadog.trace.util.test.DDSpecification
+
+class MuzzleCacheTest extends DDSpecification {
+
+  File dir = File.createTempDir()
+  File jar = new File(dir, "lib.jar")
+  File cacheFile = new File(dir, "muzzle.cache")
+
+  def setup() {
+    jar.text = "not really a jar"
+  }
+
+  def cleanup() {
+    dir.deleteDir()
+  }
+
+  def "verdicts survive a restart"() {
+    setup:
+    def loader = new URLClassLoader([jar.toURI().toURL()] as URL[], (ClassLoader) null)
+    def cache = new MuzzleCache(cacheFile, "1.0")
+
+    when:
+    cache.record("com.example.Matching", loader, true)
+    cache.record("com.example.Muzzled", loader, false)
+    cache.save()
+    def restarted = new MuzzleCache(cacheFile, "1.0")
+    def restartedLoader = new URLClassLoader([jar.toURI().toURL()] as URL[], (ClassLoader) null)
+
+    then:
+    restarted.size() == 2
+    restarted.verdict("com.example.Matching", restartedLoader) == true
+    restarted.verdict("com.example.Muzzled", restartedLoader) == false
+    restarted.verdict("com.example.Unknown", restartedLoader) == null
+  }
+
+  def "verdicts are ignored when the classpath changes"() {
+    setup:
+    def loader = new URLClassLoader([jar.toURI().toURL()] as URL[], (ClassLoader) null)
+    def cache = new MuzzleCache(cacheFile, "1.0")
+    cache.record("com.example.Matching", loader, true)
+    cache.save()
+
+    when:
+    jar.text = "a different version of the library"
+    def restarted = new MuzzleCache(cacheFile, "1.0")
+    def restartedLoader = new URLClassLoader([jar.toURI().toURL()] as URL[], (ClassLoader) null)
+
+    then:
+    restarted.verdict("com.example.Matching", restartedLoader) == null
+  }
+
+  def "cache written by another agent version is discarded"() {
+    setup:
+    def loader = new URLClassLoader([jar.toURI().toURL()] as URL[], (ClassLoader) null)
+    def cache = new MuzzleCache(cacheFile, "1.0")
+    cache.record("com.example.Matching", loader, true)
+    cache.save()
+
+    when:
+    def upgraded = new MuzzleCache(cacheFile, "2.0")
+
+    then:
+    upgraded.size() == 0
+    upgraded.verdict("com.example.Matching", loader) == null
+  }
+
+  def "class loaders without a known classpath are not cached"() {
+    setup:
+    def loader = new ClassLoader(null) {}
+    def cache = new MuzzleCache(cacheFile, "1.0")
+
+    when:
+    cache.record("com.example.Matching", loader, true)
+
+    then:
+    cache.size() == 0
+    cache.verdict("com.example.Matching", loader) == null
+  }
+
+  def "class loaders with #description on their classpath are not cached"() {
+    setup:
+    def loader = new URLClassLoader([url(dir)] as URL[], (ClassLoader) null)
+    def cache = new MuzzleCache(cacheFile, "1.0")
+
+    when:
+    cache.record("com.example.Matching", loader, true)
+
+    then:
+    cache.size() == 0
+    cache.verdict("com.example.Matching", loader) == null
+
+    where:
+    description     | url
+    "a directory"   | { File dir -> dir.toURI().toURL() }
+    "a missing jar" | { File dir -> new File(dir, "missing.jar").toURI().toURL() }
+    "a remote jar"  | { File dir -> new URL("http://localhost/lib.jar") }
+  }
+
+  def "jars with escaped characters in their url are cached"() {
+    setup:
+    def escaped = new File(dir, "lib with spaces.jar")
+    escaped.text = "not really a jar"
+    def loader = new URLClassLoader([escaped.toURI().toURL()] as URL[], (ClassLoader) null)
+    def cache = new MuzzleCache(cacheFile, "1.0")
+
+    when:
+    cache.record("com.example.Matching", loader, true)
+
+    then:
+    cache.size() == 1
+    cache.verdict("com.example.Matching", loader) == true
+  }
+
+  def "disabled cache records nothing"() {
+    setup:
+    def loader = new URLClassLoader([jar.toURI().toURL()] as URL[], (ClassLoader) null)
+    def cache = new MuzzleCache(null, null)
+
+    when:
+    cache.record("com.example.Matching", loader, true)
+
+    then:
+    cache.size() == 0
+    cache.verdict("com.example.Matching", loader) == null
+  }
+}
@@ -26,6 +26,8 @@ public final class ConfigDefaults {
   static final boolean DEFAULT_TRACE_ENABLED = true;
   static final boolean DEFAULT_INTEGRATIONS_ENABLED = true;
   static final String DEFAULT_AGENT_WRITER_TYPE = "DDAgentWriter";
+  static final int DEFAULT_TRACE_SERIALIZER_THREADS = 1;
+  static final boolean DEFAULT_TRACE_STATS_COMPUTATION_ENABLED = false;
 
   static final boolean DEFAULT_RUNTIME_CONTEXT_FIELD_INJECTION = true;
 
@@ -35,9 +37,13 @@ public final class ConfigDefaults {
   static final boolean DEFAULT_HTTP_CLIENT_TAG_QUERY_STRING = false;
   static final boolean DEFAULT_HTTP_CLIENT_SPLIT_BY_DOMAIN = false;
   static final boolean DEFAULT_DB_CLIENT_HOST_SPLIT_BY_INSTANCE = false;
+  static final boolean DEFAULT_JDBC_SQL_NORMALIZATION_ENABLED = false;
   static final String DEFAULT_SPLIT_BY_TAGS = "";
   static final int DEFAULT_SCOPE_DEPTH_LIMIT = 100;
   static final int DEFAULT_PARTIAL_FLUSH_MIN_SPANS = 1000;
+  static final boolean DEFAULT_SPAN_BUFFER_ENABLED = false;
+  static final boolean DEFAULT_SPAN_LEAK_DETECTION_ENABLED = true;
+  static final int DEFAULT_PENDING_TRACE_MAX_AGE = 0;
   static final String DEFAULT_PROPAGATION_STYLE_EXTRACT = PropagationStyle.DATADOG.name();
   static final String DEFAULT_PROPAGATION_STYLE_INJECT = PropagationStyle.DATADOG.name();
   static final boolean DEFAULT_JMX_FETCH_ENABLED = true;
@@ -55,12 +61,14 @@ public final class ConfigDefaults {
   static final int DEFAULT_PROFILING_UPLOAD_PERIOD = 60; // 1 min
   static final int DEFAULT_PROFILING_UPLOAD_TIMEOUT = 30; // seconds
   static final String DEFAULT_PROFILING_UPLOAD_COMPRESSION = "on";
+  static final int DEFAULT_PROFILING_UPLOAD_COMPRESSION_THREADS = 1;
   static final int DEFAULT_PROFILING_PROXY_PORT = 8080;
   static final int DEFAULT_PROFILING_EXCEPTION_SAMPLE_LIMIT = 10_000;
   static final int DEFAULT_PROFILING_EXCEPTION_HISTOGRAM_TOP_ITEMS = 50;
   static final int DEFAULT_PROFILING_EXCEPTION_HISTOGRAM_MAX_COLLECTION_SIZE = 10000;
 
   static final boolean DEFAULT_KAFKA_CLIENT_PROPAGATION_ENABLED = true;
+  static final boolean DEFAULT_KAFKA_CLIENT_BATCH_SPANS_ENABLED = false;
 
   static final boolean DEFAULT_TRACE_REPORT_HOSTNAME = false;
   static final String DEFAULT_TRACE_ANNOTATIONS = null;
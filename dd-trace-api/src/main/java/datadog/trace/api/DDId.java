@@ -68,7 +68,31 @@ public class DDId {
    * @throws NumberFormatException
    */
   public static DDId fromHex(String s) throws NumberFormatException {
-    return DDId.create(parseUnsignedLongHex(s), null);
+    if (s == null) {
+      throw new NumberFormatException("null");
+    }
+    return DDId.create(parseUnsignedLongHex(s, 0, s.length()), null);
+  }
+
+  /**
+   * Create a new {@code DDId} from the hex representation of the unsigned 64 bit id found in the
+   * given range of the {@code String}, without copying the range.
+   *
+   * @param s String containing the hex representation of an unsigned 64 bit id
+   * @param start index of the first hex digit
+   * @param length number of hex digits
+   * @return DDId
+   * @throws NumberFormatException
+   */
+  public static DDId fromHex(String s, int start, int length) throws NumberFormatException {
+    if (s == null) {
+      throw new NumberFormatException("null");
+    }
+    if (start < 0 || length < 0 || start + length > s.length()) {
+      throw new NumberFormatException(
+          String.format("Range [%d, %d) out of bounds of %s", start, start + length, s));
+    }
+    return DDId.create(parseUnsignedLongHex(s, start, length), null);
   }
 
   private final long id;
@@ -85,9 +109,9 @@ public class DDId {
     return new DDId(id, str);
   }
 
-  private static int firstNonZeroCharacter(String s) {
-    int firstNonZero = 0;
-    for (; firstNonZero < s.length(); firstNonZero++) {
+  private static int firstNonZeroCharacter(String s, int start, int end) {
+    int firstNonZero = start;
+    for (; firstNonZero < end; firstNonZero++) {
       if (s.charAt(firstNonZero) != '0') break;
     }
     return firstNonZero;
@@ -146,20 +170,17 @@ public class DDId {
     }
   }
 
-  private static long parseUnsignedLongHex(String s) throws NumberFormatException {
-    if (s == null) {
-      throw new NumberFormatException("null");
-    }
-
-    int len = s.length();
+  private static long parseUnsignedLongHex(String s, int start, int len)
+      throws NumberFormatException {
     if (len > 0) {
-      if (len > 16 && (len - firstNonZeroCharacter(s)) > 16) {
+      int end = start + len;
+      if (len > 16 && (end - firstNonZeroCharacter(s, start, end)) > 16) {
         // Unsigned 64 bits max is 16 digits, so this always overflows
         throw numberFormatOutOfRange(s);
       }
       long result = 0;
       int ok = 0;
-      for (int i = 0; i < len; i++) {
+      for (int i = start; i < end; i++) {
         char c = s.charAt(i);
         int d = Character.digit(c, 16);
         ok |= d;
@@ -23,15 +23,19 @@ public final class TraceInstrumentationConfig {
   public static final String HTTP_CLIENT_TAG_QUERY_STRING = "http.client.tag.query-string";
   public static final String HTTP_CLIENT_HOST_SPLIT_BY_DOMAIN = "trace.http.client.split-by-domain";
   public static final String DB_CLIENT_HOST_SPLIT_BY_INSTANCE = "trace.db.client.split-by-instance";
+  public static final String JDBC_SQL_NORMALIZATION_ENABLED =
+      "trace.jdbc.sql.normalization.enabled";
 
   public static final String RUNTIME_CONTEXT_FIELD_INJECTION =
       "trace.runtime.context.field.injection";
+  public static final String MUZZLE_CACHE_FILE = "trace.muzzle.cache.file";
 
   public static final String LOGS_INJECTION_ENABLED = "logs.injection";
 
   public static final String KAFKA_CLIENT_PROPAGATION_ENABLED = "kafka.client.propagation.enabled";
   public static final String KAFKA_CLIENT_BASE64_DECODING_ENABLED =
       "kafka.client.base64.decoding.enabled";
+  public static final String KAFKA_CLIENT_BATCH_SPANS_ENABLED = "kafka.client.batch.spans.enabled";
 
   public static final String HYSTRIX_TAGS_ENABLED = "hystrix.tags.enabled";
 
@@ -18,6 +18,8 @@ public final class TracerConfig {
   public static final String AGENT_PORT_LEGACY = "agent.port";
   public static final String AGENT_UNIX_DOMAIN_SOCKET = "trace.agent.unix.domain.socket";
   public static final String AGENT_TIMEOUT = "trace.agent.timeout";
+  public static final String TRACE_SERIALIZER_THREADS = "trace.serializer.threads";
+  public static final String TRACE_STATS_COMPUTATION_ENABLED = "trace.stats.computation.enabled";
   public static final String PRIORITY_SAMPLING = "priority.sampling";
   public static final String TRACE_RESOLVER_ENABLED = "trace.resolver.enabled";
   public static final String SERVICE_MAPPING = "service.mapping";
@@ -37,7 +39,11 @@ public final class TracerConfig {
 
   public static final String SCOPE_DEPTH_LIMIT = "trace.scope.depth.limit";
   public static final String SCOPE_STRICT_MODE = "trace.scope.strict.mode";
+  public static final String SCOPE_POOLING_ENABLED = "trace.scope.pooling.enabled";
   public static final String PARTIAL_FLUSH_MIN_SPANS = "trace.partial.flush.min.spans";
+  public static final String SPAN_BUFFER_ENABLED = "trace.span.buffer.enabled";
+  public static final String SPAN_LEAK_DETECTION_ENABLED = "trace.span.leak.detection.enabled";
+  public static final String PENDING_TRACE_MAX_AGE = "trace.pending.max.age";
   public static final String PROPAGATION_STYLE_EXTRACT = "propagation.style.extract";
   public static final String PROPAGATION_STYLE_INJECT = "propagation.style.inject";
 
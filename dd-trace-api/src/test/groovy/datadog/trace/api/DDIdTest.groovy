@@ -83,6 +83,36 @@ class DDIdTest extends DDSpecification {
     hexId << [null, "", "-1", "1" + "0" * 16, "f" * 14 + "zf", "f" * 15 + "z" ]
   }
 
+  def "convert ids from a range of a hex String"() {
+    expect:
+    DDId.fromHex(s, start, length) == expectedId
+
+    where:
+    s                             | start | length | expectedId
+    "1"                           | 0     | 1      | DDId.ONE
+    "x-1-x"                       | 2     | 1      | DDId.ONE
+    "0" * 16 + "f" * 16           | 16    | 16     | DDId.MAX
+    "0" * 16 + "f" * 16           | 0     | 32     | DDId.MAX
+    "abc" + "7" + "f" * 15 + "ab" | 3     | 16     | DDId.from(Long.MAX_VALUE)
+  }
+
+  def "fail on illegal hex String range"() {
+    when:
+    DDId.fromHex(s, start, length)
+
+    then:
+    thrown NumberFormatException
+
+    where:
+    s            | start | length
+    null         | 0     | 0
+    "1"          | 1     | 0
+    "1"          | 0     | 2
+    "1"          | -1    | 1
+    "1" * 17     | 0     | 17
+    "1z1"        | 0     | 3
+  }
+
   def "pump up the coverage"() {
     when:
     final ddid = DDId.generate()
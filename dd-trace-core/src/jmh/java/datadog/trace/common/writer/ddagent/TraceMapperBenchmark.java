@@ -0,0 +1,84 @@
+package datadog.trace.common.writer.ddagent;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.common.writer.BlackholeWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.serialization.msgpack.ByteBufferConsumer;
+import datadog.trace.core.serialization.msgpack.Packer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Serializes the same trace over and over with each {@link TraceMapper} version. Full buffers are
+ * discarded and the mapper is reset, as the dispatcher would do once a payload has been sent.
+ */
+@State(Scope.Thread)
+public class TraceMapperBenchmark {
+
+  @Param({"v0.4", "v0.5"})
+  String version;
+
+  @Param({"1", "10", "100"})
+  int spanCount;
+
+  CoreTracer tracer;
+  List<DDSpan> trace;
+  TraceMapper mapper;
+  Packer packer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final BlackholeWriter writer = new BlackholeWriter();
+    tracer = CoreTracer.builder().writer(writer).build();
+    final AgentSpan root = tracer.buildSpan("servlet.request").ignoreActiveSpan().start();
+    root.setTag("http.url", "http://localhost:8080/users/1234/orders/5678");
+    root.setTag("http.method", "GET");
+    root.setTag("http.status_code", 200);
+    for (int i = 1; i < spanCount; ++i) {
+      final AgentSpan span = tracer.buildSpan("database.query").asChildOf(root).start();
+      span.setTag("db.statement", "SELECT * FROM orders WHERE id = " + i);
+      span.setTag("db.instance", "orders");
+      span.finish();
+    }
+    root.finish();
+    trace = writer.lastTrace;
+
+    mapper = "v0.5".equals(version) ? new TraceMapperV0_5() : new TraceMapperV0_4();
+    packer =
+        new Packer(
+            new ByteBufferConsumer() {
+              @Override
+              public void accept(final int messageCount, final ByteBuffer buffer) {
+                mapper.reset();
+              }
+            },
+            ByteBuffer.allocateDirect(mapper.messageBufferSize()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    mapper.close();
+    tracer.close();
+  }
+
+  @Benchmark
+  public boolean map() {
+    return packer.format(trace, mapper);
+  }
+
+  /** Each thread has its own mapper and buffer, like the trace serializer threads. */
+  @Benchmark
+  @Threads(4)
+  public boolean map_4Threads() {
+    return map();
+  }
+}
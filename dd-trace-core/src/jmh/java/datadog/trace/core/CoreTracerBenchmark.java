@@ -0,0 +1,112 @@
+package datadog.trace.core;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.common.writer.BlackholeWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Span lifecycle through the tracer: building and starting spans, adding them to their {@link
+ * PendingTrace} when they finish, and handing completed traces to the writer.
+ *
+ * <p>The multi-threaded variants share a single tracer to expose contention in the tracer and the
+ * pending trace bookkeeping.
+ */
+@State(Scope.Benchmark)
+public class CoreTracerBenchmark {
+
+  private static final String SPAN_NAME = "span-benchmark";
+  private static final int CHILD_SPANS = 10;
+
+  CoreTracer tracer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    tracer = CoreTracer.builder().writer(new BlackholeWriter()).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracer.close();
+  }
+
+  @Benchmark
+  public AgentSpan buildSpan() {
+    return tracer.buildSpan(SPAN_NAME).ignoreActiveSpan().start();
+  }
+
+  @Benchmark
+  public AgentSpan startAndFinishSpan() {
+    final AgentSpan span = tracer.buildSpan(SPAN_NAME).ignoreActiveSpan().start();
+    span.finish();
+    return span;
+  }
+
+  @Benchmark
+  public AgentSpan startAndFinishSpanWithTags() {
+    final AgentSpan span =
+        tracer
+            .buildSpan(SPAN_NAME)
+            .ignoreActiveSpan()
+            .withServiceName("benchmark-service")
+            .withResourceName("GET /benchmark")
+            .withSpanType("web")
+            .withTag("http.method", "GET")
+            .withTag("http.status_code", 200)
+            .withTag("http.url", "http://localhost:8080/benchmark")
+            .start();
+    span.finish();
+    return span;
+  }
+
+  @Benchmark
+  public AgentSpan traceWithChildren() {
+    final AgentSpan root = tracer.buildSpan(SPAN_NAME).ignoreActiveSpan().start();
+    for (int i = 0; i < CHILD_SPANS; ++i) {
+      tracer.buildSpan(SPAN_NAME).asChildOf(root).start().finish();
+    }
+    root.finish();
+    return root;
+  }
+
+  @Benchmark
+  @Threads(4)
+  public AgentSpan startAndFinishSpan_4Threads() {
+    return startAndFinishSpan();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public AgentSpan traceWithChildren_4Threads() {
+    return traceWithChildren();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public AgentSpan sharedTraceWithChildren_4Threads(final SharedTrace trace) {
+    // every thread adds spans to the same pending trace
+    final AgentSpan span = tracer.buildSpan(SPAN_NAME).asChildOf(trace.root).start();
+    span.finish();
+    return span;
+  }
+
+  @State(Scope.Benchmark)
+  public static class SharedTrace {
+    AgentSpan root;
+
+    @Setup(Level.Iteration)
+    public void start(final CoreTracerBenchmark benchmark) {
+      root = benchmark.tracer.buildSpan(SPAN_NAME).ignoreActiveSpan().start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void finish() {
+      root.finish();
+    }
+  }
+}
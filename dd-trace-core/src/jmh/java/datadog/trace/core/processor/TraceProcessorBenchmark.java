@@ -0,0 +1,69 @@
+package datadog.trace.core.processor;
+
+import datadog.trace.api.DDTags;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.common.writer.BlackholeWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Applies the default {@link TraceProcessor} rules to a completed trace.
+ *
+ * <p>The rules rewrite the tags of the spans they process, so a fresh trace is built before each
+ * invocation. Processing a trace takes a few microseconds at least, which keeps the timing overhead
+ * of the per-invocation setup acceptable.
+ */
+@State(Scope.Thread)
+public class TraceProcessorBenchmark {
+
+  @Param({"1", "10", "100"})
+  int spanCount;
+
+  CoreTracer tracer;
+  BlackholeWriter writer;
+  TraceProcessor processor;
+  List<DDSpan> trace;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    writer = new BlackholeWriter();
+    tracer = CoreTracer.builder().writer(writer).build();
+    processor = new TraceProcessor();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracer.close();
+  }
+
+  @Setup(Level.Invocation)
+  public void buildTrace() {
+    final AgentSpan root = tracer.buildSpan("servlet.request").ignoreActiveSpan().start();
+    root.setTag("span.kind", "server");
+    root.setTag("http.url", "http://localhost:8080/users/1234/orders/5678?page=2");
+    root.setTag("http.method", "GET");
+    root.setTag("http.status_code", 500);
+    for (int i = 1; i < spanCount; ++i) {
+      final AgentSpan span = tracer.buildSpan("database.query").asChildOf(root).start();
+      span.setTag("db.statement", "SELECT * FROM orders WHERE id = ?");
+      span.setTag(DDTags.SPAN_TYPE, "sql");
+      span.setTag(DDTags.ANALYTICS_SAMPLE_RATE, 1.0);
+      span.finish();
+    }
+    root.finish();
+    trace = writer.lastTrace;
+  }
+
+  @Benchmark
+  public List<DDSpan> onTraceComplete() {
+    return processor.onTraceComplete(trace);
+  }
+}
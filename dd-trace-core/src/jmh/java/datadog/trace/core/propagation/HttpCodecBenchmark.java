@@ -0,0 +1,125 @@
+package datadog.trace.core.propagation;
+
+import datadog.trace.api.PropagationStyle;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.common.writer.BlackholeWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.DDSpanContext;
+import java.util.Collections;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Injection and extraction of the headers of each propagation style, for a context without baggage
+ * and a request carrying a few unrelated headers besides the propagation ones.
+ *
+ * <p>The carriers are plain arrays so allocations (gc.alloc.rate.norm) only come from the codecs.
+ */
+@State(Scope.Benchmark)
+public class HttpCodecBenchmark {
+
+  private static final String[][] REQUEST_HEADERS = {
+    {"Host", "localhost:8080"},
+    {"User-Agent", "Mozilla/5.0 (X11; Linux x86_64; rv:80.0) Gecko/20100101 Firefox/80.0"},
+    {"Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"},
+    {"Accept-Language", "en-US,en;q=0.5"},
+    {"Connection", "keep-alive"},
+  };
+
+  @Param({"DATADOG", "B3", "HAYSTACK"})
+  PropagationStyle style;
+
+  CoreTracer tracer;
+  DDSpan span;
+  HttpCodec.Injector injector;
+  HttpCodec.Extractor extractor;
+  ArrayCarrier injected;
+  String[] request;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    tracer = CoreTracer.builder().writer(new BlackholeWriter()).build();
+    span = (DDSpan) tracer.buildSpan("benchmark").ignoreActiveSpan().start();
+    final Map<String, String> taggedHeaders = Collections.emptyMap();
+    switch (style) {
+      case B3:
+        injector = new B3HttpCodec.Injector();
+        extractor = B3HttpCodec.newExtractor(taggedHeaders);
+        break;
+      case HAYSTACK:
+        injector = new HaystackHttpCodec.Injector();
+        extractor = HaystackHttpCodec.newExtractor(taggedHeaders);
+        break;
+      default:
+        injector = new DatadogHttpCodec.Injector();
+        extractor = DatadogHttpCodec.newExtractor(taggedHeaders);
+    }
+    injected = new ArrayCarrier(16);
+    injector.inject(span.context(), injected, ArrayCarrier.SETTER);
+    // an incoming request carries the headers injected by an upstream service
+    request = new String[REQUEST_HEADERS.length * 2 + injected.size];
+    for (int i = 0; i < REQUEST_HEADERS.length; ++i) {
+      request[i * 2] = REQUEST_HEADERS[i][0];
+      request[i * 2 + 1] = REQUEST_HEADERS[i][1];
+    }
+    System.arraycopy(injected.headers, 0, request, REQUEST_HEADERS.length * 2, injected.size);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    span.finish();
+    tracer.close();
+  }
+
+  @Benchmark
+  public ArrayCarrier inject() {
+    final DDSpanContext context = span.context();
+    injected.size = 0;
+    injector.inject(context, injected, ArrayCarrier.SETTER);
+    return injected;
+  }
+
+  @Benchmark
+  public TagContext extract() {
+    return extractor.extract(request, ArrayVisitor.INSTANCE);
+  }
+
+  static final class ArrayCarrier {
+    static final AgentPropagation.Setter<ArrayCarrier> SETTER =
+        new AgentPropagation.Setter<ArrayCarrier>() {
+          @Override
+          public void set(final ArrayCarrier carrier, final String key, final String value) {
+            carrier.headers[carrier.size++] = key;
+            carrier.headers[carrier.size++] = value;
+          }
+        };
+
+    final String[] headers;
+    int size;
+
+    ArrayCarrier(final int capacity) {
+      this.headers = new String[capacity * 2];
+    }
+  }
+
+  static final class ArrayVisitor implements AgentPropagation.ContextVisitor<String[]> {
+    static final ArrayVisitor INSTANCE = new ArrayVisitor();
+
+    @Override
+    public void forEachKey(
+        final String[] carrier, final AgentPropagation.KeyClassifier classifier) {
+      for (int i = 0; i < carrier.length; i += 2) {
+        if (!classifier.accept(carrier[i], carrier[i + 1])) {
+          return;
+        }
+      }
+    }
+  }
+}
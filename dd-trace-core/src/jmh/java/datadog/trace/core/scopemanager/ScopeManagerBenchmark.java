@@ -0,0 +1,109 @@
+package datadog.trace.core.scopemanager;
+
+import datadog.trace.api.config.TracerConfig;
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.ScopeSource;
+import datadog.trace.common.writer.BlackholeWriter;
+import datadog.trace.context.TraceScope;
+import datadog.trace.core.CoreTracer;
+import java.util.Properties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/** Scope activation and continuations in the {@link ContinuableScopeManager}. */
+@State(Scope.Benchmark)
+public class ScopeManagerBenchmark {
+
+  private static final int NESTED_SCOPES = 5;
+
+  @Param({"false", "true"})
+  boolean pooling;
+
+  CoreTracer tracer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Properties properties = new Properties();
+    properties.setProperty(TracerConfig.SCOPE_POOLING_ENABLED, String.valueOf(pooling));
+    tracer =
+        CoreTracer.builder().withProperties(properties).writer(new BlackholeWriter()).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracer.close();
+  }
+
+  @Benchmark
+  public AgentScope activateAndClose(final Spans spans) {
+    final AgentScope scope = tracer.activateSpan(spans.root, ScopeSource.INSTRUMENTATION);
+    scope.close();
+    return scope;
+  }
+
+  @Benchmark
+  public AgentScope activateAndCloseNested(final Spans spans) {
+    final AgentScope[] scopes = spans.scopes;
+    for (int i = 0; i < NESTED_SCOPES; ++i) {
+      scopes[i] = tracer.activateSpan(spans.children[i], ScopeSource.INSTRUMENTATION);
+    }
+    for (int i = NESTED_SCOPES - 1; i >= 0; --i) {
+      scopes[i].close();
+    }
+    return scopes[0];
+  }
+
+  @Benchmark
+  public TraceScope captureAndActivateContinuation(final Spans spans) {
+    final AgentScope scope = tracer.activateSpan(spans.root, ScopeSource.INSTRUMENTATION);
+    scope.setAsyncPropagation(true);
+    final TraceScope.Continuation continuation = scope.capture();
+    scope.close();
+    final TraceScope continued = continuation.activate();
+    continued.close();
+    return continued;
+  }
+
+  @Benchmark
+  @Threads(4)
+  public AgentScope activateAndClose_4Threads(final Spans spans) {
+    return activateAndClose(spans);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public TraceScope captureAndActivateContinuation_4Threads(final Spans spans) {
+    return captureAndActivateContinuation(spans);
+  }
+
+  /** Spans are reused across invocations, each thread activates its own. */
+  @State(Scope.Thread)
+  public static class Spans {
+    AgentSpan root;
+    final AgentSpan[] children = new AgentSpan[NESTED_SCOPES];
+    final AgentScope[] scopes = new AgentScope[NESTED_SCOPES];
+
+    @Setup(Level.Trial)
+    public void start(final ScopeManagerBenchmark benchmark) {
+      root = benchmark.tracer.buildSpan("root").ignoreActiveSpan().start();
+      for (int i = 0; i < NESTED_SCOPES; ++i) {
+        children[i] = benchmark.tracer.buildSpan("child").asChildOf(root).start();
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void finish() {
+      for (final AgentSpan child : children) {
+        child.finish();
+      }
+      root.finish();
+    }
+  }
+}
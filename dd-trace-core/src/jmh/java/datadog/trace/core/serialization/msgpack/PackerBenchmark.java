@@ -0,0 +1,83 @@
+package datadog.trace.core.serialization.msgpack;
+
+import static datadog.trace.core.serialization.msgpack.EncodingCachingStrategies.CONSTANT_TAGS;
+import static datadog.trace.core.serialization.msgpack.EncodingCachingStrategies.NO_CACHING;
+
+import java.nio.ByteBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** String encoding in the {@link Packer}, with and without the constant encoding cache. */
+@State(Scope.Thread)
+public class PackerBenchmark {
+
+  @Param({"ascii", "ascii-long", "latin", "cjk", "constant"})
+  String kind;
+
+  @Param({"heap", "direct"})
+  String bufferType;
+
+  String value;
+  Packer packer;
+
+  private final Mapper<String> uncached =
+      new Mapper<String>() {
+        @Override
+        public void map(final String data, final Writable packer) {
+          packer.writeString(data, NO_CACHING);
+        }
+      };
+
+  private final Mapper<String> cached =
+      new Mapper<String>() {
+        @Override
+        public void map(final String data, final Writable packer) {
+          packer.writeString(data, CONSTANT_TAGS);
+        }
+      };
+
+  @Setup(Level.Trial)
+  public void setup() {
+    switch (kind) {
+      case "ascii":
+        value = "servlet.request";
+        break;
+      case "ascii-long":
+        value = "SELECT id, name, email, created_at FROM users WHERE id = ? AND deleted = false";
+        break;
+      case "latin":
+        value = "requ\u00EAte \u00FCber fa\u00E7ade";
+        break;
+      case "cjk":
+        value = "\u30C7\u30FC\u30BF\u30D9\u30FC\u30B9";
+        break;
+      default:
+        value = "http.status_code";
+    }
+    final ByteBuffer buffer =
+        "direct".equals(bufferType)
+            ? ByteBuffer.allocateDirect(1 << 20)
+            : ByteBuffer.allocate(1 << 20);
+    packer =
+        new Packer(
+            new ByteBufferConsumer() {
+              @Override
+              public void accept(final int messageCount, final ByteBuffer buffer) {}
+            },
+            buffer);
+  }
+
+  @Benchmark
+  public boolean writeString() {
+    return packer.format(value, uncached);
+  }
+
+  @Benchmark
+  public boolean writeStringWithCache() {
+    return packer.format(value, cached);
+  }
+}
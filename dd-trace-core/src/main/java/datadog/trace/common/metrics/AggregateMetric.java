@@ -0,0 +1,62 @@
+package datadog.trace.common.metrics;
+
+/** Hits, errors and latencies of the spans sharing a {@link MetricKey}. Not thread-safe. */
+public final class AggregateMetric {
+  private final Histogram okLatencies = new Histogram();
+  private final Histogram errorLatencies = new Histogram();
+  private int hitCount;
+  private int errorCount;
+  private int topLevelCount;
+  private long duration;
+
+  public AggregateMetric recordDuration(
+      final long durationNanos, final boolean error, final boolean topLevel) {
+    ++hitCount;
+    if (topLevel) {
+      ++topLevelCount;
+    }
+    duration += durationNanos;
+    if (error) {
+      ++errorCount;
+      errorLatencies.accept(durationNanos);
+    } else {
+      okLatencies.accept(durationNanos);
+    }
+    return this;
+  }
+
+  public AggregateMetric merge(final AggregateMetric other) {
+    hitCount += other.hitCount;
+    errorCount += other.errorCount;
+    topLevelCount += other.topLevelCount;
+    duration += other.duration;
+    okLatencies.merge(other.okLatencies);
+    errorLatencies.merge(other.errorLatencies);
+    return this;
+  }
+
+  public int getHitCount() {
+    return hitCount;
+  }
+
+  public int getErrorCount() {
+    return errorCount;
+  }
+
+  public int getTopLevelCount() {
+    return topLevelCount;
+  }
+
+  /** @return the total duration of the spans in nanoseconds */
+  public long getDuration() {
+    return duration;
+  }
+
+  public Histogram getOkLatencies() {
+    return okLatencies;
+  }
+
+  public Histogram getErrorLatencies() {
+    return errorLatencies;
+  }
+}
@@ -0,0 +1,197 @@
+package datadog.trace.common.metrics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of span durations in nanoseconds, with a relative error of at most {@value
+ * #RELATIVE_ACCURACY} on the quantiles.
+ *
+ * <p>Durations are counted in logarithmically sized bins: the bin of a duration {@code d} has the
+ * index {@code floor(log(d) / log(gamma))}. Two sketches are merged by adding the counts of their
+ * bins, so sketches recorded by different threads or over different intervals can be combined
+ * without losing accuracy. Durations below a nanosecond are counted separately as zeros. Since
+ * durations are positive longs, there are at most a couple thousand bins.
+ *
+ * <p>The sketch is serialized in the protobuf format of a DDSketch with a logarithmic mapping,
+ * which is what the agent expects in stats payloads.
+ */
+public final class Histogram {
+  static final double RELATIVE_ACCURACY = 0.01;
+
+  private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+  private static final double MULTIPLIER = 1 / Math.log(GAMMA);
+  private static final int INITIAL_BINS = 32;
+
+  /** counts of the bins from {@code minIndex} to {@code maxIndex}, offset by {@code offset} */
+  private long[] counts = new long[0];
+
+  private int offset;
+  private int minIndex = Integer.MAX_VALUE;
+  private int maxIndex = Integer.MIN_VALUE;
+  private long zeroCount;
+  private long count;
+
+  public void accept(final long durationNanos) {
+    ++count;
+    if (durationNanos < 1) {
+      ++zeroCount;
+      return;
+    }
+    final int index = index(durationNanos);
+    ensureCapacity(index, index);
+    ++counts[index - offset];
+  }
+
+  public void merge(final Histogram other) {
+    if (other.count == 0) {
+      return;
+    }
+    count += other.count;
+    zeroCount += other.zeroCount;
+    if (other.minIndex <= other.maxIndex) {
+      ensureCapacity(other.minIndex, other.maxIndex);
+      for (int i = other.minIndex; i <= other.maxIndex; ++i) {
+        counts[i - offset] += other.counts[i - other.offset];
+      }
+    }
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /** @return the duration at the quantile, within the relative accuracy of the sketch */
+  public double valueAtQuantile(final double quantile) {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    final long rank = (long) (quantile * (count - 1));
+    long seen = zeroCount;
+    if (rank < seen) {
+      return 0;
+    }
+    for (int i = minIndex; i <= maxIndex; ++i) {
+      seen += counts[i - offset];
+      if (rank < seen) {
+        return value(i);
+      }
+    }
+    return value(maxIndex);
+  }
+
+  public void clear() {
+    if (minIndex <= maxIndex) {
+      Arrays.fill(counts, minIndex - offset, maxIndex - offset + 1, 0);
+    }
+    minIndex = Integer.MAX_VALUE;
+    maxIndex = Integer.MIN_VALUE;
+    zeroCount = 0;
+    count = 0;
+  }
+
+  /**
+   * Serializes the sketch as a DDSketch protobuf message, with a single contiguous store of the
+   * non empty range of bins.
+   */
+  public byte[] serialize() {
+    final int bins = Math.max(0, maxIndex - minIndex + 1);
+    final int countsLength = bins * 8;
+    final int storeLength =
+        bins == 0
+            ? 0
+            : 1
+                + varIntLength(countsLength)
+                + countsLength
+                + 1
+                + varIntLength(zigZag(minIndex));
+    // the mapping only has gamma, the index offset is 0 and there is no interpolation
+    final int mappingLength = 1 + 8;
+    final int length =
+        1
+            + varIntLength(mappingLength)
+            + mappingLength
+            + (bins == 0 ? 0 : 1 + varIntLength(storeLength) + storeLength)
+            + (zeroCount == 0 ? 0 : 1 + 8);
+    final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    // DDSketch.mapping = 1
+    buffer.put((byte) 0x0A);
+    putVarInt(buffer, mappingLength);
+    // IndexMapping.gamma = 1
+    buffer.put((byte) 0x09);
+    buffer.putDouble(GAMMA);
+    if (bins > 0) {
+      // DDSketch.positiveValues = 2
+      buffer.put((byte) 0x12);
+      putVarInt(buffer, storeLength);
+      // Store.contiguousBinCounts = 2, packed
+      buffer.put((byte) 0x12);
+      putVarInt(buffer, countsLength);
+      for (int i = minIndex; i <= maxIndex; ++i) {
+        buffer.putDouble(counts[i - offset]);
+      }
+      // Store.contiguousBinIndexOffset = 3
+      buffer.put((byte) 0x18);
+      putVarInt(buffer, zigZag(minIndex));
+    }
+    if (zeroCount > 0) {
+      // DDSketch.zeroCount = 4
+      buffer.put((byte) 0x21);
+      buffer.putDouble(zeroCount);
+    }
+    return buffer.array();
+  }
+
+  static int index(final long value) {
+    return (int) Math.floor(Math.log(value) * MULTIPLIER);
+  }
+
+  /** @return the value of the bin, at equal relative distance from both its bounds */
+  static double value(final int index) {
+    return Math.pow(GAMMA, index) * (1 + RELATIVE_ACCURACY);
+  }
+
+  private void ensureCapacity(final int newMinIndex, final int newMaxIndex) {
+    final int min = Math.min(minIndex, newMinIndex);
+    final int max = Math.max(maxIndex, newMaxIndex);
+    if (min < offset || max - offset >= counts.length) {
+      final long[] resized = new long[Math.max(INITIAL_BINS, 2 * (max - min + 1))];
+      // leave some room on both sides, so the range can move a bit without copying
+      final int newOffset = min - (resized.length - (max - min + 1)) / 2;
+      if (minIndex <= maxIndex) {
+        System.arraycopy(
+            counts, minIndex - offset, resized, minIndex - newOffset, maxIndex - minIndex + 1);
+      }
+      counts = resized;
+      offset = newOffset;
+    }
+    minIndex = min;
+    maxIndex = max;
+  }
+
+  private static int zigZag(final int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int varIntLength(int value) {
+    int length = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      ++length;
+    }
+    return length;
+  }
+
+  private static void putVarInt(final ByteBuffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+}
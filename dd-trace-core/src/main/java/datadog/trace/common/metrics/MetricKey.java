@@ -0,0 +1,86 @@
+package datadog.trace.common.metrics;
+
+/** The dimensions span stats are aggregated by. */
+public final class MetricKey {
+  private final String service;
+  private final String operationName;
+  private final String resource;
+  private final String type;
+  private final int httpStatusCode;
+  private final int hash;
+
+  public MetricKey(
+      final String service,
+      final String operationName,
+      final String resource,
+      final String type,
+      final int httpStatusCode) {
+    this.service = null == service ? "" : service;
+    this.operationName = null == operationName ? "" : operationName;
+    this.resource = null == resource ? "" : resource;
+    this.type = null == type ? "" : type;
+    this.httpStatusCode = httpStatusCode;
+    int hash = this.service.hashCode();
+    hash = 31 * hash + this.operationName.hashCode();
+    hash = 31 * hash + this.resource.hashCode();
+    hash = 31 * hash + this.type.hashCode();
+    this.hash = 31 * hash + httpStatusCode;
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  public String getOperationName() {
+    return operationName;
+  }
+
+  public String getResource() {
+    return resource;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public int getHttpStatusCode() {
+    return httpStatusCode;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof MetricKey)) {
+      return false;
+    }
+    final MetricKey that = (MetricKey) o;
+    return hash == that.hash
+        && httpStatusCode == that.httpStatusCode
+        && resource.equals(that.resource)
+        && operationName.equals(that.operationName)
+        && service.equals(that.service)
+        && type.equals(that.type);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "MetricKey{service="
+        + service
+        + ", operationName="
+        + operationName
+        + ", resource="
+        + resource
+        + ", type="
+        + type
+        + ", httpStatusCode="
+        + httpStatusCode
+        + '}';
+  }
+}
@@ -0,0 +1,286 @@
+package datadog.trace.common.metrics;
+
+import static datadog.trace.core.serialization.msgpack.EncodingCachingStrategies.NO_CACHING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.api.DDId;
+import datadog.trace.api.sampling.PrioritySampling;
+import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
+import datadog.trace.bootstrap.instrumentation.api.Tags;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.DDTraceCoreInfo;
+import datadog.trace.core.serialization.msgpack.ByteBufferConsumer;
+import datadog.trace.core.serialization.msgpack.Mapper;
+import datadog.trace.core.serialization.msgpack.Packer;
+import datadog.trace.core.serialization.msgpack.Writable;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aggregates stats of completed traces, so the agent does not need to see every trace to report
+ * accurate hits, errors and latencies.
+ *
+ * <p>Top level spans (spans without a parent in the trace, or with a parent from another service)
+ * and measured spans are aggregated by {@link MetricKey}. Aggregates are kept for {@value
+ * #BUCKET_DURATION_SECONDS} seconds, or until there are {@value #MAX_AGGREGATES} of them, and then
+ * flushed to the {@link MetricsSink} as a single msgpack stats payload.
+ *
+ * <p>Since the stats of a trace are accounted for once it has been aggregated, traces dropped by
+ * priority sampling do not need to be sent to the agent anymore, unless they have errors.
+ *
+ * <p>Not thread-safe: each serializer thread owns its own aggregator, the agent merges the payloads
+ * covering the same period.
+ */
+@Slf4j
+public final class MetricsAggregator implements Mapper<Map<MetricKey, AggregateMetric>> {
+  static final int BUCKET_DURATION_SECONDS = 10;
+  static final int MAX_AGGREGATES = 2048;
+
+  private static final int INITIAL_BUFFER_SIZE = 16 << 10;
+  private static final int MAX_BUFFER_SIZE = 16 << 20;
+
+  private static final byte[] HOSTNAME = "Hostname".getBytes(UTF_8);
+  private static final byte[] ENV = "Env".getBytes(UTF_8);
+  private static final byte[] VERSION = "Version".getBytes(UTF_8);
+  private static final byte[] LANG = "Lang".getBytes(UTF_8);
+  private static final byte[] TRACER_VERSION = "TracerVersion".getBytes(UTF_8);
+  private static final byte[] RUNTIME_ID = "RuntimeID".getBytes(UTF_8);
+  private static final byte[] STATS = "Stats".getBytes(UTF_8);
+  private static final byte[] START = "Start".getBytes(UTF_8);
+  private static final byte[] DURATION = "Duration".getBytes(UTF_8);
+  private static final byte[] SERVICE = "Service".getBytes(UTF_8);
+  private static final byte[] NAME = "Name".getBytes(UTF_8);
+  private static final byte[] RESOURCE = "Resource".getBytes(UTF_8);
+  private static final byte[] HTTP_STATUS_CODE = "HTTPStatusCode".getBytes(UTF_8);
+  private static final byte[] TYPE = "Type".getBytes(UTF_8);
+  private static final byte[] HITS = "Hits".getBytes(UTF_8);
+  private static final byte[] ERRORS = "Errors".getBytes(UTF_8);
+  private static final byte[] TOP_LEVEL_HITS = "TopLevelHits".getBytes(UTF_8);
+  private static final byte[] OK_SUMMARY = "OkSummary".getBytes(UTF_8);
+  private static final byte[] ERROR_SUMMARY = "ErrorSummary".getBytes(UTF_8);
+
+  private final MetricsSink sink;
+  private final String env;
+  private final String version;
+  private final String runtimeId;
+  private final long bucketDurationNanos;
+
+  private Map<MetricKey, AggregateMetric> aggregates = new HashMap<>();
+  /** services of the spans of the trace being aggregated, to find the top level spans */
+  private final Map<DDId, String> services = new HashMap<>();
+
+  private long bucketStartMillis;
+  private long bucketStartNanos;
+  private int bufferSize = INITIAL_BUFFER_SIZE;
+
+  public MetricsAggregator(
+      final MetricsSink sink, final String env, final String version, final String runtimeId) {
+    this(sink, env, version, runtimeId, SECONDS.toNanos(BUCKET_DURATION_SECONDS));
+  }
+
+  MetricsAggregator(
+      final MetricsSink sink,
+      final String env,
+      final String version,
+      final String runtimeId,
+      final long bucketDurationNanos) {
+    this.sink = sink;
+    this.env = null == env ? "" : env;
+    this.version = null == version ? "" : version;
+    this.runtimeId = null == runtimeId ? "" : runtimeId;
+    this.bucketDurationNanos = bucketDurationNanos;
+    startBucket();
+  }
+
+  /**
+   * Aggregates the stats of the trace.
+   *
+   * @return whether the trace still needs to be sent to the agent
+   */
+  public boolean publish(final List<DDSpan> trace) {
+    if (trace.isEmpty()) {
+      return false;
+    }
+    boolean error = false;
+    if (trace.size() > 1) {
+      for (final DDSpan span : trace) {
+        services.put(span.getSpanId(), span.getServiceName());
+      }
+    }
+    for (final DDSpan span : trace) {
+      error |= span.getError() != 0;
+      final boolean topLevel = isTopLevel(span);
+      if (topLevel || isMeasured(span)) {
+        aggregate(span, topLevel);
+      }
+    }
+    services.clear();
+    final int samplingPriority = trace.get(0).context().getSamplingPriority();
+    return error
+        || samplingPriority == PrioritySampling.UNSET
+        || samplingPriority > PrioritySampling.SAMPLER_DROP;
+  }
+
+  /** Flushes the aggregates once the current bucket is over. */
+  public void flushIfDue() {
+    if (System.nanoTime() - bucketStartNanos >= bucketDurationNanos) {
+      flush();
+    }
+  }
+
+  public void flush() {
+    if (!aggregates.isEmpty()) {
+      final Map<MetricKey, AggregateMetric> flushed = aggregates;
+      aggregates = new HashMap<>();
+      write(flushed);
+    }
+    startBucket();
+  }
+
+  int aggregateCount() {
+    return aggregates.size();
+  }
+
+  private void aggregate(final DDSpan span, final boolean topLevel) {
+    final MetricKey key =
+        new MetricKey(
+            span.getServiceName(),
+            String.valueOf(span.getOperationName()),
+            String.valueOf(span.getResourceName()),
+            span.getType(),
+            httpStatusCode(span));
+    AggregateMetric aggregate = aggregates.get(key);
+    if (null == aggregate) {
+      if (aggregates.size() >= MAX_AGGREGATES) {
+        // report early rather than let a high cardinality of keys grow the aggregates
+        flush();
+      }
+      aggregate = new AggregateMetric();
+      aggregates.put(key, aggregate);
+    }
+    aggregate.recordDuration(span.getDurationNano(), span.getError() != 0, topLevel);
+  }
+
+  private boolean isTopLevel(final DDSpan span) {
+    final DDId parentId = span.getParentId();
+    if (DDId.ZERO.equals(parentId)) {
+      return true;
+    }
+    final String parentService = services.get(parentId);
+    if (null == parentService) {
+      // the parent is remote, or was reported in an earlier part of a partially flushed trace
+      return span.getLocalRootSpan() == span;
+    }
+    return !parentService.equals(span.getServiceName());
+  }
+
+  private static boolean isMeasured(final DDSpan span) {
+    final Number measured = span.getMetrics().get(InstrumentationTags.DD_MEASURED);
+    return null != measured && measured.intValue() != 0;
+  }
+
+  private static int httpStatusCode(final DDSpan span) {
+    final Object status = span.getTag(Tags.HTTP_STATUS);
+    if (status instanceof Number) {
+      return ((Number) status).intValue();
+    }
+    if (null != status) {
+      try {
+        return Integer.parseInt(status.toString());
+      } catch (final NumberFormatException ignored) {
+      }
+    }
+    return 0;
+  }
+
+  private void startBucket() {
+    bucketStartMillis = System.currentTimeMillis();
+    bucketStartNanos = System.nanoTime();
+  }
+
+  private void write(final Map<MetricKey, AggregateMetric> flushed) {
+    final PayloadConsumer consumer = new PayloadConsumer();
+    while (bufferSize <= MAX_BUFFER_SIZE) {
+      final Packer packer = new Packer(consumer, ByteBuffer.allocate(bufferSize), true);
+      if (packer.format(flushed, this)) {
+        packer.flush();
+        sink.accept(consumer.payload);
+        return;
+      }
+      bufferSize <<= 1;
+    }
+    bufferSize = INITIAL_BUFFER_SIZE;
+    log.debug("Dropping stats of {} aggregates which do not fit in a payload", flushed.size());
+  }
+
+  @Override
+  public void map(final Map<MetricKey, AggregateMetric> flushed, final Writable writable) {
+    writable.startMap(7);
+    writable.writeUTF8(HOSTNAME);
+    writable.writeString("", NO_CACHING);
+    writable.writeUTF8(ENV);
+    writable.writeString(env, NO_CACHING);
+    writable.writeUTF8(VERSION);
+    writable.writeString(version, NO_CACHING);
+    writable.writeUTF8(LANG);
+    writable.writeString("java", NO_CACHING);
+    writable.writeUTF8(TRACER_VERSION);
+    writable.writeString(DDTraceCoreInfo.VERSION, NO_CACHING);
+    writable.writeUTF8(RUNTIME_ID);
+    writable.writeString(runtimeId, NO_CACHING);
+    writable.writeUTF8(STATS);
+    writable.startArray(1);
+    writable.startMap(3);
+    writable.writeUTF8(START);
+    writable.writeLong(MILLISECONDS.toNanos(bucketStartMillis));
+    writable.writeUTF8(DURATION);
+    writable.writeLong(System.nanoTime() - bucketStartNanos);
+    writable.writeUTF8(STATS);
+    writable.startArray(flushed.size());
+    for (final Map.Entry<MetricKey, AggregateMetric> entry : flushed.entrySet()) {
+      final MetricKey key = entry.getKey();
+      final AggregateMetric aggregate = entry.getValue();
+      writable.startMap(11);
+      writable.writeUTF8(SERVICE);
+      writable.writeString(key.getService(), NO_CACHING);
+      writable.writeUTF8(NAME);
+      writable.writeString(key.getOperationName(), NO_CACHING);
+      writable.writeUTF8(RESOURCE);
+      writable.writeString(key.getResource(), NO_CACHING);
+      writable.writeUTF8(HTTP_STATUS_CODE);
+      writable.writeInt(key.getHttpStatusCode());
+      writable.writeUTF8(TYPE);
+      writable.writeString(key.getType(), NO_CACHING);
+      writable.writeUTF8(HITS);
+      writable.writeInt(aggregate.getHitCount());
+      writable.writeUTF8(ERRORS);
+      writable.writeInt(aggregate.getErrorCount());
+      writable.writeUTF8(TOP_LEVEL_HITS);
+      writable.writeInt(aggregate.getTopLevelCount());
+      writable.writeUTF8(DURATION);
+      writable.writeLong(aggregate.getDuration());
+      writable.writeUTF8(OK_SUMMARY);
+      final byte[] okSummary = aggregate.getOkLatencies().serialize();
+      writable.writeBinary(okSummary, 0, okSummary.length);
+      writable.writeUTF8(ERROR_SUMMARY);
+      final byte[] errorSummary = aggregate.getErrorLatencies().serialize();
+      writable.writeBinary(errorSummary, 0, errorSummary.length);
+    }
+  }
+
+  private static final class PayloadConsumer implements ByteBufferConsumer {
+    private ByteBuffer payload;
+
+    @Override
+    public void accept(final int messageCount, final ByteBuffer buffer) {
+      // the packer wraps its messages in an array, the payload is the only message
+      buffer.position(buffer.position() + 1);
+      this.payload = buffer.slice();
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package datadog.trace.common.metrics;
+
+import java.nio.ByteBuffer;
+
+/** Receives the serialized stats payloads flushed by a {@link MetricsAggregator}. */
+public interface MetricsSink {
+  void accept(ByteBuffer payload);
+}
@@ -1,11 +1,9 @@
 package datadog.trace.common.sampling;
 
-import static java.util.Collections.singletonMap;
-import static java.util.Collections.unmodifiableMap;
-
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.writer.ddagent.DDAgentResponseListener;
 import datadog.trace.core.DDSpan;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +11,9 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * A rate sampler which maintains different sample rates per service+env name.
  *
- * <p>The configuration of (serviceName,env)->rate is configured by the core agent.
+ * <p>The configuration of (serviceName,env)->rate is configured by the core agent. The agent keys
+ * its rates by {@code "service:<name>,env:<env>"}, these keys are split up front into a service to
+ * env to sampler lookup, so sampling a span does not need to build the key.
  */
 @Slf4j
 public class RateByServiceSampler implements Sampler, PrioritySampler, DDAgentResponseListener {
@@ -22,10 +22,15 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, DDAgentRe
   /** Key for setting the default/baseline rate */
   private static final String DEFAULT_KEY = "service:,env:";
 
+  private static final String SERVICE_PREFIX = "service:";
+  private static final String ENV_SEPARATOR = ",env:";
+
   private static final double DEFAULT_RATE = 1.0;
 
-  private volatile Map<String, RateSampler> serviceRates =
-      unmodifiableMap(singletonMap(DEFAULT_KEY, createRateSampler(DEFAULT_RATE)));
+  private volatile RateSamplersByEnvAndService serviceRates =
+      new RateSamplersByEnvAndService(
+          Collections.<String, Map<String, RateSampler>>emptyMap(),
+          createRateSampler(DEFAULT_RATE));
 
   @Override
   public boolean sample(final DDSpan span) {
@@ -37,15 +42,7 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, DDAgentRe
   /** If span is a root span, set the span context samplingPriority to keep or drop */
   @Override
   public void setSamplingPriority(final DDSpan span) {
-    final String serviceName = span.getServiceName();
-    final String env = getSpanEnv(span);
-    final String key = "service:" + serviceName + ",env:" + env;
-
-    final Map<String, RateSampler> rates = serviceRates;
-    RateSampler sampler = serviceRates.get(key);
-    if (sampler == null) {
-      sampler = rates.get(DEFAULT_KEY);
-    }
+    final RateSampler sampler = serviceRates.getSampler(span.getServiceName(), getSpanEnv(span));
 
     final boolean priorityWasSet;
 
@@ -63,7 +60,9 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, DDAgentRe
   }
 
   private static String getSpanEnv(final DDSpan span) {
-    return null == span.getTags().get("env") ? "" : String.valueOf(span.getTags().get("env"));
+    // read the single tag rather than copying all the tags
+    final Object env = span.getTag("env");
+    return null == env ? "" : String.valueOf(env);
   }
 
   @Override
@@ -72,17 +71,36 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, DDAgentRe
     final Map<String, Number> newServiceRates = responseJson.get("rate_by_service");
     if (null != newServiceRates) {
       log.debug("Update service sampler rates: {} -> {}", endpoint, responseJson);
-      final Map<String, RateSampler> updatedServiceRates = new HashMap<>();
+      final Map<String, Map<String, RateSampler>> updatedServiceRates = new HashMap<>();
+      RateSampler defaultSampler = null;
       for (final Map.Entry<String, Number> entry : newServiceRates.entrySet()) {
-        if (entry.getValue() != null) {
-          updatedServiceRates.put(
-              entry.getKey(), createRateSampler(entry.getValue().doubleValue()));
+        if (entry.getValue() == null) {
+          continue;
+        }
+        final String key = entry.getKey();
+        final int envIndex = key.indexOf(ENV_SEPARATOR);
+        if (!key.startsWith(SERVICE_PREFIX) || envIndex < SERVICE_PREFIX.length()) {
+          log.debug("Ignoring unexpected service rate key: {}", key);
+          continue;
         }
+        final RateSampler sampler = createRateSampler(entry.getValue().doubleValue());
+        if (DEFAULT_KEY.equals(key)) {
+          defaultSampler = sampler;
+          continue;
+        }
+        final String service = key.substring(SERVICE_PREFIX.length(), envIndex);
+        final String env = key.substring(envIndex + ENV_SEPARATOR.length());
+        Map<String, RateSampler> envRates = updatedServiceRates.get(service);
+        if (null == envRates) {
+          envRates = new HashMap<>();
+          updatedServiceRates.put(service, envRates);
+        }
+        envRates.put(env, sampler);
       }
-      if (!updatedServiceRates.containsKey(DEFAULT_KEY)) {
-        updatedServiceRates.put(DEFAULT_KEY, createRateSampler(DEFAULT_RATE));
+      if (null == defaultSampler) {
+        defaultSampler = createRateSampler(DEFAULT_RATE);
       }
-      serviceRates = unmodifiableMap(updatedServiceRates);
+      serviceRates = new RateSamplersByEnvAndService(updatedServiceRates, defaultSampler);
     }
   }
 
@@ -99,4 +117,28 @@ public class RateByServiceSampler implements Sampler, PrioritySampler, DDAgentRe
 
     return new DeterministicSampler(sanitizedRate);
   }
+
+  /** Immutable service -> env -> sampler lookup, replaced whenever the agent sends new rates. */
+  static final class RateSamplersByEnvAndService {
+    private final Map<String, Map<String, RateSampler>> serviceRates;
+    private final RateSampler defaultSampler;
+
+    RateSamplersByEnvAndService(
+        final Map<String, Map<String, RateSampler>> serviceRates,
+        final RateSampler defaultSampler) {
+      this.serviceRates = serviceRates;
+      this.defaultSampler = defaultSampler;
+    }
+
+    RateSampler getSampler(final String service, final String env) {
+      final Map<String, RateSampler> envRates = serviceRates.get(service);
+      if (null != envRates) {
+        final RateSampler sampler = envRates.get(env);
+        if (null != sampler) {
+          return sampler;
+        }
+      }
+      return defaultSampler;
+    }
+  }
 }
@@ -1,11 +1,11 @@
 package datadog.trace.common.sampling;
 
-import com.google.common.util.concurrent.RateLimiter;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.sampling.SamplingRule.AlwaysMatchesSamplingRule;
 import datadog.trace.common.sampling.SamplingRule.OperationSamplingRule;
 import datadog.trace.common.sampling.SamplingRule.ServiceSamplingRule;
 import datadog.trace.core.DDSpan;
+import datadog.trace.core.monitor.Monitor;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -16,8 +16,9 @@ import lombok.extern.slf4j.Slf4j;
 public class RuleBasedSampler implements Sampler, PrioritySampler {
   private final List<SamplingRule> samplingRules;
   private final PrioritySampler fallbackSampler;
-  private final RateLimiter rateLimiter;
+  private final TokenBucketRateLimiter rateLimiter;
   private final double rateLimit;
+  private volatile Monitor monitor;
 
   public static final String SAMPLING_RULE_RATE = "_dd.rule_psr";
   public static final String SAMPLING_LIMIT_RATE = "_dd.limit_psr";
@@ -28,7 +29,16 @@ public class RuleBasedSampler implements Sampler, PrioritySampler {
       final PrioritySampler fallbackSampler) {
     this.samplingRules = samplingRules;
     this.fallbackSampler = fallbackSampler;
-    rateLimiter = RateLimiter.create(rateLimit);
+    rateLimiter =
+        new TokenBucketRateLimiter(rateLimit) {
+          @Override
+          void onEffectiveRate(final double effectiveRate) {
+            final Monitor monitor = RuleBasedSampler.this.monitor;
+            if (null != monitor) {
+              monitor.onRateLimit(effectiveRate);
+            }
+          }
+        };
     this.rateLimit = rateLimit;
   }
 
@@ -75,6 +85,14 @@ public class RuleBasedSampler implements Sampler, PrioritySampler {
     return new RuleBasedSampler(samplingRules, rateLimit, new RateByServiceSampler());
   }
 
+  /**
+   * Reports the fraction of the traces sampled by the rules which were let through by the rate
+   * limiter, once per second.
+   */
+  public void setMonitor(final Monitor monitor) {
+    this.monitor = monitor;
+  }
+
   @Override
   public boolean sample(final DDSpan span) {
     return true;
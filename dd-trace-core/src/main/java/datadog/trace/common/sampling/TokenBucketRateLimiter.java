@@ -0,0 +1,114 @@
+package datadog.trace.common.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free rate limiter, a token bucket holding at most one second worth of permits.
+ *
+ * <p>The bucket is tracked as the time at which it will be full again (the theoretical arrival time
+ * of the generic cell rate algorithm), so acquiring a permit is a single compare-and-set and
+ * rejecting one is a single read. Like Guava's bursty {@code RateLimiter} the bucket starts empty,
+ * apart from the first permit, and refills at the configured rate.
+ *
+ * <p>The limiter also tracks the fraction of requests it let through, see {@link
+ * #getEffectiveRate()}. Requests are counted in cells picked by thread, so concurrent rejections do
+ * not write to a shared counter. Permits are counted in a single counter, which like the bucket is
+ * written at most at the configured rate.
+ */
+class TokenBucketRateLimiter {
+
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+  /** cells are 128 bytes apart so that threads counting in different cells share no cache line */
+  private static final int CELL_SPACING = 16;
+
+  /** time needed to earn a permit */
+  private final long intervalNanos;
+  /** how far ahead of now the bucket may be emptied, one second worth of permits */
+  private final long toleranceNanos;
+
+  private final AtomicLong fullAt;
+
+  private final AtomicLong windowStart;
+  private final AtomicLong allowed = new AtomicLong();
+  private final AtomicLongArray requested;
+  private final int cellMask;
+  private volatile double effectiveRate = 1.0;
+
+  TokenBucketRateLimiter(final double permitsPerSecond) {
+    if (permitsPerSecond > 0) {
+      this.intervalNanos = Math.max(1, (long) (WINDOW_NANOS / permitsPerSecond));
+      this.toleranceNanos = Math.max(0, WINDOW_NANOS - intervalNanos);
+    } else {
+      this.intervalNanos = -1;
+      this.toleranceNanos = 0;
+    }
+    final long now = nanoTime();
+    // start with an empty bucket, the first permit can be acquired right away
+    this.fullAt = new AtomicLong(now + toleranceNanos);
+    this.windowStart = new AtomicLong(now);
+    final int cells = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+    this.requested = new AtomicLongArray(cells * CELL_SPACING);
+    this.cellMask = cells - 1;
+  }
+
+  boolean tryAcquire() {
+    final long now = nanoTime();
+    final boolean acquired = intervalNanos > 0 && acquire(now);
+    record(now, acquired);
+    return acquired;
+  }
+
+  /**
+   * @return the fraction of the requests which were let through during the last full second, or
+   *     1.0 before the first second has elapsed
+   */
+  double getEffectiveRate() {
+    roll(nanoTime());
+    return effectiveRate;
+  }
+
+  long nanoTime() {
+    return System.nanoTime();
+  }
+
+  /** Called by the first request after each second, with the effective rate of that second. */
+  void onEffectiveRate(final double effectiveRate) {}
+
+  private boolean acquire(final long now) {
+    while (true) {
+      final long current = fullAt.get();
+      if (current - now > toleranceNanos) {
+        return false;
+      }
+      final long next = Math.max(current, now) + intervalNanos;
+      if (fullAt.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+
+  private void record(final long now, final boolean acquired) {
+    roll(now);
+    requested.incrementAndGet((int) (Thread.currentThread().getId() & cellMask) * CELL_SPACING);
+    if (acquired) {
+      allowed.incrementAndGet();
+    }
+  }
+
+  private void roll(final long now) {
+    final long start = windowStart.get();
+    if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+      // requests racing with the roll may be counted in either window
+      long requestedInWindow = 0;
+      for (int i = 0; i < requested.length(); i += CELL_SPACING) {
+        requestedInWindow += requested.getAndSet(i, 0);
+      }
+      final long allowedInWindow = allowed.getAndSet(0);
+      effectiveRate =
+          requestedInWindow == 0 ? 1.0 : Math.min(1.0, (double) allowedInWindow / requestedInWindow);
+      onEffectiveRate(effectiveRate);
+    }
+  }
+}
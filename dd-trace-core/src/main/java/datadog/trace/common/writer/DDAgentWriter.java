@@ -52,6 +52,7 @@ public class DDAgentWriter implements Writer {
     int traceBufferSize = DISRUPTOR_BUFFER_SIZE;
     Monitor monitor = new Monitor(new NoOpStatsDClient());
     int flushFrequencySeconds = 1;
+    int serializerThreads = 1;
   }
 
   @lombok.Builder
@@ -64,7 +65,8 @@ public class DDAgentWriter implements Writer {
       final long timeoutMillis,
       final int traceBufferSize,
       final Monitor monitor,
-      final int flushFrequencySeconds) {
+      final int flushFrequencySeconds,
+      final int serializerThreads) {
     if (agentApi != null) {
       api = agentApi;
     } else {
@@ -74,6 +76,7 @@ public class DDAgentWriter implements Writer {
     traceProcessingDisruptor =
         new TraceProcessingDisruptor(
             traceBufferSize,
+            serializerThreads,
             monitor,
             api,
             flushFrequencySeconds,
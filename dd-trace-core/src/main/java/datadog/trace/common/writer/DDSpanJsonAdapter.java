@@ -5,6 +5,7 @@ import com.squareup.moshi.JsonReader;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
 import datadog.trace.api.DDId;
+import datadog.trace.core.Baggage;
 import datadog.trace.core.DDSpan;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
@@ -72,10 +73,11 @@ class DDSpanJsonAdapter extends JsonAdapter<DDSpan> {
     writer.name("meta");
     writer.beginObject();
     final Map<String, Object> tags = span.getTags();
-    for (final Map.Entry<String, String> entry : span.context().getBaggageItems().entrySet()) {
-      if (!tags.containsKey(entry.getKey())) {
-        writer.name(entry.getKey());
-        writer.value(entry.getValue());
+    final Baggage baggage = span.context().getBaggage();
+    for (int i = 0; i < baggage.size(); ++i) {
+      if (!tags.containsKey(baggage.key(i))) {
+        writer.name(baggage.key(i));
+        writer.value(baggage.value(i));
       }
     }
     for (final Map.Entry<String, Object> entry : tags.entrySet()) {
@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -39,10 +40,13 @@ public class DDAgentApi {
   private static final String DATADOG_META_TRACER_VERSION = "Datadog-Meta-Tracer-Version";
   private static final String DATADOG_CONTAINER_ID = "Datadog-Container-ID";
   private static final String X_DATADOG_TRACE_COUNT = "X-Datadog-Trace-Count";
+  private static final String DATADOG_CLIENT_COMPUTED_STATS = "Datadog-Client-Computed-Stats";
   private static final String V3_ENDPOINT = "v0.3/traces";
   private static final String V4_ENDPOINT = "v0.4/traces";
   private static final String V5_ENDPOINT = "v0.5/traces";
   private static final String[] ENDPOINTS = new String[] {V5_ENDPOINT, V4_ENDPOINT, V3_ENDPOINT};
+  private static final String STATS_ENDPOINT = "v0.6/stats";
+  private static final String INFO_ENDPOINT = "info";
   private static final long NANOSECONDS_BETWEEN_ERROR_LOG = TimeUnit.MINUTES.toNanos(5);
   private static final String WILL_NOT_LOG_FOR_MESSAGE = "(Will not log errors for 5 minutes)";
 
@@ -63,6 +67,10 @@ public class DDAgentApi {
                   Map.class,
                   String.class,
                   Types.newParameterizedType(Map.class, String.class, Double.class)));
+  private static final JsonAdapter<Map<String, Object>> INFO_ADAPTER =
+      new Moshi.Builder()
+          .build()
+          .adapter(Types.newParameterizedType(Map.class, String.class, Object.class));
   private static final MediaType MSGPACK = MediaType.get("application/msgpack");
 
   private static final Map<String, RequestBody> ENDPOINT_SNIFF_REQUESTS;
@@ -81,18 +89,49 @@ public class DDAgentApi {
   private final long timeoutMillis;
   private OkHttpClient httpClient;
   private HttpUrl tracesUrl;
+  private HttpUrl statsUrl;
   private String detectedVersion = null;
   private boolean agentRunning = false;
+  private final boolean statsComputationEnabled;
+  private volatile boolean computeStats = false;
 
   public DDAgentApi(
       final String host,
       final int port,
       final String unixDomainSocketPath,
       final long timeoutMillis) {
+    this(host, port, unixDomainSocketPath, timeoutMillis, false);
+  }
+
+  /**
+   * @param computeStats whether span stats are computed by the tracer and sent to the stats
+   *     endpoint, instead of being computed by the agent from every trace, once the agent is known
+   *     to support the stats endpoint
+   */
+  public DDAgentApi(
+      final String host,
+      final int port,
+      final String unixDomainSocketPath,
+      final long timeoutMillis,
+      final boolean computeStats) {
     this.host = host;
     this.port = port;
     this.unixDomainSocketPath = unixDomainSocketPath;
     this.timeoutMillis = timeoutMillis;
+    this.statsComputationEnabled = computeStats;
+  }
+
+  /** @return whether span stats computation was requested, whether or not the agent supports it */
+  public boolean isStatsComputationEnabled() {
+    return statsComputationEnabled;
+  }
+
+  /**
+   * @return whether the tracer computes span stats, which only starts once the agent listed the
+   *     stats endpoint in its info, and stops if the stats endpoint turns out to be missing anyway
+   */
+  public boolean clientComputesStats() {
+    return computeStats;
   }
 
   public void addResponseListener(final DDAgentResponseListener listener) {
@@ -101,7 +140,8 @@ public class DDAgentApi {
     }
   }
 
-  TraceMapper selectTraceMapper() {
+  // called concurrently by the serializer threads
+  synchronized TraceMapper selectTraceMapper() {
     String endpoint = detectEndpointAndBuildClient();
     if (null == endpoint) {
       return null;
@@ -112,7 +152,7 @@ public class DDAgentApi {
     return new TraceMapperV0_4();
   }
 
-  Response sendSerializedTraces(final Payload payload) {
+  synchronized Response sendSerializedTraces(final Payload payload) {
     final int sizeInBytes = payload.sizeInBytes();
     if (null == httpClient) {
       detectEndpointAndBuildClient();
@@ -125,11 +165,14 @@ public class DDAgentApi {
     }
 
     try {
-      final Request request =
+      final Request.Builder builder =
           prepareRequest(tracesUrl)
-              .addHeader(X_DATADOG_TRACE_COUNT, Integer.toString(payload.representativeCount()))
-              .put(new MsgPackRequestBody(payload))
-              .build();
+              .addHeader(X_DATADOG_TRACE_COUNT, Integer.toString(payload.representativeCount()));
+      if (computeStats) {
+        // the agent must not count the stats of these traces again
+        builder.addHeader(DATADOG_CLIENT_COMPUTED_STATS, "yes");
+      }
+      final Request request = builder.put(new MsgPackRequestBody(payload)).build();
       this.totalTraces += payload.representativeCount();
       this.receivedTraces += payload.traceCount();
       try (final okhttp3.Response response = httpClient.newCall(request).execute()) {
@@ -163,6 +206,31 @@ public class DDAgentApi {
     }
   }
 
+  synchronized Response sendSerializedStats(final ByteBuffer stats) {
+    if (null == httpClient) {
+      detectEndpointAndBuildClient();
+      if (null == httpClient) {
+        return Response.failed(agentRunning ? 404 : 503);
+      }
+    }
+    if (null == statsUrl) {
+      statsUrl = getUrl(host, port, STATS_ENDPOINT);
+    }
+    final Request request = prepareRequest(statsUrl).put(new StatsRequestBody(stats)).build();
+    try (final okhttp3.Response response = httpClient.newCall(request).execute()) {
+      if (response.code() == 404) {
+        // stats would never be reported, let the agent compute them from every trace again
+        log.warn("The datadog agent does not support client computed stats, disabling them");
+        computeStats = false;
+      }
+      return response.code() == 200
+          ? Response.success(response.code())
+          : Response.failed(response.code());
+    } catch (final IOException e) {
+      return Response.failed(e);
+    }
+  }
+
   private void countAndLogSuccessfulSend(
       final int traceCount, final int representativeCount, final int sizeInBytes) {
     // count the successful traces
@@ -364,6 +432,9 @@ public class DDAgentApi {
         if (null != httpClient) {
           detectedVersion = candidate;
           log.debug("connected to agent {}", candidate);
+          if (statsComputationEnabled) {
+            computeStats = agentSupportsStats();
+          }
           return candidate;
         } else {
           log.debug("API {} endpoints not available. Downgrading", candidate);
@@ -381,6 +452,25 @@ public class DDAgentApi {
     return detectedVersion;
   }
 
+  /** @return whether the agent lists the stats endpoint in its info */
+  private boolean agentSupportsStats() {
+    final Request request = prepareRequest(getUrl(host, port, INFO_ENDPOINT)).get().build();
+    try (final okhttp3.Response response = httpClient.newCall(request).execute()) {
+      if (response.code() == 200) {
+        final Map<String, Object> info = INFO_ADAPTER.fromJson(response.body().string());
+        final Object endpoints = null == info ? null : info.get("endpoints");
+        if (endpoints instanceof List && ((List<?>) endpoints).contains("/" + STATS_ENDPOINT)) {
+          log.debug("The datadog agent supports client computed stats");
+          return true;
+        }
+      }
+    } catch (final IOException | RuntimeException e) {
+      log.debug("Unable to read the datadog agent info", e);
+    }
+    log.warn("The datadog agent does not support client computed stats, disabling them");
+    return false;
+  }
+
   private boolean isAgentRunning() {
     try (Socket socket = new Socket()) {
       socket.setSoTimeout(CONNECT_TIMEOUT_MS);
@@ -471,7 +561,38 @@ public class DDAgentApi {
 
     @Override
     public void writeTo(BufferedSink sink) throws IOException {
+      // the payload buffers are copied straight into the sink's segments,
+      // this may be called again if the request is retried
       payload.writeTo(sink);
     }
   }
+
+  private static class StatsRequestBody extends RequestBody {
+
+    private final ByteBuffer stats;
+
+    private StatsRequestBody(final ByteBuffer stats) {
+      this.stats = stats;
+    }
+
+    @Override
+    public MediaType contentType() {
+      return MSGPACK;
+    }
+
+    @Override
+    public long contentLength() {
+      return stats.remaining();
+    }
+
+    @Override
+    public void writeTo(final BufferedSink sink) throws IOException {
+      // does not need an array backed buffer, and leaves the position
+      // untouched in case the request is retried
+      final ByteBuffer buffer = stats.duplicate();
+      while (buffer.hasRemaining()) {
+        sink.write(buffer);
+      }
+    }
+  }
 }
@@ -0,0 +1,68 @@
+package datadog.trace.common.writer.ddagent;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Small pool of direct buffers used to serialize payloads. Serialization buffers are several
+ * megabytes large, so keeping them off heap spares the old generation, and reusing them avoids
+ * allocating direct memory each time a writer or a trace mapper is created.
+ *
+ * <p>Buffers are pooled by capacity, at most {@code maxPooledPerCapacity} buffers of each capacity
+ * are kept, the others are left to the garbage collector.
+ *
+ * <p>The buffers count against {@code -XX:MaxDirectMemorySize}. Each serializer thread uses up to
+ * {@link PayloadDispatcher#BUFFER_COUNT} message buffers (5MB with the v0.4 format, 2MB with v0.5)
+ * and, with v0.5, a 2MB dictionary buffer, so the memory in use grows with the number of
+ * serializer threads. On top of that, up to 8 idle buffers of each capacity stay in the shared
+ * pool, e.g. 16MB of 2MB buffers.
+ */
+final class DirectBufferPool {
+
+  static final DirectBufferPool INSTANCE = new DirectBufferPool(8);
+
+  private final ConcurrentMap<Integer, BlockingQueue<ByteBuffer>> pools =
+      new ConcurrentHashMap<>();
+  private final int maxPooledPerCapacity;
+
+  DirectBufferPool(final int maxPooledPerCapacity) {
+    this.maxPooledPerCapacity = maxPooledPerCapacity;
+  }
+
+  /** @return a cleared direct buffer with the requested capacity */
+  ByteBuffer acquire(final int capacity) {
+    final BlockingQueue<ByteBuffer> pool = pools.get(capacity);
+    if (null != pool) {
+      final ByteBuffer buffer = pool.poll();
+      if (null != buffer) {
+        buffer.clear();
+        return buffer;
+      }
+    }
+    return ByteBuffer.allocateDirect(capacity);
+  }
+
+  /** Hands the buffer back to the pool, it must no longer be used by the caller. */
+  void release(final ByteBuffer buffer) {
+    if (null == buffer || !buffer.isDirect()) {
+      return;
+    }
+    BlockingQueue<ByteBuffer> pool = pools.get(buffer.capacity());
+    if (null == pool) {
+      final BlockingQueue<ByteBuffer> created = new ArrayBlockingQueue<>(maxPooledPerCapacity);
+      pool = pools.putIfAbsent(buffer.capacity(), created);
+      if (null == pool) {
+        pool = created;
+      }
+    }
+    pool.offer(buffer);
+  }
+
+  int pooled(final int capacity) {
+    final BlockingQueue<ByteBuffer> pool = pools.get(capacity);
+    return null == pool ? 0 : pool.size();
+  }
+}
@@ -0,0 +1,79 @@
+package datadog.trace.common.writer.ddagent;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import datadog.trace.core.monitor.Monitor;
+
+/**
+ * Bounded cache of UTF-8 encoded strings. Service names, operation names, resource names and tag
+ * keys repeat from one payload to the next, so keeping their encodings across payloads turns
+ * building the v0.5 dictionary into copying bytes.
+ *
+ * <p>The cache is direct-mapped: each string can only live in the slot its hash maps to, and a
+ * string admitted to an occupied slot evicts the previous one. The dictionary also holds tag
+ * values, many of which are unique (ids, urls), so the caller decides which strings are admitted:
+ * the others are only looked up, and never evict the names the cache is for. Strings whose
+ * encoding could exceed {@code maxEncodedLength} bytes are never cached.
+ *
+ * <p>Not thread-safe, each {@link TraceMapperV0_5} owns its cache.
+ */
+final class EncodedStringCache {
+
+  private final String[] keys;
+  private final byte[][] values;
+
+  private final int mask;
+  private final int maxLength;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  EncodedStringCache(final int capacity, final int maxEncodedLength) {
+    final int slots = Integer.highestOneBit(Math.max(1, capacity));
+    this.keys = new String[slots];
+    this.values = new byte[slots][];
+    this.mask = slots - 1;
+    // a char encodes to at most 3 bytes, surrogate pairs to 4 bytes for 2 chars
+    this.maxLength = maxEncodedLength / 3;
+  }
+
+  /**
+   * @param admit whether the string takes the slot it maps to when it is not cached yet
+   * @return the UTF-8 encoding of the string, or null if the string is not cached and not
+   *     admitted, in which case the caller encodes it
+   */
+  byte[] encode(final String string, final boolean admit) {
+    final int hash = string.hashCode();
+    final int slot = (hash ^ (hash >>> 16)) & mask;
+    final String key = keys[slot];
+    if (key == string || (null != key && key.equals(string))) {
+      ++hits;
+      return values[slot];
+    }
+    ++misses;
+    if (!admit || string.length() > maxLength) {
+      return null;
+    }
+    if (null != key) {
+      ++evictions;
+    }
+    final byte[] utf8 = string.getBytes(UTF_8);
+    keys[slot] = string;
+    values[slot] = utf8;
+    return utf8;
+  }
+
+  boolean isCached(final String string) {
+    final int hash = string.hashCode();
+    return string.equals(keys[(hash ^ (hash >>> 16)) & mask]);
+  }
+
+  /** Reports the lookups since the last report. */
+  void report(final Monitor monitor) {
+    monitor.onEncodingCache(hits, misses, evictions);
+    hits = 0;
+    misses = 0;
+    evictions = 0;
+  }
+}
@@ -37,6 +37,20 @@ public abstract class Payload {
     return null == buffer ? 0 : buffer.limit() - buffer.position();
   }
 
+  /**
+   * Writes the buffers straight to the channel, which is the request's sink: their content is
+   * copied into the sink's segments without an intermediate array. The buffers are duplicated, so
+   * the payload can be written again if the request is retried.
+   */
+  protected static void writeBuffersToChannel(
+      final WritableByteChannel channel, final ByteBuffer... buffers) throws IOException {
+    for (final ByteBuffer buffer : buffers) {
+      if (null != buffer && buffer.hasRemaining()) {
+        writeBufferToChannel(buffer.duplicate(), channel);
+      }
+    }
+  }
+
   protected static void writeBufferToChannel(ByteBuffer buffer, WritableByteChannel channel)
       throws IOException {
     if (null != buffer) {
@@ -4,51 +4,152 @@ import datadog.trace.core.DDSpanData;
 import datadog.trace.core.monitor.Monitor;
 import datadog.trace.core.serialization.msgpack.ByteBufferConsumer;
 import datadog.trace.core.serialization.msgpack.Packer;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Serializes traces into payloads and hands them over to the {@link PayloadSender}.
+ *
+ * <p>Serialization is double-buffered: each dispatcher owns up to {@value #BUFFER_COUNT} buffers,
+ * each with its own {@link TraceMapper}, so traces can be serialized into one buffer while the
+ * payload in the other is being sent. Serialization only waits for the agent once every buffer is
+ * in flight. The buffers are taken from the {@link DirectBufferPool} and handed back to it once the
+ * dispatcher is closed and they are no longer in flight.
+ */
 @Slf4j
 public class PayloadDispatcher implements ByteBufferConsumer {
 
+  static final int BUFFER_COUNT = 2;
+
   private final DDAgentApi api;
+  private final PayloadSender sender;
+  private final Monitor monitor;
+  private final BlockingQueue<SerializationBuffer> freeBuffers =
+      new ArrayBlockingQueue<>(BUFFER_COUNT);
+  private volatile boolean closed;
+  private int allocatedBuffers;
   private int representativeCount;
-  private TraceMapper traceMapper;
+  private SerializationBuffer current;
   private Packer packer;
-  private final Monitor monitor;
 
-  PayloadDispatcher(DDAgentApi api, Monitor monitor) {
+  PayloadDispatcher(DDAgentApi api, PayloadSender sender, Monitor monitor) {
     this.api = api;
+    this.sender = sender;
     this.monitor = monitor;
   }
 
+  /** Hands the current payload over to the sender without waiting for it to be sent. */
   void flush() {
-    if (null != packer) {
+    // the packer still points at the last buffer handed over when there is no current buffer
+    if (null != current) {
       packer.flush();
+      if (null != current) {
+        // there was nothing to send, keep on using the buffer
+        packer.reset();
+      }
+    }
+  }
+
+  /** Hands the current payload over to the sender and waits until all payloads have been sent. */
+  void flushAndWait() throws InterruptedException {
+    flush();
+    final int inFlight = allocatedBuffers - (null == current ? 0 : 1);
+    final List<SerializationBuffer> sent = new ArrayList<>(inFlight);
+    try {
+      for (int i = 0; i < inFlight; ++i) {
+        sent.add(freeBuffers.take());
+      }
+    } finally {
+      freeBuffers.addAll(sent);
     }
   }
 
-  void addTrace(List<? extends DDSpanData> trace) {
-    selectTraceMapper();
-    // the call below is blocking and will trigger IO if a flush is necessary
-    // there are alternative approaches to avoid blocking here, such as
-    // introducing an unbound queue and another thread to do the IO
-    // however, we can't block the application threads from here.
-    if (null != traceMapper) {
-      packer.format(trace, traceMapper);
+  void addTrace(List<? extends DDSpanData> trace) throws InterruptedException {
+    if (null == current) {
+      // this call will wait for the sender if all buffers are in flight
+      current = acquireBuffer();
+    }
+    if (null != current) {
+      if (!packer.format(trace, current.traceMapper)) {
+        if (packer.messageCount() > 0) {
+          packer.flush();
+          current = acquireBuffer();
+        }
+        if (null == current || !packer.format(trace, current.traceMapper)) {
+          discardOversizedTrace();
+        }
+      }
     } else { // if the mapper is null, then there's no agent running, so we should drop
       log.debug("dropping {} traces because no agent was detected", 1);
     }
     ++representativeCount;
   }
 
-  private void selectTraceMapper() {
-    if (null == traceMapper) {
-      this.traceMapper = api.selectTraceMapper();
-      if (null == packer) {
-        this.packer = new Packer(this, ByteBuffer.allocate(traceMapper.messageBufferSize()));
+  /** Counts a trace which does not need to be sent, in the next payload sent to the agent. */
+  void onDroppedTrace() {
+    ++representativeCount;
+  }
+
+  boolean clientComputesStats() {
+    return api.clientComputesStats();
+  }
+
+  private void discardOversizedTrace() {
+    // the trace does not fit in an empty buffer, clear any state it left behind
+    if (null != current) {
+      current.traceMapper.reset();
+      packer.reset();
+    }
+    throw new BufferOverflowException();
+  }
+
+  private SerializationBuffer acquireBuffer() throws InterruptedException {
+    SerializationBuffer buffer = freeBuffers.poll();
+    if (null == buffer) {
+      if (allocatedBuffers < BUFFER_COUNT) {
+        final TraceMapper traceMapper = api.selectTraceMapper();
+        if (null == traceMapper) {
+          return null;
+        }
+        buffer =
+            new SerializationBuffer(
+                traceMapper,
+                DirectBufferPool.INSTANCE.acquire(traceMapper.messageBufferSize()),
+                this);
+        ++allocatedBuffers;
+      } else {
+        buffer = freeBuffers.take();
       }
     }
+    if (null == packer) {
+      this.packer = new Packer(this, buffer.buffer, true);
+    } else {
+      packer.reset(buffer.buffer);
+    }
+    return buffer;
+  }
+
+  /** Releases the buffers which are not in flight, the others are released once they are sent. */
+  void close() {
+    closed = true;
+    if (null != current) {
+      freeBuffers.offer(current);
+      current = null;
+    }
+    releaseFreeBuffers();
+  }
+
+  private void releaseFreeBuffers() {
+    SerializationBuffer buffer;
+    while (null != (buffer = freeBuffers.poll())) {
+      buffer.traceMapper.close();
+      DirectBufferPool.INSTANCE.release(buffer.buffer);
+    }
   }
 
   @Override
@@ -57,30 +158,40 @@ public class PayloadDispatcher implements ByteBufferConsumer {
     // or when the packer is flushed at a heartbeat
     if (messageCount > 0) {
       Payload payload =
-          traceMapper
+          current
+              .traceMapper
               .newPayload()
               .withRepresentativeCount(representativeCount)
               .withBody(messageCount, buffer);
       final int sizeInBytes = payload.sizeInBytes();
       monitor.onSerialize(sizeInBytes);
-      DDAgentApi.Response response = api.sendSerializedTraces(payload);
+      current.traceMapper.report(monitor);
+      sender.send(payload, representativeCount, messageCount, sizeInBytes, current);
+      this.current = null;
+      this.representativeCount = 0;
+    }
+  }
+
+  /** Buffer and trace mapper which are only reused once the payload using them has been sent. */
+  static final class SerializationBuffer {
+    private final TraceMapper traceMapper;
+    private final ByteBuffer buffer;
+    private final PayloadDispatcher owner;
+
+    private SerializationBuffer(
+        final TraceMapper traceMapper, final ByteBuffer buffer, final PayloadDispatcher owner) {
+      this.traceMapper = traceMapper;
+      this.buffer = buffer;
+      this.owner = owner;
+    }
+
+    void release() {
       traceMapper.reset();
-      if (response.success()) {
-        if (log.isDebugEnabled()) {
-          log.debug("Successfully sent {} traces to the API", messageCount);
-        }
-        monitor.onSend(representativeCount, sizeInBytes, response);
-      } else {
-        if (log.isDebugEnabled()) {
-          log.debug(
-              "Failed to send {} traces (representing {}) of size {} bytes to the API",
-              messageCount,
-              representativeCount,
-              sizeInBytes);
-        }
-        monitor.onFailedSend(representativeCount, sizeInBytes, response);
+      owner.freeBuffers.offer(this);
+      if (owner.closed) {
+        // the dispatcher may have been closed while the payload was in flight
+        owner.releaseFreeBuffers();
       }
-      this.representativeCount = 0;
     }
   }
 }
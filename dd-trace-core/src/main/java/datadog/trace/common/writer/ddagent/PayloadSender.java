@@ -0,0 +1,221 @@
+package datadog.trace.common.writer.ddagent;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import datadog.common.exec.DaemonThreadFactory;
+import datadog.trace.common.metrics.MetricsSink;
+import datadog.trace.core.monitor.Monitor;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sender stage of the trace processing pipeline. Payloads serialized by the {@link
+ * PayloadDispatcher}s are queued and sent to the agent asynchronously from a single dedicated
+ * thread, since {@link DDAgentApi} is not thread-safe. The buffers of a payload are handed back to
+ * its dispatcher once the payload has been sent.
+ *
+ * <p>The queue is bounded by the number of buffers owned by the dispatchers, so queueing a payload
+ * never blocks; dispatchers wait for their buffers to be released instead. Stats payloads computed
+ * by the serializers are sent from the same thread. They have their own share of the queue, so
+ * they never take the room of trace payloads, and are dropped when their share is full.
+ */
+@Slf4j
+class PayloadSender implements MetricsSink, AutoCloseable {
+
+  private final DDAgentApi api;
+  private final Monitor monitor;
+  private final BlockingQueue<Request> queue;
+  private final int statsCapacity;
+  private final AtomicInteger queuedStats = new AtomicInteger();
+  private final Thread thread;
+  private volatile boolean closed;
+
+  /**
+   * @param payloadCapacity maximum number of trace payloads waiting to be sent
+   * @param statsCapacity maximum number of stats payloads waiting to be sent
+   */
+  PayloadSender(
+      final DDAgentApi api,
+      final Monitor monitor,
+      final int payloadCapacity,
+      final int statsCapacity) {
+    this.api = api;
+    this.monitor = monitor;
+    this.statsCapacity = statsCapacity;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, payloadCapacity + statsCapacity));
+    this.thread = DaemonThreadFactory.TRACE_WRITER.newThread(new SendingLoop(this));
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /** Queues the payload, the buffer is released once the payload has been sent. */
+  void send(
+      final Payload payload,
+      final int representativeCount,
+      final int traceCount,
+      final int sizeInBytes,
+      final PayloadDispatcher.SerializationBuffer buffer) {
+    final Request request =
+        new Request(payload, representativeCount, traceCount, sizeInBytes, buffer);
+    if (closed || !queue.offer(request)) {
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Dropping {} traces (representing {}) because the sender is not accepting payloads",
+            traceCount,
+            representativeCount);
+      }
+      monitor.onDroppedPayload(representativeCount, traceCount);
+      buffer.release();
+      return;
+    }
+    monitor.onPayloadQueued(queue.size());
+    if (closed) {
+      // the sending thread may have stopped before the payload was queued
+      releaseQueued();
+    }
+  }
+
+  /** Queues the stats payload, unless the share of the queue reserved for stats is full. */
+  @Override
+  public void accept(final ByteBuffer stats) {
+    if (!closed && queuedStats.incrementAndGet() <= statsCapacity) {
+      if (queue.offer(new Request(stats))) {
+        return;
+      }
+    }
+    queuedStats.decrementAndGet();
+    log.debug("Dropping stats payload because the sender is not accepting payloads");
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    thread.interrupt();
+  }
+
+  private void sendQueued() throws InterruptedException {
+    while (!closed) {
+      send(queue.take());
+    }
+  }
+
+  private void send(final Request request) {
+    if (null != request.stats) {
+      queuedStats.decrementAndGet();
+      sendStats(request.stats);
+      return;
+    }
+    final long start = System.nanoTime();
+    DDAgentApi.Response response;
+    try {
+      response = api.sendSerializedTraces(request.payload);
+    } catch (final Throwable e) {
+      response = DDAgentApi.Response.failed(e);
+    }
+    try {
+      monitor.onPayloadSent(NANOSECONDS.toMillis(System.nanoTime() - start));
+      if (response.success()) {
+        if (log.isDebugEnabled()) {
+          log.debug("Successfully sent {} traces to the API", request.traceCount);
+        }
+        monitor.onSend(request.representativeCount, request.sizeInBytes, response);
+      } else {
+        if (log.isDebugEnabled()) {
+          log.debug(
+              "Failed to send {} traces (representing {}) of size {} bytes to the API",
+              request.traceCount,
+              request.representativeCount,
+              request.sizeInBytes);
+        }
+        monitor.onFailedSend(request.representativeCount, request.sizeInBytes, response);
+      }
+    } finally {
+      request.buffer.release();
+    }
+  }
+
+  private void sendStats(final ByteBuffer stats) {
+    DDAgentApi.Response response;
+    try {
+      response = api.sendSerializedStats(stats);
+    } catch (final Throwable e) {
+      response = DDAgentApi.Response.failed(e);
+    }
+    if (!response.success() && log.isDebugEnabled()) {
+      log.debug("Failed to send stats payload of size {} bytes to the API", stats.remaining());
+    }
+  }
+
+  private void releaseQueued() {
+    // these payloads will never be sent, release their buffers so no dispatcher waits for them
+    Request request;
+    while (null != (request = queue.poll())) {
+      if (null != request.buffer) {
+        request.buffer.release();
+      } else {
+        queuedStats.decrementAndGet();
+      }
+    }
+  }
+
+  private static final class Request {
+    private final Payload payload;
+    private final int representativeCount;
+    private final int traceCount;
+    private final int sizeInBytes;
+    private final PayloadDispatcher.SerializationBuffer buffer;
+    private final ByteBuffer stats;
+
+    private Request(final ByteBuffer stats) {
+      this(null, 0, 0, stats.remaining(), null, stats);
+    }
+
+    private Request(
+        final Payload payload,
+        final int representativeCount,
+        final int traceCount,
+        final int sizeInBytes,
+        final PayloadDispatcher.SerializationBuffer buffer) {
+      this(payload, representativeCount, traceCount, sizeInBytes, buffer, null);
+    }
+
+    private Request(
+        final Payload payload,
+        final int representativeCount,
+        final int traceCount,
+        final int sizeInBytes,
+        final PayloadDispatcher.SerializationBuffer buffer,
+        final ByteBuffer stats) {
+      this.payload = payload;
+      this.representativeCount = representativeCount;
+      this.traceCount = traceCount;
+      this.sizeInBytes = sizeInBytes;
+      this.buffer = buffer;
+      this.stats = stats;
+    }
+  }
+
+  private static final class SendingLoop implements Runnable {
+    private final PayloadSender sender;
+
+    private SendingLoop(final PayloadSender sender) {
+      this.sender = sender;
+    }
+
+    @Override
+    public void run() {
+      try {
+        sender.sendQueued();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        sender.releaseQueued();
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package datadog.trace.common.writer.ddagent;
 
 import datadog.trace.core.DDSpanData;
+import datadog.trace.core.monitor.Monitor;
 import datadog.trace.core.serialization.msgpack.Mapper;
 import java.util.List;
 
@@ -11,4 +12,10 @@ public interface TraceMapper extends Mapper<List<? extends DDSpanData>> {
   int messageBufferSize();
 
   void reset();
+
+  /** Reports the mapper's metrics since the last report, called once per payload. */
+  void report(Monitor monitor);
+
+  /** Releases the buffers owned by the mapper, it must not be used afterwards. */
+  void close();
 }
@@ -19,8 +19,10 @@ import static datadog.trace.core.serialization.msgpack.Util.integerToStringBuffe
 import static datadog.trace.core.serialization.msgpack.Util.writeLongAsString;
 
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.core.Baggage;
 import datadog.trace.core.DDSpanData;
 import datadog.trace.core.TagsAndBaggageConsumer;
+import datadog.trace.core.monitor.Monitor;
 import datadog.trace.core.serialization.msgpack.Writable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -77,25 +79,23 @@ public final class TraceMapperV0_4 implements TraceMapper {
       span.processTagsAndBaggage(
           new TagsAndBaggageConsumer() {
             @Override
-            public void accept(Map<String, Object> tags, Map<String, String> baggage) {
+            public void accept(Map<String, Object> tags, Baggage baggage) {
               // since tags can "override" baggage, we need to count the non overlapping ones
               int size = tags.size();
               boolean overlap = false;
-              if (baggage.size() > 0) {
-                for (String key : baggage.keySet()) {
-                  if (!tags.containsKey(key)) {
-                    size++;
-                  } else {
-                    overlap = true;
-                  }
+              for (int i = 0; i < baggage.size(); ++i) {
+                if (!tags.containsKey(baggage.key(i))) {
+                  size++;
+                } else {
+                  overlap = true;
                 }
               }
               writable.startMap(size);
-              for (Map.Entry<String, String> entry : baggage.entrySet()) {
+              for (int i = 0; i < baggage.size(); ++i) {
                 // tags and baggage may intersect, but tags take priority
-                if (!overlap || !tags.containsKey(entry.getKey())) {
-                  writable.writeString(entry.getKey(), CONSTANT_KEYS);
-                  writable.writeObject(entry.getValue(), NO_CACHING);
+                if (!overlap || !tags.containsKey(baggage.key(i))) {
+                  writable.writeString(baggage.key(i), CONSTANT_KEYS);
+                  writable.writeObject(baggage.value(i), NO_CACHING);
                 }
               }
               for (Map.Entry<String, Object> entry : tags.entrySet()) {
@@ -131,6 +131,12 @@ public final class TraceMapperV0_4 implements TraceMapper {
   @Override
   public void reset() {}
 
+  @Override
+  public void report(Monitor monitor) {}
+
+  @Override
+  public void close() {}
+
   private static class PayloadV0_4 extends Payload {
 
     @Override
@@ -140,7 +146,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
 
     @Override
     public void writeTo(WritableByteChannel channel) throws IOException {
-      writeBufferToChannel(body, channel);
+      writeBuffersToChannel(channel, body);
     }
   }
 }
@@ -5,9 +5,11 @@ import static datadog.trace.core.serialization.msgpack.Util.integerToStringBuffe
 import static datadog.trace.core.serialization.msgpack.Util.writeLongAsString;
 
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.core.Baggage;
 import datadog.trace.core.DDSpanData;
 import datadog.trace.core.StringTables;
 import datadog.trace.core.TagsAndBaggageConsumer;
+import datadog.trace.core.monitor.Monitor;
 import datadog.trace.core.serialization.msgpack.ByteBufferConsumer;
 import datadog.trace.core.serialization.msgpack.Mapper;
 import datadog.trace.core.serialization.msgpack.Packer;
@@ -34,9 +36,22 @@ public final class TraceMapperV0_5 implements TraceMapper {
 
   private static final DictionaryFull DICTIONARY_FULL = new DictionaryFull();
 
+  private static final int ENCODING_CACHE_CAPACITY = 1024;
+  private static final int ENCODING_CACHE_MAX_ENCODED_LENGTH = 512;
+
+  // msgpack array header with 2 elements (FIXARRAY | 2)
+  private static final ByteBuffer HEADER =
+      ByteBuffer.allocate(1).put(0, (byte) 0x92).asReadOnlyBuffer();
+
   private final ByteBuffer[] dictionary = new ByteBuffer[1];
+  private final ByteBuffer dictionaryBuffer;
   private final Packer dictionaryWriter;
-  private final DictionaryMapper dictionaryMapper = new DictionaryMapper();
+  // survives reset() so strings seen in previous payloads are not encoded again
+  private final EncodedStringCache encodingCache =
+      new EncodedStringCache(ENCODING_CACHE_CAPACITY, ENCODING_CACHE_MAX_ENCODED_LENGTH);
+  // names and keys are admitted to the encoding cache, tag values are only looked up
+  private final DictionaryMapper nameMapper = new DictionaryMapper(encodingCache, true);
+  private final DictionaryMapper valueMapper = new DictionaryMapper(encodingCache, false);
   private final Map<Object, Integer> encoding = new HashMap<>();
   private int code = 0;
 
@@ -45,6 +60,7 @@ public final class TraceMapperV0_5 implements TraceMapper {
   }
 
   public TraceMapperV0_5(int bufferSize) {
+    this.dictionaryBuffer = DirectBufferPool.INSTANCE.acquire(bufferSize);
     this.dictionaryWriter =
         new Packer(
             new ByteBufferConsumer() {
@@ -53,7 +69,7 @@ public final class TraceMapperV0_5 implements TraceMapper {
                 dictionary[0] = buffer;
               }
             },
-            ByteBuffer.allocate(bufferSize),
+            dictionaryBuffer,
             true);
     reset();
   }
@@ -64,11 +80,11 @@ public final class TraceMapperV0_5 implements TraceMapper {
     for (DDSpanData span : trace) {
       writable.startArray(12);
       /* 1  */
-      writeDictionaryEncoded(writable, span.getServiceName());
+      writeDictionaryEncoded(writable, span.getServiceName(), nameMapper);
       /* 2  */
-      writeDictionaryEncoded(writable, span.getOperationName());
+      writeDictionaryEncoded(writable, span.getOperationName(), nameMapper);
       /* 3  */
-      writeDictionaryEncoded(writable, span.getResourceName());
+      writeDictionaryEncoded(writable, span.getResourceName(), nameMapper);
       /* 4  */
       writable.writeLong(span.getTraceId().toLong());
       /* 5  */
@@ -85,43 +101,44 @@ public final class TraceMapperV0_5 implements TraceMapper {
       span.processTagsAndBaggage(
           new TagsAndBaggageConsumer() {
             @Override
-            public void accept(Map<String, Object> tags, Map<String, String> baggage) {
+            public void accept(Map<String, Object> tags, Baggage baggage) {
               // since tags can "override" baggage, we need to count the non overlapping ones
               int size = tags.size();
               boolean overlap = false;
-              for (String key : baggage.keySet()) {
-                if (!tags.containsKey(key)) {
+              for (int i = 0; i < baggage.size(); ++i) {
+                if (!tags.containsKey(baggage.key(i))) {
                   size++;
                 } else {
                   overlap = true;
                 }
               }
               writable.startMap(size);
-              for (Map.Entry<String, String> entry : baggage.entrySet()) {
+              for (int i = 0; i < baggage.size(); ++i) {
                 // tags and baggage may intersect, but tags take priority
-                if (!overlap || !tags.containsKey(entry.getKey())) {
-                  writeDictionaryEncoded(writable, entry.getKey());
-                  writeDictionaryEncoded(writable, entry.getValue());
+                if (!overlap || !tags.containsKey(baggage.key(i))) {
+                  writeDictionaryEncoded(writable, baggage.key(i), nameMapper);
+                  writeDictionaryEncoded(writable, baggage.value(i), valueMapper);
                 }
               }
               for (Map.Entry<String, Object> entry : tags.entrySet()) {
-                writeDictionaryEncoded(writable, entry.getKey());
-                writeDictionaryEncoded(writable, entry.getValue());
+                writeDictionaryEncoded(writable, entry.getKey(), nameMapper);
+                writeDictionaryEncoded(writable, entry.getValue(), valueMapper);
               }
             }
           });
       /* 11  */
       writable.startMap(span.getMetrics().size());
       for (Map.Entry<String, Number> entry : span.getMetrics().entrySet()) {
-        writeDictionaryEncoded(writable, entry.getKey());
+        writeDictionaryEncoded(writable, entry.getKey(), nameMapper);
         writable.writeObject(entry.getValue(), NO_CACHING);
       }
       /* 12 */
-      writeDictionaryEncoded(writable, span.getType());
+      writeDictionaryEncoded(writable, span.getType(), nameMapper);
     }
   }
 
-  private void writeDictionaryEncoded(Writable writable, Object value) {
+  private void writeDictionaryEncoded(
+      Writable writable, Object value, DictionaryMapper dictionaryMapper) {
     Object target = null == value ? "" : value;
     Integer encoded = encoding.get(target);
     if (null == encoded) {
@@ -170,9 +187,31 @@ public final class TraceMapperV0_5 implements TraceMapper {
     encoding.clear();
   }
 
+  @Override
+  public void close() {
+    reset();
+    DirectBufferPool.INSTANCE.release(dictionaryBuffer);
+  }
+
+  @Override
+  public void report(Monitor monitor) {
+    encodingCache.report(monitor);
+  }
+
+  EncodedStringCache getEncodingCache() {
+    return encodingCache;
+  }
+
   private static class DictionaryMapper implements Mapper<Object> {
 
     private final byte[] numberByteArray = integerToStringBuffer();
+    private final EncodedStringCache encodingCache;
+    private final boolean admit;
+
+    private DictionaryMapper(final EncodedStringCache encodingCache, final boolean admit) {
+      this.encodingCache = encodingCache;
+      this.admit = admit;
+    }
 
     @Override
     public void map(Object data, Writable packer) {
@@ -187,8 +226,11 @@ public final class TraceMapperV0_5 implements TraceMapper {
         if (null == utf8) {
           utf8 = StringTables.getTagBytesUTF8(string);
           if (null == utf8) {
-            packer.writeString(string, NO_CACHING);
-            return;
+            utf8 = encodingCache.encode(string, admit);
+            if (null == utf8) {
+              packer.writeString(string, NO_CACHING);
+              return;
+            }
           }
         }
         packer.writeUTF8(utf8);
@@ -198,8 +240,6 @@ public final class TraceMapperV0_5 implements TraceMapper {
 
   private static class PayloadV0_5 extends Payload {
 
-    // msgpack array header with 2 elements (FIXARRAY | 2)
-    private final ByteBuffer header = ByteBuffer.allocate(1).put(0, (byte) 0x92);
     private final ByteBuffer dictionary;
 
     private PayloadV0_5(ByteBuffer dictionary) {
@@ -208,14 +248,12 @@ public final class TraceMapperV0_5 implements TraceMapper {
 
     @Override
     int sizeInBytes() {
-      return sizeInBytes(header) + sizeInBytes(dictionary) + sizeInBytes(body);
+      return sizeInBytes(HEADER) + sizeInBytes(dictionary) + sizeInBytes(body);
     }
 
     @Override
     public void writeTo(WritableByteChannel channel) throws IOException {
-      writeBufferToChannel(header, channel);
-      writeBufferToChannel(dictionary, channel);
-      writeBufferToChannel(body, channel);
+      writeBuffersToChannel(channel, HEADER, dictionary, body);
     }
   }
 }
@@ -5,14 +5,19 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import datadog.common.exec.CommonTaskExecutor;
 import datadog.common.exec.DaemonThreadFactory;
+import datadog.trace.api.Config;
+import datadog.trace.api.config.GeneralConfig;
+import datadog.trace.common.metrics.MetricsAggregator;
 import datadog.trace.core.DDSpan;
 import datadog.trace.core.monitor.Monitor;
 import datadog.trace.core.processor.TraceProcessor;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -24,6 +29,13 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>publishing to the buffer will not block the calling thread, but instead will return false if
  * the buffer is full. This is to avoid impacting an application thread.
+ *
+ * <p>Traces can be serialized by several threads, each owning its own {@link PayloadDispatcher}
+ * and handling every n-th trace published to the buffer. Serialized payloads are queued and sent
+ * to the agent by a separate {@link PayloadSender} thread.
+ *
+ * <p>When the tracer computes span stats, each serializer also aggregates the stats of its traces
+ * with its own {@link MetricsAggregator}, and only serializes the traces the agent still needs.
  */
 @Slf4j
 public class TraceProcessingDisruptor implements AutoCloseable {
@@ -34,6 +46,8 @@ public class TraceProcessingDisruptor implements AutoCloseable {
   private final DisruptorEvent.HeartbeatTranslator<List<DDSpan>> heartbeatTranslator =
       new DisruptorEvent.HeartbeatTranslator<>();
   private final boolean doHeartbeat;
+  private final int serializerCount;
+  private final PayloadSender payloadSender;
 
   private volatile ScheduledFuture<?> heartbeat;
 
@@ -44,6 +58,17 @@ public class TraceProcessingDisruptor implements AutoCloseable {
       final long flushInterval,
       final TimeUnit timeUnit,
       final boolean heartbeat) {
+    this(disruptorSize, 1, monitor, api, flushInterval, timeUnit, heartbeat);
+  }
+
+  public TraceProcessingDisruptor(
+      final int disruptorSize,
+      final int serializerThreads,
+      final Monitor monitor,
+      final DDAgentApi api,
+      final long flushInterval,
+      final TimeUnit timeUnit,
+      final boolean heartbeat) {
     this.disruptor =
         DisruptorUtils.create(
             new DisruptorEvent.Factory<List<DDSpan>>(),
@@ -53,14 +78,45 @@ public class TraceProcessingDisruptor implements AutoCloseable {
             // using blocking wait strategy because the processor will
             // spend some time doing IO anyway
             new BlockingWaitStrategy());
-    disruptor.handleEventsWith(
-        new TraceSerializingHandler(
-            monitor, flushInterval, timeUnit, new PayloadDispatcher(api, monitor)));
+    this.serializerCount = Math.max(1, serializerThreads);
+    // a payload for each buffer, and a stats payload from each serializer
+    this.payloadSender =
+        new PayloadSender(
+            api, monitor, PayloadDispatcher.BUFFER_COUNT * serializerCount, serializerCount);
+    final TraceSerializingHandler[] serializers = new TraceSerializingHandler[serializerCount];
+    for (int i = 0; i < serializerCount; ++i) {
+      serializers[i] =
+          new TraceSerializingHandler(
+              monitor,
+              flushInterval,
+              timeUnit,
+              new PayloadDispatcher(api, payloadSender, monitor),
+              api.isStatsComputationEnabled() ? createMetricsAggregator(payloadSender) : null,
+              i,
+              serializerCount);
+    }
+    if (serializerCount == 1) {
+      disruptor.handleEventsWith(serializers);
+    } else {
+      // the serializers all look at every event, so events can only be
+      // reset once every serializer has seen them
+      disruptor.handleEventsWith(serializers).then(new EventResetHandler());
+    }
     this.dataTranslator = new DisruptorEvent.DataTranslator<>();
     this.flushTranslator = new DisruptorEvent.FlushTranslator<>();
     this.doHeartbeat = heartbeat;
   }
 
+  private static MetricsAggregator createMetricsAggregator(final PayloadSender payloadSender) {
+    final Config config = Config.get();
+    final Map<String, String> tags = config.getMergedSpanTags();
+    return new MetricsAggregator(
+        payloadSender,
+        tags.get(GeneralConfig.ENV),
+        tags.get(GeneralConfig.VERSION),
+        config.getRuntimeId());
+  }
+
   public void start() {
     if (doHeartbeat) {
       // This provides a steady stream of events to enable flushing with a low throughput.
@@ -68,11 +124,13 @@ public class TraceProcessingDisruptor implements AutoCloseable {
           CommonTaskExecutor.INSTANCE.scheduleAtFixedRate(
               new HeartbeatTask(), this, 1000, 1000, MILLISECONDS, "disruptor heartbeat");
     }
+    payloadSender.start();
     disruptor.start();
   }
 
   public boolean flush(long timeout, TimeUnit timeUnit) {
-    CountDownLatch latch = new CountDownLatch(1);
+    // each serializer flushes its own payload
+    CountDownLatch latch = new CountDownLatch(serializerCount);
     disruptor.publishEvent(flushTranslator, 0, latch);
     try {
       return latch.await(timeout, timeUnit);
@@ -88,6 +146,7 @@ public class TraceProcessingDisruptor implements AutoCloseable {
       heartbeat.cancel(true);
     }
     disruptor.halt();
+    payloadSender.close();
   }
 
   public boolean publish(final List<DDSpan> data, final int representativeCount) {
@@ -110,13 +169,16 @@ public class TraceProcessingDisruptor implements AutoCloseable {
   }
 
   public static class TraceSerializingHandler
-      implements EventHandler<DisruptorEvent<List<DDSpan>>> {
+      implements EventHandler<DisruptorEvent<List<DDSpan>>>, LifecycleAware {
 
     private final TraceProcessor processor = new TraceProcessor();
     private final Monitor monitor;
     private final long flushIntervalMillis;
     private final boolean doTimeFlush;
     private final PayloadDispatcher payloadDispatcher;
+    private final MetricsAggregator metricsAggregator;
+    private final int index;
+    private final int serializerCount;
     private long nextFlushMillis;
 
     public TraceSerializingHandler(
@@ -124,7 +186,28 @@ public class TraceProcessingDisruptor implements AutoCloseable {
         final long flushInterval,
         final TimeUnit timeUnit,
         PayloadDispatcher payloadDispatcher) {
+      this(monitor, flushInterval, timeUnit, payloadDispatcher, null, 0, 1);
+    }
+
+    /**
+     * @param metricsAggregator aggregating the stats of the traces of this serializer, null when
+     *     the stats are computed by the agent
+     * @param index of this serializer, it serializes the traces published with a sequence equal to
+     *     the index modulo the number of serializers
+     * @param serializerCount number of serializers handling events from the same buffer
+     */
+    public TraceSerializingHandler(
+        final Monitor monitor,
+        final long flushInterval,
+        final TimeUnit timeUnit,
+        PayloadDispatcher payloadDispatcher,
+        final MetricsAggregator metricsAggregator,
+        final int index,
+        final int serializerCount) {
       this.monitor = monitor;
+      this.metricsAggregator = metricsAggregator;
+      this.index = index;
+      this.serializerCount = serializerCount;
       this.doTimeFlush = flushInterval > 0;
       this.payloadDispatcher = payloadDispatcher;
       if (doTimeFlush) {
@@ -146,24 +229,50 @@ public class TraceProcessingDisruptor implements AutoCloseable {
           payloadDispatcher.flush();
           scheduleNextTimeFlush();
         }
-        if (event.data != null) {
+        final boolean computeStats =
+            null != metricsAggregator && payloadDispatcher.clientComputesStats();
+        if (computeStats) {
+          metricsAggregator.flushIfDue();
+        }
+        if (event.data != null && sequence % serializerCount == index) {
           // TODO populate `_sample_rate` metric in a way that accounts for lost/dropped traces
-          payloadDispatcher.addTrace(processor.onTraceComplete(event.data));
+          final List<DDSpan> trace = processor.onTraceComplete(event.data);
+          if (!computeStats || metricsAggregator.publish(trace)) {
+            payloadDispatcher.addTrace(trace);
+          } else if (!trace.isEmpty()) {
+            payloadDispatcher.onDroppedTrace();
+          }
         }
         if (null != event.flushLatch) {
-          payloadDispatcher.flush();
+          if (computeStats) {
+            metricsAggregator.flush();
+          }
+          payloadDispatcher.flushAndWait();
           event.flushLatch.countDown();
         }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
       } catch (final Throwable e) {
         if (log.isDebugEnabled()) {
           log.debug("Error while serializing trace", e);
         }
         monitor.onFailedSerialize(event.data, e);
       } finally {
-        event.reset();
+        if (serializerCount == 1) {
+          event.reset();
+        }
       }
     }
 
+    @Override
+    public void onStart() {}
+
+    @Override
+    public void onShutdown() {
+      // called on the serializing thread once the disruptor has been halted
+      payloadDispatcher.close();
+    }
+
     private void scheduleNextTimeFlush() {
       if (doTimeFlush) {
         nextFlushMillis = millisecondTime() + flushIntervalMillis;
@@ -176,6 +285,15 @@ public class TraceProcessingDisruptor implements AutoCloseable {
     }
   }
 
+  private static final class EventResetHandler
+      implements EventHandler<DisruptorEvent<List<DDSpan>>> {
+    @Override
+    public void onEvent(
+        final DisruptorEvent<List<DDSpan>> event, final long sequence, final boolean endOfBatch) {
+      event.reset();
+    }
+  }
+
   // Important to use explicit class to avoid implicit hard references to TraceProcessingDisruptor
   private static final class HeartbeatTask
       implements CommonTaskExecutor.Task<TraceProcessingDisruptor> {
@@ -0,0 +1,151 @@
+package datadog.trace.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable baggage of a span context. Children share the baggage of their parent by reference, and
+ * setting an item creates a new instance, so baggage is only copied when it actually changes.
+ *
+ * <p>Baggage rarely holds more than a few items, so keys and values are stored next to each other
+ * in one flat array which is searched linearly. Items can be iterated by index, without allocating
+ * entries, with {@link #size()}, {@link #key(int)} and {@link #value(int)}.
+ */
+public final class Baggage extends AbstractMap<String, String> {
+  public static final Baggage EMPTY = new Baggage(new String[0]);
+
+  /** key at {@code 2 * index}, value at {@code 2 * index + 1} */
+  private final String[] items;
+
+  private Baggage(final String[] items) {
+    this.items = items;
+  }
+
+  /** @return baggage holding the items of the map, shared as is if already immutable baggage */
+  public static Baggage of(final Map<String, String> items) {
+    if (items instanceof Baggage) {
+      return (Baggage) items;
+    }
+    if (null == items || items.isEmpty()) {
+      return EMPTY;
+    }
+    final String[] copy = new String[items.size() << 1];
+    int index = 0;
+    for (final Map.Entry<String, String> item : items.entrySet()) {
+      if (null == item.getKey() || null == item.getValue()) {
+        throw new NullPointerException();
+      }
+      copy[index++] = item.getKey();
+      copy[index++] = item.getValue();
+    }
+    return new Baggage(copy);
+  }
+
+  /** @return baggage with the item set, this instance if it already holds the same item */
+  public Baggage with(final String key, final String value) {
+    if (null == key || null == value) {
+      throw new NullPointerException();
+    }
+    final int index = indexOf(key);
+    if (index >= 0) {
+      if (value.equals(items[index + 1])) {
+        return this;
+      }
+      final String[] copy = items.clone();
+      copy[index + 1] = value;
+      return new Baggage(copy);
+    }
+    final String[] copy = new String[items.length + 2];
+    System.arraycopy(items, 0, copy, 0, items.length);
+    copy[items.length] = key;
+    copy[items.length + 1] = value;
+    return new Baggage(copy);
+  }
+
+  public String key(final int index) {
+    return items[index << 1];
+  }
+
+  public String value(final int index) {
+    return items[(index << 1) + 1];
+  }
+
+  @Override
+  public int size() {
+    return items.length >> 1;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return items.length == 0;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
+  }
+
+  @Override
+  public String get(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final int index = indexOf((String) key);
+    return index < 0 ? null : items[index + 1];
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return new EntrySet();
+  }
+
+  private int indexOf(final String key) {
+    for (int i = 0; i < items.length; i += 2) {
+      if (key.equals(items[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, String>> {
+    @Override
+    public int size() {
+      return Baggage.this.size();
+    }
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+      return new EntryIterator();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, String>> {
+    private int index;
+
+    @Override
+    public boolean hasNext() {
+      return index < items.length;
+    }
+
+    @Override
+    public Entry<String, String> next() {
+      if (index >= items.length) {
+        throw new NoSuchElementException();
+      }
+      final Entry<String, String> entry =
+          new SimpleImmutableEntry<>(items[index], items[index + 1]);
+      index += 2;
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -19,6 +19,7 @@ import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import datadog.trace.bootstrap.instrumentation.api.ScopeSource;
 import datadog.trace.bootstrap.instrumentation.api.WriterConstants;
 import datadog.trace.common.sampling.PrioritySampler;
+import datadog.trace.common.sampling.RuleBasedSampler;
 import datadog.trace.common.sampling.Sampler;
 import datadog.trace.common.writer.DDAgentWriter;
 import datadog.trace.common.writer.LoggingWriter;
@@ -36,13 +37,13 @@ import datadog.trace.core.propagation.HttpCodec;
 import datadog.trace.core.propagation.TagContext;
 import datadog.trace.core.scopemanager.ContinuableScopeManager;
 import datadog.trace.core.taginterceptor.AbstractTagInterceptor;
+import datadog.trace.core.taginterceptor.TagInterceptors;
 import datadog.trace.core.taginterceptor.TagInterceptorsFactory;
 import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -91,6 +92,12 @@ public class CoreTracer implements AgentTracer.TracerAPI {
 
   /** number of spans in a pending trace before they get flushed */
   @lombok.Getter private final int partialFlushMinSpans;
+  /** collect completed spans in an array-backed buffer instead of a deque */
+  @lombok.Getter private final boolean spanBufferEnabled;
+  /** track spans with weak references to detect spans that are never finished */
+  @lombok.Getter private final boolean spanLeakDetectionEnabled;
+  /** seconds after which a pending trace is written even if it is incomplete, 0 to disable */
+  @lombok.Getter private final int pendingTraceMaxAge;
 
   private final StatsDClient statsDClient;
 
@@ -100,11 +107,12 @@ public class CoreTracer implements AgentTracer.TracerAPI {
    */
   private final Thread shutdownCallback;
 
-  /**
-   * Span tag interceptors. This Map is only ever added to during initialization, so it doesn't need
-   * to be concurrent.
-   */
-  private final Map<String, List<AbstractTagInterceptor>> spanTagInterceptors = new HashMap<>();
+  /** Span tag interceptors. Only replaced during initialization. */
+  private volatile TagInterceptors spanTagInterceptors = TagInterceptors.EMPTY;
+  /** {@link #localRootSpanTags} compiled against the span tag interceptors */
+  private volatile TagTemplate localRootSpanTagTemplate = TagTemplate.EMPTY;
+  /** {@link #defaultSpanTags} compiled against the span tag interceptors */
+  private volatile TagTemplate defaultSpanTagTemplate = TagTemplate.EMPTY;
 
   private final SortedSet<TraceInterceptor> interceptors =
       new ConcurrentSkipListSet<>(
@@ -149,6 +157,9 @@ public class CoreTracer implements AgentTracer.TracerAPI {
       serviceNameMappings(config.getServiceMapping());
       taggedHeaders(config.getHeaderTags());
       partialFlushMinSpans(config.getPartialFlushMinSpans());
+      spanBufferEnabled(config.isSpanBufferEnabled());
+      spanLeakDetectionEnabled(config.isSpanLeakDetectionEnabled());
+      pendingTraceMaxAge(config.getPendingTraceMaxAge());
 
       return this;
     }
@@ -169,6 +180,9 @@ public class CoreTracer implements AgentTracer.TracerAPI {
       final Map<String, String> serviceNameMappings,
       final Map<String, String> taggedHeaders,
       final int partialFlushMinSpans,
+      final boolean spanBufferEnabled,
+      final boolean spanLeakDetectionEnabled,
+      final int pendingTraceMaxAge,
       final StatsDClient statsDClient) {
 
     assert localRootSpanTags != null;
@@ -184,6 +198,9 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     this.defaultSpanTags = defaultSpanTags;
     this.serviceNameMappings = serviceNameMappings;
     this.partialFlushMinSpans = partialFlushMinSpans;
+    this.spanBufferEnabled = spanBufferEnabled;
+    this.spanLeakDetectionEnabled = spanLeakDetectionEnabled;
+    this.pendingTraceMaxAge = pendingTraceMaxAge;
 
     if (statsDClient == null) {
       this.statsDClient = createStatsDClient(config);
@@ -197,7 +214,8 @@ public class CoreTracer implements AgentTracer.TracerAPI {
               config.getScopeDepthLimit(),
               createScopeEventFactory(),
               this.statsDClient,
-              config.isScopeStrictMode());
+              config.isScopeStrictMode(),
+              config.isScopePoolingEnabled());
     } else {
       this.scopeManager = scopeManager;
     }
@@ -222,8 +240,12 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     final List<AbstractTagInterceptor> tagInterceptors =
         TagInterceptorsFactory.createTagInterceptors();
     for (final AbstractTagInterceptor interceptor : tagInterceptors) {
-      addTagInterceptor(interceptor);
+      log.debug(
+          "Decorator added: '{}' -> {}",
+          interceptor.getMatchingTag(),
+          interceptor.getClass().getName());
     }
+    setTagInterceptors(TagInterceptors.of(tagInterceptors));
 
     registerClassLoader(ClassLoader.getSystemClassLoader());
 
@@ -247,11 +269,11 @@ public class CoreTracer implements AgentTracer.TracerAPI {
   }
 
   /**
-   * Returns the list of span tag interceptors
+   * Returns the span tag interceptors of a tag
    *
-   * @return the list of span tag interceptors
+   * @return the span tag interceptors, or null if the tag is not intercepted
    */
-  public List<AbstractTagInterceptor> getSpanTagInterceptors(final String tag) {
+  public AbstractTagInterceptor[] getSpanTagInterceptors(final String tag) {
     return spanTagInterceptors.get(tag);
   }
 
@@ -261,19 +283,20 @@ public class CoreTracer implements AgentTracer.TracerAPI {
    * @param interceptor The interceptor in the list
    */
   private void addTagInterceptor(final AbstractTagInterceptor interceptor) {
-    List<AbstractTagInterceptor> list = spanTagInterceptors.get(interceptor.getMatchingTag());
-    if (list == null) {
-      list = new ArrayList<>();
-    }
-    list.add(interceptor);
-
-    spanTagInterceptors.put(interceptor.getMatchingTag(), list);
+    setTagInterceptors(spanTagInterceptors.with(interceptor));
     log.debug(
         "Decorator added: '{}' -> {}",
         interceptor.getMatchingTag(),
         interceptor.getClass().getName());
   }
 
+  /** Replaces the span tag interceptors, compiling the static tag sets against them again. */
+  private synchronized void setTagInterceptors(final TagInterceptors tagInterceptors) {
+    spanTagInterceptors = tagInterceptors;
+    localRootSpanTagTemplate = TagTemplate.compile(localRootSpanTags, tagInterceptors);
+    defaultSpanTagTemplate = TagTemplate.compile(defaultSpanTags, tagInterceptors);
+  }
+
   /**
    * If an application is using a non-system classloader, that classloader should be registered
    * here. Due to the way Spring Boot structures its' executable jar, this might log some warnings.
@@ -526,14 +549,23 @@ public class CoreTracer implements AgentTracer.TracerAPI {
             config.getAgentHost(),
             config.getAgentPort(),
             unixDomainSocket,
-            TimeUnit.SECONDS.toMillis(config.getAgentTimeout()));
+            TimeUnit.SECONDS.toMillis(config.getAgentTimeout()),
+            config.isTraceStatsComputationEnabled());
 
+    final Monitor monitor = new Monitor(statsDClient);
     final DDAgentWriter ddAgentWriter =
-        DDAgentWriter.builder().agentApi(ddAgentApi).monitor(new Monitor(statsDClient)).build();
+        DDAgentWriter.builder()
+            .agentApi(ddAgentApi)
+            .monitor(monitor)
+            .serializerThreads(config.getTraceSerializerThreads())
+            .build();
 
     if (sampler instanceof DDAgentResponseListener) {
       ddAgentWriter.addResponseListener((DDAgentResponseListener) sampler);
     }
+    if (sampler instanceof RuleBasedSampler) {
+      ((RuleBasedSampler) sampler).setMonitor(monitor);
+    }
 
     return ddAgentWriter;
   }
@@ -697,7 +729,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
       final int samplingPriority;
       final String origin;
       final Map<String, String> coreTags;
-      final Map<String, String> rootSpanTags;
+      final TagTemplate rootSpanTags;
 
       final DDSpanContext context;
 
@@ -724,7 +756,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
         samplingPriority = PrioritySampling.UNSET;
         origin = null;
         coreTags = null;
-        rootSpanTags = null;
+        rootSpanTags = TagTemplate.EMPTY;
         if (serviceName == null) {
           serviceName = ddsc.getServiceName();
         }
@@ -754,7 +786,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
           origin = null;
         }
 
-        rootSpanTags = localRootSpanTags;
+        rootSpanTags = localRootSpanTagTemplate;
 
         parentTrace = PendingTrace.create(CoreTracer.this, traceId);
       }
@@ -765,11 +797,12 @@ public class CoreTracer implements AgentTracer.TracerAPI {
 
       final String operationName = this.operationName != null ? this.operationName : resourceName;
 
+      final TagTemplate defaultTags = defaultSpanTagTemplate;
       int tagsSize =
           (null == tags ? 0 : tags.size())
-              + defaultSpanTags.size()
+              + defaultTags.size()
               + (null == coreTags ? 0 : coreTags.size())
-              + (null == rootSpanTags ? 0 : rootSpanTags.size());
+              + rootSpanTags.size();
       // some attributes are inherited from the parent
       context =
           new DDSpanContext(
@@ -785,6 +818,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
               errorFlag,
               spanType,
               tagsSize,
+              defaultTags,
               parentTrace,
               CoreTracer.this,
               serviceNameMappings);
@@ -792,7 +826,8 @@ public class CoreTracer implements AgentTracer.TracerAPI {
       // By setting the tags on the context we apply decorators to any tags that have been set via
       // the builder. This is the order that the tags were added previously, but maybe the `tags`
       // set in the builder should come last, so that they override other tags.
-      context.setAllTags(defaultSpanTags);
+      // The default tags without decorators were already copied when creating the context.
+      context.setAllTags(defaultTags.getInterceptedTags());
       context.setAllTags(tags);
       context.setAllTags(coreTags);
       context.setAllTags(rootSpanTags);
@@ -9,7 +9,6 @@ import datadog.trace.core.util.Clock;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.ref.WeakReference;
-import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -376,7 +375,8 @@ public class DDSpan implements MutableSpan, AgentSpan, DDSpanData {
 
   @Override
   public Map<String, String> getBaggage() {
-    return Collections.unmodifiableMap(context.getBaggageItems());
+    // baggage is immutable
+    return context.getBaggage();
   }
 
   @Override
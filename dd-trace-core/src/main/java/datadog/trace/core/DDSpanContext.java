@@ -6,13 +6,9 @@ import datadog.trace.api.DDTags;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.core.taginterceptor.AbstractTagInterceptor;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -29,8 +25,6 @@ public class DDSpanContext implements AgentSpan.Context {
   public static final String SAMPLE_RATE_KEY = "_sample_rate";
   public static final String ORIGIN_KEY = "_dd.origin";
 
-  private static final Map<String, Number> EMPTY_METRICS = Collections.emptyMap();
-
   // Shared with other span contexts
   /** For technical reasons, the ref to the original tracer */
   private final CoreTracer tracer;
@@ -38,8 +32,14 @@ public class DDSpanContext implements AgentSpan.Context {
   /** The collection of all span related to this one */
   private final PendingTrace trace;
 
-  /** Baggage is associated with the whole trace and shared with other spans */
-  private final Map<String, String> baggageItems;
+  private static final AtomicReferenceFieldUpdater<DDSpanContext, Baggage> BAGGAGE_ITEMS =
+      AtomicReferenceFieldUpdater.newUpdater(DDSpanContext.class, Baggage.class, "baggageItems");
+
+  /**
+   * Baggage is inherited from the parent span. It is immutable, so it is shared with the parent
+   * until an item is set on either span.
+   */
+  private volatile Baggage baggageItems;
 
   // Not Shared with other span contexts
   private final DDId traceId;
@@ -54,8 +54,11 @@ public class DDSpanContext implements AgentSpan.Context {
    * threads, they will rarely, if ever, be read and modified concurrently by multiple threads but
    * rather read and accessed in a serial fashion on thread after thread. The synchronization can
    * then be wrapped around bulk operations to minimize the costly atomic operations.
+   *
+   * <p>Spans usually carry few tags, so they are kept in a flat open-addressed array instead of a
+   * HashMap to avoid allocating an entry per tag.
    */
-  private final Map<String, Object> unsafeTags;
+  private final SpanTags unsafeTags;
 
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
@@ -76,8 +79,8 @@ public class DDSpanContext implements AgentSpan.Context {
   private boolean samplingPriorityLocked = false;
   /** The origin of the trace. (eg. Synthetics) */
   private final String origin;
-  /** Metrics on the span */
-  private final AtomicReference<Map<String, Number>> metrics = new AtomicReference<>();
+  /** Metrics on the span, the sampling metrics are stored unboxed */
+  private final SpanMetrics metrics = new SpanMetrics();
 
   private final Map<String, String> serviceNameMappings;
 
@@ -99,6 +102,46 @@ public class DDSpanContext implements AgentSpan.Context {
       final PendingTrace trace,
       final CoreTracer tracer,
       final Map<String, String> serviceNameMappings) {
+    this(
+        traceId,
+        spanId,
+        parentId,
+        serviceName,
+        operationName,
+        resourceName,
+        samplingPriority,
+        origin,
+        baggageItems,
+        errorFlag,
+        spanType,
+        tagsSize,
+        null,
+        trace,
+        tracer,
+        serviceNameMappings);
+  }
+
+  /**
+   * @param defaultTags tags set before any other, copied as is. Its intercepted tags still need to
+   *     be set with {@link #setAllTags(Map)}
+   */
+  DDSpanContext(
+      final DDId traceId,
+      final DDId spanId,
+      final DDId parentId,
+      final String serviceName,
+      final String operationName,
+      final CharSequence resourceName,
+      final int samplingPriority,
+      final String origin,
+      final Map<String, String> baggageItems,
+      final boolean errorFlag,
+      final String spanType,
+      final int tagsSize,
+      final TagTemplate defaultTags,
+      final PendingTrace trace,
+      final CoreTracer tracer,
+      final Map<String, String> serviceNameMappings) {
 
     assert tracer != null;
     assert trace != null;
@@ -112,16 +155,12 @@ public class DDSpanContext implements AgentSpan.Context {
     this.spanId = spanId;
     this.parentId = parentId;
 
-    if (baggageItems == null) {
-      this.baggageItems = new ConcurrentHashMap<>(0);
-    } else {
-      this.baggageItems = new ConcurrentHashMap<>(baggageItems);
-    }
+    this.baggageItems = Baggage.of(baggageItems);
 
-    // The +3 is the magic number from the tags below that we set at the end,
-    // and "* 4 / 3" is to make sure that we don't resize immediately
-    int capacity = ((tagsSize <= 0 ? 3 : tagsSize + 3) * 4) / 3;
-    this.unsafeTags = new HashMap<>(capacity);
+    // The +3 is the magic number from the tags below that we set at the end
+    final int expectedTags = (tagsSize <= 0 ? 0 : tagsSize) + 3;
+    this.unsafeTags =
+        null == defaultTags ? new SpanTags(expectedTags) : defaultTags.newSpanTags(expectedTags);
 
     this.serviceNameMappings = serviceNameMappings;
     setServiceName(serviceName);
@@ -231,12 +270,12 @@ public class DDSpanContext implements AgentSpan.Context {
       if (samplingPriorityLocked) {
         log.debug(
             "samplingPriority locked at {}. Refusing to set to {}",
-            getMetrics().get(PRIORITY_SAMPLING_KEY),
+            metrics.getSamplingPriority(PrioritySampling.UNSET),
             newPriority);
         return false;
       } else {
-        setMetric(PRIORITY_SAMPLING_KEY, newPriority);
-        log.debug("Set sampling priority to {}", getMetrics().get(PRIORITY_SAMPLING_KEY));
+        metrics.setSamplingPriority(newPriority);
+        log.debug("Set sampling priority to {}", newPriority);
         return true;
       }
     }
@@ -249,8 +288,7 @@ public class DDSpanContext implements AgentSpan.Context {
       return rootSpan.context().getSamplingPriority();
     }
 
-    final Number val = getMetrics().get(PRIORITY_SAMPLING_KEY);
-    return null == val ? PrioritySampling.UNSET : val.intValue();
+    return metrics.getSamplingPriority(PrioritySampling.UNSET);
   }
 
   /**
@@ -270,12 +308,12 @@ public class DDSpanContext implements AgentSpan.Context {
 
     // sync with setSamplingPriority
     synchronized (this) {
-      if (getMetrics().get(PRIORITY_SAMPLING_KEY) == null) {
+      final int samplingPriority = metrics.getSamplingPriority(PrioritySampling.UNSET);
+      if (samplingPriority == PrioritySampling.UNSET) {
         log.debug("{} : refusing to lock unset samplingPriority", this);
       } else if (!samplingPriorityLocked) {
         samplingPriorityLocked = true;
-        log.debug(
-            "{} : locked samplingPriority to {}", this, getMetrics().get(PRIORITY_SAMPLING_KEY));
+        log.debug("{} : locked samplingPriority to {}", this, samplingPriority);
       }
       return samplingPriorityLocked;
     }
@@ -291,7 +329,10 @@ public class DDSpanContext implements AgentSpan.Context {
   }
 
   public void setBaggageItem(final String key, final String value) {
-    baggageItems.put(key, value);
+    Baggage current;
+    do {
+      current = baggageItems;
+    } while (!BAGGAGE_ITEMS.compareAndSet(this, current, current.with(key, value)));
   }
 
   public String getBaggageItem(final String key) {
@@ -302,6 +343,11 @@ public class DDSpanContext implements AgentSpan.Context {
     return baggageItems;
   }
 
+  /** @return the current baggage, which can be iterated without allocating */
+  public Baggage getBaggage() {
+    return baggageItems;
+  }
+
   @Override
   public Iterable<Map.Entry<String, String>> baggageItems() {
     return baggageItems.entrySet();
@@ -318,20 +364,13 @@ public class DDSpanContext implements AgentSpan.Context {
   }
 
   public Map<String, Number> getMetrics() {
-    final Map<String, Number> metrics = this.metrics.get();
-    return metrics == null ? EMPTY_METRICS : metrics;
+    return metrics;
   }
 
   public void setMetric(final String key, final Number value) {
-    if (metrics.get() == null) {
-      metrics.compareAndSet(null, new ConcurrentHashMap<String, Number>());
-    }
-    if (value instanceof Float) {
-      metrics.get().put(key, value.doubleValue());
-    } else {
-      metrics.get().put(key, value);
-    }
+    metrics.set(key, value);
   }
+
   /**
    * Add a tag to the span. Tags are not propagated to the children
    *
@@ -356,6 +395,19 @@ public class DDSpanContext implements AgentSpan.Context {
     }
   }
 
+  void setAllTags(final TagTemplate template) {
+    if (template.size() == 0) {
+      return;
+    }
+
+    synchronized (unsafeTags) {
+      template.putInto(unsafeTags);
+      for (final Map.Entry<String, Object> tag : template.getInterceptedTags().entrySet()) {
+        unsafeSetTag(tag.getKey(), tag.getValue());
+      }
+    }
+  }
+
   void unsafeSetTag(final String tag, final Object value) {
     if (value == null || (value instanceof String && ((String) value).isEmpty())) {
       unsafeTags.remove(tag);
@@ -365,7 +417,7 @@ public class DDSpanContext implements AgentSpan.Context {
     boolean addTag = true;
 
     // Call interceptors
-    final List<AbstractTagInterceptor> interceptors = tracer.getSpanTagInterceptors(tag);
+    final AbstractTagInterceptor[] interceptors = tracer.getSpanTagInterceptors(tag);
     if (interceptors != null) {
       ExclusiveSpan span = exclusiveSpan;
       for (final AbstractTagInterceptor interceptor : interceptors) {
@@ -28,12 +28,18 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
 
   static PendingTrace create(final CoreTracer tracer, final DDId traceId) {
     final PendingTrace pendingTrace = new PendingTrace(tracer, traceId);
-    pendingTrace.addPendingTrace();
+    if (pendingTrace.alwaysTracked()) {
+      // otherwise the cleaner only needs to know about traces with continuations
+      pendingTrace.addPendingTrace();
+    }
     return pendingTrace;
   }
 
   private static final AtomicReference<SpanCleaner> SPAN_CLEANER = new AtomicReference<>();
 
+  /** Collected spans and continuations of all the traces, drained by the SpanCleaner */
+  private static final ReferenceQueue<Object> REFERENCE_QUEUE = new ReferenceQueue<>();
+
   private final CoreTracer tracer;
   private final DDId traceId;
 
@@ -44,16 +50,26 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
   /** Nano second ticks value at trace start */
   private final long startNanoTicks;
 
-  private final ReferenceQueue spanReferenceQueue = new ReferenceQueue();
   private final Set<WeakReference<DDSpan>> weakSpans =
       Collections.newSetFromMap(new ConcurrentHashMap<WeakReference<DDSpan>, Boolean>());
-  private final ReferenceQueue continuationReferenceQueue = new ReferenceQueue();
   private final Set<WeakReference<AgentScope.Continuation>> weakContinuations =
       Collections.newSetFromMap(
           new ConcurrentHashMap<WeakReference<AgentScope.Continuation>, Boolean>());
 
   private final AtomicInteger pendingReferenceCount = new AtomicInteger(0);
 
+  /**
+   * When set, completed spans are collected here instead of in the deque, so that completing a
+   * span does not allocate a deque node and the writer receives a view over the buffer array.
+   */
+  private final SpanBuffer spanBuffer;
+
+  /**
+   * When false, spans are only counted rather than tracked with weak references, so spans which are
+   * never finished are not detected by the SpanCleaner.
+   */
+  private final boolean trackSpanReferences;
+
   // We must maintain a separate count because ConcurrentLinkedDeque.size() is a linear operation.
   private final AtomicInteger completedSpanCount = new AtomicInteger(0);
 
@@ -79,14 +95,23 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
   /** Ensure a trace is never written multiple times */
   private final AtomicBoolean isWritten = new AtomicBoolean(false);
 
+  /** Position of this trace in the SpanCleaner's timer wheel, guarded by the wheel. */
+  PendingTraceWheel.Entry wheelEntry;
+
   private PendingTrace(final CoreTracer tracer, final DDId traceId) {
     this.tracer = tracer;
     this.traceId = traceId;
+    this.spanBuffer = tracer.isSpanBufferEnabled() ? new SpanBuffer() : null;
+    this.trackSpanReferences = tracer.isSpanLeakDetectionEnabled();
 
     startTimeNano = Clock.currentNanoTime();
     startNanoTicks = Clock.currentNanoTicks();
   }
 
+  DDId getTraceId() {
+    return traceId;
+  }
+
   /**
    * Current timestamp in nanoseconds.
    *
@@ -113,9 +138,16 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
       return;
     }
     rootSpan.compareAndSet(null, new WeakReference<>(span));
+    if (!trackSpanReferences) {
+      final int count = pendingReferenceCount.incrementAndGet();
+      if (log.isDebugEnabled()) {
+        log.debug("t_id={} -> registered span {}. count = {}", traceId, span, count);
+      }
+      return;
+    }
     synchronized (span) {
       if (null == span.ref) {
-        span.ref = new WeakReference<DDSpan>(span, spanReferenceQueue);
+        span.ref = new TraceReference<>(span, this);
         weakSpans.add(span.ref);
         final int count = pendingReferenceCount.incrementAndGet();
         if (log.isDebugEnabled()) {
@@ -137,6 +169,10 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
       log.debug("t_id={} -> span expired for wrong trace {}", traceId, span);
       return;
     }
+    if (!trackSpanReferences) {
+      expireReference();
+      return;
+    }
     synchronized (span) {
       if (null == span.ref) {
         log.debug("t_id={} -> not registered in trace: {}", traceId, span);
@@ -165,7 +201,11 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
     }
 
     if (!isWritten.get()) {
-      addFirst(span);
+      if (null != spanBuffer) {
+        spanBuffer.add(span);
+      } else {
+        addFirst(span);
+      }
     } else {
       log.debug("t_id={} -> finished after trace reported: {}", traceId, span);
     }
@@ -185,8 +225,19 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
   public void registerContinuation(final AgentScope.Continuation continuation) {
     synchronized (continuation) {
       if (!continuation.isRegistered()) {
-        weakContinuations.add(continuation.register(continuationReferenceQueue));
+        final TraceReference<AgentScope.Continuation> reference =
+            new TraceReference<>(continuation, this);
+        continuation.register(reference);
+        weakContinuations.add(reference);
         final int count = pendingReferenceCount.incrementAndGet();
+        if (!trackSpanReferences) {
+          // sync with stopTrackingWithoutContinuations
+          synchronized (this) {
+            if (!isWritten.get()) {
+              addPendingTrace();
+            }
+          }
+        }
         if (log.isDebugEnabled()) {
           log.debug(
               "t_id={} -> registered continuation {} -- count = {}", traceId, continuation, count);
@@ -203,6 +254,7 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
       if (continuation.isRegistered()) {
         continuation.cancel(weakContinuations);
         expireReference();
+        stopTrackingWithoutContinuations();
       } else {
         log.debug("t_id={} -> not registered in trace: {}", traceId, continuation);
       }
@@ -219,16 +271,21 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
           int size = size();
           if (size > tracer.getPartialFlushMinSpans()) {
             final DDSpan rootSpan = getRootSpan();
-            final List<DDSpan> partialTrace = new ArrayList<>(size);
-            final Iterator<DDSpan> it = iterator();
-            while (it.hasNext()) {
-              final DDSpan span = it.next();
-              if (span != rootSpan) {
-                partialTrace.add(span);
-                completedSpanCount.decrementAndGet();
-                // TODO spans are removed here
-                //  but not when the whole trace is written!
-                it.remove();
+            final List<DDSpan> partialTrace;
+            if (null != spanBuffer) {
+              partialTrace = spanBuffer.drainExcept(rootSpan);
+            } else {
+              partialTrace = new ArrayList<>(size);
+              final Iterator<DDSpan> it = iterator();
+              while (it.hasNext()) {
+                final DDSpan span = it.next();
+                if (span != rootSpan) {
+                  partialTrace.add(span);
+                  completedSpanCount.decrementAndGet();
+                  // TODO spans are removed here
+                  //  but not when the whole trace is written!
+                  it.remove();
+                }
               }
             }
             if (log.isDebugEnabled()) {
@@ -252,7 +309,16 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
   private synchronized void write() {
     if (isWritten.compareAndSet(false, true)) {
       removePendingTrace();
-      if (!isEmpty()) {
+      if (null != spanBuffer) {
+        // the buffer is drained so the spans are only referenced by the writer from now on
+        final List<DDSpan> trace = spanBuffer.drain();
+        if (!trace.isEmpty()) {
+          if (log.isDebugEnabled()) {
+            log.debug("Writing {} spans to {}.", trace.size(), tracer.writer);
+          }
+          tracer.write(trace);
+        }
+      } else if (!isEmpty()) {
         int size = size();
         if (log.isDebugEnabled()) {
           log.debug("Writing {} spans to {}.", size, tracer.writer);
@@ -269,38 +335,46 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
     }
   }
 
-  public synchronized boolean clean() {
-    Reference ref;
-    int count = 0;
-    while ((ref = continuationReferenceQueue.poll()) != null) {
-      weakContinuations.remove(ref);
-      count++;
-      expireReference();
-    }
-    if (count > 0) {
-      log.debug("t_id={} -> {} unfinished continuations garbage collected.", traceId, count);
+  /**
+   * Writes the spans completed so far as a partial trace, because the trace has been pending for
+   * longer than the configured maximum age. Spans finishing afterwards are not reported.
+   */
+  void expire() {
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "t_id={} -> pending for longer than {}s. Writing {} completed spans.",
+          traceId,
+          tracer.getPendingTraceMaxAge(),
+          size());
     }
+    write();
+  }
 
-    count = 0;
-    while ((ref = spanReferenceQueue.poll()) != null) {
-      weakSpans.remove(ref);
+  /** Called by the SpanCleaner once a span or continuation of this trace was collected. */
+  private synchronized void referenceCollected(final Reference<?> reference) {
+    if (weakContinuations.remove(reference)) {
+      log.debug("t_id={} -> unfinished continuation garbage collected.", traceId);
+      expireReference();
+      stopTrackingWithoutContinuations();
+    } else if (weakSpans.remove(reference)) {
       if (isWritten.compareAndSet(false, true)) {
         removePendingTrace();
         // preserve throughput count.
         // Don't report the trace because the data comes from buggy uses of the api and is suspect.
         tracer.incrementTraceCount();
       }
-      count++;
-      expireReference();
-    }
-    if (count > 0) {
       // TODO attempt to flatten and report if top level spans are finished. (for accurate metrics)
       log.debug(
-          "t_id={} -> {} unfinished spans garbage collected. Trace will not be reported.",
-          traceId,
-          count);
+          "t_id={} -> unfinished span garbage collected. Trace will not be reported.", traceId);
+      expireReference();
+    }
+  }
+
+  private synchronized void stopTrackingWithoutContinuations() {
+    if (!alwaysTracked() && weakContinuations.isEmpty()) {
+      // nothing left for the cleaner to detect until another continuation is registered
+      removePendingTrace();
     }
-    return count > 0;
   }
 
   @Override
@@ -311,13 +385,25 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
 
   @Override
   public int size() {
-    return completedSpanCount.get();
+    return null != spanBuffer ? spanBuffer.size() : completedSpanCount.get();
+  }
+
+  /**
+   * Whether the SpanCleaner must track this trace even without continuations: to detect spans which
+   * are never finished, or to write the trace once it reaches the maximum age.
+   */
+  private boolean alwaysTracked() {
+    return trackSpanReferences || tracer.getPendingTraceMaxAge() > 0;
   }
 
   private void addPendingTrace() {
     final SpanCleaner cleaner = SPAN_CLEANER.get();
     if (cleaner != null) {
-      cleaner.pendingTraces.add(this);
+      // traces are only visited when they reach their max age, the references collected in the
+      // meantime are drained from the queue
+      final long ticks = SpanCleaner.ticksUntilExpiry(this);
+      cleaner.pendingTraces.add(
+          this, ticks == PendingTraceWheel.NO_DEADLINE ? ticks : Math.max(1, ticks));
     }
   }
 
@@ -342,13 +428,31 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
     }
   }
 
+  /**
+   * Weak reference to a span or a continuation, registered with the queue shared by all the traces.
+   * It leads the SpanCleaner back to its trace once it is collected, without visiting the other
+   * traces.
+   */
+  private static final class TraceReference<T> extends WeakReference<T> {
+    private final PendingTrace trace;
+
+    private TraceReference(final T referent, final PendingTrace trace) {
+      super(referent, REFERENCE_QUEUE);
+      this.trace = trace;
+    }
+  }
+
   // FIXME: it should be possible to simplify this logic and avoid having SpanCleaner and
   // SpanCleanerTask
-  private static class SpanCleaner implements Runnable, Closeable {
+  private static class SpanCleaner implements Runnable, Closeable, PendingTraceWheel.Visitor {
     private static final long CLEAN_FREQUENCY = 1;
 
-    private final Set<PendingTrace> pendingTraces =
-        Collections.newSetFromMap(new ConcurrentHashMap<PendingTrace, Boolean>());
+    /**
+     * Keeps the pending traces, and so their weak references, reachable until they are written.
+     * Only the traces with a max age have a deadline.
+     */
+    private final PendingTraceWheel pendingTraces =
+        new PendingTraceWheel(Runtime.getRuntime().availableProcessors());
 
     public SpanCleaner() {
       CommonTaskExecutor.INSTANCE.scheduleAtFixedRate(
@@ -362,15 +466,53 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> implements Agent
 
     @Override
     public void run() {
-      for (final PendingTrace trace : pendingTraces) {
-        trace.clean();
+      drain();
+      // only visits the traces which reached their max age
+      pendingTraces.advance(this);
+    }
+
+    /** Hands the collected spans and continuations over to their traces. */
+    void drain() {
+      Reference<?> reference;
+      while ((reference = REFERENCE_QUEUE.poll()) != null) {
+        ((TraceReference<?>) reference).trace.referenceCollected(reference);
+      }
+    }
+
+    @Override
+    public long visit(final PendingTrace trace, final int visits) {
+      if (trace.isWritten.get()) {
+        return 0;
+      }
+      final long ticks = ticksUntilExpiry(trace);
+      if (ticks == 0) {
+        trace.expire();
+      }
+      return ticks;
+    }
+
+    /**
+     * @return number of ticks until the trace reaches its max age, zero once it did, or {@link
+     *     PendingTraceWheel#NO_DEADLINE} if it has no max age
+     */
+    static long ticksUntilExpiry(final PendingTrace trace) {
+      final long maxAgeNanos = TimeUnit.SECONDS.toNanos(trace.tracer.getPendingTraceMaxAge());
+      if (maxAgeNanos <= 0) {
+        return PendingTraceWheel.NO_DEADLINE;
+      }
+      final long remainingNanos = maxAgeNanos - (Clock.currentNanoTicks() - trace.startNanoTicks);
+      if (remainingNanos <= 0) {
+        return 0;
       }
+      final long tickNanos = TimeUnit.SECONDS.toNanos(CLEAN_FREQUENCY);
+      return (remainingNanos + tickNanos - 1) / tickNanos;
     }
 
     @Override
     public void close() {
       // Make sure that whatever was left over gets cleaned up
-      run();
+      drain();
+      pendingTraces.visitAll(this);
     }
   }
 
@@ -0,0 +1,288 @@
+package datadog.trace.core;
+
+import datadog.trace.api.DDId;
+
+/**
+ * Hierarchical timer wheel holding the pending traces known to the SpanCleaner. Instead of
+ * visiting every pending trace on each clean cycle, each trace has a deadline (in ticks) and only
+ * traces whose deadline has expired are handed to the {@link Visitor} when the wheel advances.
+ *
+ * <p>The wheel is sharded by trace id so that registering and removing traces from application
+ * threads only contends with traces in the same shard. Each shard has two levels of {@value
+ * #SLOTS} slots: the first level holds traces due within {@value #SLOTS} ticks, the second level
+ * holds traces due later, which are cascaded down to the first level as the wheel advances. Traces
+ * without a deadline are kept aside and only visited by {@link #visitAll}.
+ *
+ * <p>Only a single thread may {@link #advance advance} the wheel.
+ */
+final class PendingTraceWheel {
+
+  interface Visitor {
+    /**
+     * @param trace the trace whose deadline has expired
+     * @param visits number of times this trace has been visited before
+     * @return number of ticks until the trace should be visited again, zero to stop tracking, or
+     *     {@link #NO_DEADLINE} to keep tracking it without visiting it again
+     */
+    long visit(PendingTrace trace, int visits);
+  }
+
+  /** Delay of the traces which are tracked but never expire */
+  static final long NO_DEADLINE = -1;
+
+  private static final int SHIFT = 6;
+  private static final int SLOTS = 1 << SHIFT;
+  private static final int MASK = SLOTS - 1;
+  private static final long MAX_DELAY = (SLOTS * SLOTS) - 1;
+
+  private final Shard[] shards;
+  private final int shardMask;
+
+  /** Written only by the advancing thread, read by threads scheduling traces */
+  private volatile long currentTick;
+
+  PendingTraceWheel(final int shardCount) {
+    final int count = Integer.highestOneBit(Math.max(1, shardCount));
+    this.shards = new Shard[count];
+    for (int i = 0; i < count; ++i) {
+      shards[i] = new Shard();
+    }
+    this.shardMask = count - 1;
+  }
+
+  /** Starts tracking the trace, it will be visited on the next tick. */
+  void add(final PendingTrace trace) {
+    add(trace, 1);
+  }
+
+  /**
+   * Starts tracking the trace, it will be visited once the delay expires.
+   *
+   * @param delay number of ticks until the trace is visited, or {@link #NO_DEADLINE}
+   */
+  void add(final PendingTrace trace, final long delay) {
+    final Shard shard = shardFor(trace);
+    synchronized (shard) {
+      Entry entry = trace.wheelEntry;
+      if (null == entry || entry.wheel != this) {
+        entry = new Entry(this, shard, trace);
+        trace.wheelEntry = entry;
+      } else if (!entry.removed) {
+        return;
+      }
+      entry.removed = false;
+      entry.visits = 0;
+      // an entry re-added while it is being visited must not be rescheduled by the visit
+      ++entry.generation;
+      // advance() publishes the new tick before expiring this shard under its lock, so the tick
+      // read here is never behind a slot which was already expired
+      final long tick = currentTick;
+      shard.schedule(entry, delay, tick);
+    }
+  }
+
+  void remove(final PendingTrace trace) {
+    final Entry entry = trace.wheelEntry;
+    if (null != entry && entry.wheel == this) {
+      synchronized (entry.shard) {
+        entry.removed = true;
+        entry.unlink();
+      }
+    }
+  }
+
+  boolean contains(final PendingTrace trace) {
+    final Entry entry = trace.wheelEntry;
+    return null != entry && entry.wheel == this && !entry.removed;
+  }
+
+  /** Advances the wheel by one tick, visiting all traces whose deadline has expired. */
+  void advance(final Visitor visitor) {
+    final long tick = currentTick + 1;
+    currentTick = tick;
+    for (final Shard shard : shards) {
+      final Entry expired;
+      synchronized (shard) {
+        expired = shard.expire(tick);
+      }
+      visitAll(shard, expired, visitor, tick);
+    }
+  }
+
+  /** Visits every tracked trace regardless of its deadline. */
+  void visitAll(final Visitor visitor) {
+    final long tick = currentTick;
+    for (final Shard shard : shards) {
+      final Entry all;
+      synchronized (shard) {
+        all = shard.drainAll();
+      }
+      visitAll(shard, all, visitor, tick);
+    }
+  }
+
+  private void visitAll(final Shard shard, Entry entry, final Visitor visitor, final long tick) {
+    // visiting a trace may write it, so this is done outside of the shard lock
+    while (null != entry) {
+      final Entry next = entry.nextExpired;
+      entry.nextExpired = null;
+      final boolean removed;
+      final int visits;
+      final int generation;
+      synchronized (shard) {
+        removed = entry.removed;
+        visits = entry.visits++;
+        generation = entry.generation;
+      }
+      long delay = 0;
+      if (!removed) {
+        delay = visitor.visit(entry.trace, visits);
+      }
+      synchronized (shard) {
+        if (entry.removed || entry.generation != generation) {
+          // removed, or removed and added again, while being visited
+        } else if (delay != 0) {
+          shard.schedule(entry, delay, tick);
+        } else {
+          entry.removed = true;
+          entry.unlink();
+        }
+      }
+      entry = next;
+    }
+  }
+
+  private Shard shardFor(final PendingTrace trace) {
+    final DDId traceId = trace.getTraceId();
+    final long id = null == traceId ? 0 : traceId.toLong();
+    return shards[(int) (id ^ (id >>> 32)) & shardMask];
+  }
+
+  /** Intrusive list node, the trace keeps a reference to it to allow constant time removal. */
+  static final class Entry {
+    private final PendingTraceWheel wheel;
+    private final Shard shard;
+    private final PendingTrace trace;
+    private Entry prev;
+    private Entry next;
+    /** Links entries which have been detached from the wheel to be visited */
+    private Entry nextExpired;
+    private long deadline;
+    private int visits;
+    private int generation;
+    private volatile boolean removed;
+
+    private Entry(final PendingTraceWheel wheel, final Shard shard, final PendingTrace trace) {
+      this.wheel = wheel;
+      this.shard = shard;
+      this.trace = trace;
+    }
+
+    /** Sentinel constructor */
+    private Entry() {
+      this.wheel = null;
+      this.shard = null;
+      this.trace = null;
+      this.prev = this;
+      this.next = this;
+    }
+
+    private void linkBefore(final Entry sentinel) {
+      prev = sentinel.prev;
+      next = sentinel;
+      sentinel.prev.next = this;
+      sentinel.prev = this;
+    }
+
+    private void unlink() {
+      if (null != prev) {
+        prev.next = next;
+        next.prev = prev;
+        prev = null;
+        next = null;
+      }
+    }
+  }
+
+  private static final class Shard {
+    private final Entry[] near = sentinels();
+    private final Entry[] far = sentinels();
+    private final Entry parked = new Entry();
+
+    void schedule(final Entry entry, long delay, final long now) {
+      entry.unlink();
+      if (delay == NO_DEADLINE) {
+        entry.linkBefore(parked);
+        return;
+      }
+      if (delay <= 0) {
+        delay = 1;
+      } else if (delay > MAX_DELAY) {
+        delay = MAX_DELAY;
+      }
+      final long deadline = now + delay;
+      entry.deadline = deadline;
+      if (delay < SLOTS) {
+        entry.linkBefore(near[(int) (deadline & MASK)]);
+      } else {
+        entry.linkBefore(far[(int) ((deadline >>> SHIFT) & MASK)]);
+      }
+    }
+
+    /** @return list of entries due at the tick, linked via nextExpired */
+    Entry expire(final long tick) {
+      if ((tick & MASK) == 0) {
+        // cascade the entries due within the next SLOTS ticks down to the first level
+        final Entry sentinel = far[(int) ((tick >>> SHIFT) & MASK)];
+        Entry entry = sentinel.next;
+        while (entry != sentinel) {
+          final Entry next = entry.next;
+          entry.unlink();
+          entry.linkBefore(near[(int) (entry.deadline & MASK)]);
+          entry = next;
+        }
+      }
+      return detach(near[(int) (tick & MASK)]);
+    }
+
+    Entry drainAll() {
+      Entry head = null;
+      for (final Entry[] level : new Entry[][] {near, far, {parked}}) {
+        for (final Entry sentinel : level) {
+          Entry entry = detach(sentinel);
+          while (null != entry) {
+            final Entry next = entry.nextExpired;
+            entry.nextExpired = head;
+            head = entry;
+            entry = next;
+          }
+        }
+      }
+      return head;
+    }
+
+    private static Entry detach(final Entry sentinel) {
+      Entry head = null;
+      Entry entry = sentinel.prev;
+      while (entry != sentinel) {
+        final Entry prev = entry.prev;
+        entry.prev = null;
+        entry.next = null;
+        entry.nextExpired = head;
+        head = entry;
+        entry = prev;
+      }
+      sentinel.next = sentinel;
+      sentinel.prev = sentinel;
+      return head;
+    }
+
+    private static Entry[] sentinels() {
+      final Entry[] slots = new Entry[SLOTS];
+      for (int i = 0; i < SLOTS; ++i) {
+        slots[i] = new Entry();
+      }
+      return slots;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package datadog.trace.core;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Array-backed buffer of completed spans used by {@link PendingTrace} when the span buffer is
+ * enabled. Spans are appended in completion order and are handed to the writer as a read-only view
+ * over the backing array, most recently completed span first, which is the order the deque based
+ * trace produces.
+ *
+ * <p>Draining hands the backing array over to the returned view and leaves the buffer empty and
+ * ready for reuse, so partial flushes do not need to copy the remaining spans into a new
+ * collection.
+ */
+final class SpanBuffer {
+  private static final int INITIAL_CAPACITY = 8;
+
+  private DDSpan[] spans;
+  private int size;
+
+  synchronized void add(final DDSpan span) {
+    if (spans == null) {
+      spans = new DDSpan[INITIAL_CAPACITY];
+    } else if (size == spans.length) {
+      final DDSpan[] grown = new DDSpan[size << 1];
+      System.arraycopy(spans, 0, grown, 0, size);
+      spans = grown;
+    }
+    spans[size++] = span;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  /** @return a view over all buffered spans, leaving this buffer empty */
+  synchronized List<DDSpan> drain() {
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+    final List<DDSpan> drained = new SpanArrayView(spans, size);
+    spans = null;
+    size = 0;
+    return drained;
+  }
+
+  /**
+   * @param retained span which should stay in the buffer, may be null
+   * @return a view over all buffered spans except {@code retained}
+   */
+  synchronized List<DDSpan> drainExcept(final DDSpan retained) {
+    int retainedIndex = -1;
+    for (int i = 0; i < size; ++i) {
+      if (spans[i] == retained) {
+        retainedIndex = i;
+        break;
+      }
+    }
+    if (retainedIndex < 0) {
+      return drain();
+    }
+    if (size == 1) {
+      return Collections.emptyList();
+    }
+    // the retained span moves to the front of a new array, the old array
+    // is compacted in place and handed over to the view
+    final DDSpan[] drained = spans;
+    System.arraycopy(drained, retainedIndex + 1, drained, retainedIndex, size - retainedIndex - 1);
+    final int drainedSize = size - 1;
+    drained[drainedSize] = null;
+    spans = new DDSpan[INITIAL_CAPACITY];
+    spans[0] = retained;
+    size = 1;
+    return new SpanArrayView(drained, drainedSize);
+  }
+
+  /** Read-only list presenting the array in reverse order. */
+  private static final class SpanArrayView extends AbstractList<DDSpan> implements RandomAccess {
+    private final DDSpan[] spans;
+    private final int size;
+
+    private SpanArrayView(final DDSpan[] spans, final int size) {
+      this.spans = spans;
+      this.size = size;
+    }
+
+    @Override
+    public DDSpan get(final int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return spans[size - 1 - index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,317 @@
+package datadog.trace.core;
+
+import static datadog.trace.common.sampling.RateByServiceSampler.SAMPLING_AGENT_RATE;
+import static datadog.trace.common.sampling.RuleBasedSampler.SAMPLING_LIMIT_RATE;
+import static datadog.trace.common.sampling.RuleBasedSampler.SAMPLING_RULE_RATE;
+import static datadog.trace.core.DDSpanContext.PRIORITY_SAMPLING_KEY;
+import static datadog.trace.core.DDSpanContext.SAMPLE_RATE_KEY;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Metrics of a single span. The metrics set by the tracer itself on (nearly) every sampled span are
+ * kept unboxed in dedicated fields, other metrics are stored in a map which is only created when
+ * the first of them is set. Values are boxed again when they are read through the {@link Map}
+ * interface, which only happens when the span is serialized.
+ *
+ * <p>Safe for concurrent use, writes to the same metric are last-writer-wins.
+ */
+final class SpanMetrics extends AbstractMap<String, Number> {
+
+  private static final int SAMPLING_PRIORITY = 0;
+  private static final int SAMPLE_RATE = 1;
+  private static final int AGENT_RATE = 2;
+  private static final int RULE_RATE = 3;
+  private static final int LIMIT_RATE = 4;
+  private static final int SLOT_COUNT = 5;
+
+  private static final AtomicIntegerFieldUpdater<SpanMetrics> PRESENT =
+      AtomicIntegerFieldUpdater.newUpdater(SpanMetrics.class, "present");
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<SpanMetrics, ConcurrentHashMap> OTHERS =
+      AtomicReferenceFieldUpdater.newUpdater(SpanMetrics.class, ConcurrentHashMap.class, "others");
+
+  /** bit set of the slots holding a value */
+  private volatile int present;
+
+  private volatile int samplingPriority;
+  private volatile double sampleRate;
+  private volatile double agentRate;
+  private volatile double ruleRate;
+  private volatile double limitRate;
+
+  private volatile ConcurrentHashMap<String, Number> others;
+
+  /** @return the sampling priority, or {@code defaultValue} if it has not been set */
+  int getSamplingPriority(final int defaultValue) {
+    return isSet(SAMPLING_PRIORITY) ? samplingPriority : defaultValue;
+  }
+
+  void setSamplingPriority(final int value) {
+    samplingPriority = value;
+    markSet(SAMPLING_PRIORITY, PRIORITY_SAMPLING_KEY);
+  }
+
+  @Override
+  public Number put(final String key, final Number value) {
+    final Number previous = get(key);
+    set(key, value);
+    return previous;
+  }
+
+  /** Same as {@link #put(String, Number)}, without boxing the previous value to return it. */
+  void set(final String key, final Number value) {
+    if (PRIORITY_SAMPLING_KEY.equals(key)) {
+      // priorities are integers, whatever the type they were set with
+      setSamplingPriority(value.intValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      // floats are stored as doubles
+      putDouble(key, value.doubleValue());
+    } else {
+      final int slot = doubleSlot(key);
+      if (slot >= 0) {
+        // a value of an unexpected type shadows the slot
+        clearSlot(slot);
+      }
+      putOther(key, value);
+    }
+  }
+
+  @Override
+  public Number remove(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final Number previous = get(key);
+    final int slot = slot((String) key);
+    if (slot >= 0) {
+      clearSlot(slot);
+    }
+    final Map<String, Number> others = this.others;
+    if (null != others) {
+      others.remove(key);
+    }
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    PRESENT.set(this, 0);
+    final Map<String, Number> others = this.others;
+    if (null != others) {
+      others.clear();
+    }
+  }
+
+  @Override
+  public Number get(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final int slot = slot((String) key);
+    if (slot >= 0 && isSet(slot)) {
+      return boxed(slot);
+    }
+    final Map<String, Number> others = this.others;
+    return null == others ? null : others.get(key);
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return null != get(key);
+  }
+
+  @Override
+  public int size() {
+    final Map<String, Number> others = this.others;
+    return Integer.bitCount(present) + (null == others ? 0 : others.size());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public Set<Entry<String, Number>> entrySet() {
+    return new EntrySet();
+  }
+
+  private void putDouble(final String key, final double value) {
+    final int slot = doubleSlot(key);
+    if (slot < 0) {
+      putOther(key, value);
+    } else {
+      setDouble(slot, value);
+      markSet(slot, key);
+    }
+  }
+
+  private boolean isSet(final int slot) {
+    return (present & (1 << slot)) != 0;
+  }
+
+  private void markSet(final int slot, final String key) {
+    final int bit = 1 << slot;
+    int current;
+    do {
+      current = present;
+    } while ((current & bit) == 0 && !PRESENT.compareAndSet(this, current, current | bit));
+    final Map<String, Number> others = this.others;
+    if (null != others) {
+      // the slot takes precedence over a value of another type set before
+      others.remove(key);
+    }
+  }
+
+  private void clearSlot(final int slot) {
+    final int bit = 1 << slot;
+    int current;
+    do {
+      current = present;
+    } while ((current & bit) != 0 && !PRESENT.compareAndSet(this, current, current & ~bit));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void putOther(final String key, final Number value) {
+    ConcurrentHashMap<String, Number> others = this.others;
+    if (null == others) {
+      OTHERS.compareAndSet(this, null, new ConcurrentHashMap<String, Number>());
+      others = this.others;
+    }
+    others.put(key, value);
+  }
+
+  private void setDouble(final int slot, final double value) {
+    switch (slot) {
+      case SAMPLE_RATE:
+        sampleRate = value;
+        break;
+      case AGENT_RATE:
+        agentRate = value;
+        break;
+      case RULE_RATE:
+        ruleRate = value;
+        break;
+      default:
+        limitRate = value;
+    }
+  }
+
+  private Number boxed(final int slot) {
+    switch (slot) {
+      case SAMPLING_PRIORITY:
+        return samplingPriority;
+      case SAMPLE_RATE:
+        return sampleRate;
+      case AGENT_RATE:
+        return agentRate;
+      case RULE_RATE:
+        return ruleRate;
+      default:
+        return limitRate;
+    }
+  }
+
+  private static int slot(final String key) {
+    return PRIORITY_SAMPLING_KEY.equals(key) ? SAMPLING_PRIORITY : doubleSlot(key);
+  }
+
+  private static int doubleSlot(final String key) {
+    // the keys are constants, so the identity checks are usually enough
+    if (SAMPLE_RATE_KEY == key || SAMPLE_RATE_KEY.equals(key)) {
+      return SAMPLE_RATE;
+    }
+    if (SAMPLING_AGENT_RATE == key || SAMPLING_AGENT_RATE.equals(key)) {
+      return AGENT_RATE;
+    }
+    if (SAMPLING_RULE_RATE == key || SAMPLING_RULE_RATE.equals(key)) {
+      return RULE_RATE;
+    }
+    if (SAMPLING_LIMIT_RATE == key || SAMPLING_LIMIT_RATE.equals(key)) {
+      return LIMIT_RATE;
+    }
+    return -1;
+  }
+
+  private static String key(final int slot) {
+    switch (slot) {
+      case SAMPLING_PRIORITY:
+        return PRIORITY_SAMPLING_KEY;
+      case SAMPLE_RATE:
+        return SAMPLE_RATE_KEY;
+      case AGENT_RATE:
+        return SAMPLING_AGENT_RATE;
+      case RULE_RATE:
+        return SAMPLING_RULE_RATE;
+      default:
+        return SAMPLING_LIMIT_RATE;
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, Number>> {
+    @Override
+    public int size() {
+      return SpanMetrics.this.size();
+    }
+
+    @Override
+    public Iterator<Entry<String, Number>> iterator() {
+      return new EntryIterator();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Number>> {
+    private final int slots = present;
+    private final Iterator<Entry<String, Number>> others;
+    private int slot = nextSlot(0);
+
+    private EntryIterator() {
+      final Map<String, Number> others = SpanMetrics.this.others;
+      this.others =
+          null == others
+              ? Collections.<Entry<String, Number>>emptyIterator()
+              : others.entrySet().iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return slot < SLOT_COUNT || others.hasNext();
+    }
+
+    @Override
+    public Entry<String, Number> next() {
+      if (slot < SLOT_COUNT) {
+        final Entry<String, Number> entry = new SimpleImmutableEntry<>(key(slot), boxed(slot));
+        slot = nextSlot(slot + 1);
+        return entry;
+      }
+      if (others.hasNext()) {
+        return others.next();
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private int nextSlot(int from) {
+      while (from < SLOT_COUNT && (slots & (1 << from)) == 0) {
+        ++from;
+      }
+      return from;
+    }
+  }
+}
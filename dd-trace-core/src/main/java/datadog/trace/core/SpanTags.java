@@ -0,0 +1,234 @@
+package datadog.trace.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact map holding the tags of a single span. Keys and values are stored next to each other in
+ * one flat array using open addressing with linear probing, so adding a tag does not allocate an
+ * entry object and a span with a handful of tags only allocates a single small array.
+ *
+ * <p>Tag names are usually constants, so keys are compared by identity before falling back to
+ * {@link String#equals(Object)}.
+ *
+ * <p>Not thread-safe, {@link DDSpanContext} guards all access to the tags.
+ */
+final class SpanTags extends AbstractMap<String, Object> {
+  private static final int MIN_CAPACITY = 8;
+
+  /** key at {@code 2 * slot}, value at {@code 2 * slot + 1} */
+  private Object[] table;
+
+  private int size;
+
+  SpanTags(final int expectedSize) {
+    this.table = new Object[capacityFor(expectedSize) << 1];
+  }
+
+  /**
+   * Creates a map holding the tags of the template, with a single array copy when the template is
+   * large enough for the expected size.
+   */
+  SpanTags(final SpanTags template, final int expectedSize) {
+    final int capacity = capacityFor(expectedSize);
+    if (capacity << 1 <= template.table.length) {
+      this.table = template.table.clone();
+      this.size = template.size;
+    } else {
+      this.table = new Object[capacity << 1];
+      putAll(template);
+    }
+  }
+
+  /** Puts the tags of the other map, without going through entries. */
+  void putAll(final SpanTags other) {
+    final Object[] otherTable = other.table;
+    for (int i = 0; i < otherTable.length; i += 2) {
+      final Object key = otherTable[i];
+      if (null != key) {
+        put((String) key, otherTable[i + 1]);
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return key instanceof String && indexOf((String) key) >= 0;
+  }
+
+  @Override
+  public Object get(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final int index = indexOf((String) key);
+    return index < 0 ? null : table[index + 1];
+  }
+
+  @Override
+  public Object put(final String key, final Object value) {
+    int index = indexOf(key);
+    if (index >= 0) {
+      final Object previous = table[index + 1];
+      table[index + 1] = value;
+      return previous;
+    }
+    if ((size + 1) * 4 > (table.length >> 1) * 3) {
+      resize();
+      index = indexOf(key);
+    }
+    index = -index - 1;
+    table[index] = key;
+    table[index + 1] = value;
+    ++size;
+    return null;
+  }
+
+  @Override
+  public Object remove(final Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    int index = indexOf((String) key);
+    if (index < 0) {
+      return null;
+    }
+    final Object previous = table[index + 1];
+    // backward shift deletion keeps probe sequences intact without tombstones
+    final int mask = table.length - 1;
+    int next = index;
+    while (true) {
+      next = (next + 2) & mask;
+      final Object nextKey = table[next];
+      if (null == nextKey) {
+        break;
+      }
+      final int home = home((String) nextKey);
+      // move the entry back if its home slot is not cyclically in (index, next]
+      if (index <= next ? (home <= index || home > next) : (home <= index && home > next)) {
+        table[index] = nextKey;
+        table[index + 1] = table[next + 1];
+        index = next;
+      }
+    }
+    table[index] = null;
+    table[index + 1] = null;
+    --size;
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < table.length; ++i) {
+      table[i] = null;
+    }
+    size = 0;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new EntrySet();
+  }
+
+  /** @return the index of the key in the table, or {@code -(insertion index) - 1} */
+  private int indexOf(final String key) {
+    final Object[] table = this.table;
+    final int mask = table.length - 1;
+    int index = home(key);
+    while (true) {
+      final Object candidate = table[index];
+      if (null == candidate) {
+        return -index - 1;
+      }
+      if (candidate == key || candidate.equals(key)) {
+        return index;
+      }
+      index = (index + 2) & mask;
+    }
+  }
+
+  private int home(final String key) {
+    final int hash = key.hashCode();
+    return ((hash ^ (hash >>> 16)) << 1) & (table.length - 1);
+  }
+
+  private void resize() {
+    final Object[] old = table;
+    table = new Object[old.length << 1];
+    for (int i = 0; i < old.length; i += 2) {
+      final Object key = old[i];
+      if (null != key) {
+        final int index = -indexOf((String) key) - 1;
+        table[index] = key;
+        table[index + 1] = old[i + 1];
+      }
+    }
+  }
+
+  private static int capacityFor(final int expectedSize) {
+    final int needed = expectedSize * 4 / 3 + 1;
+    int capacity = MIN_CAPACITY;
+    while (capacity < needed) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+    private final Object[] table = SpanTags.this.table;
+    private int index = advance(0);
+
+    @Override
+    public boolean hasNext() {
+      return index < table.length;
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (index >= table.length) {
+        throw new NoSuchElementException();
+      }
+      final Entry<String, Object> entry =
+          new SimpleImmutableEntry<>((String) table[index], table[index + 1]);
+      index = advance(index + 2);
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private int advance(int from) {
+      while (from < table.length && null == table[from]) {
+        from += 2;
+      }
+      return from;
+    }
+  }
+}
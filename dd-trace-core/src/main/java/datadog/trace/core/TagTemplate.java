@@ -0,0 +1,87 @@
+package datadog.trace.core;
+
+import datadog.trace.api.DDTags;
+import datadog.trace.core.taginterceptor.TagInterceptors;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tags configured once for the whole tracer (default span tags, local root span tags), compiled
+ * against the tag interceptors so they do not need to be looked up for every span.
+ *
+ * <p>Tags without interceptors are kept in a {@link SpanTags} table which new spans copy as is.
+ * The effects of interceptors depend on the state of each span (its service name, the sampling
+ * priority of its trace), so intercepted tags, and empty values which remove tags, are kept aside
+ * and still set one by one. So are the tags every span sets when it is created (thread, origin),
+ * otherwise they would overwrite the configured values.
+ */
+final class TagTemplate {
+  static final TagTemplate EMPTY =
+      new TagTemplate(new SpanTags(0), Collections.<String, Object>emptyMap(), 0);
+
+  // room for the tags spans usually get from the tracer and instrumentations
+  private static final int EXTRA_CAPACITY = 8;
+
+  private final SpanTags tags;
+  private final Map<String, Object> interceptedTags;
+  private final int size;
+
+  private TagTemplate(
+      final SpanTags tags, final Map<String, Object> interceptedTags, final int size) {
+    this.tags = tags;
+    this.interceptedTags = interceptedTags;
+    this.size = size;
+  }
+
+  static TagTemplate compile(
+      final Map<String, ? extends Object> tags, final TagInterceptors interceptors) {
+    if (null == tags || tags.isEmpty()) {
+      return EMPTY;
+    }
+    final SpanTags plainTags = new SpanTags(tags.size() + EXTRA_CAPACITY);
+    final Map<String, Object> interceptedTags = new LinkedHashMap<>();
+    for (final Map.Entry<String, ? extends Object> tag : tags.entrySet()) {
+      final Object value = tag.getValue();
+      if (null == value
+          || (value instanceof String && ((String) value).isEmpty())
+          || null != interceptors.get(tag.getKey())
+          || isSetBySpans(tag.getKey())) {
+        interceptedTags.put(tag.getKey(), value);
+      } else {
+        plainTags.put(tag.getKey(), value);
+      }
+    }
+    return new TagTemplate(
+        plainTags,
+        interceptedTags.isEmpty()
+            ? Collections.<String, Object>emptyMap()
+            : Collections.unmodifiableMap(interceptedTags),
+        tags.size());
+  }
+
+  private static boolean isSetBySpans(final String tag) {
+    return DDTags.THREAD_NAME.equals(tag)
+        || DDTags.THREAD_ID.equals(tag)
+        || DDSpanContext.ORIGIN_KEY.equals(tag);
+  }
+
+  /** @return new span tags holding the tags which are not intercepted */
+  SpanTags newSpanTags(final int expectedSize) {
+    return new SpanTags(tags, expectedSize);
+  }
+
+  /** Puts the tags which are not intercepted. */
+  void putInto(final SpanTags spanTags) {
+    spanTags.putAll(tags);
+  }
+
+  /** @return the tags which must go through the interceptors */
+  Map<String, Object> getInterceptedTags() {
+    return interceptedTags;
+  }
+
+  int size() {
+    return size;
+  }
+}
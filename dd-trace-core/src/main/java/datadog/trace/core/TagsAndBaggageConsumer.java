@@ -3,5 +3,5 @@ package datadog.trace.core;
 import java.util.Map;
 
 public abstract class TagsAndBaggageConsumer {
-  public abstract void accept(Map<String, Object> tags, Map<String, String> baggage);
+  public abstract void accept(Map<String, Object> tags, Baggage baggage);
 }
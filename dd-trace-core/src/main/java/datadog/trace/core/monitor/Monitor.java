@@ -14,6 +14,7 @@ import java.util.List;
  *   <li>shutdown
  *   <li>publishing to disruptor
  *   <li>serializing
+ *   <li>queueing payloads for the sender
  *   <li>sending to agent
  * </ul>
  */
@@ -56,6 +57,25 @@ public class Monitor {
     // api.errors???
   }
 
+  public void onEncodingCache(final long hits, final long misses, final long evictions) {
+    statsd.count("serializer.encoding_cache.hits", hits);
+    statsd.count("serializer.encoding_cache.misses", misses);
+    statsd.count("serializer.encoding_cache.evictions", evictions);
+  }
+
+  public void onPayloadQueued(final int queuedPayloads) {
+    statsd.recordGaugeValue("sender.queue.length", queuedPayloads);
+  }
+
+  public void onDroppedPayload(final int representativeCount, final int traceCount) {
+    statsd.count("sender.dropped_traces", traceCount);
+    statsd.count("sender.dropped_representative_traces", representativeCount);
+  }
+
+  public void onPayloadSent(final long sendLatencyMillis) {
+    statsd.recordExecutionTime("api.latency", sendLatencyMillis);
+  }
+
   public void onSend(
       final int representativeCount, final int sizeInBytes, final DDAgentApi.Response response) {
     onSendAttempt(representativeCount, sizeInBytes, response);
@@ -66,6 +86,10 @@ public class Monitor {
     onSendAttempt(representativeCount, sizeInBytes, response);
   }
 
+  public void onRateLimit(final double effectiveRate) {
+    statsd.recordGaugeValue("sampler.rate_limit.effective_rate", effectiveRate);
+  }
+
   private void onSendAttempt(
       final int representativeCount, final int sizeInBytes, final DDAgentApi.Response response) {
     statsd.incrementCounter("api.requests");
@@ -1,6 +1,7 @@
 package datadog.trace.core.processor.rule;
 
 import datadog.trace.bootstrap.instrumentation.api.Tags;
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import datadog.trace.core.ExclusiveSpan;
 import datadog.trace.core.processor.TraceProcessor;
 
@@ -8,6 +9,20 @@ public class URLAsResourceNameRule implements TraceProcessor.Rule {
 
   private static final BitSlicedBitapSearch PROTOCOL_SEARCH = new BitSlicedBitapSearch("://");
 
+  /** must be a power of two */
+  private static final int CACHE_SIZE = 1024;
+  /** longer paths are not worth keeping around */
+  private static final int MAX_CACHED_PATH_LENGTH = 256;
+  /** hash of the paths which are not cached, computed hashes are never zero */
+  private static final int NOT_CACHED = 0;
+
+  /**
+   * Resource names of the recently seen (method, path) pairs. Paths with segments which would be
+   * scrubbed are never cached, because they are likely to be unique. Entries are immutable, so
+   * concurrent updates only lose entries.
+   */
+  private final CacheEntry[] cache = new CacheEntry[CACHE_SIZE];
+
   private final ThreadLocal<StringBuilder> resourceNameBuilder =
       new ThreadLocal<StringBuilder>() {
         @Override
@@ -35,7 +50,108 @@ public class URLAsResourceNameRule implements TraceProcessor.Rule {
     if (null == url) {
       return;
     }
-    span.setResourceName(extractResourceNameFromURL(span.getTag(Tags.HTTP_METHOD), url.toString()));
+    span.setResourceName(resourceName(span.getTag(Tags.HTTP_METHOD), url.toString()));
+  }
+
+  private CharSequence resourceName(final Object method, final String url) {
+    final int start = pathStart(url);
+    if (start < 0) {
+      return extractResourceNameFromURL(method, url);
+    }
+    final int end = pathEnd(url, start);
+    final String verb = null == method ? null : method.toString();
+    final int hash = hash(verb, url, start, end);
+    if (hash == NOT_CACHED) {
+      return extractResourceNameFromURL(method, url);
+    }
+    final int index = hash & (CACHE_SIZE - 1);
+    // each path can be found in two adjacent slots
+    CacheEntry entry = cache[index];
+    if (null != entry && entry.matches(hash, verb, url, start, end)) {
+      return entry.resourceName;
+    }
+    entry = cache[index ^ 1];
+    if (null != entry && entry.matches(hash, verb, url, start, end)) {
+      return entry.resourceName;
+    }
+    final String resourceName = extractResourceNameFromURL(method, url);
+    if (resourceName.indexOf('?') >= 0) {
+      // a segment was scrubbed after all
+      return resourceName;
+    }
+    entry =
+        new CacheEntry(
+            hash, verb, url.substring(start, end), UTF8BytesString.create(resourceName));
+    cache[null == cache[index] ? index : index ^ 1] = entry;
+    return entry.resourceName;
+  }
+
+  /**
+   * @return a hash of the method and the path, or {@link #NOT_CACHED} when the path should not be
+   *     cached because it is too long or has segments with digits which are not versions
+   */
+  private static int hash(final String verb, final String url, final int start, final int end) {
+    if (end - start > MAX_CACHED_PATH_LENGTH) {
+      return NOT_CACHED;
+    }
+    int hash = null == verb ? 0 : verb.hashCode();
+    boolean versionSegment = false;
+    for (int i = start; i < end; ++i) {
+      final char c = url.charAt(i);
+      if (i == start || url.charAt(i - 1) == '/') {
+        versionSegment = c == 'v' || c == 'V';
+      }
+      if (!versionSegment && Character.isDigit(c)) {
+        return NOT_CACHED;
+      }
+      hash = 31 * hash + c;
+    }
+    return hash == NOT_CACHED ? 1 : hash;
+  }
+
+  /** @return where the path starts in the url, or -1 if there is no path */
+  private static int pathStart(final String url) {
+    if (url.isEmpty()) {
+      return -1;
+    }
+    final int protocol = protocolPosition(url);
+    return protocol >= 0 ? url.indexOf('/', protocol + 3) : 0;
+  }
+
+  /** @return where the query or fragment of the last segment starts, as the url is cleaned */
+  private static int pathEnd(final String url, final int start) {
+    final int lastSegment = Math.max(url.lastIndexOf('/') + 1, start);
+    int end = url.indexOf('?', lastSegment);
+    if (end == -1) {
+      end = url.indexOf('#', lastSegment);
+    }
+    return end == -1 ? url.length() : end;
+  }
+
+  private static final class CacheEntry {
+    private final int hash;
+    private final String verb;
+    private final String path;
+    private final UTF8BytesString resourceName;
+
+    private CacheEntry(
+        final int hash,
+        final String verb,
+        final String path,
+        final UTF8BytesString resourceName) {
+      this.hash = hash;
+      this.verb = verb;
+      this.path = path;
+      this.resourceName = resourceName;
+    }
+
+    private boolean matches(
+        final int hash, final String verb, final String url, final int start, final int end) {
+      return this.hash == hash
+          && path.length() == end - start
+          && url.regionMatches(start, path, 0, path.length())
+          && (null == verb ? null == this.verb : verb.equals(this.verb));
+    }
   }
 
   private String extractResourceNameFromURL(final Object method, final String url) {
@@ -36,9 +36,10 @@ class B3HttpCodec {
     public <C> void inject(
         final DDSpanContext context, final C carrier, final AgentPropagation.Setter<C> setter) {
       try {
-        String injectedTraceId = context.getTraceId().toHexString().toLowerCase();
+        // hex strings are already in lower case
+        String injectedTraceId = context.getTraceId().toHexString();
         setter.set(carrier, TRACE_ID_KEY, injectedTraceId);
-        setter.set(carrier, SPAN_ID_KEY, context.getSpanId().toHexString().toLowerCase());
+        setter.set(carrier, SPAN_ID_KEY, context.getSpanId().toHexString());
 
         if (context.lockSamplingPriority()) {
           setter.set(
@@ -109,18 +110,17 @@ class B3HttpCodec {
             switch (classification) {
               case TRACE_ID:
                 {
-                  final String trimmedValue;
                   final int length = firstValue.length();
                   if (length > 32) {
                     log.debug("Header {} exceeded max length of 32: {}", TRACE_ID_KEY, value);
                     traceId = DDId.ZERO;
                     return true;
                   } else if (length > 16) {
-                    trimmedValue = value.substring(length - 16);
+                    // only keep the lower 64 bits, without copying them
+                    traceId = DDId.fromHex(firstValue, length - 16, 16);
                   } else {
-                    trimmedValue = value;
+                    traceId = DDId.fromHex(firstValue);
                   }
-                  traceId = DDId.fromHex(trimmedValue);
                   break;
                 }
               case SPAN_ID:
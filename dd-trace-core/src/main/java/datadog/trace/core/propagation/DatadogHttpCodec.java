@@ -3,7 +3,9 @@ package datadog.trace.core.propagation;
 import static datadog.trace.core.propagation.HttpCodec.firstHeaderValue;
 
 import datadog.trace.api.DDId;
+import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.core.Baggage;
 import datadog.trace.core.DDSpanContext;
 import java.util.Map;
 import java.util.TreeMap;
@@ -19,6 +21,14 @@ class DatadogHttpCodec {
   private static final String SAMPLING_PRIORITY_KEY = "x-datadog-sampling-priority";
   private static final String ORIGIN_KEY = "x-datadog-origin";
 
+  /** header values of the sampling priorities, from USER_DROP to USER_KEEP */
+  private static final String[] SAMPLING_PRIORITY_VALUES = {
+    String.valueOf(PrioritySampling.USER_DROP),
+    String.valueOf(PrioritySampling.SAMPLER_DROP),
+    String.valueOf(PrioritySampling.SAMPLER_KEEP),
+    String.valueOf(PrioritySampling.USER_KEEP)
+  };
+
   private DatadogHttpCodec() {
     // This class should not be created. This also makes code coverage checks happy.
   }
@@ -29,21 +39,32 @@ class DatadogHttpCodec {
     public <C> void inject(
         final DDSpanContext context, final C carrier, final AgentPropagation.Setter<C> setter) {
 
+      // the decimal forms of the ids are cached by DDId
       setter.set(carrier, TRACE_ID_KEY, context.getTraceId().toString());
       setter.set(carrier, SPAN_ID_KEY, context.getSpanId().toString());
       if (context.lockSamplingPriority()) {
-        setter.set(carrier, SAMPLING_PRIORITY_KEY, String.valueOf(context.getSamplingPriority()));
+        setter.set(carrier, SAMPLING_PRIORITY_KEY, samplingPriorityValue(context));
       }
       final String origin = context.getOrigin();
       if (origin != null) {
         setter.set(carrier, ORIGIN_KEY, origin);
       }
 
-      for (final Map.Entry<String, String> entry : context.baggageItems()) {
-        setter.set(carrier, OT_BAGGAGE_PREFIX + entry.getKey(), HttpCodec.encode(entry.getValue()));
+      final Baggage baggage = context.getBaggage();
+      for (int i = 0; i < baggage.size(); ++i) {
+        setter.set(carrier, OT_BAGGAGE_PREFIX + baggage.key(i), HttpCodec.encode(baggage.value(i)));
       }
       log.debug("{} - Datadog parent context injected", context.getTraceId());
     }
+
+    private static String samplingPriorityValue(final DDSpanContext context) {
+      final int samplingPriority = context.getSamplingPriority();
+      final int index = samplingPriority - PrioritySampling.USER_DROP;
+      if (index >= 0 && index < SAMPLING_PRIORITY_VALUES.length) {
+        return SAMPLING_PRIORITY_VALUES[index];
+      }
+      return String.valueOf(samplingPriority);
+    }
   }
 
   public static HttpCodec.Extractor newExtractor(final Map<String, String> tagMapping) {
@@ -89,8 +110,8 @@ class DatadogHttpCodec {
           }
           break;
         case 'o':
-          lowerCaseKey = toLowerCase(key);
-          if (lowerCaseKey.startsWith(OT_BAGGAGE_PREFIX)) {
+          if (key.regionMatches(true, 0, OT_BAGGAGE_PREFIX, 0, OT_BAGGAGE_PREFIX.length())) {
+            lowerCaseKey = toLowerCase(key);
             classification = OT_BAGGAGE;
           }
         default:
@@ -2,7 +2,6 @@ package datadog.trace.core.propagation;
 
 import datadog.trace.api.DDId;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Propagated data resulting from calling tracer.extract with header data from an incoming request.
@@ -12,7 +11,7 @@ public class ExtractedContext extends TagContext {
   private final DDId spanId;
   private final int samplingPriority;
   private final Map<String, String> baggage;
-  private final AtomicBoolean samplingPriorityLocked = new AtomicBoolean(false);
+  private volatile boolean samplingPriorityLocked;
 
   public ExtractedContext(
       final DDId traceId,
@@ -34,7 +33,7 @@ public class ExtractedContext extends TagContext {
   }
 
   public void lockSamplingPriority() {
-    samplingPriorityLocked.set(true);
+    samplingPriorityLocked = true;
   }
 
   @Override
@@ -56,6 +55,6 @@ public class ExtractedContext extends TagContext {
   }
 
   public boolean getSamplingPriorityLocked() {
-    return samplingPriorityLocked.get();
+    return samplingPriorityLocked;
   }
 }
@@ -5,6 +5,7 @@ import static datadog.trace.core.propagation.HttpCodec.firstHeaderValue;
 import datadog.trace.api.DDId;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.core.Baggage;
 import datadog.trace.core.DDSpanContext;
 import java.util.Map;
 import java.util.TreeMap;
@@ -53,8 +54,9 @@ public class HaystackHttpCodec {
         // Baggage, and it is equal
         //  to the converted value in BigInteger, use that instead.
         //  this will preserve the complete UUID/GUID without losing the most significant bit part
+        final Baggage baggage = context.getBaggage();
         String originalHaystackTraceId =
-            getBaggageItemIgnoreCase(context.getBaggageItems(), HAYSTACK_TRACE_ID_BAGGAGE_KEY);
+            getBaggageItemIgnoreCase(baggage, HAYSTACK_TRACE_ID_BAGGAGE_KEY);
         String injectedTraceId;
         if (originalHaystackTraceId != null
             && convertUUIDToBigInt(originalHaystackTraceId).equals(context.getTraceId())) {
@@ -73,9 +75,9 @@ public class HaystackHttpCodec {
         setter.set(
             carrier, DD_PARENT_ID_BAGGAGE_KEY, HttpCodec.encode(context.getParentId().toString()));
 
-        for (final Map.Entry<String, String> entry : context.baggageItems()) {
+        for (int i = 0; i < baggage.size(); ++i) {
           setter.set(
-              carrier, OT_BAGGAGE_PREFIX + entry.getKey(), HttpCodec.encode(entry.getValue()));
+              carrier, OT_BAGGAGE_PREFIX + baggage.key(i), HttpCodec.encode(baggage.value(i)));
         }
         log.debug(
             "{} - Haystack parent context injected - {}", context.getTraceId(), injectedTraceId);
@@ -85,10 +87,10 @@ public class HaystackHttpCodec {
       }
     }
 
-    private String getBaggageItemIgnoreCase(Map<String, String> baggage, String key) {
-      for (final Map.Entry<String, String> mapping : baggage.entrySet()) {
-        if (key.equalsIgnoreCase(mapping.getKey())) {
-          return mapping.getValue();
+    private String getBaggageItemIgnoreCase(Baggage baggage, String key) {
+      for (int i = 0; i < baggage.size(); ++i) {
+        if (key.equalsIgnoreCase(baggage.key(i))) {
+          return baggage.value(i);
         }
       }
       return null;
@@ -143,8 +145,8 @@ public class HaystackHttpCodec {
           }
           break;
         case 'b':
-          lowerCaseKey = toLowerCase(key);
-          if (lowerCaseKey.startsWith(BAGGAGE_PREFIX_LC)) {
+          if (key.regionMatches(true, 0, BAGGAGE_PREFIX_LC, 0, BAGGAGE_PREFIX_LC.length())) {
+            lowerCaseKey = toLowerCase(key);
             classification = BAGGAGE;
           }
         default:
@@ -212,32 +214,62 @@ public class HaystackHttpCodec {
     }
   }
 
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
   private static String convertBigIntToUUID(DDId id) {
     // This is not a true/real UUID, as we don't care about the version and variant markers
     //  the creation is just taking the least significant bits and doing static most significant
     // ones.
     //  this is done for the purpose of being able to maintain cardinality and idempotence of the
     // conversion
-    String idHex = String.format("%016x", id.toLong());
-    return DATADOG + "-" + idHex.substring(0, 4) + "-" + idHex.substring(4);
+    // DATADOG-xxxx-xxxxxxxxxxxx with the 16 zero padded hex digits of the id
+    final int prefixLength = DATADOG.length();
+    final char[] uuid = new char[prefixLength + 18];
+    DATADOG.getChars(0, prefixLength, uuid, 0);
+    uuid[prefixLength] = '-';
+    uuid[prefixLength + 5] = '-';
+    long bits = id.toLong();
+    for (int i = uuid.length - 1; i > prefixLength; --i) {
+      if (i != prefixLength + 5) {
+        uuid[i] = HEX_DIGITS[(int) (bits & 0xF)];
+        bits >>>= 4;
+      }
+    }
+    return new String(uuid);
   }
 
   private static DDId convertUUIDToBigInt(String value) {
     try {
-      if (value.contains("-")) {
-        String[] strings = value.split("-");
+      if (value.indexOf('-') >= 0) {
+        // trailing separators are ignored, like String.split would
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == '-') {
+          --end;
+        }
+        int separators = 0;
+        int third = -1;
+        int fourth = -1;
+        for (int i = 0; i < end; ++i) {
+          if (value.charAt(i) == '-') {
+            ++separators;
+            if (separators == 3) {
+              third = i;
+            } else if (separators == 4) {
+              fourth = i;
+            }
+          }
+        }
         // We are only interested in the least significant bit component, dropping the most
         // significant one.
-        if (strings.length == 5) {
-          String idHex = strings[3] + strings[4];
-          return DDId.fromHex(idHex);
+        if (separators == 4) {
+          return fromHex(value, third + 1, fourth, end);
         }
         throw new NumberFormatException("Invalid UUID format: " + value);
       } else {
         // This could be a regular hex id without separators
         int length = value.length();
         if (length == 32) {
-          return DDId.fromHex(value.substring(16));
+          return DDId.fromHex(value, 16, 16);
         } else {
           return DDId.fromHex(value);
         }
@@ -247,4 +279,21 @@ public class HaystackHttpCodec {
           "Exception when converting UUID to BigInteger: " + value, e);
     }
   }
+
+  /** parses the hex digits from start to end, skipping the separator in between */
+  private static DDId fromHex(String value, int start, int separator, int end) {
+    final int highLength = separator - start;
+    final int lowLength = end - separator - 1;
+    if (highLength == 0) {
+      return DDId.fromHex(value, separator + 1, lowLength);
+    } else if (lowLength == 0) {
+      return DDId.fromHex(value, start, highLength);
+    } else if (highLength + lowLength <= 16) {
+      final long high = DDId.fromHex(value, start, highLength).toLong();
+      final long low = DDId.fromHex(value, separator + 1, lowLength).toLong();
+      return DDId.from(high << (lowLength << 2) | low);
+    }
+    // the digits may still fit with leading zeros
+    return DDId.fromHex(value.substring(start, separator) + value.substring(separator + 1, end));
+  }
 }
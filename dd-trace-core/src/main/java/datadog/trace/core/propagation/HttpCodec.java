@@ -106,6 +106,9 @@ public class HttpCodec {
 
   /** URL encode value */
   static String encode(final String value) {
+    if (!needsEncoding(value)) {
+      return value;
+    }
     String encoded = value;
     try {
       encoded = URLEncoder.encode(value, "UTF-8");
@@ -117,6 +120,9 @@ public class HttpCodec {
 
   /** URL decode value */
   static String decode(final String value) {
+    if (value.indexOf('%') < 0 && value.indexOf('+') < 0) {
+      return value;
+    }
     String decoded = value;
     try {
       decoded = URLDecoder.decode(value, "UTF-8");
@@ -126,6 +132,23 @@ public class HttpCodec {
     return decoded;
   }
 
+  /** @return false when URL encoding would return the same string, so it can be skipped */
+  private static boolean needsEncoding(final String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      final char c = value.charAt(i);
+      if (!((c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9')
+          || c == '.'
+          || c == '-'
+          || c == '_'
+          || c == '*')) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   static String firstHeaderValue(final String value) {
     if (value == null) {
       return null;
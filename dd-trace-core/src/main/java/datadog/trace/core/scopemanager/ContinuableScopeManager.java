@@ -9,71 +9,70 @@ import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import datadog.trace.bootstrap.instrumentation.api.ScopeSource;
 import datadog.trace.context.ScopeListener;
 import datadog.trace.context.TraceScope;
+import datadog.trace.core.jfr.DDScopeEvent;
 import datadog.trace.core.jfr.DDScopeEventFactory;
-import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * The primary ScopeManager. This class has ownership of the core ThreadLocal containing the
  * currently active Scope. Such scopes can be suspended with a Continuation to prevent the trace
- * from being reported even if all related spans are finished. It also delegates to other
- * ScopeInterceptors to provide additional functionality.
+ * from being reported even if all related spans are finished. Scopes also start and finish the
+ * scope events and notify the scope listeners themselves, so activating a span only creates one
+ * scope.
+ *
+ * <p>When scope pooling is enabled, closed scopes are reused by later activations on the same
+ * thread, so activating and closing scopes does not allocate once the pool is warm. A scope must
+ * then not be used once it has been closed.
  */
 @Slf4j
-public class ContinuableScopeManager extends ScopeInterceptor.DelegatingInterceptor
-    implements AgentScopeManager {
+public class ContinuableScopeManager implements AgentScopeManager {
   final ThreadLocal<ScopeStack> tlsScopeStack =
       new ThreadLocal<ScopeStack>() {
         @Override
         protected final ScopeStack initialValue() {
-          return new ScopeStack();
+          return new ScopeStack(scopePooling);
         }
       };
 
   private final List<ScopeListener> scopeListeners;
+  private final DDScopeEventFactory scopeEventFactory;
   private final int depthLimit;
   private final StatsDClient statsDClient;
   private final boolean strictMode;
+  private final boolean scopePooling;
 
   public ContinuableScopeManager(
       final int depthLimit,
       final DDScopeEventFactory scopeEventFactory,
       final StatsDClient statsDClient,
       final boolean strictMode) {
-    this(
-        depthLimit,
-        scopeEventFactory,
-        statsDClient,
-        strictMode,
-        new CopyOnWriteArrayList<ScopeListener>());
+    this(depthLimit, scopeEventFactory, statsDClient, strictMode, false);
   }
 
-  // Separate constructor to allow passing scopeListeners to super arg and assign locally.
-  private ContinuableScopeManager(
+  public ContinuableScopeManager(
       final int depthLimit,
       final DDScopeEventFactory scopeEventFactory,
       final StatsDClient statsDClient,
       final boolean strictMode,
-      final List<ScopeListener> scopeListeners) {
-    super(
-        new EventScopeInterceptor(
-            scopeEventFactory, new ListenerScopeInterceptor(scopeListeners, null)));
+      final boolean scopePooling) {
     this.depthLimit = depthLimit == 0 ? Integer.MAX_VALUE : depthLimit;
+    this.scopeEventFactory = scopeEventFactory;
     this.statsDClient = statsDClient;
     this.strictMode = strictMode;
-    this.scopeListeners = scopeListeners;
+    this.scopePooling = scopePooling;
+    this.scopeListeners = new CopyOnWriteArrayList<>();
   }
 
   @Override
   public AgentScope activate(final AgentSpan span, final ScopeSource source) {
-    ScopeStack scopeStack = scopeStack();
+    final ScopeStack scopeStack = scopeStack();
 
     final ContinuableScope active = scopeStack.top();
     if (active != null && active.span().equals(span)) {
@@ -88,19 +87,24 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
       return AgentTracer.NoopAgentScope.INSTANCE;
     }
 
-    return handleSpan(null, span, source);
+    return handleSpan(scopeStack, null, span, source);
   }
 
-  @Override
-  public Scope handleSpan(final AgentSpan span) {
-    return handleSpan(null, span, ScopeSource.INSTRUMENTATION);
-  }
-
-  private Scope handleSpan(
-      final Continuation continuation, final AgentSpan span, final ScopeSource source) {
-    final ContinuableScope scope =
-        new ContinuableScope(this, continuation, delegate.handleSpan(span), source);
-    scopeStack().push(scope);
+  private ContinuableScope handleSpan(
+      final ScopeStack scopeStack,
+      final Continuation continuation,
+      final AgentSpan span,
+      final ScopeSource source) {
+    assert span != null;
+    final ContinuableScope scope = scopeStack.newScope(this);
+    scope.init(
+        continuation,
+        span,
+        source,
+        scopeEventFactory.create(span.context()),
+        // scopes created before the first listener is added never notify listeners
+        !scopeListeners.isEmpty());
+    scopeStack.push(scope);
     scope.afterActivated();
     return scope;
   }
@@ -112,7 +116,7 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
 
   @Override
   public AgentSpan activeSpan() {
-    final Scope active = scopeStack().top();
+    final ContinuableScope active = scopeStack().top();
     return active == null ? null : active.span();
   }
 
@@ -125,28 +129,74 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
     return this.tlsScopeStack.get();
   }
 
-  private static final class ContinuableScope extends DelegatingScope implements Scope {
+  /**
+   * Scopes start and finish their scope event and notify the scope listeners themselves instead of
+   * being wrapped by a chain of interceptors, so activating a span only creates a single scope.
+   */
+  static final class ContinuableScope implements AgentScope {
+    private static final AtomicIntegerFieldUpdater<ContinuableScope> REFERENCE_COUNT =
+        AtomicIntegerFieldUpdater.newUpdater(ContinuableScope.class, "referenceCount");
+
     private final ContinuableScopeManager scopeManager;
 
     /** Continuation that created this scope. May be null. */
-    private final ContinuableScopeManager.Continuation continuation;
+    private ContinuableScopeManager.Continuation continuation;
+
+    private AgentSpan span;
+    private ScopeSource source;
+    private DDScopeEvent event;
+    private boolean notifyListeners;
+
     /** Flag to propagate this scope across async boundaries. */
-    private final AtomicBoolean isAsyncPropagating = new AtomicBoolean(false);
+    private volatile boolean isAsyncPropagating;
 
-    private final ScopeSource source;
+    private volatile int referenceCount;
 
-    private final AtomicInteger referenceCount = new AtomicInteger(1);
+    /** Next scope in the pool of free scopes of the thread. */
+    ContinuableScope nextFree;
 
-    ContinuableScope(
-        final ContinuableScopeManager scopeManager,
-        final ContinuableScopeManager.Continuation continuation,
-        final Scope delegate,
-        final ScopeSource source) {
-      super(delegate);
-      assert delegate.span() != null;
+    ContinuableScope(final ContinuableScopeManager scopeManager) {
       this.scopeManager = scopeManager;
+    }
+
+    void init(
+        final ContinuableScopeManager.Continuation continuation,
+        final AgentSpan span,
+        final ScopeSource source,
+        final DDScopeEvent event,
+        final boolean notifyListeners) {
       this.continuation = continuation;
+      this.span = span;
       this.source = source;
+      this.event = event;
+      this.notifyListeners = notifyListeners;
+      this.isAsyncPropagating = false;
+      this.referenceCount = 1;
+    }
+
+    /** Drops the references held by the scope before it is put back in the pool. */
+    void reset() {
+      continuation = null;
+      span = null;
+      source = null;
+      event = null;
+    }
+
+    /** Notifies the scope listeners and starts the scope event once the scope is activated. */
+    void afterActivated() {
+      if (notifyListeners) {
+        // listeners are only ever added, indexing avoids allocating an iterator
+        final List<ScopeListener> listeners = scopeManager.scopeListeners;
+        for (int i = 0; i < listeners.size(); ++i) {
+          listeners.get(i).afterScopeActivated();
+        }
+      }
+      event.start();
+    }
+
+    @Override
+    public AgentSpan span() {
+      return span;
     }
 
     @Override
@@ -185,7 +235,7 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
       }
 
       if (null != continuation) {
-        span().context().getTrace().cancelContinuation(continuation);
+        span.context().getTrace().cancelContinuation(continuation);
       }
       scopeStack.blindPop();
 
@@ -193,6 +243,7 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
       // especially where reference counting is concerned.  Unfortunately, sorting out the
       // semantics will also require sorting out the tests which have codified the ill-behavior.
       onProperClose();
+      scopeStack.release(this);
     }
 
     /*
@@ -203,31 +254,43 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
      * I would hope this becomes unnecessary.
      */
     final void onProperClose() {
-      super.close();
+      event.finish();
+      if (notifyListeners) {
+        // listeners are only ever added, indexing avoids allocating an iterator
+        final List<ScopeListener> listeners = scopeManager.scopeListeners;
+        for (int i = 0; i < listeners.size(); ++i) {
+          listeners.get(i).afterScopeClosed();
+        }
+      }
+      /*
+       * We could check if a new span is active and call afterActivated again to maintain prior
+       * semantics, but this causes extra modifications for our primary use case -- Logging MDC
+       * updates, which have copy-on-write semantics, so the extra modifications are undesirable.
+       */
     }
 
     final void incrementReferences() {
-      referenceCount.incrementAndGet();
+      REFERENCE_COUNT.incrementAndGet(this);
     }
 
     /** Decrements ref count -- returns true if the scope is still alive */
     final boolean decrementReferences() {
-      return referenceCount.decrementAndGet() > 0;
+      return REFERENCE_COUNT.decrementAndGet(this) > 0;
     }
 
     /** Returns true if the scope is still alive (non-zero ref count) */
     final boolean alive() {
-      return referenceCount.get() > 0;
+      return referenceCount > 0;
     }
 
     @Override
     public boolean isAsyncPropagating() {
-      return isAsyncPropagating.get();
+      return isAsyncPropagating;
     }
 
     @Override
     public void setAsyncPropagation(final boolean value) {
-      isAsyncPropagating.set(value);
+      isAsyncPropagating = value;
     }
 
     /**
@@ -239,7 +302,7 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
     public ContinuableScopeManager.Continuation capture() {
       if (isAsyncPropagating()) {
         final ContinuableScopeManager.Continuation continuation =
-            new ContinuableScopeManager.Continuation(scopeManager, span(), source);
+            new ContinuableScopeManager.Continuation(scopeManager, span, source);
         return continuation.register();
       } else {
         return null;
@@ -248,14 +311,50 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
 
     @Override
     public String toString() {
-      return super.toString() + "->" + span();
+      return super.toString() + "->" + span;
     }
   }
 
   static final class ScopeStack {
+    /** Bound of the number of closed scopes kept for reuse per thread */
+    private static final int MAX_FREE_SCOPES = 32;
+
     ContinuableScope[] stack = new ContinuableScope[16];
     int topPos = 0;
 
+    private final boolean pooling;
+    private ContinuableScope free;
+    private int freeCount;
+
+    ScopeStack(final boolean pooling) {
+      this.pooling = pooling;
+    }
+
+    /** Returns a scope to activate, reusing a closed scope of this thread when possible */
+    final ContinuableScope newScope(final ContinuableScopeManager scopeManager) {
+      final ContinuableScope scope = free;
+      if (null == scope) {
+        return new ContinuableScope(scopeManager);
+      }
+      free = scope.nextFree;
+      scope.nextFree = null;
+      --freeCount;
+      return scope;
+    }
+
+    /**
+     * Makes a scope which was properly closed available for reuse. Scopes closed out of order are
+     * not reused, since they might still be closed again.
+     */
+    final void release(final ContinuableScope scope) {
+      if (pooling && freeCount < MAX_FREE_SCOPES) {
+        scope.reset();
+        scope.nextFree = free;
+        free = scope;
+        ++freeCount;
+      }
+    }
+
     /**
      * top - accesses the top of the ScopeStack making sure the Scope on-top is still active If the
      * top scope isn't active, then the stack is popped back to the top-most active Scope
@@ -391,13 +490,14 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
     @Override
     public AgentScope activate() {
       if (used.compareAndSet(false, true)) {
-        final AgentScope scope = scopeManager.handleSpan(this, spanUnderScope, source);
+        final AgentScope scope =
+            scopeManager.handleSpan(scopeManager.scopeStack(), this, spanUnderScope, source);
         log.debug("t_id={} -> activating continuation {}", spanUnderScope.getTraceId(), this);
         return scope;
       } else {
         log.debug(
             "Failed to activate continuation. Reusing a continuation not allowed. Spans may be reported separately.");
-        return scopeManager.handleSpan(null, spanUnderScope, source);
+        return scopeManager.handleSpan(scopeManager.scopeStack(), null, spanUnderScope, source);
       }
     }
 
@@ -416,9 +516,8 @@ public class ContinuableScopeManager extends ScopeInterceptor.DelegatingIntercep
     }
 
     @Override
-    public WeakReference<AgentScope.Continuation> register(final ReferenceQueue referenceQueue) {
-      ref = new WeakReference<AgentScope.Continuation>(this, referenceQueue);
-      return ref;
+    public void register(final WeakReference<AgentScope.Continuation> reference) {
+      ref = reference;
     }
 
     @Override
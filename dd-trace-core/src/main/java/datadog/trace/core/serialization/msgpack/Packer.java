@@ -55,7 +55,7 @@ public class Packer implements Writable, MessageFormatter {
   private final Codec codec;
 
   private final ByteBufferConsumer sink;
-  private final ByteBuffer buffer;
+  private ByteBuffer buffer;
   private final boolean manualReset;
   private int messageCount = 0;
 
@@ -137,6 +137,12 @@ public class Packer implements Writable, MessageFormatter {
     messageCount = 0;
   }
 
+  /** Continues packing into another buffer, leaving the current buffer untouched. */
+  public void reset(ByteBuffer buffer) {
+    this.buffer = buffer;
+    reset();
+  }
+
   @Override
   public void flush() {
     buffer.flip();
@@ -0,0 +1,176 @@
+package datadog.trace.core.taginterceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table of the tag interceptors, by matching tag.
+ *
+ * <p>The set of intercepted tags is fixed once the tracer is built, so the table is a perfect hash:
+ * a multiplier is searched for which every tag lands in its own slot, and a lookup is a single
+ * probe, even for the vast majority of tags which are not intercepted. Tags which cannot be
+ * separated (equal hash codes) fall back to linear probing.
+ */
+public final class TagInterceptors {
+  public static final TagInterceptors EMPTY =
+      new TagInterceptors(new String[0], new AbstractTagInterceptor[0][], 0, 0, 0);
+
+  private static final int MAX_BITS = 12;
+  private static final int SEEDS_PER_SIZE = 64;
+
+  /** tags in the order their first interceptor was added */
+  private final String[] tags;
+
+  private final AbstractTagInterceptor[][] interceptors;
+
+  private final String[] slotTags;
+  private final AbstractTagInterceptor[][] slotInterceptors;
+  private final int seed;
+  private final int shift;
+  private final int maxDisplacement;
+
+  private TagInterceptors(
+      final String[] tags,
+      final AbstractTagInterceptor[][] interceptors,
+      final int bits,
+      final int seed,
+      final int maxDisplacement) {
+    this.tags = tags;
+    this.interceptors = interceptors;
+    this.slotTags = new String[1 << bits];
+    this.slotInterceptors = new AbstractTagInterceptor[1 << bits][];
+    this.seed = seed;
+    this.shift = 32 - bits;
+    this.maxDisplacement = maxDisplacement;
+    final int mask = slotTags.length - 1;
+    for (int i = 0; i < tags.length; ++i) {
+      int slot = slot(tags[i]);
+      while (null != slotTags[slot]) {
+        slot = (slot + 1) & mask;
+      }
+      slotTags[slot] = tags[i];
+      slotInterceptors[slot] = interceptors[i];
+    }
+  }
+
+  public static TagInterceptors of(final List<AbstractTagInterceptor> interceptors) {
+    final Map<String, List<AbstractTagInterceptor>> byTag = new LinkedHashMap<>();
+    for (final AbstractTagInterceptor interceptor : interceptors) {
+      List<AbstractTagInterceptor> list = byTag.get(interceptor.getMatchingTag());
+      if (null == list) {
+        list = new ArrayList<>();
+        byTag.put(interceptor.getMatchingTag(), list);
+      }
+      list.add(interceptor);
+    }
+    final String[] tags = new String[byTag.size()];
+    final AbstractTagInterceptor[][] grouped = new AbstractTagInterceptor[byTag.size()][];
+    int i = 0;
+    for (final Map.Entry<String, List<AbstractTagInterceptor>> entry : byTag.entrySet()) {
+      tags[i] = entry.getKey();
+      grouped[i] = entry.getValue().toArray(new AbstractTagInterceptor[0]);
+      ++i;
+    }
+    return build(tags, grouped);
+  }
+
+  /** @return a table with the interceptor added after the existing ones for its tag */
+  public TagInterceptors with(final AbstractTagInterceptor interceptor) {
+    final List<AbstractTagInterceptor> all = new ArrayList<>();
+    for (final AbstractTagInterceptor[] group : interceptors) {
+      all.addAll(Arrays.asList(group));
+    }
+    all.add(interceptor);
+    return of(all);
+  }
+
+  /** @return the interceptors of the tag, or null if it is not intercepted */
+  public AbstractTagInterceptor[] get(final String tag) {
+    if (null == tag) {
+      return null;
+    }
+    final int mask = slotTags.length - 1;
+    int slot = slot(tag);
+    for (int i = 0; i <= maxDisplacement; ++i) {
+      final String candidate = slotTags[slot];
+      if (null == candidate) {
+        return null;
+      }
+      if (candidate == tag || candidate.equals(tag)) {
+        return slotInterceptors[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  public boolean isEmpty() {
+    return tags.length == 0;
+  }
+
+  public int size() {
+    return tags.length;
+  }
+
+  private int slot(final String tag) {
+    // the shift of a zero size table would be 32, which java reduces to 0
+    return shift == 32 ? 0 : (tag.hashCode() * seed) >>> shift;
+  }
+
+  private static TagInterceptors build(
+      final String[] tags, final AbstractTagInterceptor[][] interceptors) {
+    if (tags.length == 0) {
+      return EMPTY;
+    }
+    final int[] hashes = new int[tags.length];
+    for (int i = 0; i < tags.length; ++i) {
+      hashes[i] = tags[i].hashCode();
+    }
+    // a load factor of at most 1/2 lets a perfect hash be found after a few seeds
+    final int minBits = 33 - Integer.numberOfLeadingZeros(tags.length);
+    for (int bits = minBits; bits <= MAX_BITS; ++bits) {
+      // odd multipliers, spread by the golden ratio
+      int seed = 0x9E3779B9;
+      for (int attempt = 0; attempt < SEEDS_PER_SIZE; ++attempt, seed += 0x61C88646) {
+        if (isPerfect(hashes, bits, seed)) {
+          return new TagInterceptors(tags, interceptors, bits, seed, 0);
+        }
+      }
+    }
+    // some tags share a hash code, probe linearly from their slot
+    return new TagInterceptors(
+        tags, interceptors, minBits, 0x9E3779B9, maxDisplacement(hashes, minBits, 0x9E3779B9));
+  }
+
+  private static boolean isPerfect(final int[] hashes, final int bits, final int seed) {
+    final boolean[] used = new boolean[1 << bits];
+    for (final int hash : hashes) {
+      final int slot = (hash * seed) >>> (32 - bits);
+      if (used[slot]) {
+        return false;
+      }
+      used[slot] = true;
+    }
+    return true;
+  }
+
+  private static int maxDisplacement(final int[] hashes, final int bits, final int seed) {
+    final boolean[] used = new boolean[1 << bits];
+    final int mask = used.length - 1;
+    int max = 0;
+    for (final int hash : hashes) {
+      int slot = (hash * seed) >>> (32 - bits);
+      int displacement = 0;
+      while (used[slot]) {
+        slot = (slot + 1) & mask;
+        ++displacement;
+      }
+      used[slot] = true;
+      max = Math.max(max, displacement);
+    }
+    return max;
+  }
+}
@@ -0,0 +1,59 @@
+package datadog.trace.common.metrics
+
+import datadog.trace.util.test.DDSpecification
+
+class HistogramTest extends DDSpecification {
+
+  def "quantiles are within the relative accuracy"() {
+    setup:
+    def histogram = new Histogram()
+    def random = new Random(0)
+    def values = (1..10000).collect { (long) Math.exp(random.nextDouble() * 25) }.sort()
+    values.each { histogram.accept(it) }
+
+    expect:
+    histogram.count() == values.size()
+    [0.0d, 0.5d, 0.9d, 0.99d, 1.0d].every { quantile ->
+      long exact = values[(int) (quantile * (values.size() - 1))]
+      Math.abs(histogram.valueAtQuantile(quantile) - exact) <= exact * Histogram.RELATIVE_ACCURACY
+    }
+  }
+
+  def "merged histograms are the same as a histogram of all values"() {
+    setup:
+    def all = new Histogram()
+    def left = new Histogram()
+    def right = new Histogram()
+    [0L, 1L, 17L, 1000L, 123456L].each {
+      all.accept(it)
+      left.accept(it)
+    }
+    [5L, 1000L, 9999999L].each {
+      all.accept(it)
+      right.accept(it)
+    }
+
+    when:
+    left.merge(right)
+
+    then:
+    left.count() == all.count()
+    left.serialize() == all.serialize()
+  }
+
+  def "cleared histogram is empty"() {
+    setup:
+    def histogram = new Histogram()
+    def empty = new Histogram().serialize()
+    histogram.accept(100)
+    histogram.accept(0)
+
+    when:
+    histogram.clear()
+
+    then:
+    histogram.isEmpty()
+    histogram.serialize() == empty
+    Double.isNaN(histogram.valueAtQuantile(0.5))
+  }
+}
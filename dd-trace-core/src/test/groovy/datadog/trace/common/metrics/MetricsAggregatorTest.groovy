@@ -0,0 +1,169 @@
+package datadog.trace.common.metrics
+
+import datadog.trace.api.sampling.PrioritySampling
+import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags
+import datadog.trace.bootstrap.instrumentation.api.Tags
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.core.CoreTracer
+import datadog.trace.core.DDSpan
+import datadog.trace.core.processor.TraceProcessor
+import datadog.trace.util.test.DDSpecification
+import org.msgpack.core.MessagePack
+
+import java.nio.ByteBuffer
+
+class MetricsAggregatorTest extends DDSpecification {
+
+  def writer = new ListWriter()
+  def tracer = CoreTracer.builder().writer(writer).build()
+  def payloads = []
+  def sink = new MetricsSink() {
+    @Override
+    void accept(ByteBuffer payload) {
+      payloads.add(payload)
+    }
+  }
+
+  def cleanup() {
+    tracer?.close()
+  }
+
+  def "top level and measured spans are aggregated"() {
+    setup:
+    def aggregator = new MetricsAggregator(sink, "prod", "1.0", "runtime-id")
+    def root = tracer.buildSpan("servlet.request").withServiceName("web").withResourceName("GET /users").start()
+    root.setTag(Tags.HTTP_STATUS, 200)
+    def local = tracer.buildSpan("controller").withServiceName("web").asChildOf(root).start()
+    def measured = tracer.buildSpan("render").withServiceName("web").withResourceName("render").asChildOf(root).start()
+    measured.setTag(InstrumentationTags.DD_MEASURED, true)
+    def database = tracer.buildSpan("db.query").withServiceName("postgres").withResourceName("SELECT").asChildOf(root).start()
+    database.setError(true)
+    [database, measured, local, root]*.finish()
+    def trace = processedTrace()
+
+    when:
+    aggregator.publish(trace)
+    aggregator.publish(trace)
+
+    then:
+    aggregator.aggregateCount() == 3
+    payloads.isEmpty()
+
+    when:
+    aggregator.flush()
+
+    then:
+    aggregator.aggregateCount() == 0
+    payloads.size() == 1
+    def stats = decode(payloads[0])
+    stats.size() == 3
+    stats["web:servlet.request:GET /users"] == [hits: 2L, errors: 0L, topLevelHits: 2L, status: 200L]
+    stats["web:render:render"] == [hits: 2L, errors: 0L, topLevelHits: 0L, status: 0L]
+    stats["postgres:db.query:SELECT"] == [hits: 2L, errors: 2L, topLevelHits: 2L, status: 0L]
+  }
+
+  def "traces dropped by priority sampling are not kept unless they have errors"() {
+    setup:
+    def aggregator = new MetricsAggregator(sink, null, null, null)
+    def root = tracer.buildSpan("servlet.request").withServiceName("web").start()
+    root.setSamplingPriority(priority)
+    root.setError(error)
+    root.finish()
+
+    expect:
+    aggregator.publish(processedTrace()) == kept
+    aggregator.aggregateCount() == 1
+
+    where:
+    priority                     | error | kept
+    PrioritySampling.SAMPLER_KEEP | false | true
+    PrioritySampling.USER_KEEP    | false | true
+    PrioritySampling.SAMPLER_DROP | false | false
+    PrioritySampling.USER_DROP    | false | false
+    PrioritySampling.SAMPLER_DROP | true  | true
+  }
+
+  def "aggregates are flushed once the bucket is over"() {
+    setup:
+    def aggregator = new MetricsAggregator(sink, null, null, null, 0)
+    def root = tracer.buildSpan("servlet.request").withServiceName("web").start()
+    root.finish()
+    aggregator.publish(processedTrace())
+
+    when:
+    aggregator.flushIfDue()
+
+    then:
+    payloads.size() == 1
+    aggregator.aggregateCount() == 0
+  }
+
+  def "empty buckets are not flushed"() {
+    setup:
+    def aggregator = new MetricsAggregator(sink, null, null, null, 0)
+
+    when:
+    aggregator.flushIfDue()
+    aggregator.flush()
+
+    then:
+    payloads.isEmpty()
+  }
+
+  List<DDSpan> processedTrace() {
+    writer.waitForTraces(1)
+    def trace = writer.firstTrace()
+    writer.clear()
+    // the rules of the trace processor run before the stats are aggregated
+    return new TraceProcessor().onTraceComplete(trace)
+  }
+
+  static Map<String, Map> decode(ByteBuffer payload) {
+    def unpacker = MessagePack.newDefaultUnpacker(payload)
+    def stats = [:]
+    int fields = unpacker.unpackMapHeader()
+    for (int i = 0; i < fields; ++i) {
+      if (unpacker.unpackString() != "Stats") {
+        unpacker.skipValue()
+        continue
+      }
+      assert unpacker.unpackArrayHeader() == 1
+      int bucketFields = unpacker.unpackMapHeader()
+      for (int j = 0; j < bucketFields; ++j) {
+        if (unpacker.unpackString() != "Stats") {
+          unpacker.skipValue()
+          continue
+        }
+        int count = unpacker.unpackArrayHeader()
+        for (int k = 0; k < count; ++k) {
+          def group = [:]
+          int groupFields = unpacker.unpackMapHeader()
+          for (int l = 0; l < groupFields; ++l) {
+            def key = unpacker.unpackString()
+            switch (key) {
+              case "Service":
+              case "Name":
+              case "Resource":
+              case "Type":
+                group[key] = unpacker.unpackString()
+                break
+              case "OkSummary":
+              case "ErrorSummary":
+                unpacker.readPayload(unpacker.unpackBinaryHeader())
+                break
+              default:
+                group[key] = unpacker.unpackLong()
+            }
+          }
+          stats["${group.Service}:${group.Name}:${group.Resource}".toString()] = [
+            hits        : group.Hits,
+            errors      : group.Errors,
+            topLevelHits: group.TopLevelHits,
+            status      : group.HTTPStatusCode
+          ]
+        }
+      }
+    }
+    return stats
+  }
+}
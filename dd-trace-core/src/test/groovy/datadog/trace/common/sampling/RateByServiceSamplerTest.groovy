@@ -9,8 +9,6 @@ import datadog.trace.core.DDSpanContext
 import datadog.trace.core.SpanFactory
 import datadog.trace.util.test.DDSpecification
 
-import static datadog.trace.common.sampling.RateByServiceSampler.DEFAULT_KEY
-
 class RateByServiceSamplerTest extends DDSpecification {
   static serializer = DDAgentApi.RESPONSE_ADAPTER
 
@@ -20,7 +18,7 @@ class RateByServiceSamplerTest extends DDSpecification {
     String response = '{"rate_by_service": {"service:,env:":' + rate + '}}'
     serviceSampler.onResponse("traces", serializer.fromJson(response))
     expect:
-    serviceSampler.serviceRates[DEFAULT_KEY].sampleRate == expectedRate
+    serviceSampler.serviceRates.getSampler("", "").sampleRate == expectedRate
 
     where:
     rate | expectedRate
@@ -55,6 +53,32 @@ class RateByServiceSamplerTest extends DDSpecification {
     serviceSampler.sample(span2)
   }
 
+  def "rates are looked up by service and env"() {
+    setup:
+    RateByServiceSampler serviceSampler = new RateByServiceSampler()
+    String response = '{"rate_by_service": {' +
+      '"service:,env:":0.1, ' +
+      '"service:spock,env:":0.2, ' +
+      '"service:spock,env:test":0.3, ' +
+      '"service:other,env:prod":0.4, ' +
+      '"unexpected":0.5}}'
+    serviceSampler.onResponse("traces", serializer.fromJson(response))
+
+    expect:
+    serviceSampler.serviceRates.getSampler(service, env).sampleRate == expectedRate
+
+    where:
+    service | env     | expectedRate
+    ""      | ""      | 0.1
+    "spock" | ""      | 0.2
+    "spock" | "test"  | 0.3
+    "spock" | "prod"  | 0.1
+    "other" | "prod"  | 0.4
+    "other" | "test"  | 0.1
+    "none"  | ""      | 0.1
+    null    | ""      | 0.1
+  }
+
   def "sampling priority set on context"() {
     setup:
     RateByServiceSampler serviceSampler = new RateByServiceSampler()
@@ -0,0 +1,146 @@
+package datadog.trace.common.sampling
+
+import datadog.trace.util.test.DDSpecification
+
+import java.util.concurrent.TimeUnit
+
+class TokenBucketRateLimiterTest extends DDSpecification {
+
+  static final long SECOND = TimeUnit.SECONDS.toNanos(1)
+
+  def "only the first permit is available right away"() {
+    setup:
+    def limiter = new ManualClockRateLimiter(rate)
+
+    expect:
+    limiter.tryAcquire()
+    !limiter.tryAcquire()
+
+    where:
+    rate << [1, 10, 1000]
+  }
+
+  def "permits refill at the configured rate"() {
+    setup:
+    def limiter = new ManualClockRateLimiter(10)
+    limiter.tryAcquire()
+
+    when:
+    limiter.now += SECOND.intdiv(10)
+
+    then:
+    limiter.tryAcquire()
+    !limiter.tryAcquire()
+  }
+
+  def "bursts are limited to one second worth of permits"() {
+    setup:
+    def limiter = new ManualClockRateLimiter(10)
+
+    when:
+    limiter.now += 60 * SECOND
+    def acquired = 0
+    100.times {
+      if (limiter.tryAcquire()) {
+        acquired++
+      }
+    }
+
+    then:
+    acquired == 10
+  }
+
+  def "a non positive rate never lets requests through"() {
+    setup:
+    def limiter = new ManualClockRateLimiter(rate)
+
+    expect:
+    !limiter.tryAcquire()
+
+    where:
+    rate << [0, -1]
+  }
+
+  def "effective rate is the fraction of requests let through during the last second"() {
+    setup:
+    def limiter = new ManualClockRateLimiter(10)
+
+    expect:
+    limiter.getEffectiveRate() == 1.0
+
+    when:
+    limiter.now += 60 * SECOND
+    limiter.getEffectiveRate()
+    40.times {
+      limiter.tryAcquire()
+    }
+    limiter.now += SECOND
+
+    then:
+    limiter.getEffectiveRate() == 0.25
+  }
+
+  def "effective rate is published once per second"() {
+    setup:
+    def limiter = new ManualClockRateLimiter(10)
+    limiter.now += 60 * SECOND
+    limiter.getEffectiveRate()
+    limiter.published.clear()
+
+    when:
+    20.times {
+      limiter.tryAcquire()
+    }
+
+    then:
+    limiter.published == []
+
+    when:
+    limiter.now += SECOND
+    limiter.tryAcquire()
+    limiter.tryAcquire()
+
+    then:
+    limiter.published == [0.5d]
+  }
+
+  def "requests are counted across threads"() {
+    setup:
+    def limiter = new ManualClockRateLimiter(1)
+    limiter.now += 60 * SECOND
+    limiter.getEffectiveRate()
+
+    when:
+    def threads = (1..8).collect {
+      Thread.start {
+        10.times {
+          limiter.tryAcquire()
+        }
+      }
+    }
+    threads*.join()
+    limiter.now += SECOND
+
+    then:
+    limiter.getEffectiveRate() == 1d / 80
+  }
+
+  static class ManualClockRateLimiter extends TokenBucketRateLimiter {
+    long now
+    List<Double> published = []
+
+    ManualClockRateLimiter(double rate) {
+      super(rate)
+    }
+
+    @Override
+    long nanoTime() {
+      return now
+    }
+
+    @Override
+    void onEffectiveRate(double effectiveRate) {
+      published.add(effectiveRate)
+    }
+  }
+}
@@ -82,6 +82,83 @@ class DDAgentApiTest extends DDSpecification {
     "v0.3/traces" | TraceMapperV0_4
   }
 
+  def "stats are only computed once the agent info lists the stats endpoint"() {
+    setup:
+    def agent = httpServer {
+      handlers {
+        put("v0.5/traces") {
+          response.status(200).send()
+        }
+        get("info") {
+          if (info == null) {
+            response.status(404).send()
+          } else {
+            response.status(200).send(info)
+          }
+        }
+      }
+    }
+    def client = new DDAgentApi("localhost", agent.address.port, null, 1000, enabled)
+
+    expect:
+    client.isStatsComputationEnabled() == enabled
+    !client.clientComputesStats()
+
+    when:
+    client.selectTraceMapper()
+
+    then:
+    client.clientComputesStats() == expected
+
+    cleanup:
+    agent.close()
+
+    where:
+    enabled | info                                           | expected
+    true    | '{"endpoints":["/v0.4/traces","/v0.6/stats"]}' | true
+    true    | '{"endpoints":["/v0.4/traces"]}'               | false
+    true    | null                                           | false
+    false   | '{"endpoints":["/v0.4/traces","/v0.6/stats"]}' | false
+  }
+
+  def "stats are sent from #bufferType buffers"() {
+    setup:
+    def agent = httpServer {
+      handlers {
+        put("v0.5/traces") {
+          response.status(200).send()
+        }
+        put("v0.6/stats") {
+          response.status(200).send()
+        }
+      }
+    }
+    def client = new DDAgentApi("localhost", agent.address.port, null, 1000)
+    byte[] bytes = [1, 2, 3, 4, 5]
+    def stats = factory(bytes.length)
+    stats.put(bytes)
+    stats.flip()
+    stats.position(1)
+
+    when:
+    def response = client.sendSerializedStats(readOnly ? stats.asReadOnlyBuffer() : stats)
+
+    then:
+    response.success()
+    agent.getLastRequest().path == "/v0.6/stats"
+    agent.getLastRequest().body == [2, 3, 4, 5] as byte[]
+    stats.position() == 1
+
+    cleanup:
+    agent.close()
+
+    where:
+    bufferType  | factory                                         | readOnly
+    "heap"      | { int size -> ByteBuffer.allocate(size) }       | false
+    "direct"    | { int size -> ByteBuffer.allocateDirect(size) } | false
+    "read-only" | { int size -> ByteBuffer.allocate(size) }       | true
+  }
+
   def "non-200 response"() {
     setup:
     def agent = httpServer {
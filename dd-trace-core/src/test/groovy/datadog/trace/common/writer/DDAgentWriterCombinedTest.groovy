@@ -149,7 +149,10 @@ class DDAgentWriterCombinedTest extends DDSpecification {
     1 * api.detectEndpointAndBuildClient() >> agentVersion
     1 * api.selectTraceMapper() >> { callRealMethod() }
     1 * monitor.onSerialize(_)
+    _ * monitor.onEncodingCache(_, _, _)
+    1 * monitor.onPayloadQueued(_)
     1 * api.sendSerializedTraces({ it.traceCount() == 5 && it.representativeCount() == 5 }) >> DDAgentApi.Response.success(200)
+    1 * monitor.onPayloadSent(_)
     _ * monitor.onPublish(_)
     1 * monitor.onSend(_, _, _) >> {
       phaser.arrive()
@@ -191,7 +194,8 @@ class DDAgentWriterCombinedTest extends DDSpecification {
 
     then:
     1 * api.detectEndpointAndBuildClient() >> agentVersion
-    1 * api.selectTraceMapper() >> { callRealMethod() }
+    // the second payload is serialized into a second buffer while the first is sent
+    2 * api.selectTraceMapper() >> { callRealMethod() }
     1 * api.sendSerializedTraces({ it.traceCount() == maxedPayloadTraceCount && it.representativeCount() == maxedPayloadTraceCount }) >> DDAgentApi.Response.success(200)
     1 * api.sendSerializedTraces({ it.traceCount() == 1 && it.representativeCount() == 1 }) >> DDAgentApi.Response.success(200)
     0 * _
@@ -297,6 +301,7 @@ class DDAgentWriterCombinedTest extends DDSpecification {
     then:
     1 * monitor.onPublish(minimalTrace)
     1 * monitor.onSerialize(_)
+    _ * monitor.onEncodingCache(_, _, _)
     1 * monitor.onFlush(false)
     1 * monitor.onSend(1, _, { response -> response.success() && response.status() == 200 })
 
@@ -347,6 +352,7 @@ class DDAgentWriterCombinedTest extends DDSpecification {
     then:
     1 * monitor.onPublish(minimalTrace)
     1 * monitor.onSerialize(_)
+    _ * monitor.onEncodingCache(_, _, _)
     1 * monitor.onFlush(false)
     1 * monitor.onFailedSend(1, _, { response -> !response.success() && response.status() == 500 })
 
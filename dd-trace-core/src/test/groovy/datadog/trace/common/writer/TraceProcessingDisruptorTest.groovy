@@ -71,6 +71,9 @@ class TraceProcessingDisruptorTest extends DDSpecification {
     1 * payload.sizeInBytes() >> payloadSize
     1 * api.sendSerializedTraces(payload) >> response
     1 * monitor.onSerialize(payloadSize)
+    1 * traceMapper.report(monitor)
+    1 * monitor.onPayloadQueued(_)
+    1 * monitor.onPayloadSent(_)
     1 * monitor.onSend(2, payloadSize, response)
     1 * traceMapper.reset()
     0 * _
@@ -116,6 +119,9 @@ class TraceProcessingDisruptorTest extends DDSpecification {
     1 * payload.sizeInBytes() >> payloadSize
     1 * api.sendSerializedTraces(payload) >> response
     1 * monitor.onSerialize(payloadSize)
+    1 * traceMapper.report(monitor)
+    1 * monitor.onPayloadQueued(_)
+    1 * monitor.onPayloadSent(_)
     1 * monitor.onFailedSend(2, payloadSize, response)
     1 * traceMapper.reset()
     0 * _
@@ -129,6 +135,54 @@ class TraceProcessingDisruptorTest extends DDSpecification {
     payloadSize = 1000
   }
 
+  def "test traces are spread across serializer threads"() {
+    setup:
+    def disruptor = new TraceProcessingDisruptor(
+      DISRUPTOR_BUFFER_SIZE,
+      serializerThreads,
+      monitor,
+      api,
+      -1,
+      SECONDS,
+      false)
+    disruptor.start()
+
+    when:
+    (1..serializerThreads * tracesPerThread).each {
+      assert disruptor.publish(trace, 1)
+    }
+    assert disruptor.flush(1, SECONDS)
+
+    then:
+    serializerThreads * api.selectTraceMapper() >> traceMapper
+    serializerThreads * traceMapper.messageBufferSize() >> (1 << 20)
+    (serializerThreads * tracesPerThread) * traceMapper.map(trace, _)
+    serializerThreads * traceMapper.newPayload() >> payload
+    serializerThreads * payload.withRepresentativeCount(tracesPerThread) >> payload
+    serializerThreads * payload.withBody(tracesPerThread, _) >> payload
+    serializerThreads * payload.sizeInBytes() >> payloadSize
+    serializerThreads * api.sendSerializedTraces(payload) >> response
+    serializerThreads * monitor.onSerialize(payloadSize)
+    serializerThreads * traceMapper.report(monitor)
+    serializerThreads * monitor.onPayloadQueued(_)
+    serializerThreads * monitor.onPayloadSent(_)
+    serializerThreads * monitor.onSend(tracesPerThread, payloadSize, response)
+    serializerThreads * traceMapper.reset()
+    0 * _
+
+    cleanup:
+    disruptor.close()
+
+    where:
+    serializerThreads | tracesPerThread
+    2                 | 3
+    4                 | 2
+
+    trace = [newSpanOf(0, "fixed-thread-name")]
+    response = DDAgentApi.Response.success(200)
+    payloadSize = 1000
+  }
+
   def "test flood of traces"() {
     setup:
     def disruptor = new TraceProcessingDisruptor(
@@ -156,6 +210,9 @@ class TraceProcessingDisruptorTest extends DDSpecification {
     1 * payload.sizeInBytes() >> payloadSize
     1 * api.sendSerializedTraces(payload) >> response
     1 * monitor.onSerialize(payloadSize)
+    1 * traceMapper.report(monitor)
+    1 * monitor.onPayloadQueued(_)
+    1 * monitor.onPayloadSent(_)
     1 * monitor.onSend({ it > 10 }, payloadSize, response)
     1 * traceMapper.reset()
     0 * _
@@ -198,10 +255,14 @@ class TraceProcessingDisruptorTest extends DDSpecification {
     1 * payload.sizeInBytes() >> payloadSize
     1 * api.sendSerializedTraces(payload) >> response
     1 * monitor.onSerialize(payloadSize)
-    1 * monitor.onSend(_, _, _) >> {
+    1 * traceMapper.report(monitor)
+    1 * monitor.onPayloadQueued(_)
+    1 * monitor.onPayloadSent(_)
+    1 * monitor.onSend(_, _, _)
+    // buffers are released to the serializer once everything else is done
+    1 * traceMapper.reset() >> {
       phaser.arrive()
     }
-    1 * traceMapper.reset()
     0 * _
 
     cleanup:
@@ -240,6 +301,7 @@ class TraceProcessingDisruptorTest extends DDSpecification {
     then:
 //    1 * api.sendSerializedTraces(_, _, _) >> response
     1 * monitor.onSerialize({ it > 1000 })
+    1 * traceMapper.report(monitor)
 //    1 * monitor.onSend(maxedPayloadTraceCount, _, response)
     0 * _
 
@@ -249,6 +311,7 @@ class TraceProcessingDisruptorTest extends DDSpecification {
     then:
     1 * api.sendSerializedTraces({ it == 1 }, { it == 1 }, _) >> response
     1 * monitor.onSerialize({ it > 100 })
+    1 * traceMapper.report(monitor)
     1 * monitor.onSend(1, _, response)
     0 * _
 
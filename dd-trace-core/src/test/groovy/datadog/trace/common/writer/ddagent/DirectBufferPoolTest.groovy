@@ -0,0 +1,60 @@
+package datadog.trace.common.writer.ddagent
+
+import datadog.trace.util.test.DDSpecification
+
+import java.nio.ByteBuffer
+
+class DirectBufferPoolTest extends DDSpecification {
+
+  def pool = new DirectBufferPool(2)
+
+  def "acquired buffers are direct and cleared"() {
+    setup:
+    def released = pool.acquire(64)
+    released.put(new byte[10])
+    released.limit(20)
+    pool.release(released)
+
+    when:
+    def buffer = pool.acquire(64)
+
+    then:
+    buffer.is(released)
+    buffer.isDirect()
+    buffer.position() == 0
+    buffer.limit() == 64
+    pool.pooled(64) == 0
+  }
+
+  def "buffers are pooled by capacity"() {
+    setup:
+    def small = pool.acquire(64)
+    def large = pool.acquire(128)
+    pool.release(small)
+    pool.release(large)
+
+    expect:
+    pool.acquire(128).is(large)
+    pool.acquire(64).is(small)
+    !pool.acquire(64).is(small)
+  }
+
+  def "at most the configured number of buffers are pooled"() {
+    setup:
+    def buffers = (1..3).collect { pool.acquire(64) }
+
+    when:
+    buffers.each { pool.release(it) }
+
+    then:
+    pool.pooled(64) == 2
+  }
+
+  def "heap buffers are not pooled"() {
+    when:
+    pool.release(ByteBuffer.allocate(64))
+
+    then:
+    pool.pooled(64) == 0
+  }
+}
@@ -0,0 +1,108 @@
+package datadog.trace.common.writer.ddagent
+
+import datadog.trace.api.DDId
+import datadog.trace.core.monitor.Monitor
+import datadog.trace.core.serialization.msgpack.ByteBufferConsumer
+import datadog.trace.core.serialization.msgpack.Packer
+import datadog.trace.util.test.DDSpecification
+
+import java.nio.ByteBuffer
+
+import static java.nio.charset.StandardCharsets.UTF_8
+
+class EncodedStringCacheTest extends DDSpecification {
+
+  def "encodes strings to UTF-8"() {
+    setup:
+    def cache = new EncodedStringCache(16, 64)
+
+    expect:
+    cache.encode(string, true) == string.getBytes(UTF_8)
+    cache.encode(new String(string), false).is(cache.encode(string, true))
+
+    where:
+    string << ["", "servlet.request", "requête", "データ", "😀"]
+  }
+
+  def "strings which are not admitted are only looked up"() {
+    setup:
+    def cache = new EncodedStringCache(1, 64)
+    def monitor = Mock(Monitor)
+
+    when:
+    cache.encode("service", true)
+    def unique = cache.encode("unique", false)
+    def service = cache.encode("service", false)
+    cache.report(monitor)
+
+    then:
+    unique == null
+    service == "service".getBytes(UTF_8)
+    cache.isCached("service")
+    !cache.isCached("unique")
+    1 * monitor.onEncodingCache(1, 2, 0)
+  }
+
+  def "admitted strings mapping to the same slot evict each other"() {
+    setup:
+    def cache = new EncodedStringCache(1, 64)
+    def monitor = Mock(Monitor)
+
+    when:
+    cache.encode("first", true)
+    def second = cache.encode("second", true)
+    cache.report(monitor)
+
+    then:
+    second == "second".getBytes(UTF_8)
+    cache.isCached("second")
+    !cache.isCached("first")
+    1 * monitor.onEncodingCache(0, 2, 1)
+
+    when:
+    cache.encode("second", true)
+    cache.report(monitor)
+
+    then:
+    1 * monitor.onEncodingCache(1, 0, 0)
+  }
+
+  def "long strings are not cached"() {
+    setup:
+    def cache = new EncodedStringCache(16, 30)
+
+    expect:
+    cache.encode("a" * 11, true) == null
+    cache.encode("a" * 10, true) == ("a" * 10).getBytes(UTF_8)
+    !cache.isCached("a" * 11)
+    cache.isCached("a" * 10)
+  }
+
+  def "cached encodings survive resetting the mapper"() {
+    setup:
+    def mapper = new TraceMapperV0_5()
+    def span = new TraceGenerator.PojoSpan(
+      "my-service", "my-operation", "my-resource",
+      DDId.from(1), DDId.from(1), DDId.ZERO, 0, 100, 0,
+      ["metric.1": 1], ["baggage.1": "value.1"], ["tag.1": "value.2"], "type")
+    def packer = new Packer(new ByteBufferConsumer() {
+        @Override
+        void accept(int messageCount, ByteBuffer buffer) {}
+      }, ByteBuffer.allocate(1 << 20))
+
+    when:
+    packer.format([span], mapper)
+    mapper.reset()
+    packer.format([span], mapper)
+
+    then:
+    mapper.getEncodingCache().isCached("my-service")
+    mapper.getEncodingCache().isCached("my-operation")
+    mapper.getEncodingCache().isCached("my-resource")
+    mapper.getEncodingCache().isCached("tag.1")
+    !mapper.getEncodingCache().isCached("value.2")
+
+    cleanup:
+    mapper.close()
+  }
+}
@@ -0,0 +1,85 @@
+package datadog.trace.common.writer.ddagent
+
+import datadog.trace.core.serialization.msgpack.ByteBufferConsumer
+import datadog.trace.core.serialization.msgpack.Packer
+import datadog.trace.util.test.DDSpecification
+import okio.Buffer
+
+import java.nio.ByteBuffer
+import java.nio.channels.WritableByteChannel
+
+import static datadog.trace.common.writer.ddagent.TraceGenerator.generateRandomTraces
+
+class PayloadTest extends DDSpecification {
+
+  def "payload is written straight into the request sink"() {
+    setup:
+    def payload = serialize(mapper)
+    def sink = new Buffer()
+    def channel = new CapturingChannel()
+
+    when:
+    payload.writeTo(sink)
+    payload.writeTo(channel)
+
+    then:
+    sink.size() == payload.sizeInBytes()
+    sink.readByteArray() == channel.captured.toByteArray()
+
+    where:
+    mapper << [new TraceMapperV0_4(), new TraceMapperV0_5()]
+  }
+
+  def "payload can be written more than once"() {
+    setup:
+    def payload = serialize(mapper)
+    def first = new CapturingChannel()
+    def second = new CapturingChannel()
+
+    when:
+    payload.writeTo(first)
+    payload.writeTo(second)
+
+    then:
+    first.captured.size() == payload.sizeInBytes()
+    first.captured.toByteArray() == second.captured.toByteArray()
+
+    where:
+    mapper << [new TraceMapperV0_4(), new TraceMapperV0_5()]
+  }
+
+  static Payload serialize(TraceMapper mapper) {
+    def traces = generateRandomTraces(10, true)
+    Payload[] payload = new Payload[1]
+    def packer = new Packer(new ByteBufferConsumer() {
+        @Override
+        void accept(int messageCount, ByteBuffer body) {
+          payload[0] = mapper.newPayload().withBody(messageCount, body)
+        }
+      }, ByteBuffer.allocateDirect(100 << 10))
+    traces.each { packer.format(it, mapper) }
+    packer.flush()
+    return payload[0]
+  }
+
+  static class CapturingChannel implements WritableByteChannel {
+    final ByteArrayOutputStream captured = new ByteArrayOutputStream()
+
+    @Override
+    int write(ByteBuffer src) {
+      int written = src.remaining()
+      while (src.hasRemaining()) {
+        captured.write(src.get())
+      }
+      return written
+    }
+
+    @Override
+    boolean isOpen() {
+      return true
+    }
+
+    @Override
+    void close() {}
+  }
+}
@@ -2,6 +2,7 @@ package datadog.trace.common.writer.ddagent
 
 import datadog.trace.api.DDId
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString
+import datadog.trace.core.Baggage
 import datadog.trace.core.DDSpanData
 import datadog.trace.core.TagsAndBaggageConsumer
 
@@ -167,7 +168,7 @@ class TraceGenerator {
 
     @Override
     void processTagsAndBaggage(TagsAndBaggageConsumer consumer) {
-      consumer.accept(tags, baggage)
+      consumer.accept(tags, Baggage.of(baggage))
     }
   }
 }
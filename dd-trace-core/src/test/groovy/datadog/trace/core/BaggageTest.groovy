@@ -0,0 +1,95 @@
+package datadog.trace.core
+
+import datadog.trace.util.test.DDSpecification
+
+class BaggageTest extends DDSpecification {
+
+  def "behaves like a map"() {
+    setup:
+    def expected = [:]
+    count.times {
+      expected.put("key" + it, "value" + it)
+    }
+
+    when:
+    def baggage = Baggage.of(expected)
+
+    then:
+    baggage == expected
+    baggage.size() == count
+    baggage.isEmpty() == (count == 0)
+    count.times {
+      assert baggage.get("key" + it) == "value" + it
+      assert baggage.containsKey("key" + it)
+    }
+    !baggage.containsKey("missing")
+    baggage.get("missing") == null
+
+    where:
+    count << [0, 1, 5, 50]
+  }
+
+  def "iterates by index"() {
+    setup:
+    def baggage = Baggage.EMPTY.with("a", "1").with("b", "2")
+
+    expect:
+    baggage.size() == 2
+    baggage.key(0) == "a"
+    baggage.value(0) == "1"
+    baggage.key(1) == "b"
+    baggage.value(1) == "2"
+  }
+
+  def "setting an item copies the baggage"() {
+    setup:
+    def baggage = Baggage.EMPTY.with("key", "first")
+
+    when:
+    def replaced = baggage.with("key", "second")
+    def added = baggage.with("other", "value")
+
+    then:
+    baggage == [key: "first"]
+    replaced == [key: "second"]
+    added == [key: "first", other: "value"]
+  }
+
+  def "setting an unchanged item keeps the baggage"() {
+    setup:
+    def baggage = Baggage.EMPTY.with("key", "value")
+
+    expect:
+    baggage.with("key", new String("value")).is(baggage)
+  }
+
+  def "baggage is shared as is"() {
+    setup:
+    def baggage = Baggage.EMPTY.with("key", "value")
+
+    expect:
+    Baggage.of(baggage).is(baggage)
+    Baggage.of(null).is(Baggage.EMPTY)
+    Baggage.of([:]).is(Baggage.EMPTY)
+  }
+
+  def "baggage is immutable"() {
+    setup:
+    def baggage = Baggage.EMPTY.with("key", "value")
+
+    when:
+    baggage.put("other", "value")
+
+    then:
+    thrown(UnsupportedOperationException)
+
+    when:
+    baggage.entrySet().iterator().with {
+      next()
+      remove()
+    }
+
+    then:
+    thrown(UnsupportedOperationException)
+  }
+}
@@ -260,6 +260,29 @@ class CoreSpanBuilderTest extends DDSpecification {
     span.context().getSpanType() == expectedChildType
   }
 
+  def "children share the baggage of their parent until they set an item"() {
+    setup:
+    final DDSpan parent = tracer.buildSpan("parent").start()
+    parent.setBaggageItem("key", "value")
+
+    when:
+    final DDSpan child = tracer.buildSpan("child").asChildOf(parent).start()
+
+    then:
+    child.context().baggage.is(parent.context().baggage)
+
+    when:
+    child.setBaggageItem("other", "value")
+
+    then:
+    child.context().baggageItems == [key: "value", other: "value"]
+    parent.context().baggageItems == [key: "value"]
+
+    cleanup:
+    child.finish()
+    parent.finish()
+  }
+
   def "should track all spans in trace"() {
     setup:
     List<DDSpan> spans = []
@@ -359,4 +382,19 @@ class CoreSpanBuilderTest extends DDSpecification {
     "a:a,a:b,a:c" | [a: "c"]
     "a:1,b-c:d"   | [a: "1", "b-c": "d"]
   }
+
+  def "global span tags override the tags set by spans"() {
+    setup:
+    System.setProperty("dd.trace.span.tags", "$THREAD_NAME:configured-thread,$ORIGIN_KEY:configured-origin")
+    tracer = CoreTracer.builder().config(new Config()).writer(writer).build()
+    def span = tracer.buildSpan("op name").withServiceName("foo").start()
+
+    expect:
+    span.tags[THREAD_NAME] == "configured-thread"
+    span.tags[ORIGIN_KEY] == "configured-origin"
+    span.tags[THREAD_ID] == Thread.currentThread().getId()
+
+    cleanup:
+    System.clearProperty("dd.trace.span.tags")
+  }
 }
@@ -12,6 +12,9 @@ import java.lang.ref.WeakReference
 import java.util.concurrent.TimeUnit
 
 import static datadog.trace.api.config.TracerConfig.PARTIAL_FLUSH_MIN_SPANS
+import static datadog.trace.api.config.TracerConfig.PENDING_TRACE_MAX_AGE
+import static datadog.trace.api.config.TracerConfig.SPAN_BUFFER_ENABLED
+import static datadog.trace.api.config.TracerConfig.SPAN_LEAK_DETECTION_ENABLED
 
 class PendingTraceTest extends DDSpecification {
 
@@ -117,7 +120,7 @@ class PendingTraceTest extends DDSpecification {
     child = null
     GCUtils.awaitGC(childRef)
     while (trace.pendingReferenceCount.get() > 0) {
-      trace.clean()
+      PendingTrace.SPAN_CLEANER.get().drain()
     }
 
     then:
@@ -148,7 +151,7 @@ class PendingTraceTest extends DDSpecification {
     when:
     GCUtils.awaitGC(continuationRef)
     while (trace.pendingReferenceCount.get() > 0) {
-      trace.clean()
+      PendingTrace.SPAN_CLEANER.get().drain()
     }
 
     then:
@@ -307,4 +310,183 @@ class PendingTraceTest extends DDSpecification {
     writer == [[child2, child1], [rootSpan]]
     writer.traceCount.get() == 2
   }
+
+  def "span buffer writes spans most recently finished first"() {
+    setup:
+    def properties = new Properties()
+    properties.setProperty(SPAN_BUFFER_ENABLED, "true")
+    def tracer = CoreTracer.builder().config(Config.get(properties)).writer(writer).build()
+    def trace = PendingTrace.create(tracer, traceId)
+    def rootSpan = SpanFactory.newSpanOf(trace)
+    def child1 = tracer.buildSpan("child1").asChildOf(rootSpan).start()
+    def child2 = tracer.buildSpan("child2").asChildOf(rootSpan).start()
+
+    when:
+    child1.finish()
+    child2.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 1
+    trace.size() == 2
+    trace.asList() == []
+    writer == []
+
+    when:
+    rootSpan.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 0
+    trace.size() == 0
+    writer == [[rootSpan, child2, child1]]
+    writer.traceCount.get() == 1
+  }
+
+  def "partial flush with span buffer"() {
+    setup:
+    def properties = new Properties()
+    properties.setProperty(PARTIAL_FLUSH_MIN_SPANS, "1")
+    properties.setProperty(SPAN_BUFFER_ENABLED, "true")
+    def tracer = CoreTracer.builder().config(Config.get(properties)).writer(writer).build()
+    def trace = PendingTrace.create(tracer, traceId)
+    def rootSpan = SpanFactory.newSpanOf(trace)
+    def child1 = tracer.buildSpan("child1").asChildOf(rootSpan).start()
+    def child2 = tracer.buildSpan("child2").asChildOf(rootSpan).start()
+
+    when:
+    rootSpan.finish()
+    child1.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 1
+    trace.size() == 1
+    writer == [[child1]]
+
+    when:
+    child2.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 0
+    writer == [[child1], [child2, rootSpan]]
+    writer.traceCount.get() == 2
+  }
+
+  def "spans are counted without weak references when leak detection is disabled"() {
+    setup:
+    def properties = new Properties()
+    properties.setProperty(SPAN_LEAK_DETECTION_ENABLED, "false")
+    def tracer = CoreTracer.builder().config(Config.get(properties)).writer(writer).build()
+    def trace = PendingTrace.create(tracer, traceId)
+
+    when:
+    def rootSpan = SpanFactory.newSpanOf(trace)
+    def child = tracer.buildSpan("child").asChildOf(rootSpan).start()
+
+    then:
+    trace.pendingReferenceCount.get() == 2
+    trace.weakSpans.size() == 0
+    rootSpan.ref == null
+    !PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+
+    when:
+    child.finish()
+    rootSpan.finish()
+
+    then:
+    trace.pendingReferenceCount.get() == 0
+    writer == [[rootSpan, child]]
+  }
+
+  def "traces without leak detection stay tracked while a max age is set"() {
+    setup:
+    def properties = new Properties()
+    properties.setProperty(SPAN_LEAK_DETECTION_ENABLED, "false")
+    properties.setProperty(PENDING_TRACE_MAX_AGE, "1")
+    def tracer = CoreTracer.builder().config(Config.get(properties)).writer(writer).build()
+    def trace = PendingTrace.create(tracer, traceId)
+    def rootSpan = SpanFactory.newSpanOf(trace)
+    def child = tracer.buildSpan("child").asChildOf(rootSpan).start()
+    child.finish()
+
+    expect:
+    trace.weakSpans.size() == 0
+    PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+
+    when:
+    PendingTrace.SPAN_CLEANER.get().drain()
+
+    then:
+    PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+    writer == []
+
+    when:
+    Thread.sleep(1100)
+
+    then:
+    PendingTrace.SPAN_CLEANER.get().visit(trace, 0) == 0
+    writer == [[child]]
+    !PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+  }
+
+  def "trace pending for longer than max age is written as partial trace"() {
+    setup:
+    def properties = new Properties()
+    properties.setProperty(PENDING_TRACE_MAX_AGE, "1")
+    def tracer = CoreTracer.builder().config(Config.get(properties)).writer(writer).build()
+    def trace = PendingTrace.create(tracer, traceId)
+    def rootSpan = SpanFactory.newSpanOf(trace)
+    def child = tracer.buildSpan("child").asChildOf(rootSpan).start()
+    child.finish()
+
+    expect:
+    PendingTrace.SPAN_CLEANER.get().visit(trace, 0) == 1
+    writer == []
+
+    when:
+    Thread.sleep(1100)
+
+    then:
+    PendingTrace.SPAN_CLEANER.get().visit(trace, 0) == 0
+    trace.isWritten.get()
+    writer == [[child]]
+    !PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+
+    when:
+    rootSpan.finish()
+
+    then:
+    writer == [[child]]
+  }
+
+  def "traces without a max age are not visited again while pending"() {
+    setup:
+    def child = tracer.buildSpan("child").asChildOf(rootSpan).start()
+
+    expect:
+    PendingTrace.SPAN_CLEANER.get().visit(trace, visits) == PendingTraceWheel.NO_DEADLINE
+    PendingTrace.SPAN_CLEANER.get().pendingTraces.contains(trace)
+    writer == []
+
+    cleanup:
+    child.finish()
+    rootSpan.finish()
+
+    where:
+    visits << [0, 1, 5, 10]
+  }
+
+  def "traces with a max age are visited again when it expires"() {
+    setup:
+    def properties = new Properties()
+    properties.setProperty(PENDING_TRACE_MAX_AGE, "3600")
+    def tracer = CoreTracer.builder().config(Config.get(properties)).writer(writer).build()
+    def trace = PendingTrace.create(tracer, traceId)
+    def rootSpan = SpanFactory.newSpanOf(trace)
+
+    expect:
+    PendingTrace.SPAN_CLEANER.get().visit(trace, 0) == 3600
+    writer == []
+
+    cleanup:
+    rootSpan.finish()
+  }
 }
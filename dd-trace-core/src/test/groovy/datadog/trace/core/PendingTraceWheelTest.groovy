@@ -0,0 +1,180 @@
+package datadog.trace.core
+
+import datadog.trace.api.Config
+import datadog.trace.api.DDId
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.util.test.DDSpecification
+
+import static datadog.trace.api.config.TracerConfig.SPAN_LEAK_DETECTION_ENABLED
+
+class PendingTraceWheelTest extends DDSpecification {
+
+  def writer = new ListWriter()
+  def tracer = CoreTracer.builder()
+    .config(Config.get(properties()))
+    .writer(writer)
+    .build()
+
+  def wheel = new PendingTraceWheel(4)
+
+  def "traces are only visited once their deadline expires"() {
+    setup:
+    def visits = [:]
+    def visitor = new RecordingVisitor(visits, delay)
+    def trace = PendingTrace.create(tracer, DDId.from(1))
+    wheel.add(trace)
+
+    when:
+    ticks.times {
+      wheel.advance(visitor)
+    }
+
+    then:
+    visits[trace] == expectedVisits
+    wheel.contains(trace)
+
+    where:
+    delay | ticks | expectedVisits
+    1     | 10    | 10
+    10    | 10    | 1
+    10    | 11    | 2
+    100   | 100   | 1
+    100   | 101   | 2
+    200   | 201   | 2
+    5000  | 4095  | 1
+    5000  | 4096  | 2
+  }
+
+  def "traces are no longer visited when the visitor stops tracking them"() {
+    setup:
+    def visits = [:]
+    def trace = PendingTrace.create(tracer, DDId.from(1))
+    wheel.add(trace)
+
+    when:
+    5.times {
+      wheel.advance(new RecordingVisitor(visits, 0))
+    }
+
+    then:
+    visits[trace] == 1
+    !wheel.contains(trace)
+  }
+
+  def "removed traces are not visited"() {
+    setup:
+    def visits = [:]
+    def traces = (1..10).collect { PendingTrace.create(tracer, DDId.from(it)) }
+    traces.each { wheel.add(it) }
+
+    when:
+    traces.findAll { it.traceId.toLong() % 2 == 0 }.each { wheel.remove(it) }
+    wheel.advance(new RecordingVisitor(visits, 1))
+
+    then:
+    visits.keySet() == traces.findAll { it.traceId.toLong() % 2 == 1 }.toSet()
+  }
+
+  def "visit all visits traces regardless of their deadline"() {
+    setup:
+    def visits = [:]
+    def traces = (1..10).collect { PendingTrace.create(tracer, DDId.from(it)) }
+    traces.each { wheel.add(it) }
+    wheel.advance(new RecordingVisitor(visits, 1000))
+    visits.clear()
+
+    when:
+    wheel.visitAll(new RecordingVisitor(visits, 1))
+
+    then:
+    visits.keySet() == traces.toSet()
+    traces.every { wheel.contains(it) }
+  }
+
+  def "adding a trace twice schedules it once"() {
+    setup:
+    def visits = [:]
+    def trace = PendingTrace.create(tracer, DDId.from(1))
+
+    when:
+    wheel.add(trace)
+    wheel.add(trace)
+    wheel.advance(new RecordingVisitor(visits, 1))
+
+    then:
+    visits[trace] == 1
+  }
+
+  def "traces without a deadline are only visited by visit all"() {
+    setup:
+    def visits = [:]
+    def trace = PendingTrace.create(tracer, DDId.from(1))
+    wheel.add(trace, PendingTraceWheel.NO_DEADLINE)
+
+    when:
+    5000.times {
+      wheel.advance(new RecordingVisitor(visits, 1))
+    }
+
+    then:
+    visits.isEmpty()
+    wheel.contains(trace)
+
+    when:
+    wheel.visitAll(new RecordingVisitor(visits, PendingTraceWheel.NO_DEADLINE))
+    wheel.advance(new RecordingVisitor(visits, 1))
+
+    then:
+    visits[trace] == 1
+    wheel.contains(trace)
+  }
+
+  def "a trace added again while it is visited stays tracked"() {
+    setup:
+    def visits = [:]
+    def trace = PendingTrace.create(tracer, DDId.from(1))
+    wheel.add(trace)
+    def readdingVisitor = new PendingTraceWheel.Visitor() {
+      @Override
+      long visit(PendingTrace visited, int previousVisits) {
+        wheel.remove(visited)
+        wheel.add(visited)
+        return 0
+      }
+    }
+
+    when:
+    wheel.advance(readdingVisitor)
+
+    then:
+    wheel.contains(trace)
+
+    when:
+    wheel.advance(new RecordingVisitor(visits, 1))
+
+    then:
+    visits[trace] == 1
+  }
+
+  static Properties properties() {
+    def properties = new Properties()
+    properties.setProperty(SPAN_LEAK_DETECTION_ENABLED, "false")
+    return properties
+  }
+
+  static class RecordingVisitor implements PendingTraceWheel.Visitor {
+    final Map<PendingTrace, Integer> visits
+    final long delay
+
+    RecordingVisitor(Map<PendingTrace, Integer> visits, long delay) {
+      this.visits = visits
+      this.delay = delay
+    }
+
+    @Override
+    long visit(PendingTrace trace, int previousVisits) {
+      visits[trace] = (visits[trace] ?: 0) + 1
+      return delay
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package datadog.trace.core
+
+import datadog.trace.common.sampling.RateByServiceSampler
+import datadog.trace.common.sampling.RuleBasedSampler
+import datadog.trace.util.test.DDSpecification
+
+class SpanMetricsTest extends DDSpecification {
+
+  def "sampling metrics are stored alongside other metrics"() {
+    setup:
+    def metrics = new SpanMetrics()
+
+    when:
+    metrics.setSamplingPriority(2)
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.5d)
+    metrics.put(RateByServiceSampler.SAMPLING_AGENT_RATE, 0.25f)
+    metrics.put(RuleBasedSampler.SAMPLING_RULE_RATE, 1d)
+    metrics.put(RuleBasedSampler.SAMPLING_LIMIT_RATE, 100d)
+    metrics.put("custom", 7L)
+
+    then:
+    metrics.size() == 6
+    metrics == [
+      (DDSpanContext.PRIORITY_SAMPLING_KEY)  : 2,
+      (DDSpanContext.SAMPLE_RATE_KEY)        : 0.5d,
+      (RateByServiceSampler.SAMPLING_AGENT_RATE): 0.25d,
+      (RuleBasedSampler.SAMPLING_RULE_RATE)  : 1d,
+      (RuleBasedSampler.SAMPLING_LIMIT_RATE) : 100d,
+      custom                                 : 7L
+    ]
+    metrics.getSamplingPriority(-128) == 2
+    metrics.get(DDSpanContext.PRIORITY_SAMPLING_KEY) instanceof Integer
+    metrics.get(RateByServiceSampler.SAMPLING_AGENT_RATE) instanceof Double
+  }
+
+  def "unset metrics are absent"() {
+    setup:
+    def metrics = new SpanMetrics()
+
+    expect:
+    metrics.isEmpty()
+    metrics == [:]
+    metrics.get(DDSpanContext.SAMPLE_RATE_KEY) == null
+    !metrics.containsKey(DDSpanContext.PRIORITY_SAMPLING_KEY)
+    metrics.getSamplingPriority(-128) == -128
+  }
+
+  def "values of another type replace the sampling slots"() {
+    setup:
+    def metrics = new SpanMetrics()
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.5d)
+
+    when:
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 1)
+
+    then:
+    metrics.size() == 1
+    metrics.get(DDSpanContext.SAMPLE_RATE_KEY) == 1
+    metrics.get(DDSpanContext.SAMPLE_RATE_KEY) instanceof Integer
+
+    when:
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.1d)
+
+    then:
+    metrics.size() == 1
+    metrics.get(DDSpanContext.SAMPLE_RATE_KEY) == 0.1d
+  }
+
+  def "put returns the previous value"() {
+    setup:
+    def metrics = new SpanMetrics()
+
+    expect:
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.5d) == null
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.1d) == 0.5d
+    metrics.put(DDSpanContext.PRIORITY_SAMPLING_KEY, 1) == null
+    metrics.put(DDSpanContext.PRIORITY_SAMPLING_KEY, 2) == 1
+    metrics.put("custom", 7L) == null
+    metrics.put("custom", 8L) == 7L
+  }
+
+  def "sampling priorities of any type are stored as integers"() {
+    setup:
+    def metrics = new SpanMetrics()
+
+    when:
+    metrics.put(DDSpanContext.PRIORITY_SAMPLING_KEY, value)
+
+    then:
+    metrics.size() == 1
+    metrics.getSamplingPriority(-128) == 1
+    metrics.get(DDSpanContext.PRIORITY_SAMPLING_KEY) == 1
+    metrics.get(DDSpanContext.PRIORITY_SAMPLING_KEY) instanceof Integer
+
+    where:
+    value << [1, 1L, 1d, 1f]
+  }
+
+  def "metrics can be removed"() {
+    setup:
+    def metrics = new SpanMetrics()
+    metrics.setSamplingPriority(2)
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.5d)
+    metrics.put(RuleBasedSampler.SAMPLING_RULE_RATE, 1)
+    metrics.put("custom", 7L)
+
+    expect:
+    metrics.remove(DDSpanContext.PRIORITY_SAMPLING_KEY) == 2
+    metrics.remove(DDSpanContext.SAMPLE_RATE_KEY) == 0.5d
+    metrics.remove(RuleBasedSampler.SAMPLING_RULE_RATE) == 1
+    metrics.remove("custom") == 7L
+    metrics.remove("custom") == null
+    metrics.isEmpty()
+    metrics.getSamplingPriority(-128) == -128
+  }
+
+  def "metrics can be cleared"() {
+    setup:
+    def metrics = new SpanMetrics()
+    metrics.setSamplingPriority(2)
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.5d)
+    metrics.put("custom", 7L)
+
+    when:
+    metrics.clear()
+
+    then:
+    metrics.isEmpty()
+    metrics == [:]
+    metrics.getSamplingPriority(-128) == -128
+
+    when:
+    metrics.put(DDSpanContext.SAMPLE_RATE_KEY, 0.1d)
+
+    then:
+    metrics == [(DDSpanContext.SAMPLE_RATE_KEY): 0.1d]
+  }
+}
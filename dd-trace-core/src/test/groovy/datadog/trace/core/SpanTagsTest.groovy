@@ -0,0 +1,90 @@
+package datadog.trace.core
+
+import datadog.trace.util.test.DDSpecification
+
+class SpanTagsTest extends DDSpecification {
+
+  def "behaves like a map"() {
+    setup:
+    def tags = new SpanTags(0)
+    def expected = [:]
+
+    when:
+    count.times {
+      tags.put("key" + it, it)
+      expected.put("key" + it, it)
+    }
+
+    then:
+    tags == expected
+    tags.size() == count
+    count.times {
+      assert tags.get("key" + it) == it
+      assert tags.containsKey("key" + it)
+    }
+    !tags.containsKey("missing")
+    tags.get("missing") == null
+
+    where:
+    count << [0, 1, 5, 6, 7, 50, 1000]
+  }
+
+  def "put replaces existing values"() {
+    setup:
+    def tags = new SpanTags(3)
+    tags.put("key", "first")
+
+    when:
+    def previous = tags.put(new String("key"), "second")
+
+    then:
+    previous == "first"
+    tags.size() == 1
+    tags.get("key") == "second"
+  }
+
+  def "remove keeps the other keys reachable"() {
+    setup:
+    def tags = new SpanTags(0)
+    def expected = [:]
+    count.times {
+      tags.put("key" + it, it)
+      expected.put("key" + it, it)
+    }
+
+    when:
+    (0..<count).step(step) {
+      assert tags.remove("key" + it) == it
+      expected.remove("key" + it)
+    }
+
+    then:
+    tags == expected
+    expected.each { key, value ->
+      assert tags.get(key) == value
+    }
+    tags.remove("missing") == null
+
+    where:
+    count | step
+    7     | 2
+    50    | 3
+    1000  | 7
+    1000  | 1
+  }
+
+  def "clear removes all tags"() {
+    setup:
+    def tags = new SpanTags(3)
+    tags.put("a", 1)
+    tags.put("b", 2)
+
+    when:
+    tags.clear()
+
+    then:
+    tags.isEmpty()
+    tags.get("a") == null
+    tags.entrySet().isEmpty()
+  }
+}
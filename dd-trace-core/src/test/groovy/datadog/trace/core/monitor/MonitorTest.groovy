@@ -81,6 +81,15 @@ class MonitorTest extends DDSpecification {
     0 * _
   }
 
+  def "test onRateLimit"() {
+    when:
+    monitor.onRateLimit(0.25d)
+
+    then:
+    1 * statsD.recordGaugeValue('sampler.rate_limit.effective_rate', 0.25d)
+    0 * _
+  }
+
   def "test onSerialize"() {
     when:
     monitor.onSerialize(bytes)
@@ -101,6 +110,60 @@ class MonitorTest extends DDSpecification {
     0 * _
   }
 
+  def "test onEncodingCache"() {
+    when:
+    monitor.onEncodingCache(hits, misses, evictions)
+
+    then:
+    1 * statsD.count('serializer.encoding_cache.hits', hits)
+    1 * statsD.count('serializer.encoding_cache.misses', misses)
+    1 * statsD.count('serializer.encoding_cache.evictions', evictions)
+    0 * _
+
+    where:
+    hits = ThreadLocalRandom.current().nextLong(100)
+    misses = ThreadLocalRandom.current().nextLong(100)
+    evictions = ThreadLocalRandom.current().nextLong(100)
+  }
+
+  def "test onPayloadQueued"() {
+    when:
+    monitor.onPayloadQueued(queued)
+
+    then:
+    1 * statsD.recordGaugeValue('sender.queue.length', queued)
+    0 * _
+
+    where:
+    queued = ThreadLocalRandom.current().nextInt(10)
+  }
+
+  def "test onDroppedPayload"() {
+    when:
+    monitor.onDroppedPayload(representativeCount, traceCount)
+
+    then:
+    1 * statsD.count('sender.dropped_traces', traceCount)
+    1 * statsD.count('sender.dropped_representative_traces', representativeCount)
+    0 * _
+
+    where:
+    traceCount = ThreadLocalRandom.current().nextInt(1, 100)
+    representativeCount = traceCount + ThreadLocalRandom.current().nextInt(100)
+  }
+
+  def "test onPayloadSent"() {
+    when:
+    monitor.onPayloadSent(latency)
+
+    then:
+    1 * statsD.recordExecutionTime('api.latency', latency)
+    0 * _
+
+    where:
+    latency = ThreadLocalRandom.current().nextInt(10000)
+  }
+
   def "test onSend"() {
     when:
     monitor.onSend(representativeCount, sendSize, response)
@@ -108,6 +108,34 @@ class URLAsResourceNameRuleTest extends DDSpecification {
     "/a.b/a.b" | _
   }
 
+  def "caches resource names of low cardinality paths"() {
+    when:
+    def first = decorator.resourceName(method, url)
+    def second = decorator.resourceName(method, new String(url))
+
+    then:
+    first.toString() == expected
+    second.toString() == expected
+    first.is(second) == cached
+
+    where:
+    method | url                                  | expected             | cached
+    null   | "/users/list"                        | "/users/list"        | true
+    "GET"  | "http://localhost:8080/v1/users?q=1" | "GET /v1/users"      | true
+    "get"  | "/users/list#top"                    | "GET /users/list"    | true
+    null   | "/users/123"                         | "/users/?"           | false
+    "GET"  | "/users/abc1/repos"                  | "GET /users/?/repos" | false
+    null   | "http://localhost"                   | "/"                  | false
+  }
+
+  def "cached resource names depend on the method"() {
+    expect:
+    decorator.resourceName("GET", "/users").toString() == "GET /users"
+    decorator.resourceName("POST", "/users").toString() == "POST /users"
+    decorator.resourceName(null, "/users").toString() == "/users"
+    decorator.resourceName("GET", "/users").toString() == "GET /users"
+  }
+
   def "sets the resource name"() {
     setup:
     def span = SpanFactory.newSpanOf(0)
@@ -9,6 +9,8 @@ import datadog.trace.common.writer.ListWriter
 import datadog.trace.context.ScopeListener
 import datadog.trace.core.CoreTracer
 import datadog.trace.core.DDSpan
+import datadog.trace.core.jfr.DDNoopScopeEventFactory
+import datadog.trace.core.scopemanager.ContinuableScopeManager.ContinuableScope
 import datadog.trace.util.test.DDSpecification
 import spock.lang.Timeout
 
@@ -51,7 +53,7 @@ class ScopeManagerTest extends DDSpecification {
 
     then:
     scopeManager.active() == scope
-    scope instanceof ScopeInterceptor.Scope
+    scope instanceof ContinuableScope
 
     when:
     scope.close()
@@ -78,7 +80,7 @@ class ScopeManagerTest extends DDSpecification {
     then:
     !spanFinished(scope.span())
     scopeManager.active() == scope
-    scope instanceof ScopeInterceptor.Scope
+    scope instanceof ContinuableScope
     writer.empty
 
     when:
@@ -128,7 +130,7 @@ class ScopeManagerTest extends DDSpecification {
   def "DDScope only creates continuations when propagation is set"() {
     setup:
     def span = tracer.buildSpan("test").start()
-    def scope = (ScopeInterceptor.Scope) tracer.activateSpan(span)
+    def scope = (ContinuableScope) tracer.activateSpan(span)
     def continuation = scope.capture()
 
     expect:
@@ -147,7 +149,7 @@ class ScopeManagerTest extends DDSpecification {
   def "Continuation.cancel doesn't close parent scope"() {
     setup:
     def span = tracer.buildSpan("test").start()
-    def scope = (ScopeInterceptor.Scope) tracer.activateSpan(span)
+    def scope = (ContinuableScope) tracer.activateSpan(span)
     scope.setAsyncPropagation(true)
     def continuation = scope.capture()
 
@@ -186,7 +188,7 @@ class ScopeManagerTest extends DDSpecification {
   def "hard reference on continuation prevents trace from reporting"() {
     setup:
     def span = tracer.buildSpan("test").start()
-    def scope = (ScopeInterceptor.Scope) tracer.activateSpan(span)
+    def scope = (ContinuableScope) tracer.activateSpan(span)
     scope.setAsyncPropagation(true)
     def continuation = scope.capture()
     scope.close()
@@ -225,7 +227,7 @@ class ScopeManagerTest extends DDSpecification {
     def parentSpan = tracer.buildSpan("parent").start()
     def parentScope = tracer.activateSpan(parentSpan)
     def childSpan = tracer.buildSpan("child").start()
-    ScopeInterceptor.Scope childScope = (ScopeInterceptor.Scope) tracer.activateSpan(childSpan)
+    ContinuableScope childScope = (ContinuableScope) tracer.activateSpan(childSpan)
     childScope.setAsyncPropagation(true)
 
     def continuation = childScope.capture()
@@ -254,7 +256,7 @@ class ScopeManagerTest extends DDSpecification {
     def newContinuation = newScope.capture()
 
     then:
-    newScope instanceof ScopeInterceptor.Scope
+    newScope instanceof ContinuableScope
     scopeManager.active() == newScope
     newScope != childScope && newScope != parentScope
     newScope.span() == childSpan
@@ -277,7 +279,7 @@ class ScopeManagerTest extends DDSpecification {
   def "continuation allows adding spans even after other spans were completed"() {
     setup:
     def span = tracer.buildSpan("test").start()
-    def scope = (ScopeInterceptor.Scope) tracer.activateSpan(span)
+    def scope = (ContinuableScope) tracer.activateSpan(span)
     scope.setAsyncPropagation(true)
     def continuation = scope.capture()
     scope.close()
@@ -286,7 +288,7 @@ class ScopeManagerTest extends DDSpecification {
     def newScope = continuation.activate()
 
     expect:
-    newScope instanceof ScopeInterceptor.Scope
+    newScope instanceof ContinuableScope
     newScope != scope
     scopeManager.active() == newScope
     spanFinished(span)
@@ -309,7 +311,7 @@ class ScopeManagerTest extends DDSpecification {
   def "DDScope put in threadLocal after continuation activation"() {
     setup:
     def span = tracer.buildSpan("parent").start()
-    ScopeInterceptor.Scope scope = (ScopeInterceptor.Scope) tracer.activateSpan(span)
+    ContinuableScope scope = (ContinuableScope) tracer.activateSpan(span)
     scope.setAsyncPropagation(true)
 
     expect:
@@ -380,7 +382,7 @@ class ScopeManagerTest extends DDSpecification {
     AgentScope continuableScope = tracer.activateSpan(span)
 
     then:
-    continuableScope instanceof ScopeInterceptor.Scope
+    continuableScope instanceof ContinuableScope
     activatedCount.get() == 1
     closedCount.get() == 0
 
@@ -389,7 +391,7 @@ class ScopeManagerTest extends DDSpecification {
     AgentScope childDDScope = tracer.activateSpan(childSpan)
 
     then:
-    childDDScope instanceof ScopeInterceptor.Scope
+    childDDScope instanceof ContinuableScope
     activatedCount.get() == 2
     closedCount.get() == 0
 
@@ -501,6 +503,75 @@ class ScopeManagerTest extends DDSpecification {
     tracer.activeScope() == null
   }
 
+  def "closed scopes are reused when pooling is enabled"() {
+    setup:
+    def pooledScopeManager = new ContinuableScopeManager(0, new DDNoopScopeEventFactory(), statsDClient, false, true)
+    def eventCountingLister = new EventCountingListener()
+    pooledScopeManager.addScopeListener(eventCountingLister)
+    AgentSpan firstSpan = tracer.buildSpan("foo").start()
+    AgentSpan secondSpan = tracer.buildSpan("bar").start()
+
+    when:
+    AgentScope firstScope = pooledScopeManager.activate(firstSpan, ScopeSource.INSTRUMENTATION)
+    firstScope.close()
+    AgentScope secondScope = pooledScopeManager.activate(secondSpan, ScopeSource.INSTRUMENTATION)
+
+    then:
+    secondScope.is(firstScope)
+    secondScope.span() == secondSpan
+    pooledScopeManager.activeSpan() == secondSpan
+    eventCountingLister.activatedCount.get() == 2
+    eventCountingLister.closedCount.get() == 1
+
+    when:
+    secondScope.close()
+
+    then:
+    pooledScopeManager.active() == null
+    eventCountingLister.closedCount.get() == 2
+  }
+
+  def "scopes closed out of order are not reused"() {
+    setup:
+    def pooledScopeManager = new ContinuableScopeManager(0, new DDNoopScopeEventFactory(), statsDClient, false, true)
+    AgentSpan firstSpan = tracer.buildSpan("foo").start()
+    AgentSpan secondSpan = tracer.buildSpan("bar").start()
+
+    when:
+    AgentScope firstScope = pooledScopeManager.activate(firstSpan, ScopeSource.INSTRUMENTATION)
+    AgentScope secondScope = pooledScopeManager.activate(secondSpan, ScopeSource.INSTRUMENTATION)
+    firstScope.close()
+    secondScope.close()
+
+    then:
+    pooledScopeManager.active() == null
+
+    when:
+    AgentScope thirdScope = pooledScopeManager.activate(firstSpan, ScopeSource.INSTRUMENTATION)
+    AgentScope fourthScope = pooledScopeManager.activate(secondSpan, ScopeSource.INSTRUMENTATION)
+
+    then:
+    thirdScope.is(secondScope)
+    !fourthScope.is(firstScope)
+
+    cleanup:
+    fourthScope?.close()
+    thirdScope?.close()
+  }
+
+  def "closed scopes are not reused by default"() {
+    when:
+    AgentScope firstScope = scopeManager.activate(NoopAgentSpan.INSTANCE, ScopeSource.INSTRUMENTATION)
+    firstScope.close()
+    AgentScope secondScope = scopeManager.activate(NoopAgentSpan.INSTANCE, ScopeSource.INSTRUMENTATION)
+
+    then:
+    !secondScope.is(firstScope)
+
+    cleanup:
+    secondScope.close()
+  }
+
   boolean spanFinished(AgentSpan span) {
     return ((DDSpan) span)?.isFinished()
   }
@@ -80,6 +80,26 @@ class TagInterceptorTest extends DDSpecification {
     mapping = ["some-service": "new-service"]
   }
 
+  def "default span tags go through interceptors"() {
+    setup:
+    tracer = CoreTracer.builder()
+      .serviceName("wrong-service")
+      .writer(new LoggingWriter())
+      .sampler(new AllSampler())
+      .defaultSpanTags([(DDTags.SERVICE_NAME): "default-service", "env": "test", "empty": ""])
+      .build()
+
+    when:
+    def span = tracer.buildSpan("some span").start()
+    span.finish()
+
+    then:
+    span.getServiceName() == "default-service"
+    span.getTags().get("env") == "test"
+    !span.getTags().containsKey(DDTags.SERVICE_NAME)
+    !span.getTags().containsKey("empty")
+  }
+
   def "default or configured service name can be remapped without setting tag"() {
     setup:
     tracer = CoreTracer.builder()
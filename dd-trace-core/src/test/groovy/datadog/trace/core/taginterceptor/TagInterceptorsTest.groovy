@@ -0,0 +1,66 @@
+package datadog.trace.core.taginterceptor
+
+import datadog.trace.core.ExclusiveSpan
+import datadog.trace.util.test.DDSpecification
+
+class TagInterceptorsTest extends DDSpecification {
+
+  def "finds the interceptors of each tag"() {
+    setup:
+    def interceptors = tags.collect { interceptor(it) }
+    def table = TagInterceptors.of(interceptors)
+
+    expect:
+    table.size() == tags.unique(false).size()
+    tags.each {
+      assert table.get(new String(it)) as List == interceptors.findAll { i -> i.matchingTag == it }
+    }
+    table.get("not.intercepted") == null
+
+    where:
+    tags << [
+      [],
+      ["service"],
+      ["manual.drop", "manual.keep", "peer.service", "service.name", "service", "servlet.context"],
+      ["service", "service", "peer.service"],
+      // equal hash codes cannot be told apart by a perfect hash
+      ["Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa"],
+      (0..100).collect { "tag" + it }
+    ]
+  }
+
+  def "interceptors are added after existing ones"() {
+    setup:
+    def first = interceptor("service")
+    def second = interceptor("service")
+    def other = interceptor("other")
+
+    when:
+    def table = TagInterceptors.of([first]).with(other).with(second)
+
+    then:
+    table.get("service") as List == [first, second]
+    table.get("other") as List == [other]
+  }
+
+  def "null tags are not intercepted"() {
+    expect:
+    TagInterceptors.of([interceptor("service")]).get(null) == null
+    TagInterceptors.EMPTY.get(null) == null
+  }
+
+  def "empty table intercepts nothing"() {
+    expect:
+    TagInterceptors.EMPTY.isEmpty()
+    TagInterceptors.EMPTY.get("service") == null
+    TagInterceptors.of([]).is(TagInterceptors.EMPTY)
+  }
+
+  def interceptor(String tag) {
+    return new AbstractTagInterceptor(tag) {
+      boolean shouldSetTag(ExclusiveSpan span, String t, Object value) {
+        return true
+      }
+    }
+  }
+}
@@ -734,4 +734,41 @@ public class PackerTest {
         });
     messageFormatter.flush();
   }
+
+  @Test
+  public void testResetWithNewBufferLeavesFlushedBufferUntouched() throws IOException {
+    final ByteBuffer[] flushed = new ByteBuffer[2];
+    final AtomicInteger flushes = new AtomicInteger();
+    Packer packer =
+        new Packer(
+            new ByteBufferConsumer() {
+              @Override
+              public void accept(int messageCount, ByteBuffer buffer) {
+                flushed[flushes.getAndIncrement()] = buffer;
+              }
+            },
+            ByteBuffer.allocate(100),
+            true);
+    Mapper<String> mapper =
+        new Mapper<String>() {
+          @Override
+          public void map(String data, Writable writable) {
+            writable.writeString(data, EncodingCachingStrategies.NO_CACHING);
+          }
+        };
+    packer.format("foo", mapper);
+    packer.flush();
+    packer.reset(ByteBuffer.allocate(100));
+    packer.format("bar", mapper);
+    packer.format("baz", mapper);
+    packer.flush();
+
+    MessageUnpacker first = MessagePack.newDefaultUnpacker(flushed[0]);
+    assertEquals(1, first.unpackArrayHeader());
+    assertEquals("foo", first.unpackString());
+    MessageUnpacker second = MessagePack.newDefaultUnpacker(flushed[1]);
+    assertEquals(2, second.unpackArrayHeader());
+    assertEquals("bar", second.unpackString());
+    assertEquals("baz", second.unpackString());
+  }
 }
@@ -12,12 +12,15 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_CLIENT_TAG_QUERY_STR
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_ERROR_STATUSES;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_TAG_QUERY_STRING;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_INTEGRATIONS_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_JDBC_SQL_NORMALIZATION_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_JMX_FETCH_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_JMX_FETCH_STATSD_PORT;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_KAFKA_CLIENT_BATCH_SPANS_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_KAFKA_CLIENT_PROPAGATION_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_LOGS_INJECTION_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_METRICS_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PARTIAL_FLUSH_MIN_SPANS;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_PENDING_TRACE_MAX_AGE;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PRIORITY_SAMPLING_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_EXCEPTION_HISTOGRAM_MAX_COLLECTION_SIZE;
@@ -27,6 +30,7 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_PROXY_PORT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_START_DELAY;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_START_FORCE_FIRST;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_UPLOAD_COMPRESSION;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_UPLOAD_COMPRESSION_THREADS;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_UPLOAD_PERIOD;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROFILING_UPLOAD_TIMEOUT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PROPAGATION_STYLE_EXTRACT;
@@ -35,6 +39,8 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_RUNTIME_CONTEXT_FIELD_INJ
 import static datadog.trace.api.ConfigDefaults.DEFAULT_SCOPE_DEPTH_LIMIT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_SERVICE_NAME;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_SITE;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_SPAN_BUFFER_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_SPAN_LEAK_DETECTION_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_SPLIT_BY_TAGS;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_AGENT_PORT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_ANALYTICS_ENABLED;
@@ -46,6 +52,8 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_METHODS;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_RATE_LIMIT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_REPORT_HOSTNAME;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_RESOLVER_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_SERIALIZER_THREADS;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_STATS_COMPUTATION_ENABLED;
 import static datadog.trace.api.DDTags.HOST_TAG;
 import static datadog.trace.api.DDTags.INTERNAL_HOST_NAME;
 import static datadog.trace.api.DDTags.LANGUAGE_TAG_KEY;
@@ -123,6 +131,9 @@ public class Config {
   public static final String AGENT_PORT_LEGACY = TracerConfig.AGENT_PORT_LEGACY;
   public static final String AGENT_UNIX_DOMAIN_SOCKET = TracerConfig.AGENT_UNIX_DOMAIN_SOCKET;
   public static final String AGENT_TIMEOUT = TracerConfig.AGENT_TIMEOUT;
+  public static final String TRACE_SERIALIZER_THREADS = TracerConfig.TRACE_SERIALIZER_THREADS;
+  public static final String TRACE_STATS_COMPUTATION_ENABLED =
+      TracerConfig.TRACE_STATS_COMPUTATION_ENABLED;
   public static final String PRIORITY_SAMPLING = TracerConfig.PRIORITY_SAMPLING;
 
   @Deprecated
@@ -162,12 +173,19 @@ public class Config {
       TraceInstrumentationConfig.HTTP_CLIENT_HOST_SPLIT_BY_DOMAIN;
   public static final String DB_CLIENT_HOST_SPLIT_BY_INSTANCE =
       TraceInstrumentationConfig.DB_CLIENT_HOST_SPLIT_BY_INSTANCE;
+  public static final String JDBC_SQL_NORMALIZATION_ENABLED =
+      TraceInstrumentationConfig.JDBC_SQL_NORMALIZATION_ENABLED;
   public static final String SPLIT_BY_TAGS = TracerConfig.SPLIT_BY_TAGS;
   public static final String SCOPE_DEPTH_LIMIT = TracerConfig.SCOPE_DEPTH_LIMIT;
   public static final String SCOPE_STRICT_MODE = TracerConfig.SCOPE_STRICT_MODE;
+  public static final String SCOPE_POOLING_ENABLED = TracerConfig.SCOPE_POOLING_ENABLED;
   public static final String PARTIAL_FLUSH_MIN_SPANS = TracerConfig.PARTIAL_FLUSH_MIN_SPANS;
+  public static final String SPAN_BUFFER_ENABLED = TracerConfig.SPAN_BUFFER_ENABLED;
+  public static final String SPAN_LEAK_DETECTION_ENABLED = TracerConfig.SPAN_LEAK_DETECTION_ENABLED;
+  public static final String PENDING_TRACE_MAX_AGE = TracerConfig.PENDING_TRACE_MAX_AGE;
   public static final String RUNTIME_CONTEXT_FIELD_INJECTION =
       TraceInstrumentationConfig.RUNTIME_CONTEXT_FIELD_INJECTION;
+  public static final String MUZZLE_CACHE_FILE = TraceInstrumentationConfig.MUZZLE_CACHE_FILE;
   public static final String PROPAGATION_STYLE_EXTRACT = TracerConfig.PROPAGATION_STYLE_EXTRACT;
   public static final String PROPAGATION_STYLE_INJECT = TracerConfig.PROPAGATION_STYLE_INJECT;
 
@@ -217,6 +235,8 @@ public class Config {
   public static final String PROFILING_UPLOAD_TIMEOUT = ProfilingConfig.PROFILING_UPLOAD_TIMEOUT;
   public static final String PROFILING_UPLOAD_COMPRESSION =
       ProfilingConfig.PROFILING_UPLOAD_COMPRESSION;
+  public static final String PROFILING_UPLOAD_COMPRESSION_THREADS =
+      ProfilingConfig.PROFILING_UPLOAD_COMPRESSION_THREADS;
   public static final String PROFILING_PROXY_HOST = ProfilingConfig.PROFILING_PROXY_HOST;
   public static final String PROFILING_PROXY_PORT = ProfilingConfig.PROFILING_PROXY_PORT;
   public static final String PROFILING_PROXY_USERNAME = ProfilingConfig.PROFILING_PROXY_USERNAME;
@@ -233,6 +253,8 @@ public class Config {
 
   public static final String KAFKA_CLIENT_BASE64_DECODING_ENABLED =
       TraceInstrumentationConfig.KAFKA_CLIENT_BASE64_DECODING_ENABLED;
+  public static final String KAFKA_CLIENT_BATCH_SPANS_ENABLED =
+      TraceInstrumentationConfig.KAFKA_CLIENT_BATCH_SPANS_ENABLED;
 
   private static final String PROFILING_REMOTE_URL_TEMPLATE = "https://intake.profile.%s/v1/input";
   private static final String PROFILING_LOCAL_URL_TEMPLATE = "http://%s:%d/profiling/v1/input";
@@ -278,6 +300,8 @@ public class Config {
   @Getter private final int agentPort;
   @Getter private final String agentUnixDomainSocket;
   @Getter private final int agentTimeout;
+  @Getter private final int traceSerializerThreads;
+  @Getter private final boolean traceStatsComputationEnabled;
   @Getter private final boolean prioritySamplingEnabled;
   @Getter private final boolean traceResolverEnabled;
   @Getter private final Map<String, String> serviceMapping;
@@ -292,11 +316,17 @@ public class Config {
   @Getter private final boolean httpClientTagQueryString;
   @Getter private final boolean httpClientSplitByDomain;
   @Getter private final boolean dbClientSplitByInstance;
+  @Getter private final boolean jdbcSqlNormalizationEnabled;
   @Getter private final Set<String> splitByTags;
   @Getter private final int scopeDepthLimit;
   @Getter private final boolean scopeStrictMode;
+  @Getter private final boolean scopePoolingEnabled;
   @Getter private final int partialFlushMinSpans;
+  @Getter private final boolean spanBufferEnabled;
+  @Getter private final boolean spanLeakDetectionEnabled;
+  @Getter private final int pendingTraceMaxAge;
   @Getter private final boolean runtimeContextFieldInjection;
+  @Getter private final String muzzleCacheFile;
   @Getter private final Set<PropagationStyle> propagationStylesToExtract;
   @Getter private final Set<PropagationStyle> propagationStylesToInject;
 
@@ -340,6 +370,7 @@ public class Config {
   @Getter private final String profilingTemplateOverrideFile;
   @Getter private final int profilingUploadTimeout;
   @Getter private final String profilingUploadCompression;
+  @Getter private final int profilingUploadCompressionThreads;
   @Getter private final String profilingProxyHost;
   @Getter private final int profilingProxyPort;
   @Getter private final String profilingProxyUsername;
@@ -350,6 +381,7 @@ public class Config {
 
   @Getter private final boolean kafkaClientPropagationEnabled;
   @Getter private final boolean kafkaClientBase64DecodingEnabled;
+  @Getter private final boolean kafkaClientBatchSpansEnabled;
 
   @Getter private final boolean hystrixTagsEnabled;
 
@@ -428,6 +460,12 @@ public class Config {
             && agentPort == DEFAULT_TRACE_AGENT_PORT;
 
     agentTimeout = getIntegerSettingFromEnvironment(AGENT_TIMEOUT, DEFAULT_AGENT_TIMEOUT);
+    traceSerializerThreads =
+        getIntegerSettingFromEnvironment(
+            TRACE_SERIALIZER_THREADS, DEFAULT_TRACE_SERIALIZER_THREADS);
+    traceStatsComputationEnabled =
+        getBooleanSettingFromEnvironment(
+            TRACE_STATS_COMPUTATION_ENABLED, DEFAULT_TRACE_STATS_COMPUTATION_ENABLED);
     prioritySamplingEnabled =
         getBooleanSettingFromEnvironment(PRIORITY_SAMPLING, DEFAULT_PRIORITY_SAMPLING_ENABLED);
     traceResolverEnabled =
@@ -471,6 +509,10 @@ public class Config {
         getBooleanSettingFromEnvironment(
             DB_CLIENT_HOST_SPLIT_BY_INSTANCE, DEFAULT_DB_CLIENT_HOST_SPLIT_BY_INSTANCE);
 
+    jdbcSqlNormalizationEnabled =
+        getBooleanSettingFromEnvironment(
+            JDBC_SQL_NORMALIZATION_ENABLED, DEFAULT_JDBC_SQL_NORMALIZATION_ENABLED);
+
     splitByTags =
         Collections.unmodifiableSet(
             new LinkedHashSet<>(
@@ -480,14 +522,27 @@ public class Config {
         getIntegerSettingFromEnvironment(SCOPE_DEPTH_LIMIT, DEFAULT_SCOPE_DEPTH_LIMIT);
 
     scopeStrictMode = getBooleanSettingFromEnvironment(SCOPE_STRICT_MODE, false);
+    scopePoolingEnabled = getBooleanSettingFromEnvironment(SCOPE_POOLING_ENABLED, false);
 
     partialFlushMinSpans =
         getIntegerSettingFromEnvironment(PARTIAL_FLUSH_MIN_SPANS, DEFAULT_PARTIAL_FLUSH_MIN_SPANS);
 
+    spanBufferEnabled =
+        getBooleanSettingFromEnvironment(SPAN_BUFFER_ENABLED, DEFAULT_SPAN_BUFFER_ENABLED);
+
+    spanLeakDetectionEnabled =
+        getBooleanSettingFromEnvironment(
+            SPAN_LEAK_DETECTION_ENABLED, DEFAULT_SPAN_LEAK_DETECTION_ENABLED);
+
+    pendingTraceMaxAge =
+        getIntegerSettingFromEnvironment(PENDING_TRACE_MAX_AGE, DEFAULT_PENDING_TRACE_MAX_AGE);
+
     runtimeContextFieldInjection =
         getBooleanSettingFromEnvironment(
             RUNTIME_CONTEXT_FIELD_INJECTION, DEFAULT_RUNTIME_CONTEXT_FIELD_INJECTION);
 
+    muzzleCacheFile = getSettingFromEnvironment(MUZZLE_CACHE_FILE, null);
+
     propagationStylesToExtract =
         getPropagationStyleSetSettingFromEnvironmentOrDefault(
             PROPAGATION_STYLE_EXTRACT, DEFAULT_PROPAGATION_STYLE_EXTRACT);
@@ -588,6 +643,9 @@ public class Config {
     profilingUploadCompression =
         getSettingFromEnvironment(
             PROFILING_UPLOAD_COMPRESSION, DEFAULT_PROFILING_UPLOAD_COMPRESSION);
+    profilingUploadCompressionThreads =
+        getIntegerSettingFromEnvironment(
+            PROFILING_UPLOAD_COMPRESSION_THREADS, DEFAULT_PROFILING_UPLOAD_COMPRESSION_THREADS);
     profilingProxyHost = getSettingFromEnvironment(PROFILING_PROXY_HOST, null);
     profilingProxyPort =
         getIntegerSettingFromEnvironment(PROFILING_PROXY_PORT, DEFAULT_PROFILING_PROXY_PORT);
@@ -613,6 +671,10 @@ public class Config {
     kafkaClientBase64DecodingEnabled =
         getBooleanSettingFromEnvironment(KAFKA_CLIENT_BASE64_DECODING_ENABLED, false);
 
+    kafkaClientBatchSpansEnabled =
+        getBooleanSettingFromEnvironment(
+            KAFKA_CLIENT_BATCH_SPANS_ENABLED, DEFAULT_KAFKA_CLIENT_BATCH_SPANS_ENABLED);
+
     hystrixTagsEnabled =
         getBooleanSettingFromEnvironment(TraceInstrumentationConfig.HYSTRIX_TAGS_ENABLED, false);
 
@@ -654,6 +716,12 @@ public class Config {
             && !properties.containsKey(AGENT_PORT_LEGACY)
             && parent.agentConfiguredUsingDefault;
     agentTimeout = getPropertyIntegerValue(properties, AGENT_TIMEOUT, parent.agentTimeout);
+    traceSerializerThreads =
+        getPropertyIntegerValue(
+            properties, TRACE_SERIALIZER_THREADS, parent.traceSerializerThreads);
+    traceStatsComputationEnabled =
+        getPropertyBooleanValue(
+            properties, TRACE_STATS_COMPUTATION_ENABLED, parent.traceStatsComputationEnabled);
     prioritySamplingEnabled =
         getPropertyBooleanValue(properties, PRIORITY_SAMPLING, parent.prioritySamplingEnabled);
     traceResolverEnabled =
@@ -697,6 +765,10 @@ public class Config {
         getPropertyBooleanValue(
             properties, DB_CLIENT_HOST_SPLIT_BY_INSTANCE, parent.dbClientSplitByInstance);
 
+    jdbcSqlNormalizationEnabled =
+        getPropertyBooleanValue(
+            properties, JDBC_SQL_NORMALIZATION_ENABLED, parent.jdbcSqlNormalizationEnabled);
+
     splitByTags =
         Collections.unmodifiableSet(
             new LinkedHashSet<>(
@@ -708,14 +780,28 @@ public class Config {
 
     scopeStrictMode =
         getPropertyBooleanValue(properties, SCOPE_STRICT_MODE, parent.scopeStrictMode);
+    scopePoolingEnabled =
+        getPropertyBooleanValue(properties, SCOPE_POOLING_ENABLED, parent.scopePoolingEnabled);
 
     partialFlushMinSpans =
         getPropertyIntegerValue(properties, PARTIAL_FLUSH_MIN_SPANS, parent.partialFlushMinSpans);
 
+    spanBufferEnabled =
+        getPropertyBooleanValue(properties, SPAN_BUFFER_ENABLED, parent.spanBufferEnabled);
+
+    spanLeakDetectionEnabled =
+        getPropertyBooleanValue(
+            properties, SPAN_LEAK_DETECTION_ENABLED, parent.spanLeakDetectionEnabled);
+
+    pendingTraceMaxAge =
+        getPropertyIntegerValue(properties, PENDING_TRACE_MAX_AGE, parent.pendingTraceMaxAge);
+
     runtimeContextFieldInjection =
         getPropertyBooleanValue(
             properties, RUNTIME_CONTEXT_FIELD_INJECTION, parent.runtimeContextFieldInjection);
 
+    muzzleCacheFile = properties.getProperty(MUZZLE_CACHE_FILE, parent.muzzleCacheFile);
+
     final Set<PropagationStyle> parsedPropagationStylesToExtract =
         getPropagationStyleSetFromPropertyValue(properties, PROPAGATION_STYLE_EXTRACT);
     propagationStylesToExtract =
@@ -796,6 +882,11 @@ public class Config {
             properties, PROFILING_UPLOAD_TIMEOUT, parent.profilingUploadTimeout);
     profilingUploadCompression =
         properties.getProperty(PROFILING_UPLOAD_COMPRESSION, parent.profilingUploadCompression);
+    profilingUploadCompressionThreads =
+        getPropertyIntegerValue(
+            properties,
+            PROFILING_UPLOAD_COMPRESSION_THREADS,
+            parent.profilingUploadCompressionThreads);
     profilingProxyHost = properties.getProperty(PROFILING_PROXY_HOST, parent.profilingProxyHost);
     profilingProxyPort =
         getPropertyIntegerValue(properties, PROFILING_PROXY_PORT, parent.profilingProxyPort);
@@ -835,6 +926,10 @@ public class Config {
             KAFKA_CLIENT_BASE64_DECODING_ENABLED,
             parent.kafkaClientBase64DecodingEnabled);
 
+    kafkaClientBatchSpansEnabled =
+        getPropertyBooleanValue(
+            properties, KAFKA_CLIENT_BATCH_SPANS_ENABLED, parent.kafkaClientBatchSpansEnabled);
+
     log.debug("New instance: {}", this);
   }
 
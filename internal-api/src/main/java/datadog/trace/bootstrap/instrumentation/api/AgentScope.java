@@ -2,7 +2,6 @@ package datadog.trace.bootstrap.instrumentation.api;
 
 import datadog.trace.context.TraceScope;
 import java.io.Closeable;
-import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.Set;
 
@@ -18,7 +17,8 @@ public interface AgentScope extends TraceScope, Closeable {
   interface Continuation extends TraceScope.Continuation {
     boolean isRegistered();
 
-    WeakReference<Continuation> register(ReferenceQueue referenceQueue);
+    /** Keeps the weak reference the trace tracks this continuation with. */
+    void register(WeakReference<Continuation> reference);
 
     void cancel(Set<WeakReference<AgentScope.Continuation>> weakReferences);
   }
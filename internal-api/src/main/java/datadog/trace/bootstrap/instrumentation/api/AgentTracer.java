@@ -7,7 +7,6 @@ import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan.Context;
 import datadog.trace.context.ScopeListener;
 import datadog.trace.context.TraceScope;
-import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.Map;
@@ -470,9 +469,7 @@ public class AgentTracer {
     }
 
     @Override
-    public WeakReference<AgentScope.Continuation> register(final ReferenceQueue referenceQueue) {
-      return new WeakReference<>(null);
-    }
+    public void register(final WeakReference<AgentScope.Continuation> reference) {}
 
     @Override
     public void cancel(final Set<WeakReference<AgentScope.Continuation>> weakReferences) {}
@@ -82,7 +82,17 @@ import static datadog.trace.api.DDTags.LANGUAGE_TAG_VALUE
 import static datadog.trace.api.DDTags.RUNTIME_ID_TAG
 import static datadog.trace.api.DDTags.SERVICE
 import static datadog.trace.api.DDTags.SERVICE_TAG
+import static datadog.trace.api.config.ProfilingConfig.PROFILING_UPLOAD_COMPRESSION_THREADS
 import static datadog.trace.api.config.TraceInstrumentationConfig.DB_CLIENT_HOST_SPLIT_BY_INSTANCE
+import static datadog.trace.api.config.TraceInstrumentationConfig.JDBC_SQL_NORMALIZATION_ENABLED
+import static datadog.trace.api.config.TraceInstrumentationConfig.KAFKA_CLIENT_BATCH_SPANS_ENABLED
+import static datadog.trace.api.config.TraceInstrumentationConfig.MUZZLE_CACHE_FILE
+import static datadog.trace.api.config.TracerConfig.PENDING_TRACE_MAX_AGE
+import static datadog.trace.api.config.TracerConfig.SCOPE_POOLING_ENABLED
+import static datadog.trace.api.config.TracerConfig.SPAN_BUFFER_ENABLED
+import static datadog.trace.api.config.TracerConfig.SPAN_LEAK_DETECTION_ENABLED
+import static datadog.trace.api.config.TracerConfig.TRACE_SERIALIZER_THREADS
+import static datadog.trace.api.config.TracerConfig.TRACE_STATS_COMPUTATION_ENABLED
 
 class ConfigTest extends DDSpecification {
   @Rule
@@ -151,6 +161,15 @@ class ConfigTest extends DDSpecification {
     config.jmxFetchRefreshBeansPeriod == null
     config.jmxFetchStatsdHost == null
     config.jmxFetchStatsdPort == DEFAULT_JMX_FETCH_STATSD_PORT
+    config.spanBufferEnabled == false
+    config.spanLeakDetectionEnabled == true
+    config.pendingTraceMaxAge == 0
+    config.traceSerializerThreads == 1
+    config.muzzleCacheFile == null
+    config.scopePoolingEnabled == false
+    config.jdbcSqlNormalizationEnabled == false
+    config.traceStatsComputationEnabled == false
+    config.kafkaClientBatchSpansEnabled == false
 
     config.healthMetricsEnabled == false
     config.healthMetricsStatsdHost == null
@@ -171,6 +190,7 @@ class ConfigTest extends DDSpecification {
     config.profilingExceptionSampleLimit == DEFAULT_PROFILING_EXCEPTION_SAMPLE_LIMIT
     config.profilingExceptionHistogramTopItems == DEFAULT_PROFILING_EXCEPTION_HISTOGRAM_TOP_ITEMS
     config.profilingExceptionHistogramMaxCollectionSize == DEFAULT_PROFILING_EXCEPTION_HISTOGRAM_MAX_COLLECTION_SIZE
+    config.profilingUploadCompressionThreads == 1
 
     config.toString().contains("unnamed-java-app")
 
@@ -224,6 +244,15 @@ class ConfigTest extends DDSpecification {
     prop.setProperty(TRACE_SAMPLING_OPERATION_RULES, "b:1")
     prop.setProperty(TRACE_SAMPLE_RATE, ".5")
     prop.setProperty(TRACE_RATE_LIMIT, "200")
+    prop.setProperty(SPAN_BUFFER_ENABLED, "true")
+    prop.setProperty(SPAN_LEAK_DETECTION_ENABLED, "false")
+    prop.setProperty(PENDING_TRACE_MAX_AGE, "60")
+    prop.setProperty(TRACE_SERIALIZER_THREADS, "4")
+    prop.setProperty(MUZZLE_CACHE_FILE, "/tmp/muzzle.cache")
+    prop.setProperty(SCOPE_POOLING_ENABLED, "true")
+    prop.setProperty(JDBC_SQL_NORMALIZATION_ENABLED, "true")
+    prop.setProperty(TRACE_STATS_COMPUTATION_ENABLED, "true")
+    prop.setProperty(KAFKA_CLIENT_BATCH_SPANS_ENABLED, "true")
 
     prop.setProperty(PROFILING_ENABLED, "true")
     prop.setProperty(PROFILING_URL, "new url")
@@ -241,6 +270,7 @@ class ConfigTest extends DDSpecification {
     prop.setProperty(PROFILING_EXCEPTION_SAMPLE_LIMIT, "811")
     prop.setProperty(PROFILING_EXCEPTION_HISTOGRAM_TOP_ITEMS, "1121")
     prop.setProperty(PROFILING_EXCEPTION_HISTOGRAM_MAX_COLLECTION_SIZE, "1122")
+    prop.setProperty(PROFILING_UPLOAD_COMPRESSION_THREADS, "4")
 
     when:
     Config config = Config.get(prop)
@@ -284,6 +314,15 @@ class ConfigTest extends DDSpecification {
     config.traceSamplingOperationRules == [b: "1"]
     config.traceSampleRate == 0.5
     config.traceRateLimit == 200
+    config.spanBufferEnabled == true
+    config.spanLeakDetectionEnabled == false
+    config.pendingTraceMaxAge == 60
+    config.traceSerializerThreads == 4
+    config.muzzleCacheFile == "/tmp/muzzle.cache"
+    config.scopePoolingEnabled == true
+    config.jdbcSqlNormalizationEnabled == true
+    config.traceStatsComputationEnabled == true
+    config.kafkaClientBatchSpansEnabled == true
 
     config.profilingEnabled == true
     config.profilingUrl == "new url"
@@ -301,6 +340,7 @@ class ConfigTest extends DDSpecification {
     config.profilingExceptionSampleLimit == 811
     config.profilingExceptionHistogramTopItems == 1121
     config.profilingExceptionHistogramMaxCollectionSize == 1122
+    config.profilingUploadCompressionThreads == 4
   }
 
   def "specify overrides via system properties"() {
@@ -344,6 +384,15 @@ class ConfigTest extends DDSpecification {
     System.setProperty(PREFIX + TRACE_SAMPLING_OPERATION_RULES, "b:1")
     System.setProperty(PREFIX + TRACE_SAMPLE_RATE, ".5")
     System.setProperty(PREFIX + TRACE_RATE_LIMIT, "200")
+    System.setProperty(PREFIX + SPAN_BUFFER_ENABLED, "true")
+    System.setProperty(PREFIX + SPAN_LEAK_DETECTION_ENABLED, "false")
+    System.setProperty(PREFIX + PENDING_TRACE_MAX_AGE, "60")
+    System.setProperty(PREFIX + TRACE_SERIALIZER_THREADS, "4")
+    System.setProperty(PREFIX + MUZZLE_CACHE_FILE, "/tmp/muzzle.cache")
+    System.setProperty(PREFIX + SCOPE_POOLING_ENABLED, "true")
+    System.setProperty(PREFIX + JDBC_SQL_NORMALIZATION_ENABLED, "true")
+    System.setProperty(PREFIX + TRACE_STATS_COMPUTATION_ENABLED, "true")
+    System.setProperty(PREFIX + KAFKA_CLIENT_BATCH_SPANS_ENABLED, "true")
 
     System.setProperty(PREFIX + PROFILING_ENABLED, "true")
     System.setProperty(PREFIX + PROFILING_URL, "new url")
@@ -361,6 +410,7 @@ class ConfigTest extends DDSpecification {
     System.setProperty(PREFIX + PROFILING_EXCEPTION_SAMPLE_LIMIT, "811")
     System.setProperty(PREFIX + PROFILING_EXCEPTION_HISTOGRAM_TOP_ITEMS, "1121")
     System.setProperty(PREFIX + PROFILING_EXCEPTION_HISTOGRAM_MAX_COLLECTION_SIZE, "1122")
+    System.setProperty(PREFIX + PROFILING_UPLOAD_COMPRESSION_THREADS, "4")
 
     when:
     Config config = new Config()
@@ -404,6 +454,15 @@ class ConfigTest extends DDSpecification {
     config.traceSamplingOperationRules == [b: "1"]
     config.traceSampleRate == 0.5
     config.traceRateLimit == 200
+    config.spanBufferEnabled == true
+    config.spanLeakDetectionEnabled == false
+    config.pendingTraceMaxAge == 60
+    config.traceSerializerThreads == 4
+    config.muzzleCacheFile == "/tmp/muzzle.cache"
+    config.scopePoolingEnabled == true
+    config.jdbcSqlNormalizationEnabled == true
+    config.traceStatsComputationEnabled == true
+    config.kafkaClientBatchSpansEnabled == true
 
     config.profilingEnabled == true
     config.profilingUrl == "new url"
@@ -421,6 +480,7 @@ class ConfigTest extends DDSpecification {
     config.profilingExceptionSampleLimit == 811
     config.profilingExceptionHistogramTopItems == 1121
     config.profilingExceptionHistogramMaxCollectionSize == 1122
+    config.profilingUploadCompressionThreads == 4
   }
 
   def "specify overrides via env vars"() {
@@ -433,6 +493,16 @@ class ConfigTest extends DDSpecification {
     environmentVariables.set(DD_PROPAGATION_STYLE_INJECT, "Datadog B3")
     environmentVariables.set(DD_JMXFETCH_METRICS_CONFIGS_ENV, "some/file")
     environmentVariables.set(DD_TRACE_REPORT_HOSTNAME, "true")
+    environmentVariables.set("DD_TRACE_SPAN_BUFFER_ENABLED", "true")
+    environmentVariables.set("DD_TRACE_SPAN_LEAK_DETECTION_ENABLED", "false")
+    environmentVariables.set("DD_TRACE_PENDING_MAX_AGE", "60")
+    environmentVariables.set("DD_TRACE_SERIALIZER_THREADS", "4")
+    environmentVariables.set("DD_TRACE_MUZZLE_CACHE_FILE", "/tmp/muzzle.cache")
+    environmentVariables.set("DD_TRACE_SCOPE_POOLING_ENABLED", "true")
+    environmentVariables.set("DD_TRACE_JDBC_SQL_NORMALIZATION_ENABLED", "true")
+    environmentVariables.set("DD_TRACE_STATS_COMPUTATION_ENABLED", "true")
+    environmentVariables.set("DD_PROFILING_UPLOAD_COMPRESSION_THREADS", "4")
+    environmentVariables.set("DD_KAFKA_CLIENT_BATCH_SPANS_ENABLED", "true")
 
     when:
     def config = new Config()
@@ -446,6 +516,16 @@ class ConfigTest extends DDSpecification {
     config.propagationStylesToInject.toList() == [PropagationStyle.DATADOG, PropagationStyle.B3]
     config.jmxFetchMetricsConfigs == ["some/file"]
     config.reportHostName == true
+    config.spanBufferEnabled == true
+    config.spanLeakDetectionEnabled == false
+    config.pendingTraceMaxAge == 60
+    config.traceSerializerThreads == 4
+    config.muzzleCacheFile == "/tmp/muzzle.cache"
+    config.scopePoolingEnabled == true
+    config.jdbcSqlNormalizationEnabled == true
+    config.traceStatsComputationEnabled == true
+    config.profilingUploadCompressionThreads == 4
+    config.kafkaClientBatchSpansEnabled == true
   }
 
   def "sys props override env vars"() {